@@ -0,0 +1,9 @@
+package app.analytics.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+// Spending per category and month, newest month first, with all-time totals per category
+public record SpendingBreakdown(List <SpendingRow> months, Map <String, BigDecimal> totalsByCategory) {
+}
@@ -0,0 +1,7 @@
+package app.analytics.model;
+
+import java.math.BigDecimal;
+
+// One category in one calendar month; category is a BillCategory name or WITHDRAWAL
+public record SpendingRow(String category, int year, int month, BigDecimal total, long count) {
+}
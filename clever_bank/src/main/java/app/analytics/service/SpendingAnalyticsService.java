@@ -0,0 +1,108 @@
+package app.analytics.service;
+
+import app.analytics.model.SpendingBreakdown;
+import app.analytics.model.SpendingRow;
+import app.bills_utility.repository.BillRepository;
+import app.transaction.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class SpendingAnalyticsService {
+
+    public static final String SPENDING_CACHE = "spendingAnalytics";
+
+    private final BillRepository billRepository;
+    private final TransactionRepository transactionRepository;
+    private final CacheManager cacheManager;
+
+
+    @Autowired
+    public SpendingAnalyticsService(BillRepository billRepository,
+                                    TransactionRepository transactionRepository,
+                                    CacheManager cacheManager) {
+        this.billRepository = billRepository;
+        this.transactionRepository = transactionRepository;
+        this.cacheManager = cacheManager;
+    }
+
+
+
+
+    // Paid bills by category plus withdrawals, per month. Both sides are grouped in the database,
+    // so the result is O(months x categories) rows however long the history is.
+    @Cacheable(value = SPENDING_CACHE, key = "#customerId")
+    public SpendingBreakdown getSpendingBreakdown(UUID customerId) {
+
+        List <SpendingRow> rows = new ArrayList <> (billRepository.sumPaidByCategoryAndMonth (customerId));
+        rows.addAll (transactionRepository.sumWithdrawalsByMonth (customerId));
+
+        rows.sort (Comparator.comparingInt (SpendingRow::year).reversed ()
+                .thenComparing (Comparator.comparingInt (SpendingRow::month).reversed ())
+                .thenComparing (SpendingRow::category));
+
+        Map <String, BigDecimal> totals = new TreeMap <> ();
+        for (SpendingRow row : rows) {
+            totals.merge (row.category (), row.total (), BigDecimal::add);
+        }
+
+        return new SpendingBreakdown (List.copyOf (rows), Collections.unmodifiableMap (totals));
+    }
+
+
+
+
+    // Drops the cached breakdown now and again once the surrounding transaction commits,
+    // so a read racing the write cannot leave a stale entry behind.
+    public void evictAfterCommit(UUID customerId) {
+
+        Cache cache = cacheManager.getCache (SPENDING_CACHE);
+        if (cache != null) {
+            runNowAndAfterCommit (() -> cache.evict (customerId));
+        }
+    }
+
+
+
+
+    // bulk jobs such as the monthly fee run touch every customer
+    public void clearAfterCommit() {
+
+        Cache cache = cacheManager.getCache (SPENDING_CACHE);
+        if (cache != null) {
+            runNowAndAfterCommit (cache::clear);
+        }
+    }
+
+
+
+    private static void runNowAndAfterCommit(Runnable eviction) {
+
+        eviction.run ();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive ()) {
+            TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                @Override
+                public void afterCommit() {
+                    eviction.run ();
+                }
+            });
+        }
+    }
+}
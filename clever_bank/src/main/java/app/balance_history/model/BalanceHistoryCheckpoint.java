@@ -0,0 +1,31 @@
+package app.balance_history.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// How far the compactor has rolled RAW points up, as the (bucketStart, pocketId) of the last one
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "balance_history_checkpoints")
+public class BalanceHistoryCheckpoint {
+
+    @Id
+    @Column(length = 16)
+    private String series;
+
+    @Column(nullable = false)
+    private LocalDateTime compactedUntil;
+
+    @Column(nullable = false)
+    private UUID lastPocketId;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
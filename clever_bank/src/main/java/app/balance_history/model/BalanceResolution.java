@@ -0,0 +1,9 @@
+package app.balance_history.model;
+
+public enum BalanceResolution {
+
+    // one point per balance change, kept for balance-history.raw-retention
+    RAW,
+    DAY,
+    MONTH
+}
@@ -0,0 +1,54 @@
+package app.balance_history.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Balance time-series of a pocket. RAW points are written as balances change, DAY and MONTH buckets
+// are rolled up from them by the compactor. The key doubles as the index a chart range is read from.
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(PocketBalancePointId.class)
+@Table(name = "pocket_balance_series",
+        indexes = @Index(name = "idx_balance_series_resolution_bucket", columnList = "resolution, bucketStart, pocketId"))
+public class PocketBalancePoint {
+
+    @Id
+    @Column(nullable = false)
+    private UUID pocketId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private BalanceResolution resolution;
+
+    @Id
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private BigDecimal openBalance;
+
+    @Column(nullable = false)
+    private BigDecimal closeBalance;
+
+    @Column(nullable = false)
+    private BigDecimal minBalance;
+
+    @Column(nullable = false)
+    private BigDecimal maxBalance;
+
+    // balance changes folded into this point
+    @Column(nullable = false)
+    private long changes;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
@@ -0,0 +1,21 @@
+package app.balance_history.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PocketBalancePointId implements Serializable {
+
+    private UUID pocketId;
+
+    private BalanceResolution resolution;
+
+    private LocalDateTime bucketStart;
+}
@@ -0,0 +1,21 @@
+package app.balance_history.repository;
+
+import app.balance_history.model.BalanceHistoryCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BalanceHistoryCheckpointRepository extends JpaRepository <BalanceHistoryCheckpoint, String> {
+
+
+    // compactors on several instances take turns instead of rolling the same points up twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM BalanceHistoryCheckpoint c WHERE c.series = :series")
+    Optional <BalanceHistoryCheckpoint> findBySeriesForUpdate(@Param("series") String series);
+}
@@ -0,0 +1,150 @@
+package app.balance_history.repository;
+
+import app.balance_history.model.BalanceResolution;
+import app.balance_history.model.PocketBalancePoint;
+import app.balance_history.model.PocketBalancePointId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PocketBalancePointRepository extends JpaRepository <PocketBalancePoint, PocketBalancePointId> {
+
+
+    // one range scan of the primary key: pocket, resolution, then bucket start
+    @Query("""
+        SELECT p FROM PocketBalancePoint p
+        WHERE p.pocketId = :pocketId
+          AND p.resolution = :resolution
+          AND p.bucketStart >= :from
+          AND p.bucketStart < :to
+        ORDER BY p.bucketStart
+        """)
+    List <PocketBalancePoint> findSeries(@Param("pocketId") UUID pocketId,
+                                         @Param("resolution") BalanceResolution resolution,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to,
+                                         Pageable pageable);
+
+
+    // RAW points after the compaction checkpoint, in the order they are rolled up
+    @Query("""
+        SELECT p FROM PocketBalancePoint p
+        WHERE p.resolution = app.balance_history.model.BalanceResolution.RAW
+          AND p.bucketStart < :cutoff
+          AND (p.bucketStart > :after OR (p.bucketStart = :after AND p.pocketId > :afterPocketId))
+        ORDER BY p.bucketStart, p.pocketId
+        """)
+    List <PocketBalancePoint> findRawAfter(@Param("cutoff") LocalDateTime cutoff,
+                                           @Param("after") LocalDateTime after,
+                                           @Param("afterPocketId") UUID afterPocketId,
+                                           Pageable pageable);
+
+
+    // one resolution of several pockets over a range, per pocket oldest first - what their buckets are rebuilt from
+    @Query("""
+        SELECT p FROM PocketBalancePoint p
+        WHERE p.pocketId IN :pocketIds
+          AND p.resolution = :resolution
+          AND p.bucketStart >= :from
+          AND p.bucketStart < :to
+        ORDER BY p.pocketId, p.bucketStart
+        """)
+    List <PocketBalancePoint> findSeriesOf(@Param("pocketIds") Collection <UUID> pocketIds,
+                                           @Param("resolution") BalanceResolution resolution,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
+
+
+    // Points of one bucket arrive oldest first, so an existing bucket keeps its open balance and
+    // takes the incoming close balance
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO pocket_balance_series
+            (pocket_id, resolution, bucket_start, open_balance, close_balance, min_balance, max_balance, changes, updated_on)
+        VALUES (:pocketId, :resolution, :bucketStart, :openBalance, :closeBalance, :minBalance, :maxBalance, :changes, CURRENT_TIMESTAMP)
+        ON DUPLICATE KEY UPDATE
+            close_balance = :closeBalance,
+            min_balance = LEAST(min_balance, :minBalance),
+            max_balance = GREATEST(max_balance, :maxBalance),
+            changes = changes + :changes,
+            updated_on = CURRENT_TIMESTAMP
+        """, nativeQuery = true)
+    int addToBucket(@Param("pocketId") UUID pocketId,
+                    @Param("resolution") String resolution,
+                    @Param("bucketStart") LocalDateTime bucketStart,
+                    @Param("openBalance") BigDecimal openBalance,
+                    @Param("closeBalance") BigDecimal closeBalance,
+                    @Param("minBalance") BigDecimal minBalance,
+                    @Param("maxBalance") BigDecimal maxBalance,
+                    @Param("changes") long changes);
+
+
+    // writes a rebuilt bucket over whatever it held, so rebuilding the same bucket twice changes nothing
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO pocket_balance_series
+            (pocket_id, resolution, bucket_start, open_balance, close_balance, min_balance, max_balance, changes, updated_on)
+        VALUES (:pocketId, :resolution, :bucketStart, :openBalance, :closeBalance, :minBalance, :maxBalance, :changes, CURRENT_TIMESTAMP)
+        ON DUPLICATE KEY UPDATE
+            open_balance = :openBalance,
+            close_balance = :closeBalance,
+            min_balance = :minBalance,
+            max_balance = :maxBalance,
+            changes = :changes,
+            updated_on = CURRENT_TIMESTAMP
+        """, nativeQuery = true)
+    int putBucket(@Param("pocketId") UUID pocketId,
+                  @Param("resolution") String resolution,
+                  @Param("bucketStart") LocalDateTime bucketStart,
+                  @Param("openBalance") BigDecimal openBalance,
+                  @Param("closeBalance") BigDecimal closeBalance,
+                  @Param("minBalance") BigDecimal minBalance,
+                  @Param("maxBalance") BigDecimal maxBalance,
+                  @Param("changes") long changes);
+
+
+    // the monthly fee run adds one RAW point per charged pocket, read before the fee is taken
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO pocket_balance_series
+            (pocket_id, resolution, bucket_start, open_balance, close_balance, min_balance, max_balance, changes, updated_on)
+        SELECT b.pocket_id, 'RAW', :now, b.balance, b.balance, b.balance, b.balance, 1, CURRENT_TIMESTAMP
+        FROM (SELECT p.id AS pocket_id,
+                     p.balance + COALESCE((SELECT SUM(s.amount) FROM pocket_balance_shards s WHERE s.pocket_id = p.id), 0) - :fee AS balance
+              FROM pockets p
+              WHERE p.id IN (:pocketIds)) b
+        ON DUPLICATE KEY UPDATE
+            close_balance = VALUES(close_balance),
+            min_balance = LEAST(min_balance, VALUES(min_balance)),
+            max_balance = GREATEST(max_balance, VALUES(max_balance)),
+            changes = changes + 1,
+            updated_on = CURRENT_TIMESTAMP
+        """, nativeQuery = true)
+    int addFeePoints(@Param("pocketIds") Collection <UUID> pocketIds,
+                     @Param("now") LocalDateTime now,
+                     @Param("fee") BigDecimal fee);
+
+
+    @Transactional
+    @Modifying
+    @Query("""
+        DELETE FROM PocketBalancePoint p
+        WHERE p.resolution = app.balance_history.model.BalanceResolution.RAW
+          AND p.bucketStart < :before
+        """)
+    int deleteRawBefore(@Param("before") LocalDateTime before);
+}
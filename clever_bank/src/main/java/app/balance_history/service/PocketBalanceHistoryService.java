@@ -0,0 +1,319 @@
+package app.balance_history.service;
+
+import app.balance_history.model.BalanceHistoryCheckpoint;
+import app.balance_history.model.BalanceResolution;
+import app.balance_history.model.PocketBalancePoint;
+import app.balance_history.model.PocketBalancePointId;
+import app.balance_history.repository.BalanceHistoryCheckpointRepository;
+import app.balance_history.repository.PocketBalancePointRepository;
+import app.exception.DomainException;
+import app.pocket.repository.PocketRepository;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.Transactions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+
+// Maintains the pocket balance time-series: a RAW point for every SUCCEEDED journal row, rolled up
+// into DAY and MONTH buckets by the compactor, so a chart is one read of a single resolution.
+@Slf4j
+@Service
+public class PocketBalanceHistoryService {
+
+    public static final int MAX_POINTS = 5000;
+    private static final String RAW_SERIES = "RAW";
+    private static final int RAW_MAX_DAYS = 2;
+    private static final int DAY_MAX_DAYS = 366;
+
+    private final PocketBalancePointRepository pointRepository;
+    private final BalanceHistoryCheckpointRepository checkpointRepository;
+    private final PocketRepository pocketRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration compactionLag;
+    private final Duration rescanWindow;
+    private final Duration rawRetention;
+    private final int compactionPageSize;
+
+
+    @Autowired
+    public PocketBalanceHistoryService(PocketBalancePointRepository pointRepository,
+                                       BalanceHistoryCheckpointRepository checkpointRepository,
+                                       PocketRepository pocketRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${balance-history.compaction-lag:PT1M}") Duration compactionLag,
+                                       @Value("${balance-history.rescan-window:PT10M}") Duration rescanWindow,
+                                       @Value("${balance-history.raw-retention:P7D}") Duration rawRetention,
+                                       @Value("${balance-history.compaction-page-size:1000}") int compactionPageSize) {
+        this.pointRepository = pointRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.pocketRepository = pocketRepository;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+        this.compactionLag = compactionLag;
+        this.rescanWindow = rescanWindow;
+        this.rawRetention = rawRetention;
+        this.compactionPageSize = Math.max (compactionPageSize, 1);
+    }
+
+
+
+
+    // Balance points of a pocket owned by the customer, oldest first. Without a resolution ranges
+    // up to two days come from RAW points, up to a year from DAY buckets and longer ones from MONTH.
+    public List <PocketBalancePoint> getBalanceHistory(UUID pocketId, UUID customerId, LocalDate from, LocalDate to,
+                                                       BalanceResolution resolution) {
+
+        pocketRepository.findOwnerIdById (pocketId)
+                .filter (customerId::equals)
+                .orElseThrow (() -> new DomainException ("Pocket with id %s not found and customer id %s not found"
+                        .formatted (pocketId, customerId), HttpStatus.BAD_REQUEST));
+
+        if (to.isBefore (from)) {
+            throw new DomainException ("Balance history range ends before it starts", HttpStatus.BAD_REQUEST);
+        }
+
+        BalanceResolution chosen = resolution != null ? resolution : resolutionFor (from, to);
+        LocalDate start = chosen == BalanceResolution.MONTH ? from.withDayOfMonth (1) : from;
+
+        return pointRepository.findSeries (pocketId, chosen, start.atStartOfDay (), to.plusDays (1).atStartOfDay (),
+                PageRequest.ofSize (MAX_POINTS));
+    }
+
+
+
+
+    public void record(Transactions transaction) {
+        recordAll (List.of (transaction));
+    }
+
+
+
+
+    // Rows of one pocket stamped with the same instant are folded into a single RAW point
+    public void recordAll(List <Transactions> transactions) {
+
+        Map <PocketBalancePointId, Bucket> points = new LinkedHashMap <> ();
+
+        for (Transactions transaction : transactions) {
+
+            if (transaction.getStatus () != TransactionStatus.SUCCEEDED || transaction.getPocket () == null
+                    || transaction.getRemainingBalance () == null) {
+                continue;
+            }
+
+            PocketBalancePointId id = new PocketBalancePointId (transaction.getPocket ().getId (),
+                    BalanceResolution.RAW, transaction.getCreatedOn ());
+
+            points.computeIfAbsent (id, key -> new Bucket ()).add (transaction.getRemainingBalance (),
+                    transaction.getRemainingBalance (), transaction.getRemainingBalance (), transaction.getRemainingBalance (), 1);
+        }
+
+        points.forEach (this::addToBucket);
+    }
+
+
+
+
+    public int compact() {
+        return compact (LocalDateTime.now ().minus (compactionLag));
+    }
+
+
+
+
+    // Rolls RAW points older than the cutoff into DAY and MONTH buckets, a page per transaction that
+    // also moves the checkpoint, then drops RAW points that are compacted and past retention.
+    // A row is stamped before its transaction commits, so a RAW point can show up behind the checkpoint.
+    // Each run therefore re-reads rescan-window before the checkpoint, and every bucket a page touches is
+    // rebuilt from its source points rather than added to, which makes reading a point twice harmless.
+    // Returns the points past the checkpoint the run started from.
+    public int compact(LocalDateTime cutoff) {
+
+        BalanceHistoryCheckpoint start = transactionTemplate.execute (status -> lockCheckpoint ());
+
+        LocalDateTime after = start.getCompactedUntil ().minus (rescanWindow);
+        UUID afterPocketId = new UUID (0, 0);
+        int compacted = 0;
+        Page page;
+
+        do {
+            LocalDateTime pageAfter = after;
+            UUID pageAfterPocketId = afterPocketId;
+            page = transactionTemplate.execute (status -> compactPage (cutoff, pageAfter, pageAfterPocketId, start));
+
+            compacted += page.fresh ();
+            after = page.lastBucketStart ();
+            afterPocketId = page.lastPocketId ();
+        } while (page.size () == compactionPageSize);
+
+        // RAW points stay while the rescan window may still rebuild their day
+        LocalDateTime compactedUntil = checkpointRepository.findById (RAW_SERIES)
+                .map (BalanceHistoryCheckpoint::getCompactedUntil)
+                .orElse (cutoff)
+                .minus (rescanWindow)
+                .truncatedTo (ChronoUnit.DAYS);
+        LocalDateTime retainedFrom = LocalDateTime.now ().minus (rawRetention);
+        int pruned = pointRepository.deleteRawBefore (compactedUntil.isBefore (retainedFrom) ? compactedUntil : retainedFrom);
+
+        if (compacted > 0 || pruned > 0) {
+            log.info ("Balance history compaction: %d raw points rolled up, %d pruned".formatted (compacted, pruned));
+        }
+
+        return compacted;
+    }
+
+
+
+    private BalanceHistoryCheckpoint lockCheckpoint() {
+
+        return checkpointRepository.findBySeriesForUpdate (RAW_SERIES)
+                .orElseGet (() -> checkpointRepository.save (BalanceHistoryCheckpoint.builder ()
+                        .series (RAW_SERIES)
+                        .compactedUntil (LocalDateTime.of (1970, 1, 1, 0, 0))
+                        .lastPocketId (new UUID (0, 0))
+                        .updatedOn (LocalDateTime.now ())
+                        .build ()));
+    }
+
+
+
+    private Page compactPage(LocalDateTime cutoff, LocalDateTime after, UUID afterPocketId, BalanceHistoryCheckpoint start) {
+
+        BalanceHistoryCheckpoint checkpoint = lockCheckpoint ();
+
+        List <PocketBalancePoint> raw = pointRepository.findRawAfter (cutoff, after, afterPocketId, PageRequest.ofSize (compactionPageSize));
+
+        if (raw.isEmpty ()) {
+            return new Page (0, 0, after, afterPocketId);
+        }
+
+        Set <PocketBalancePointId> days = new LinkedHashSet <> ();
+        Set <PocketBalancePointId> months = new LinkedHashSet <> ();
+        int fresh = 0;
+
+        for (PocketBalancePoint point : raw) {
+
+            LocalDateTime day = point.getBucketStart ().truncatedTo (ChronoUnit.DAYS);
+            days.add (new PocketBalancePointId (point.getPocketId (), BalanceResolution.DAY, day));
+            months.add (new PocketBalancePointId (point.getPocketId (), BalanceResolution.MONTH, day.withDayOfMonth (1)));
+
+            if (isAfter (point.getBucketStart (), point.getPocketId (), start.getCompactedUntil (), start.getLastPocketId ())) {
+                fresh++;
+            }
+        }
+
+        // days from their RAW points up to the cutoff, then months from their days
+        rebuild (days, BalanceResolution.RAW, cutoff, point -> point.getBucketStart ().truncatedTo (ChronoUnit.DAYS), BalanceResolution.DAY);
+        rebuild (months, BalanceResolution.DAY, cutoff, point -> point.getBucketStart ().withDayOfMonth (1),
+                BalanceResolution.MONTH);
+
+        PocketBalancePoint last = raw.get (raw.size () - 1);
+        if (isAfter (last.getBucketStart (), last.getPocketId (), checkpoint.getCompactedUntil (), checkpoint.getLastPocketId ())) {
+            checkpoint.setCompactedUntil (last.getBucketStart ());
+            checkpoint.setLastPocketId (last.getPocketId ());
+        }
+        checkpoint.setUpdatedOn (LocalDateTime.now ());
+        checkpointRepository.save (checkpoint);
+
+        return new Page (raw.size (), fresh, last.getBucketStart (), last.getPocketId ());
+    }
+
+
+
+    // Folds the source points of every touched bucket, read in one range query, and writes the buckets whole
+    private void rebuild(Set <PocketBalancePointId> touched, BalanceResolution source, LocalDateTime cutoff,
+                         Function <PocketBalancePoint, LocalDateTime> bucketOf, BalanceResolution target) {
+
+        Set <UUID> pocketIds = new HashSet <> ();
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+
+        for (PocketBalancePointId key : touched) {
+            LocalDateTime end = target == BalanceResolution.DAY ? key.getBucketStart ().plusDays (1) : key.getBucketStart ().plusMonths (1);
+            pocketIds.add (key.getPocketId ());
+            from = from == null || key.getBucketStart ().isBefore (from) ? key.getBucketStart () : from;
+            to = to == null || end.isAfter (to) ? end : to;
+        }
+
+        Map <PocketBalancePointId, Bucket> buckets = new LinkedHashMap <> ();
+        for (PocketBalancePoint point : pointRepository.findSeriesOf (pocketIds, source, from, to.isAfter (cutoff) ? cutoff : to)) {
+
+            PocketBalancePointId key = new PocketBalancePointId (point.getPocketId (), target, bucketOf.apply (point));
+            if (touched.contains (key)) {
+                buckets.computeIfAbsent (key, ignored -> new Bucket ()).add (point);
+            }
+        }
+
+        buckets.forEach ((id, bucket) -> pointRepository.putBucket (id.getPocketId (), id.getResolution ().name (), id.getBucketStart (),
+                bucket.open, bucket.close, bucket.min, bucket.max, bucket.changes));
+    }
+
+
+
+    private static boolean isAfter(LocalDateTime bucketStart, UUID pocketId, LocalDateTime afterStart, UUID afterPocketId) {
+        return bucketStart.isAfter (afterStart) || (bucketStart.isEqual (afterStart) && pocketId.compareTo (afterPocketId) > 0);
+    }
+
+
+
+    private void addToBucket(PocketBalancePointId id, Bucket bucket) {
+
+        pointRepository.addToBucket (id.getPocketId (), id.getResolution ().name (), id.getBucketStart (),
+                bucket.open, bucket.close, bucket.min, bucket.max, bucket.changes);
+    }
+
+
+
+    private static BalanceResolution resolutionFor(LocalDate from, LocalDate to) {
+
+        long days = ChronoUnit.DAYS.between (from, to) + 1;
+
+        if (days <= RAW_MAX_DAYS) {
+            return BalanceResolution.RAW;
+        }
+        return days <= DAY_MAX_DAYS ? BalanceResolution.DAY : BalanceResolution.MONTH;
+    }
+
+
+
+
+    private record Page(int size, int fresh, LocalDateTime lastBucketStart, UUID lastPocketId) {
+    }
+
+    private static final class Bucket {
+
+        private BigDecimal open;
+        private BigDecimal close;
+        private BigDecimal min;
+        private BigDecimal max;
+        private long changes;
+
+        private void add(PocketBalancePoint point) {
+            add (point.getOpenBalance (), point.getCloseBalance (), point.getMinBalance (), point.getMaxBalance (), point.getChanges ());
+        }
+
+        private void add(BigDecimal pointOpen, BigDecimal pointClose, BigDecimal pointMin, BigDecimal pointMax, long pointChanges) {
+            if (open == null) {
+                open = pointOpen;
+                min = pointMin;
+                max = pointMax;
+            }
+            close = pointClose;
+            min = min.min (pointMin);
+            max = max.max (pointMax);
+            changes += pointChanges;
+        }
+    }
+}
@@ -14,7 +14,9 @@ import java.util.UUID;
 @Setter
 @Builder@AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "bills")
+@Table(name = "bills", indexes = {
+        @Index(name = "idx_bills_customer_status_updated", columnList = "customer_id, status, updated_on")
+})
 public class Bill {
 
 
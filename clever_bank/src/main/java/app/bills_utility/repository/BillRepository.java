@@ -2,8 +2,11 @@ package app.bills_utility.repository;
 
 import app.bills_utility.model.Bill;
 
+import app.analytics.model.SpendingRow;
 import app.customer.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
@@ -15,6 +18,20 @@ public interface BillRepository extends JpaRepository <Bill, UUID> {
 
     List<Bill> findAllByCustomerOrderByCreatedOnDesc(Customer customer);
 
+    List <Bill> findAllByCustomerIdOrderByCreatedOnDesc(UUID customerId);
+
+
+    // paid bills per category and payment month, aggregated in the database - served by idx_bills_customer_status_updated
+    @Query("""
+        SELECT new app.analytics.model.SpendingRow(
+            CAST(b.category AS String), YEAR(b.updatedOn), MONTH(b.updatedOn), SUM(b.amount), COUNT(b))
+        FROM Bill b
+        WHERE b.customer.id = :customerId
+          AND b.status = app.bills_utility.model.BillStatus.PAID
+        GROUP BY b.category, YEAR(b.updatedOn), MONTH(b.updatedOn)
+        """)
+    List<SpendingRow> sumPaidByCategoryAndMonth(@Param("customerId") UUID customerId);
+
 
 
 }
@@ -1,6 +1,7 @@
 package app.bills_utility.service;
 
 
+import app.analytics.service.SpendingAnalyticsService;
 import app.bills_utility.model.Bill;
 import app.bills_utility.model.BillStatus;
 import app.bills_utility.repository.BillRepository;
@@ -8,6 +9,9 @@ import app.customer.model.Customer;
 import app.pocket.model.Pocket;
 import app.pocket.model.PocketStatus;
 import app.pocket.service.PocketService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
 import app.transaction.service.TransactionService;
 import app.web.dto.BillsRequest;
 
@@ -36,16 +40,19 @@ public class BillService {
         private final BillRepository billRepository;
         private final TransactionService transactionService;
         private final PocketService pocketService;
+        private final SpendingAnalyticsService spendingAnalyticsService;
 
 
 
 
     @Autowired
-    public BillService(BillRepository billRepository, TransactionService transactionService, PocketService pocketService) {
+    public BillService(BillRepository billRepository, TransactionService transactionService, PocketService pocketService,
+                       SpendingAnalyticsService spendingAnalyticsService) {
         this.billRepository = billRepository;
 
         this.transactionService = transactionService;
         this.pocketService = pocketService;
+        this.spendingAnalyticsService = spendingAnalyticsService;
     }
 
 
@@ -76,6 +83,11 @@ public class BillService {
     }
 
 
+    public List <Bill> getAllBillsByCustomerId(UUID customerId) {
+        return billRepository.findAllByCustomerIdOrderByCreatedOnDesc (customerId);
+    }
+
+
 
 
     public void deleteBill(UUID billId) {
@@ -100,30 +112,25 @@ public class BillService {
 
         Customer customer = bill.getCustomer ();
 
-        Pocket activePocket =
-                 customer.getWallets ()
-                .stream ()
-                .filter (p -> p.getStatus () == PocketStatus.ACTIVE)
-                .findFirst ()
-                .orElseThrow (() -> new RuntimeException ("Active wallet not found"));
-
-        if (activePocket.getBalance ().compareTo (bill.getAmount ()) < 0){
-
-            bill.setStatus (BillStatus.CANCELED);
-            bill.setUpdatedOn (LocalDateTime.now ());
-            pocketService.withdraw (customer, activePocket.getId (), bill.getAmount (), bill.getDescription ());
-            billRepository.save(bill);
-            return bill;
+        // wallets are listed newest first, so a later savings pocket must not be taken for the main one
+        Pocket activePocket = customer.getMainPocket ();
+        if (activePocket == null || activePocket.getStatus () != PocketStatus.ACTIVE) {
+            throw new RuntimeException ("Active wallet not found");
         }
 
+        // the conditional debit decides the bill, there is no balance read to race with
+        Transactions payment = pocketService.withdraw (customer, activePocket.getId (), bill.getAmount (),
+                bill.getDescription (), TransactionType.BILL_PAYMENT);
 
-        pocketService.withdraw (customer, activePocket.getId (), bill.getAmount (), bill.getDescription ());
-
-        bill.setStatus (BillStatus.PAID);
+        bill.setStatus (payment.getStatus () == TransactionStatus.SUCCEEDED ? BillStatus.PAID : BillStatus.CANCELED);
         bill.setUpdatedOn (LocalDateTime.now ());
 
         billRepository.save (bill);
 
+        if (bill.getStatus () == BillStatus.PAID) {
+            spendingAnalyticsService.evictAfterCommit (customer.getId ());
+        }
+
         return bill;
     }
 
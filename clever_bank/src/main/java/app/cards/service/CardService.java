@@ -47,6 +47,17 @@ public class CardService {
         return card;
     }
 
+
+
+    // bulk variant for the onboarding import: one JDBC batch, one log line
+    public List <Cards> createDefaultCards(List <Customer> customers) {
+
+        List <Cards> cards = cardsRepository.saveAll (customers.stream ().map (this::createNewCard).toList ());
+        log.info ("Successfully created %d default cards".formatted (cards.size ()));
+
+        return cards;
+    }
+
     private Cards createNewCard(Customer customer) {
 
         LocalDateTime now = LocalDateTime.now();
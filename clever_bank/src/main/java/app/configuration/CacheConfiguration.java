@@ -0,0 +1,53 @@
+package app.configuration;
+
+import app.analytics.service.SpendingAnalyticsService;
+import app.customer.repository.CustomerRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.UUID;
+
+// Every annotation-driven cache is declared here with its own Caffeine spec (size, TTL, refresh).
+// The set is closed: an unknown cache name fails instead of growing an unbounded map. All caches
+// record stats, and the actuator binds them as cache.* meters because they exist at startup.
+@Configuration
+public class CacheConfiguration {
+
+    public static final String CUSTOMER_HEADERS = "customerHeaders";
+    public static final String POCKET_OWNERS = "pocketOwners";
+
+
+
+    @Bean
+    public CacheManager cacheManager(CustomerRepository customerRepository,
+                                     @Value("${cache.customer-headers.spec:maximumSize=50000,expireAfterWrite=30m,refreshAfterWrite=5m}") String customerHeadersSpec,
+                                     @Value("${cache.pocket-owners.spec:maximumSize=200000,expireAfterAccess=1h}") String pocketOwnersSpec,
+                                     @Value("${cache.spending-analytics.spec:maximumSize=10000,expireAfterWrite=15m}") String spendingAnalyticsSpec) {
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager ();
+        cacheManager.setCacheNames (List.of ());
+
+        // the loader only serves refreshes, so a header past refreshAfterWrite is reloaded in the
+        // background while readers keep getting the old one; a customer that is gone drops out
+        cacheManager.registerCustomCache (CUSTOMER_HEADERS, caffeine (customerHeadersSpec)
+                .build (key -> customerRepository.findHeaderById ((UUID) key).orElse (null)));
+
+        // a pocket never changes owner, so these entries only ever leave by size or idleness
+        cacheManager.registerCustomCache (POCKET_OWNERS, caffeine (pocketOwnersSpec).build ());
+        cacheManager.registerCustomCache (SpendingAnalyticsService.SPENDING_CACHE, caffeine (spendingAnalyticsSpec).build ());
+
+        return cacheManager;
+    }
+
+
+
+    private static Caffeine <Object, Object> caffeine(String spec) {
+        return Caffeine.from (CaffeineSpec.parse (spec)).recordStats ();
+    }
+}
@@ -3,12 +3,14 @@ package app.customer.model;
 import app.cards.model.Cards;
 import app.subscription.model.Subscription;
 import app.pocket.model.Pocket;
+import app.pocket.model.PocketStatus;
 import jakarta.persistence.*;
 import lombok.*;
 
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,9 +20,16 @@ import java.util.UUID;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "customers")
+@Table(name = "customers", indexes = {
+        @Index(name = "idx_customers_email", columnList = "email"),
+        @Index(name = "idx_customers_created_on", columnList = "createdOn")
+})
+// collections are lazy; pages that list the customer's pockets load them with this graph
+@NamedEntityGraph(name = Customer.WITH_WALLETS, attributeNodes = @NamedAttributeNode("wallets"))
 public class Customer extends BaseEntity {
 
+    public static final String WITH_WALLETS = "Customer.wallets";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -71,15 +80,28 @@ public class Customer extends BaseEntity {
 
 
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "customer")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "customer")
     @OrderBy("createdOn DESC")
     private List <Cards> cards = new ArrayList <> ();
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "customer")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "customer")
     @OrderBy("createdOn DESC")
     private List<Subscription> subscriptions = new ArrayList <> ();
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "customer")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "customer")
     @OrderBy("createdOn DESC")
     private List<Pocket> wallets = new ArrayList <> ();
+
+
+    // the oldest active pocket, the one transfers to this username land on; the oldest pocket when none is active
+    public Pocket getMainPocket() {
+
+        Comparator <Pocket> oldestFirst = Comparator.comparing (Pocket::getCreatedOn).thenComparing (Pocket::getId);
+
+        return wallets.stream ()
+                .filter (pocket -> pocket.getStatus () == PocketStatus.ACTIVE)
+                .min (oldestFirst)
+                .or (() -> wallets.stream ().min (oldestFirst))
+                .orElse (null);
+    }
 }
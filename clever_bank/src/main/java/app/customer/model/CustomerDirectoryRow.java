@@ -0,0 +1,29 @@
+package app.customer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One line of the admin customer directory
+@Getter
+@AllArgsConstructor
+public class CustomerDirectoryRow {
+
+    private final UUID id;
+
+    private final String username;
+
+    private final String email;
+
+    private final String phoneNumber;
+
+    private final UserRole role;
+
+    private final Country country;
+
+    private final boolean active;
+
+    private final LocalDateTime createdOn;
+}
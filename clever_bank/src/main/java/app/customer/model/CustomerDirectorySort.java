@@ -0,0 +1,19 @@
+package app.customer.model;
+
+import lombok.Getter;
+
+// Columns the directory can be ordered by, each backed by an index on customers
+@Getter
+public enum CustomerDirectorySort {
+
+    USERNAME("username"),
+    EMAIL("email"),
+    PHONE("phoneNumber"),
+    CREATED("createdOn");
+
+    private final String property;
+
+    CustomerDirectorySort(String property) {
+        this.property = property;
+    }
+}
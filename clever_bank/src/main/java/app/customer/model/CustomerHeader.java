@@ -0,0 +1,22 @@
+package app.customer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+// What the layout of most pages needs about the signed-in customer, read as one narrow row
+@Getter
+@AllArgsConstructor
+public class CustomerHeader {
+
+    private final UUID id;
+
+    private final String username;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final UserRole role;
+}
@@ -1,12 +1,21 @@
 package app.customer.repository;
 
 import app.customer.model.Customer;
+import app.customer.model.CustomerDirectoryRow;
+import app.customer.model.CustomerHeader;
 
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 @Repository
@@ -16,4 +25,51 @@ public interface CustomerRepository extends JpaRepository <Customer, UUID> {
     Optional <Customer> findByUsername(String username);
 
 
+    @EntityGraph(Customer.WITH_WALLETS)
+    @Query("SELECT c FROM Customer c WHERE c.id = :id")
+    Optional <Customer> findWithWalletsById(@Param("id") UUID id);
+
+
+    @Query("""
+        SELECT new app.customer.model.CustomerHeader(c.id, c.username, c.firstName, c.lastName, c.role)
+        FROM Customer c
+        WHERE c.id = :id
+        """)
+    Optional <CustomerHeader> findHeaderById(@Param("id") UUID id);
+
+
+    // Directory rows carry only the listed columns; the count reads the id index alone
+    @Query(value = """
+        SELECT new app.customer.model.CustomerDirectoryRow(c.id, c.username, c.email, c.phoneNumber, c.role, c.country, c.isActive, c.createdOn)
+        FROM Customer c
+        """,
+            countQuery = "SELECT COUNT(c.id) FROM Customer c")
+    Page <CustomerDirectoryRow> findDirectory(Pageable pageable);
+
+
+    // prefix match on the unique username and phone indexes and the email index
+    @Query(value = """
+        SELECT new app.customer.model.CustomerDirectoryRow(c.id, c.username, c.email, c.phoneNumber, c.role, c.country, c.isActive, c.createdOn)
+        FROM Customer c
+        WHERE c.username LIKE :prefix ESCAPE '!'
+           OR c.phoneNumber LIKE :prefix ESCAPE '!'
+           OR c.email LIKE :prefix ESCAPE '!'
+        """,
+            countQuery = """
+        SELECT COUNT(c.id)
+        FROM Customer c
+        WHERE c.username LIKE :prefix ESCAPE '!'
+           OR c.phoneNumber LIKE :prefix ESCAPE '!'
+           OR c.email LIKE :prefix ESCAPE '!'
+        """)
+    Page <CustomerDirectoryRow> searchDirectory(@Param("prefix") String prefix, Pageable pageable);
+
+
+    // the onboarding import checks a whole chunk against the unique indexes in two queries
+    @Query("SELECT c.username FROM Customer c WHERE c.username IN :usernames")
+    List <String> findExistingUsernames(@Param("usernames") Collection <String> usernames);
+
+
+    @Query("SELECT c.phoneNumber FROM Customer c WHERE c.phoneNumber IN :phoneNumbers")
+    List <String> findExistingPhoneNumbers(@Param("phoneNumbers") Collection <String> phoneNumbers);
 }
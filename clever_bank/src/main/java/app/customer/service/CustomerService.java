@@ -2,7 +2,11 @@ package app.customer.service;
 
 import app.cards.model.Cards;
 import app.cards.service.CardService;
+import app.configuration.CacheConfiguration;
 import app.customer.model.Customer;
+import app.customer.model.CustomerDirectoryRow;
+import app.customer.model.CustomerDirectorySort;
+import app.customer.model.CustomerHeader;
 import app.customer.model.Gender;
 import app.customer.model.UserRole;
 import app.customer.repository.CustomerRepository;
@@ -22,6 +26,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -41,6 +48,8 @@ public class CustomerService implements UserDetailsService {
 
 
     private final static String CREATE_CUSTOMER_MESSAGE = "Successfully created customer %s with id %s";
+    public static final int DIRECTORY_PAGE_SIZE = 25;
+    public static final int MAX_DIRECTORY_PAGE_SIZE = 100;
 
     private final CustomerRepository customerRepository;
     private final PocketService pocketService;
@@ -70,7 +79,6 @@ public class CustomerService implements UserDetailsService {
 
     //Method register
     @Transactional
-    @CacheEvict(value = "customer", allEntries = true)
     public Customer register(RegisterRequest registerRequest) {
 
         Optional <Customer> optionalCustomer = customerRepository.findByUsername (registerRequest.getUsername ());
@@ -84,7 +92,7 @@ public class CustomerService implements UserDetailsService {
         Subscription defaultSubscription = subscriptionService.createDefaultSubscription (customer);
         customer.setSubscriptions (List.of (defaultSubscription));
 
-        Pocket pocket = pocketService.createWallet (customer);
+        Pocket pocket = pocketService.createWallet (customer, registerRequest.getCurrency ());
         customer.setWallets (List.of (pocket));
 
         Cards cards = cardService.createDefaultCard (customer);
@@ -125,11 +133,53 @@ public class CustomerService implements UserDetailsService {
 
 
 
+    // A reference into the request's persistence context, for writes that need the customer only as the
+    // owner of what they touch. It costs no SELECT of its own: the row comes in with the first pocket or
+    // bill loaded for it, or at most once on first access. Needs the request's session, so web requests only.
+    public Customer getReference(UUID uuid) {
+        return customerRepository.getReferenceById (uuid);
+    }
+
+
+
+    // Customer together with its pockets, newest first, in one query
+    public Customer getByIdWithWallets(UUID uuid) {
+
+        Customer customer = customerRepository.findWithWalletsById (uuid).orElseThrow (() -> new DomainException ("Customer with id %s not found".formatted (uuid), HttpStatus.BAD_REQUEST));
+        pocketService.loadShardCredits (customer.getWallets ());
+
+        return customer;
+    }
+
+
+
+    // For pages that only show who is signed in: no entity, no collections. Cached, since nearly
+    // every page asks for it; edits of the name or role evict it
+    @Cacheable(value = CacheConfiguration.CUSTOMER_HEADERS, key = "#uuid")
+    public CustomerHeader getHeader(UUID uuid) {
+        return customerRepository.findHeaderById (uuid).orElseThrow (() -> new DomainException ("Customer with id %s not found".formatted (uuid), HttpStatus.BAD_REQUEST));
+    }
+
+
+
+
+
+    // Admin directory: one page of narrow rows, a search is a prefix on username, phone or email.
+    // Ties on the sort column are broken by id so rows never repeat or go missing between pages.
+    public Page <CustomerDirectoryRow> getDirectory(String query, CustomerDirectorySort sort, Sort.Direction direction,
+                                                    int page, int size) {
+
+        int pageSize = Math.min (Math.max (size, 1), MAX_DIRECTORY_PAGE_SIZE);
+        PageRequest pageRequest = PageRequest.of (Math.max (page, 0), pageSize,
+                Sort.by (direction, sort.getProperty ()).and (Sort.by (direction, "id")));
+
+        if (query == null || query.isBlank ()) {
+            return customerRepository.findDirectory (pageRequest);
+        }
 
+        String prefix = query.strip ().replace ("!", "!!").replace ("%", "!%").replace ("_", "!_") + "%";
 
-    @Cacheable("customer")
-    public List <Customer> getALLCustomers() {
-        return customerRepository.findAll ();
+        return customerRepository.searchDirectory (prefix, pageRequest);
     }
 
 
@@ -157,7 +207,7 @@ public class CustomerService implements UserDetailsService {
 
 
 
-    @CacheEvict(value = "customer", allEntries = true)
+    @CacheEvict(value = CacheConfiguration.CUSTOMER_HEADERS, key = "#id")
     public void editCustomerDetails(UUID id, CustomerEditRequest customerEditRequest) {
 
         Customer customer = getById (id);
@@ -179,7 +229,6 @@ public class CustomerService implements UserDetailsService {
 
     }
 
-    @CacheEvict(value = "customer", allEntries = true)
     public void switchCustomerStatus(UUID customerId) {
 
         Customer customer = getById (customerId);
@@ -194,7 +243,7 @@ public class CustomerService implements UserDetailsService {
 
 
 
-    @CacheEvict(value = "customer", allEntries = true)
+    @CacheEvict(value = CacheConfiguration.CUSTOMER_HEADERS, key = "#customerId")
     public void switchCustomerRole(UUID customerId) {
 
         Customer customer = getById (customerId);
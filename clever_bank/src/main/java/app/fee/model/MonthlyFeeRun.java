@@ -0,0 +1,41 @@
+package app.fee.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One row per billing month. lastPocketId is the checkpoint: every pocket up to it (in id order)
+// has been charged, so a restarted run continues right after it.
+@Entity
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "monthly_fee_runs")
+public class MonthlyFeeRun {
+
+    // billing month as yyyy-MM
+    @Id
+    @Column(length = 7)
+    private String period;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private MonthlyFeeRunStatus status;
+
+    private UUID lastPocketId;
+
+    @Column(nullable = false)
+    private long pocketsCharged;
+
+    @Column(nullable = false)
+    private LocalDateTime startedOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+
+    private LocalDateTime completedOn;
+}
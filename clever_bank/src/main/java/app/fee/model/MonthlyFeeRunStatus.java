@@ -0,0 +1,7 @@
+package app.fee.model;
+
+public enum MonthlyFeeRunStatus {
+
+    RUNNING,
+    COMPLETED
+}
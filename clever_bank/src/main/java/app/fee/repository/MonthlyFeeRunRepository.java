@@ -0,0 +1,34 @@
+package app.fee.repository;
+
+import app.fee.model.MonthlyFeeRun;
+import app.fee.model.MonthlyFeeRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MonthlyFeeRunRepository extends JpaRepository <MonthlyFeeRun, String> {
+
+
+    List <MonthlyFeeRun> findAllByStatusOrderByPeriod(MonthlyFeeRunStatus status);
+
+
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE MonthlyFeeRun r
+        SET r.lastPocketId = :lastPocketId, r.pocketsCharged = r.pocketsCharged + :charged, r.updatedOn = :now
+        WHERE r.period = :period
+        """)
+    int advanceCheckpoint(@Param("period") String period,
+                          @Param("lastPocketId") UUID lastPocketId,
+                          @Param("charged") long charged,
+                          @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,292 @@
+package app.fee.service;
+
+import app.analytics.service.SpendingAnalyticsService;
+import app.balance_history.repository.PocketBalancePointRepository;
+import app.fee.model.MonthlyFeeRun;
+import app.fee.model.MonthlyFeeRunStatus;
+import app.fee.repository.MonthlyFeeRunRepository;
+import app.pocket.repository.PocketRepository;
+import app.summary.repository.PocketMonthlySummaryRepository;
+import app.transaction.cache.RecentTransactionsCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Monthly account fee, charged chunk by chunk. Pocket ids are walked in keyset order; each chunk
+// locks its owing pockets, inserts the fee rows, summary increments and balance points with INSERT ... SELECT and
+// takes the fee with one UPDATE, all in its own transaction. Chunks may run in parallel, and the
+// run's checkpoint only moves past a chunk once every chunk before it has committed.
+@Slf4j
+@Service
+public class MonthlyFeeService {
+
+    private final MonthlyFeeRunRepository monthlyFeeRunRepository;
+    private final PocketRepository pocketRepository;
+    private final PocketMonthlySummaryRepository summaryRepository;
+    private final PocketBalancePointRepository balancePointRepository;
+    private final RecentTransactionsCache recentTransactionsCache;
+    private final SpendingAnalyticsService spendingAnalyticsService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BigDecimal fee;
+    private final int chunkSize;
+    private final int parallelism;
+
+    // one run at a time per node; a second trigger while a run is going just returns
+    private final AtomicBoolean running = new AtomicBoolean ();
+
+
+    @Autowired
+    public MonthlyFeeService(MonthlyFeeRunRepository monthlyFeeRunRepository,
+                             PocketRepository pocketRepository,
+                             PocketMonthlySummaryRepository summaryRepository,
+                             PocketBalancePointRepository balancePointRepository,
+                             RecentTransactionsCache recentTransactionsCache,
+                             SpendingAnalyticsService spendingAnalyticsService,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${monthly-fee.amount:2.00}") BigDecimal fee,
+                             @Value("${monthly-fee.chunk-size:500}") int chunkSize,
+                             @Value("${monthly-fee.parallelism:4}") int parallelism) {
+        this.monthlyFeeRunRepository = monthlyFeeRunRepository;
+        this.pocketRepository = pocketRepository;
+        this.summaryRepository = summaryRepository;
+        this.balancePointRepository = balancePointRepository;
+        this.recentTransactionsCache = recentTransactionsCache;
+        this.spendingAnalyticsService = spendingAnalyticsService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+        this.fee = fee;
+        this.chunkSize = Math.max (chunkSize, 1);
+        this.parallelism = Math.max (parallelism, 1);
+    }
+
+
+
+
+    public MonthlyFeeRun applyMonthlyFees() {
+        return applyMonthlyFees (YearMonth.now ());
+    }
+
+
+
+    // Starts the month's run, or picks it up after its checkpoint when an earlier attempt stopped half way
+    public MonthlyFeeRun applyMonthlyFees(YearMonth month) {
+
+        String period = month.toString ();
+
+        if (!running.compareAndSet (false, true)) {
+            log.info ("Monthly fee run for %s skipped, another run is in progress".formatted (period));
+            return monthlyFeeRunRepository.findById (period).orElse (null);
+        }
+
+        try {
+            MonthlyFeeRun run = monthlyFeeRunRepository.findById (period).orElseGet (() -> startRun (period));
+
+            if (run.getStatus () == MonthlyFeeRunStatus.COMPLETED) {
+                return run;
+            }
+
+            return charge (run);
+
+        } finally {
+            running.set (false);
+        }
+    }
+
+
+
+    // runs left RUNNING by a crash or a redeploy
+    public List <MonthlyFeeRun> resumeUnfinishedRuns() {
+
+        List <MonthlyFeeRun> resumed = new ArrayList <> ();
+
+        for (MonthlyFeeRun run : monthlyFeeRunRepository.findAllByStatusOrderByPeriod (MonthlyFeeRunStatus.RUNNING)) {
+            log.info ("Resuming monthly fee run %s after pocket %s".formatted (run.getPeriod (), run.getLastPocketId ()));
+            resumed.add (applyMonthlyFees (YearMonth.parse (run.getPeriod ())));
+        }
+
+        return resumed;
+    }
+
+
+
+    private MonthlyFeeRun startRun(String period) {
+
+        LocalDateTime now = LocalDateTime.now ();
+
+        return monthlyFeeRunRepository.saveAndFlush (MonthlyFeeRun.builder ()
+                .period (period)
+                .status (MonthlyFeeRunStatus.RUNNING)
+                .pocketsCharged (0)
+                .startedOn (now)
+                .updatedOn (now)
+                .build ());
+    }
+
+
+
+    private MonthlyFeeRun charge(MonthlyFeeRun run) {
+
+        String period = run.getPeriod ();
+        long started = System.nanoTime ();
+
+        ExecutorService executor = Executors.newFixedThreadPool (parallelism);
+        Semaphore inFlight = new Semaphore (parallelism * 2);
+        List <Chunk> chunks = new ArrayList <> ();
+        int checkpointed = 0;
+
+        try {
+            UUID after = run.getLastPocketId ();
+            List <UUID> ids = nextIds (after);
+
+            while (!ids.isEmpty ()) {
+
+                List <UUID> chunkIds = ids;
+                inFlight.acquire ();
+                chunks.add (new Chunk (chunkIds.get (chunkIds.size () - 1), executor.submit (() -> {
+                    try {
+                        return chargeChunk (chunkIds, period);
+                    } finally {
+                        inFlight.release ();
+                    }
+                })));
+
+                checkpointed = advanceCheckpoint (period, chunks, checkpointed, false);
+
+                ids = chunkIds.size () < chunkSize ? List.of () : nextIds (chunkIds.get (chunkIds.size () - 1));
+            }
+
+            advanceCheckpoint (period, chunks, checkpointed, true);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+            throw new IllegalStateException ("Monthly fee run %s interrupted".formatted (period), e);
+        } catch (Exception e) {
+            throw new IllegalStateException ("Monthly fee run %s stopped, it resumes from its checkpoint".formatted (period), e);
+        } finally {
+            executor.shutdownNow ();
+        }
+
+        MonthlyFeeRun completed = monthlyFeeRunRepository.findById (period).orElseThrow ();
+        completed.setStatus (MonthlyFeeRunStatus.COMPLETED);
+        completed.setCompletedOn (LocalDateTime.now ());
+        completed.setUpdatedOn (completed.getCompletedOn ());
+        completed = monthlyFeeRunRepository.save (completed);
+
+        spendingAnalyticsService.clearAfterCommit ();
+
+        log.info ("Monthly fee run %s finished: %d pockets charged, %d chunks in %d ms".formatted (period,
+                completed.getPocketsCharged (), chunks.size (), (System.nanoTime () - started) / 1_000_000));
+
+        return completed;
+    }
+
+
+
+    private List <UUID> nextIds(UUID after) {
+
+        return after == null
+                ? pocketRepository.findFirstIds (PageRequest.ofSize (chunkSize))
+                : pocketRepository.findIdsAfter (after, PageRequest.ofSize (chunkSize));
+    }
+
+
+
+    // Moves the checkpoint over the leading chunks that are done. Chunks finish out of order, so a
+    // later chunk that already committed is simply found with nothing owing when a run resumes.
+    private int advanceCheckpoint(String period, List <Chunk> chunks, int from, boolean waitForAll) throws Exception {
+
+        int next = from;
+
+        while (next < chunks.size () && (waitForAll || chunks.get (next).charged ().isDone ())) {
+
+            Chunk chunk = chunks.get (next);
+            monthlyFeeRunRepository.advanceCheckpoint (period, chunk.lastPocketId (), chunk.charged ().get (), LocalDateTime.now ());
+            next++;
+        }
+
+        return next;
+    }
+
+
+
+    private int chargeChunk(List <UUID> pocketIds, String period) {
+
+        return transactionTemplate.execute (status -> {
+
+            List <UUID> owing = pocketRepository.lockOwingMonthlyFee (pocketIds, period);
+            if (owing.isEmpty ()) {
+                return 0;
+            }
+
+            LocalDateTime now = LocalDateTime.now ();
+
+            // fee rows, summaries and balance points read the balance before it is charged
+            insertFeeRows (owing, now);
+            summaryRepository.addFeeToPeriod (owing, now.getYear (), now.getMonthValue (), fee);
+            balancePointRepository.addFeePoints (owing, now, fee);
+            pocketRepository.chargeMonthlyFee (owing, fee, period, now);
+
+            recentTransactionsCache.evictAfterCommit (owing);
+
+            return owing.size ();
+        });
+    }
+
+
+
+    // INSERT ... SELECT of one fee row per pocket. Hibernate cannot generate UUID keys inside a bulk
+    // insert, so the row ids are made here and matched to their pocket with a CASE expression.
+    private void insertFeeRows(List <UUID> pocketIds, LocalDateTime now) {
+
+        StringBuilder jpql = new StringBuilder ("""
+                INSERT INTO Transactions (id, customer, pocket, sender, receiver, senderPocketId, amount, remainingBalance,
+                                          currency, type, status, description, createdOn)
+                SELECT CASE p.id""");
+        for (int k = 0; k < pocketIds.size (); k++) {
+            jpql.append (" WHEN :pocket").append (k).append (" THEN :row").append (k);
+        }
+        jpql.append ("""
+                 END,
+                       p.customer, p, 'Clever Bank', 'Clever Bank', p.id, :fee,
+                       CASE WHEN p.balanceShards > 1 THEN p.balance + COALESCE((SELECT SUM(sh.amount) FROM PocketBalanceShard sh WHERE sh.pocketId = p.id), 0) ELSE p.balance END - :fee,
+                       p.currency, app.transaction.model.TransactionType.WITHDRAWAL,
+                       app.transaction.model.TransactionStatus.SUCCEEDED, 'Monthly fee applied', :now
+                FROM Pocket p
+                WHERE p.id IN :pocketIds""");
+
+        Query insert = entityManager.createQuery (jpql.toString ());
+        for (int k = 0; k < pocketIds.size (); k++) {
+            insert.setParameter ("pocket" + k, pocketIds.get (k));
+            insert.setParameter ("row" + k, UUID.randomUUID ());
+        }
+        insert.setParameter ("fee", fee);
+        insert.setParameter ("now", now);
+        insert.setParameter ("pocketIds", pocketIds);
+        insert.executeUpdate ();
+    }
+
+
+
+    private record Chunk(UUID lastPocketId, Future <Integer> charged) {
+    }
+}
@@ -0,0 +1,8 @@
+package app.fx.model;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+// An amount after conversion, in the target currency, and the rate that produced it
+public record FxConversion(BigDecimal amount, Currency currency, BigDecimal rate) {
+}
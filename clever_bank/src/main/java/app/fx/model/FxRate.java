@@ -0,0 +1,28 @@
+package app.fx.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One row per currency: how many units of it one unit of the base currency buys
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "fx_rates")
+public class FxRate {
+
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal unitsPerBase;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
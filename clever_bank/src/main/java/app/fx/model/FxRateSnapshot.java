@@ -0,0 +1,91 @@
+package app.fx.model;
+
+import app.exception.DomainException;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Immutable set of rates against one base currency. Cross rates are derived from the two base rates,
+// so a refresh only has to swap the reference to a new snapshot.
+public final class FxRateSnapshot {
+
+    private static final int RATE_SCALE = 10;
+
+    private final Currency baseCurrency;
+    private final Map <Currency, BigDecimal> unitsPerBase;
+    private final LocalDateTime loadedOn;
+
+
+    public FxRateSnapshot(Currency baseCurrency, Map <Currency, BigDecimal> unitsPerBase, LocalDateTime loadedOn) {
+
+        Map <Currency, BigDecimal> rates = new HashMap <> (unitsPerBase);
+        rates.put (baseCurrency, BigDecimal.ONE);
+
+        rates.forEach ((currency, rate) -> {
+            if (rate == null || rate.signum () <= 0) {
+                throw new IllegalArgumentException ("FX rate for %s must be positive".formatted (currency));
+            }
+        });
+
+        this.baseCurrency = baseCurrency;
+        this.unitsPerBase = Map.copyOf (rates);
+        this.loadedOn = loadedOn;
+    }
+
+
+
+    public Currency getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public LocalDateTime getLoadedOn() {
+        return loadedOn;
+    }
+
+    public boolean supports(Currency currency) {
+        return currency != null && unitsPerBase.containsKey (currency);
+    }
+
+
+    public List <Currency> currencies() {
+        return unitsPerBase.keySet ().stream ().sorted (Comparator.comparing (Currency::getCurrencyCode)).toList ();
+    }
+
+
+
+    // units of `to` one unit of `from` buys
+    public BigDecimal rate(Currency from, Currency to) {
+
+        if (from.equals (to)) {
+            return BigDecimal.ONE;
+        }
+
+        return unitsPerBase (to).divide (unitsPerBase (from), RATE_SCALE, RoundingMode.HALF_EVEN);
+    }
+
+
+
+    // Rounded to the target currency's minor unit with banker's rounding
+    public FxConversion convert(BigDecimal amount, Currency from, Currency to) {
+
+        BigDecimal rate = rate (from, to);
+        BigDecimal converted = amount.multiply (rate).setScale (Math.max (to.getDefaultFractionDigits (), 0), RoundingMode.HALF_EVEN);
+
+        return new FxConversion (converted, to, rate);
+    }
+
+
+
+    private BigDecimal unitsPerBase(Currency currency) {
+
+        BigDecimal rate = unitsPerBase.get (currency);
+
+        if (rate == null) {
+            throw new DomainException ("No exchange rate for currency %s".formatted (currency), HttpStatus.BAD_REQUEST);
+        }
+        return rate;
+    }
+}
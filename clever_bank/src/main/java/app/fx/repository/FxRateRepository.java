@@ -0,0 +1,9 @@
+package app.fx.repository;
+
+import app.fx.model.FxRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FxRateRepository extends JpaRepository <FxRate, String> {
+}
@@ -0,0 +1,101 @@
+package app.fx.service;
+
+import app.fx.model.FxRate;
+import app.fx.model.FxRateSnapshot;
+import app.fx.repository.FxRateRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Holds the current FX snapshot. Readers only dereference it, so conversions on the transfer path
+// never wait on a refresh; a refresh builds a complete new snapshot from the fx_rates table and swaps
+// it in. An empty table is seeded once from the rates file.
+@Slf4j
+@Service
+public class FxRateService {
+
+    private final FxRateRepository fxRateRepository;
+    private final Resource ratesFile;
+    private final Currency baseCurrency;
+    private final AtomicReference <FxRateSnapshot> snapshot;
+
+
+    @Autowired
+    public FxRateService(FxRateRepository fxRateRepository,
+                         @Value("${fx.base-currency:USD}") String baseCurrency,
+                         @Value("${fx.rates-file:classpath:fx-rates.properties}") Resource ratesFile) {
+        this.fxRateRepository = fxRateRepository;
+        this.ratesFile = ratesFile;
+        this.baseCurrency = Currency.getInstance (baseCurrency);
+        this.snapshot = new AtomicReference <> (new FxRateSnapshot (this.baseCurrency, Map.of (), LocalDateTime.now ()));
+    }
+
+
+
+    @PostConstruct
+    void loadOnStartup() {
+        refresh ();
+    }
+
+
+
+    public FxRateSnapshot current() {
+        return snapshot.get ();
+    }
+
+
+
+    public FxRateSnapshot refresh() {
+
+        List <FxRate> rows = fxRateRepository.findAll ();
+
+        if (rows.isEmpty ()) {
+            rows = fxRateRepository.saveAll (readRatesFile ());
+            log.info ("Seeded %d FX rates from %s".formatted (rows.size (), ratesFile.getDescription ()));
+        }
+
+        Map <Currency, BigDecimal> unitsPerBase = new HashMap <> ();
+        rows.forEach (row -> unitsPerBase.put (Currency.getInstance (row.getCurrency ()), row.getUnitsPerBase ()));
+
+        FxRateSnapshot refreshed = new FxRateSnapshot (baseCurrency, unitsPerBase, LocalDateTime.now ());
+        snapshot.set (refreshed);
+
+        return refreshed;
+    }
+
+
+
+    private List <FxRate> readRatesFile() {
+
+        if (!ratesFile.exists ()) {
+            return List.of ();
+        }
+
+        try {
+            Properties properties = PropertiesLoaderUtils.loadProperties (ratesFile);
+            LocalDateTime now = LocalDateTime.now ();
+
+            return properties.stringPropertyNames ().stream ()
+                    .map (code -> FxRate.builder ()
+                            .currency (Currency.getInstance (code.trim ()).getCurrencyCode ())
+                            .unitsPerBase (new BigDecimal (properties.getProperty (code).trim ()))
+                            .updatedOn (now)
+                            .build ())
+                    .toList ();
+
+        } catch (IOException e) {
+            throw new UncheckedIOException ("Could not read FX rates from %s".formatted (ratesFile.getDescription ()), e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package app.idempotency.repository;
+
+import app.idempotency.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository <IdempotencyKey, UUID> {
+
+
+    Optional <IdempotencyKey> findByCustomerIdAndIdempotencyKey(UUID customerId, String idempotencyKey);
+
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdOn < :cutoff")
+    int deleteAllCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
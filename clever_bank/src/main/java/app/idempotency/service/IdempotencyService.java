@@ -0,0 +1,146 @@
+package app.idempotency.service;
+
+import app.exception.DomainException;
+import app.idempotency.model.IdempotencyKey;
+import app.idempotency.repository.IdempotencyKeyRepository;
+import app.transaction.model.Transactions;
+import app.transaction.service.TransactionService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Runs a money-moving operation at most once per (customer, idempotency key). Recently completed keys are
+// answered from memory; everything else goes through the idempotency_keys uniqueness table, claimed in the
+// same transaction as the operation, so a concurrent duplicate on any node waits for the first one and
+// then replays its result. Without a key the operation simply runs in a transaction.
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final Cache <String, CompletedKey> recentKeys;
+
+
+    @Autowired
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              TransactionService transactionService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${idempotency.retention:24h}") Duration retention,
+                              @Value("${idempotency.cache.max-keys:10000}") long maxKeys) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionService = transactionService;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+        this.retention = retention;
+        this.recentKeys = Caffeine.newBuilder ()
+                .maximumSize (maxKeys)
+                .expireAfterWrite (retention)
+                .build ();
+    }
+
+
+
+
+    public Transactions execute(UUID customerId, String key, String requestFingerprint, Supplier <Transactions> operation) {
+
+        if (key == null || key.isBlank ()) {
+            return transactionTemplate.execute (status -> operation.get ());
+        }
+
+        if (key.length () > MAX_KEY_LENGTH) {
+            throw new DomainException ("Idempotency key must be at most %d characters".formatted (MAX_KEY_LENGTH), HttpStatus.BAD_REQUEST);
+        }
+
+        String cacheKey = customerId + ":" + key;
+        CompletedKey completed = recentKeys.getIfPresent (cacheKey);
+        if (completed != null) {
+            return replay (key, completed, requestFingerprint);
+        }
+
+        try {
+            Transactions result = transactionTemplate.execute (status -> {
+
+                // flushed first: a duplicate blocks here on the unique index until the original commits or rolls back.
+                // Only this insert's violation means a duplicate key; one raised by the operation is its own failure.
+                IdempotencyKey claim;
+                try {
+                    claim = idempotencyKeyRepository.saveAndFlush (IdempotencyKey.builder ()
+                            .customerId (customerId)
+                            .idempotencyKey (key)
+                            .requestFingerprint (requestFingerprint)
+                            .build ());
+                } catch (DataIntegrityViolationException e) {
+                    throw new DuplicateKeyClaim (e);
+                }
+
+                Transactions transactions = operation.get ();
+                claim.setTransactionId (transactions.getId ());
+                return transactions;
+            });
+
+            recentKeys.put (cacheKey, new CompletedKey (result.getId (), requestFingerprint));
+            return result;
+
+        } catch (DuplicateKeyClaim duplicate) {
+
+            IdempotencyKey original = idempotencyKeyRepository.findByCustomerIdAndIdempotencyKey (customerId, key)
+                    .filter (claim -> claim.getTransactionId () != null)
+                    .orElseThrow (() -> new DomainException ("Request with idempotency key %s is still being processed"
+                            .formatted (key), HttpStatus.CONFLICT));
+
+            CompletedKey replayed = new CompletedKey (original.getTransactionId (), original.getRequestFingerprint ());
+            recentKeys.put (cacheKey, replayed);
+
+            log.info ("Replaying idempotency key %s for customer %s".formatted (key, customerId));
+            return replay (key, replayed, requestFingerprint);
+        }
+    }
+
+
+
+
+    public int purgeExpired() {
+        return idempotencyKeyRepository.deleteAllCreatedBefore (LocalDateTime.now ().minus (retention));
+    }
+
+
+
+
+    private Transactions replay(String key, CompletedKey completed, String requestFingerprint) {
+
+        if (!completed.requestFingerprint ().equals (requestFingerprint)) {
+            throw new DomainException ("Idempotency key %s was already used for a different request"
+                    .formatted (key), HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        return transactionService.getById (completed.transactionId ());
+    }
+
+
+    private record CompletedKey(UUID transactionId, String requestFingerprint) {
+    }
+
+    // rolls the claiming transaction back and tells execute to replay the original
+    private static class DuplicateKeyClaim extends RuntimeException {
+
+        DuplicateKeyClaim(DataIntegrityViolationException cause) {
+            super (cause);
+        }
+    }
+}
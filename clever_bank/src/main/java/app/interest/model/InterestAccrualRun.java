@@ -0,0 +1,43 @@
+package app.interest.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One row per accrual day. lastPocketId is the checkpoint: every savings pocket up to it (in id order)
+// has been brought up to runDate, so a restarted run continues right after it.
+@Entity
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "interest_accrual_runs")
+public class InterestAccrualRun {
+
+    @Id
+    private LocalDate runDate;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private InterestAccrualRunStatus status;
+
+    private UUID lastPocketId;
+
+    @Column(nullable = false)
+    private long pocketsAccrued;
+
+    @Column(nullable = false)
+    private long pocketsPosted;
+
+    @Column(nullable = false)
+    private LocalDateTime startedOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+
+    private LocalDateTime completedOn;
+}
@@ -0,0 +1,7 @@
+package app.interest.model;
+
+public enum InterestAccrualRunStatus {
+
+    RUNNING,
+    COMPLETED
+}
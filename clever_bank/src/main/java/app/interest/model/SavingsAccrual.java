@@ -0,0 +1,43 @@
+package app.interest.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Interest earned by a savings pocket and not yet paid out, kept well below a cent. The principal
+// and pocketUpdatedOn are the balance and change stamp the accrual was last brought up to date
+// with: while the pocket's stamp still matches, every further day earns the same, so the nightly
+// run can leave the row alone until the pocket changes or the month's interest is due.
+@Entity
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "savings_interest_accruals")
+public class SavingsAccrual {
+
+    @Id
+    private UUID pocketId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal principal;
+
+    @Column(nullable = false, precision = 30, scale = 12)
+    private BigDecimal accrued;
+
+    // interest is counted up to, not including, this day
+    @Column(nullable = false)
+    private LocalDate accruedThrough;
+
+    // month (yyyy-MM) the accrued amount belongs to; paid out once a run falls in a later month
+    @Column(nullable = false, length = 7)
+    private String accrualPeriod;
+
+    @Column(nullable = false)
+    private LocalDateTime pocketUpdatedOn;
+}
@@ -0,0 +1,9 @@
+package app.interest.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.UUID;
+
+public record SavingsBalance(UUID pocketId, UUID customerId, BigDecimal availableBalance, Currency currency, LocalDateTime updatedOn) {
+}
@@ -0,0 +1,37 @@
+package app.interest.repository;
+
+import app.interest.model.InterestAccrualRun;
+import app.interest.model.InterestAccrualRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface InterestAccrualRunRepository extends JpaRepository <InterestAccrualRun, LocalDate> {
+
+
+    List <InterestAccrualRun> findAllByStatusOrderByRunDate(InterestAccrualRunStatus status);
+
+
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE InterestAccrualRun r
+        SET r.lastPocketId = :lastPocketId, r.pocketsAccrued = r.pocketsAccrued + :accrued,
+            r.pocketsPosted = r.pocketsPosted + :posted, r.updatedOn = :now
+        WHERE r.runDate = :runDate
+        """)
+    int advanceCheckpoint(@Param("runDate") LocalDate runDate,
+                          @Param("lastPocketId") UUID lastPocketId,
+                          @Param("accrued") long accrued,
+                          @Param("posted") long posted,
+                          @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,62 @@
+package app.interest.repository;
+
+import app.interest.model.SavingsAccrual;
+import app.interest.model.SavingsBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SavingsAccrualRepository extends JpaRepository <SavingsAccrual, UUID> {
+
+
+    // Active savings pockets the run has to touch, in id order: never seen, changed since their accrual was
+    // brought up to date, sharded (bucket credits leave the pocket stamp alone), or owed last month's
+    // interest. Everything else keeps earning at its stored principal without a write.
+    @Query("""
+        SELECT p.id FROM Pocket p LEFT JOIN SavingsAccrual a ON a.pocketId = p.id
+        WHERE p.type = app.pocket.model.PocketType.SAVINGS
+          AND p.status = app.pocket.model.PocketStatus.ACTIVE
+          AND (a.pocketId IS NULL
+               OR (a.accruedThrough < :runDate
+                   AND (p.updatedOn <> a.pocketUpdatedOn OR p.balanceShards IS NOT NULL OR a.accrualPeriod <> :period)))
+        ORDER BY p.id
+        """)
+    List <UUID> findFirstDue(@Param("runDate") LocalDate runDate, @Param("period") String period, Pageable pageable);
+
+    @Query("""
+        SELECT p.id FROM Pocket p LEFT JOIN SavingsAccrual a ON a.pocketId = p.id
+        WHERE p.type = app.pocket.model.PocketType.SAVINGS
+          AND p.status = app.pocket.model.PocketStatus.ACTIVE
+          AND p.id > :after
+          AND (a.pocketId IS NULL
+               OR (a.accruedThrough < :runDate
+                   AND (p.updatedOn <> a.pocketUpdatedOn OR p.balanceShards IS NOT NULL OR a.accrualPeriod <> :period)))
+        ORDER BY p.id
+        """)
+    List <UUID> findDueAfter(@Param("after") UUID after, @Param("runDate") LocalDate runDate, @Param("period") String period,
+                             Pageable pageable);
+
+    // holds off debits and credits on the chunk while its balances are read and its interest is paid;
+    // a pocket switched off since it was listed drops out here
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id FROM Pocket p WHERE p.id IN :ids AND p.status = app.pocket.model.PocketStatus.ACTIVE ORDER BY p.id")
+    List <UUID> lockPockets(@Param("ids") Collection <UUID> ids);
+
+    @Query("""
+        SELECT new app.interest.model.SavingsBalance(p.id, p.customer.id,
+               CASE WHEN p.balanceShards > 1 THEN p.balance + COALESCE((SELECT SUM(s.amount) FROM PocketBalanceShard s WHERE s.pocketId = p.id), 0) ELSE p.balance END,
+               p.currency, p.updatedOn)
+        FROM Pocket p WHERE p.id IN :ids ORDER BY p.id
+        """)
+    List <SavingsBalance> findBalances(@Param("ids") Collection <UUID> ids);
+}
@@ -0,0 +1,384 @@
+package app.interest.service;
+
+import app.analytics.service.SpendingAnalyticsService;
+import app.customer.model.Customer;
+import app.interest.model.InterestAccrualRun;
+import app.interest.model.InterestAccrualRunStatus;
+import app.interest.model.SavingsAccrual;
+import app.interest.model.SavingsBalance;
+import app.interest.repository.InterestAccrualRunRepository;
+import app.interest.repository.SavingsAccrualRepository;
+import app.pocket.model.Pocket;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.service.TransactionService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Daily interest on SAVINGS pockets. Interest is simple daily interest on the balance, accrued in
+// savings_interest_accruals at 12 decimal places and paid out as one credit per pocket once a run
+// falls in the next month; the fraction below a cent carries over. A pocket whose balance has not
+// moved earns the same every day, so the run only visits pockets that changed, are new, or are owed
+// the month's payout, and catches up all the days in between at once. Chunks of due pockets run in
+// parallel, each in its own transaction, behind the same contiguous checkpoint as the monthly fee run.
+@Slf4j
+@Service
+public class InterestAccrualService {
+
+    private static final int ACCRUAL_SCALE = 12;
+    private static final String CLEVER_BANK_LTD = "Clever Bank Service Ltd";
+
+    private final InterestAccrualRunRepository runRepository;
+    private final SavingsAccrualRepository accrualRepository;
+    private final TransactionService transactionService;
+    private final SpendingAnalyticsService spendingAnalyticsService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BigDecimal annualRate;
+    private final int daysInYear;
+    private final int chunkSize;
+    private final int parallelism;
+
+    private final AtomicBoolean running = new AtomicBoolean ();
+
+
+    @Autowired
+    public InterestAccrualService(InterestAccrualRunRepository runRepository,
+                                  SavingsAccrualRepository accrualRepository,
+                                  TransactionService transactionService,
+                                  SpendingAnalyticsService spendingAnalyticsService,
+                                  EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${savings-interest.annual-rate:0.025}") BigDecimal annualRate,
+                                  @Value("${savings-interest.days-in-year:365}") int daysInYear,
+                                  @Value("${savings-interest.chunk-size:1000}") int chunkSize,
+                                  @Value("${savings-interest.parallelism:8}") int parallelism) {
+        this.runRepository = runRepository;
+        this.accrualRepository = accrualRepository;
+        this.transactionService = transactionService;
+        this.spendingAnalyticsService = spendingAnalyticsService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+        this.annualRate = annualRate;
+        this.daysInYear = daysInYear;
+        this.chunkSize = Math.max (chunkSize, 1);
+        this.parallelism = Math.max (parallelism, 1);
+    }
+
+
+
+
+    public InterestAccrualRun accrueInterest() {
+        return accrueInterest (LocalDate.now ());
+    }
+
+
+
+    // Brings every due savings pocket up to runDate, or carries on after the checkpoint of an earlier attempt
+    public InterestAccrualRun accrueInterest(LocalDate runDate) {
+
+        if (!running.compareAndSet (false, true)) {
+            log.info ("Interest accrual for %s skipped, another run is in progress".formatted (runDate));
+            return runRepository.findById (runDate).orElse (null);
+        }
+
+        try {
+            InterestAccrualRun run = runRepository.findById (runDate).orElseGet (() -> startRun (runDate));
+
+            if (run.getStatus () == InterestAccrualRunStatus.COMPLETED) {
+                return run;
+            }
+
+            return accrue (run);
+
+        } finally {
+            running.set (false);
+        }
+    }
+
+
+
+    public List <InterestAccrualRun> resumeUnfinishedRuns() {
+
+        List <InterestAccrualRun> resumed = new ArrayList <> ();
+
+        for (InterestAccrualRun run : runRepository.findAllByStatusOrderByRunDate (InterestAccrualRunStatus.RUNNING)) {
+            log.info ("Resuming interest accrual for %s after pocket %s".formatted (run.getRunDate (), run.getLastPocketId ()));
+            resumed.add (accrueInterest (run.getRunDate ()));
+        }
+
+        return resumed;
+    }
+
+
+
+    private InterestAccrualRun startRun(LocalDate runDate) {
+
+        LocalDateTime now = LocalDateTime.now ();
+
+        return runRepository.saveAndFlush (InterestAccrualRun.builder ()
+                .runDate (runDate)
+                .status (InterestAccrualRunStatus.RUNNING)
+                .startedOn (now)
+                .updatedOn (now)
+                .build ());
+    }
+
+
+
+    private InterestAccrualRun accrue(InterestAccrualRun run) {
+
+        LocalDate runDate = run.getRunDate ();
+        String period = YearMonth.from (runDate).toString ();
+        long started = System.nanoTime ();
+
+        ExecutorService executor = Executors.newFixedThreadPool (parallelism);
+        Semaphore inFlight = new Semaphore (parallelism * 2);
+        List <Chunk> chunks = new ArrayList <> ();
+        int checkpointed = 0;
+
+        try {
+            List <UUID> ids = nextIds (run.getLastPocketId (), runDate, period);
+
+            while (!ids.isEmpty ()) {
+
+                List <UUID> chunkIds = ids;
+                inFlight.acquire ();
+                chunks.add (new Chunk (chunkIds.get (chunkIds.size () - 1), executor.submit (() -> {
+                    try {
+                        return accrueChunk (chunkIds, runDate);
+                    } finally {
+                        inFlight.release ();
+                    }
+                })));
+
+                checkpointed = advanceCheckpoint (runDate, chunks, checkpointed, false);
+
+                ids = chunkIds.size () < chunkSize ? List.of () : nextIds (chunkIds.get (chunkIds.size () - 1), runDate, period);
+            }
+
+            advanceCheckpoint (runDate, chunks, checkpointed, true);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+            throw new IllegalStateException ("Interest accrual for %s interrupted".formatted (runDate), e);
+        } catch (Exception e) {
+            throw new IllegalStateException ("Interest accrual for %s stopped, it resumes from its checkpoint".formatted (runDate), e);
+        } finally {
+            executor.shutdownNow ();
+        }
+
+        InterestAccrualRun completed = runRepository.findById (runDate).orElseThrow ();
+        completed.setStatus (InterestAccrualRunStatus.COMPLETED);
+        completed.setCompletedOn (LocalDateTime.now ());
+        completed.setUpdatedOn (completed.getCompletedOn ());
+        completed = runRepository.save (completed);
+
+        if (completed.getPocketsPosted () > 0) {
+            spendingAnalyticsService.clearAfterCommit ();
+        }
+
+        log.info ("Interest accrual for %s finished: %d pockets accrued, %d paid out, %d chunks in %d ms".formatted (runDate,
+                completed.getPocketsAccrued (), completed.getPocketsPosted (), chunks.size (), (System.nanoTime () - started) / 1_000_000));
+
+        return completed;
+    }
+
+
+
+    private List <UUID> nextIds(UUID after, LocalDate runDate, String period) {
+
+        return after == null
+                ? accrualRepository.findFirstDue (runDate, period, PageRequest.ofSize (chunkSize))
+                : accrualRepository.findDueAfter (after, runDate, period, PageRequest.ofSize (chunkSize));
+    }
+
+
+
+    private int advanceCheckpoint(LocalDate runDate, List <Chunk> chunks, int from, boolean waitForAll) throws Exception {
+
+        int next = from;
+
+        while (next < chunks.size () && (waitForAll || chunks.get (next).result ().isDone ())) {
+
+            Chunk chunk = chunks.get (next);
+            ChunkResult result = chunk.result ().get ();
+            runRepository.advanceCheckpoint (runDate, chunk.lastPocketId (), result.accrued (), result.posted (), LocalDateTime.now ());
+            next++;
+        }
+
+        return next;
+    }
+
+
+
+    // A pocket already brought up to runDate is left alone, so a chunk that committed ahead of the
+    // checkpoint is a no-op when the run resumes.
+    private ChunkResult accrueChunk(List <UUID> pocketIds, LocalDate runDate) {
+
+        return transactionTemplate.execute (status -> {
+
+            List <UUID> locked = accrualRepository.lockPockets (pocketIds);
+            Map <UUID, SavingsAccrual> accruals = new HashMap <> ();
+            accrualRepository.findAllById (locked).forEach (accrual -> accruals.put (accrual.getPocketId (), accrual));
+
+            LocalDateTime now = LocalDateTime.now ();
+            YearMonth month = YearMonth.from (runDate);
+            Map <UUID, BigDecimal> payouts = new LinkedHashMap <> ();
+            List <SavingsBalance> paid = new ArrayList <> ();
+            List <SavingsAccrual> changed = new ArrayList <> ();
+
+            for (SavingsBalance balance : accrualRepository.findBalances (locked)) {
+
+                SavingsAccrual accrual = accruals.get (balance.pocketId ());
+
+                if (accrual == null) {
+                    changed.add (SavingsAccrual.builder ()
+                            .pocketId (balance.pocketId ())
+                            .principal (balance.availableBalance ())
+                            .accrued (BigDecimal.ZERO.setScale (ACCRUAL_SCALE))
+                            .accruedThrough (runDate)
+                            .accrualPeriod (month.toString ())
+                            .pocketUpdatedOn (balance.updatedOn ())
+                            .build ());
+                    continue;
+                }
+
+                if (!accrual.getAccruedThrough ().isBefore (runDate)) {
+                    continue;
+                }
+
+                BigDecimal payout = BigDecimal.ZERO;
+
+                // last month's interest is complete at the first of this month
+                if (YearMonth.parse (accrual.getAccrualPeriod ()).isBefore (month)) {
+                    accrueUntil (accrual, month.atDay (1));
+                    payout = accrual.getAccrued ().setScale (Math.max (balance.currency ().getDefaultFractionDigits (), 0), RoundingMode.DOWN);
+                    accrual.setAccrued (accrual.getAccrued ().subtract (payout));
+                    accrual.setAccrualPeriod (month.toString ());
+                }
+
+                accrueUntil (accrual, runDate);
+
+                if (payout.signum () > 0) {
+                    payouts.put (balance.pocketId (), payout);
+                    paid.add (balance);
+                }
+
+                accrual.setPrincipal (balance.availableBalance ().add (payout));
+                accrual.setPocketUpdatedOn (payout.signum () > 0 ? now : balance.updatedOn ());
+                changed.add (accrual);
+            }
+
+            accrualRepository.saveAll (changed);
+
+            if (!payouts.isEmpty ()) {
+                creditInBulk (payouts, now);
+                transactionService.recordAll (payoutRows (paid, payouts, month.minusMonths (1), now));
+            }
+
+            return new ChunkResult (changed.size (), payouts.size ());
+        });
+    }
+
+
+
+    private void accrueUntil(SavingsAccrual accrual, LocalDate until) {
+
+        long days = ChronoUnit.DAYS.between (accrual.getAccruedThrough (), until);
+
+        if (days <= 0) {
+            return;
+        }
+
+        // an overdrawn savings pocket earns nothing; reported rather than turned into negative interest
+        if (accrual.getPrincipal ().signum () < 0) {
+            log.warn ("Savings pocket %s has a negative principal %s, no interest accrued for %d days"
+                    .formatted (accrual.getPocketId (), accrual.getPrincipal (), days));
+            accrual.setAccruedThrough (until);
+            return;
+        }
+
+        BigDecimal interest = accrual.getPrincipal ()
+                .multiply (annualRate)
+                .multiply (BigDecimal.valueOf (days))
+                .divide (BigDecimal.valueOf (daysInYear), ACCRUAL_SCALE, RoundingMode.HALF_EVEN);
+
+        accrual.setAccrued (accrual.getAccrued ().add (interest));
+        accrual.setAccruedThrough (until);
+    }
+
+
+
+    // one UPDATE for the chunk: balance = CASE id WHEN ... THEN balance + payout END, on rows this transaction holds
+    private void creditInBulk(Map <UUID, BigDecimal> payouts, LocalDateTime now) {
+
+        List <UUID> ids = new ArrayList <> (payouts.keySet ());
+
+        StringBuilder jpql = new StringBuilder ("UPDATE Pocket p SET p.balance = CASE p.id");
+        for (int k = 0; k < ids.size (); k++) {
+            jpql.append (" WHEN :id").append (k).append (" THEN p.balance + :amount").append (k);
+        }
+        jpql.append (" ELSE p.balance END, p.updatedOn = :now WHERE p.id IN :ids AND p.status = app.pocket.model.PocketStatus.ACTIVE");
+
+        Query update = entityManager.createQuery (jpql.toString ());
+        for (int k = 0; k < ids.size (); k++) {
+            update.setParameter ("id" + k, ids.get (k));
+            update.setParameter ("amount" + k, payouts.get (ids.get (k)));
+        }
+        update.setParameter ("now", now);
+        update.setParameter ("ids", ids);
+        update.executeUpdate ();
+    }
+
+
+
+    private List <Transactions> payoutRows(List <SavingsBalance> paid, Map <UUID, BigDecimal> payouts, YearMonth earnedIn, LocalDateTime now) {
+
+        return paid.stream ()
+                .map (balance -> Transactions.builder ()
+                        .customer (entityManager.getReference (Customer.class, balance.customerId ()))
+                        .pocket (entityManager.getReference (Pocket.class, balance.pocketId ()))
+                        .sender (CLEVER_BANK_LTD)
+                        .receiver (balance.pocketId ().toString ())
+                        .amount (payouts.get (balance.pocketId ()))
+                        .remainingBalance (balance.availableBalance ().add (payouts.get (balance.pocketId ())))
+                        .currency (balance.currency ())
+                        .type (TransactionType.DEPOSIT)
+                        .status (TransactionStatus.SUCCEEDED)
+                        .description ("Savings interest for %s".formatted (earnedIn))
+                        .reasonFailed ("Interest credited!")
+                        .createdOn (now)
+                        .build ())
+                .toList ();
+    }
+
+
+
+    private record ChunkResult(long accrued, long posted) {
+    }
+
+    private record Chunk(UUID lastPocketId, Future <ChunkResult> result) {
+    }
+}
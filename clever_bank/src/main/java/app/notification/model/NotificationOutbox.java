@@ -0,0 +1,67 @@
+package app.notification.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Notification waiting to be relayed to notification-ms. Written in the same local transaction as the
+// business change and deleted once delivered; rows that run out of attempts stay as FAILED.
+// PREFERENCE rows carry a preference upsert instead: the channel type in subject, the contact in body.
+@Entity
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_notification_outbox_status_next_attempt", columnList = "status, next_attempt_on")
+})
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID customerId;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, length = 2000)
+    private String body;
+
+    // null on rows written before preferences went through the outbox, read as NOTIFICATION
+    @Enumerated(EnumType.STRING)
+    private OutboxMessageKind kind;
+
+    private Boolean notificationEnabled;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptOn;
+
+    private String lastError;
+
+    // set by the relay that claimed the row; nextAttemptOn then holds the end of its lease
+    private UUID claimToken;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @PrePersist
+    protected void onCreate() {
+        LocalDateTime now = LocalDateTime.now();
+        createdOn = now;
+        nextAttemptOn = nextAttemptOn == null ? now : nextAttemptOn;
+        status = status == null ? OutboxStatus.PENDING : status;
+        kind = kind == null ? OutboxMessageKind.NOTIFICATION : kind;
+    }
+}
@@ -0,0 +1,6 @@
+package app.notification.model;
+
+public enum OutboxStatus {
+    PENDING,
+    FAILED
+}
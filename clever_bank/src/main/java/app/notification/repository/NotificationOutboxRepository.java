@@ -0,0 +1,48 @@
+package app.notification.repository;
+
+import app.notification.model.NotificationOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository <NotificationOutbox, UUID> {
+
+
+    // oldest due messages first - served by idx_notification_outbox_status_next_attempt
+    @Query("""
+        SELECT o.id FROM NotificationOutbox o
+        WHERE o.status = app.notification.model.OutboxStatus.PENDING
+          AND o.nextAttemptOn <= :now
+        ORDER BY o.nextAttemptOn
+        """)
+    List <UUID> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+
+    // Takes the rows that are still due for this relay by moving them out to the end of a lease. A relay
+    // on another node that read the same ids finds them no longer due and claims nothing; rows of a relay
+    // that died come due again when its lease runs out.
+    @Modifying
+    @Query("""
+        UPDATE NotificationOutbox o SET o.claimToken = :token, o.nextAttemptOn = :leaseUntil
+        WHERE o.id IN :ids
+          AND o.status = app.notification.model.OutboxStatus.PENDING
+          AND o.nextAttemptOn <= :now
+        """)
+    int claim(@Param("ids") Collection <UUID> ids,
+              @Param("token") UUID token,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+
+    // the claimed rows among the ids just read, found by primary key; claim_token itself is not indexed
+    List <NotificationOutbox> findAllByIdInAndClaimToken(Collection <UUID> ids, UUID claimToken);
+}
@@ -0,0 +1,223 @@
+package app.notification.service;
+
+import app.notification.client.NotificationClient;
+import app.notification.client.dto.NotificationRequest;
+import app.notification.client.dto.UpsertNotificationPreferenceRequest;
+import app.notification.model.NotificationOutbox;
+import app.notification.model.OutboxMessageKind;
+import app.notification.model.OutboxStatus;
+import app.notification.repository.NotificationOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Drains notification_outbox to notification-ms. Woken after every commit that enqueued a message and
+// polled as a fallback. Messages are read and updated in short transactions; the HTTP calls happen
+// outside of them, so no connection or row lock is held while notification-ms is slow. Every node runs a
+// relay; a message is only sent by the relay that claimed it (see NotificationOutboxRepository.claim).
+@Slf4j
+@Component
+public class NotificationOutboxRelay {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationClient notificationClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    private final ReentrantLock drainLock = new ReentrantLock ();
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean ();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor (runnable -> {
+        Thread thread = new Thread (runnable, "notification-outbox-relay");
+        thread.setDaemon (true);
+        return thread;
+    });
+
+
+    @Autowired
+    public NotificationOutboxRelay(NotificationOutboxRepository outboxRepository,
+                                   NotificationClient notificationClient,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${notification-outbox.batch-size:100}") int batchSize,
+                                   @Value("${notification-outbox.max-attempts:10}") int maxAttempts,
+                                   @Value("${notification-outbox.initial-backoff:2s}") Duration initialBackoff,
+                                   @Value("${notification-outbox.max-backoff:15m}") Duration maxBackoff,
+                                   @Value("${notification-outbox.lease:PT5M}") Duration lease) {
+        this.outboxRepository = outboxRepository;
+        this.notificationClient = notificationClient;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+        this.batchSize = Math.max (batchSize, 1);
+        this.maxAttempts = Math.max (maxAttempts, 1);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+    }
+
+
+
+    // Asks the relay thread for a drain; wake-ups that arrive while one is queued are coalesced
+    public void wakeUp() {
+
+        if (wakeUpPending.compareAndSet (false, true)) {
+            executor.execute (() -> {
+                wakeUpPending.set (false);
+                relayDue ();
+            });
+        }
+    }
+
+
+
+    @Scheduled(fixedDelayString = "${notification-outbox.poll-interval:PT5S}")
+    public void poll() {
+        relayDue ();
+    }
+
+
+
+    // Delivers every due message; returns how many were delivered
+    public int relayDue() {
+
+        drainLock.lock ();
+        try {
+            int delivered = 0;
+
+            while (true) {
+
+                List <UUID> due = transactionTemplate.execute (status ->
+                        outboxRepository.findDueIds (LocalDateTime.now (), PageRequest.ofSize (batchSize)));
+
+                if (due.isEmpty ()) {
+                    return delivered;
+                }
+
+                // only what this relay claimed is sent; rows another node got first are skipped
+                List <NotificationOutbox> batch = claim (due);
+
+                List <UUID> sent = new ArrayList <> ();
+                List <NotificationOutbox> failed = new ArrayList <> ();
+
+                for (NotificationOutbox message : batch) {
+                    try {
+                        deliver (message);
+                        sent.add (message.getId ());
+                    } catch (Exception e) {
+                        scheduleRetry (message, e);
+                        failed.add (message);
+                    }
+                }
+
+                transactionTemplate.executeWithoutResult (status -> {
+                    outboxRepository.deleteAllByIdInBatch (sent);
+                    outboxRepository.saveAll (failed);
+                });
+
+                delivered += sent.size ();
+
+                // a short batch drained the backlog; a fully failed one means notification-ms is down, so wait for backoff
+                if (due.size () < batchSize || (!batch.isEmpty () && sent.isEmpty ())) {
+                    return delivered;
+                }
+            }
+        } catch (Exception e) {
+            log.error ("Notification outbox relay failed: ", e);
+            return 0;
+        } finally {
+            drainLock.unlock ();
+        }
+    }
+
+
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow ();
+    }
+
+
+
+    private List <NotificationOutbox> claim(List <UUID> due) {
+
+        UUID token = UUID.randomUUID ();
+        LocalDateTime now = LocalDateTime.now ();
+
+        return transactionTemplate.execute (status -> {
+            if (outboxRepository.claim (due, token, now, now.plus (lease)) == 0) {
+                return List.of ();
+            }
+            return outboxRepository.findAllByIdInAndClaimToken (due, token);
+        });
+    }
+
+
+
+    private void deliver(NotificationOutbox message) {
+
+        ResponseEntity <Void> httpResponse = message.getKind () == OutboxMessageKind.PREFERENCE
+                ? notificationClient.upsertNotificationPreference (UpsertNotificationPreferenceRequest.builder ()
+                        .customerId (message.getCustomerId ())
+                        .type (message.getSubject ())
+                        .contactInfo (message.getBody ().isEmpty () ? null : message.getBody ())
+                        .notificationEnabled (Boolean.TRUE.equals (message.getNotificationEnabled ()))
+                        .build ())
+                : notificationClient.sendNotification (NotificationRequest.builder ()
+                        .customerId (message.getCustomerId ())
+                        .subject (message.getSubject ())
+                        .body (message.getBody ())
+                        .build ());
+
+        if (!httpResponse.getStatusCode ().is2xxSuccessful ()) {
+            throw new IllegalStateException ("notification-ms responded with %s".formatted (httpResponse.getStatusCode ()));
+        }
+    }
+
+
+
+    // exponential backoff capped at max-backoff; after max-attempts the message is parked as FAILED
+    private void scheduleRetry(NotificationOutbox message, Exception cause) {
+
+        int attempts = message.getAttempts () + 1;
+        message.setClaimToken (null);
+        message.setAttempts (attempts);
+        message.setLastError (abbreviate (cause.getMessage ()));
+
+        if (attempts >= maxAttempts) {
+            message.setStatus (OutboxStatus.FAILED);
+            log.error ("[Feign call to notification-ms failed] Giving up on notification %s for user with id = [%s] after %d attempts."
+                    .formatted (message.getId (), message.getCustomerId (), attempts));
+            return;
+        }
+
+        Duration backoff = initialBackoff.multipliedBy (1L << Math.min (attempts - 1, 30));
+        message.setNextAttemptOn (LocalDateTime.now ().plus (backoff.compareTo (maxBackoff) > 0 ? maxBackoff : backoff));
+    }
+
+
+    private static String abbreviate(String value) {
+
+        if (value == null) {
+            return null;
+        }
+        return value.length () <= 255 ? value : value.substring (0, 255);
+    }
+}
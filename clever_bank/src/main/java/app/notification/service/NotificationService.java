@@ -7,11 +7,16 @@ import app.notification.client.dto.NotificationPreferenceResponse;
 import app.notification.client.dto.NotificationRequest;
 import app.notification.client.dto.NotificationResponse;
 import app.notification.client.dto.UpsertNotificationPreferenceRequest;
+import app.notification.model.NotificationOutbox;
+import app.notification.model.OutboxMessageKind;
+import app.notification.repository.NotificationOutboxRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.UUID;
@@ -22,10 +27,16 @@ public class NotificationService {
 
 
     private final NotificationClient notificationClient;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationOutboxRelay notificationOutboxRelay;
 
     @Autowired
-    public NotificationService(NotificationClient notificationClient) {
+    public NotificationService(NotificationClient notificationClient,
+                               NotificationOutboxRepository notificationOutboxRepository,
+                               NotificationOutboxRelay notificationOutboxRelay) {
         this.notificationClient = notificationClient;
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationOutboxRelay = notificationOutboxRelay;
     }
 
     @Value("${notification-service.clear-history-failed-message}")
@@ -57,6 +68,24 @@ public class NotificationService {
 
 
 
+    // Bulk variant for the onboarding import: the upserts are queued in the caller's transaction and the
+    // relay delivers them with retries, so a crash after the chunk commits does not lose them.
+    public void enqueueNotificationPreferences(List <UpsertNotificationPreferenceRequest> preferences) {
+
+        enqueueNotifications (preferences.stream ()
+                .map (preference -> NotificationOutbox.builder ()
+                        .customerId (preference.getCustomerId ())
+                        .kind (OutboxMessageKind.PREFERENCE)
+                        .subject (preference.getType ())
+                        .body (preference.getContactInfo () == null ? "" : preference.getContactInfo ())
+                        .notificationEnabled (preference.isNotificationEnabled ())
+                        .build ())
+                .toList ());
+    }
+
+
+
+
     public NotificationPreferenceResponse getNotificationPreference(UUID customerId) {
 
         ResponseEntity <NotificationPreferenceResponse> customerPreference = notificationClient.getCustomerPreference (customerId);
@@ -114,6 +143,50 @@ public class NotificationService {
 
 
 
+    // queue a notification in the caller's transaction; the relay delivers it after commit
+    public void enqueueNotification(UUID customerId, String subject, String body) {
+
+        notificationOutboxRepository.save (NotificationOutbox.builder ()
+                .customerId (customerId)
+                .subject (subject)
+                .body (body)
+                .build ());
+
+        wakeUpRelayAfterCommit ();
+    }
+
+
+
+    // bulk variant for batch jobs: the rows go out as one JDBC batch and the relay is woken once
+    public void enqueueNotifications(List <NotificationOutbox> messages) {
+
+        if (messages.isEmpty ()) {
+            return;
+        }
+
+        notificationOutboxRepository.saveAll (messages);
+        wakeUpRelayAfterCommit ();
+    }
+
+
+
+    private void wakeUpRelayAfterCommit() {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive ()) {
+            TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                @Override
+                public void afterCommit() {
+                    notificationOutboxRelay.wakeUp ();
+                }
+            });
+            return;
+        }
+
+        notificationOutboxRelay.wakeUp ();
+    }
+
+
+
     public void clearNotificationHistory(UUID customerId) {
 
         try {
@@ -0,0 +1,55 @@
+package app.onboarding.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One row per uploaded CSV. linesProcessed is the checkpoint: that many data lines (after the header)
+// are either imported or rejected, so a resumed import skips them and carries on with the next chunk.
+@Entity
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "onboarding_imports")
+public class OnboardingImport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OnboardingImportStatus status;
+
+    // data lines in the file, counted while it was staged
+    @Column(nullable = false)
+    private long totalLines;
+
+    @Column(nullable = false)
+    private long linesProcessed;
+
+    @Column(nullable = false)
+    private long imported;
+
+    @Column(nullable = false)
+    private long rejected;
+
+    // failed runs since the checkpoint last moved; the import is given up after onboarding.max-attempts
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime startedOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+
+    private LocalDateTime completedOn;
+}
@@ -0,0 +1,8 @@
+package app.onboarding.model;
+
+public enum OnboardingImportStatus {
+
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
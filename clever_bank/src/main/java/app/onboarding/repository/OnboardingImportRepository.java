@@ -0,0 +1,47 @@
+package app.onboarding.repository;
+
+import app.onboarding.model.OnboardingImport;
+import app.onboarding.model.OnboardingImportStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface OnboardingImportRepository extends JpaRepository <OnboardingImport, UUID> {
+
+
+    List <OnboardingImport> findAllByStatusOrderByStartedOn(OnboardingImportStatus status);
+
+
+    // every chunk commits under this lock, so two nodes resuming the same import never insert the same lines
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM OnboardingImport i WHERE i.id = :id")
+    Optional <OnboardingImport> findByIdForUpdate(@Param("id") UUID id);
+
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OnboardingImport i SET i.status = :status, i.lastError = :error, i.updatedOn = :now WHERE i.id = :id")
+    int recordError(@Param("id") UUID id,
+                    @Param("status") OnboardingImportStatus status,
+                    @Param("error") String error,
+                    @Param("now") LocalDateTime now);
+
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OnboardingImport i SET i.attempts = i.attempts + 1, i.lastError = :error, i.updatedOn = :now WHERE i.id = :id")
+    int recordFailedAttempt(@Param("id") UUID id,
+                            @Param("error") String error,
+                            @Param("now") LocalDateTime now);
+}
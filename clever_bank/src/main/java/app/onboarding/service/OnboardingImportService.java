@@ -0,0 +1,627 @@
+package app.onboarding.service;
+
+import app.cards.service.CardService;
+import app.customer.model.Country;
+import app.customer.model.Customer;
+import app.customer.model.Gender;
+import app.customer.model.UserRole;
+import app.customer.repository.CustomerRepository;
+import app.exception.DomainException;
+import app.fx.model.FxRateSnapshot;
+import app.fx.service.FxRateService;
+import app.notification.client.dto.UpsertNotificationPreferenceRequest;
+import app.notification.service.NotificationService;
+import app.onboarding.model.OnboardingImport;
+import app.onboarding.model.OnboardingImportStatus;
+import app.onboarding.repository.OnboardingImportRepository;
+import app.pocket.service.PocketService;
+import app.subscription.service.SubscriptionService;
+import app.web.dto.RegisterRequest;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Bulk onboarding from a partner's CSV. The upload is staged on disk and streamed back a chunk at a time:
+// rows are validated like a registration, their passwords are hashed on a bounded pool one chunk ahead
+// of the inserts, and each chunk's customers, subscriptions, pockets and cards go in as JDBC batches in
+// one transaction that also moves the import's checkpoint and queues the notification preferences.
+@Slf4j
+@Service
+public class OnboardingImportService {
+
+    private static final List <String> REQUIRED_COLUMNS = List.of ("username", "password", "phone_number", "country", "gender");
+    private static final Pattern EMAIL = Pattern.compile ("^[^@\\s]+@[^@\\s]+$");
+
+    private final OnboardingImportRepository onboardingImportRepository;
+    private final CustomerRepository customerRepository;
+    private final SubscriptionService subscriptionService;
+    private final PocketService pocketService;
+    private final CardService cardService;
+    private final NotificationService notificationService;
+    private final PasswordEncoder passwordEncoder;
+    private final FxRateService fxRateService;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final Path importDir;
+    private final int chunkSize;
+    private final int hashParallelism;
+    private final int maxAttempts;
+
+    // one import at a time per node; the resume poll finds the rest
+    private final AtomicBoolean running = new AtomicBoolean ();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor (runnable -> {
+        Thread thread = new Thread (runnable, "onboarding-import");
+        thread.setDaemon (true);
+        return thread;
+    });
+
+
+    @Autowired
+    public OnboardingImportService(OnboardingImportRepository onboardingImportRepository,
+                                   CustomerRepository customerRepository,
+                                   SubscriptionService subscriptionService,
+                                   PocketService pocketService,
+                                   CardService cardService,
+                                   NotificationService notificationService,
+                                   PasswordEncoder passwordEncoder,
+                                   FxRateService fxRateService,
+                                   Validator validator,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${onboarding.import-dir:${java.io.tmpdir}/clever-bank-onboarding}") Path importDir,
+                                   @Value("${onboarding.chunk-size:500}") int chunkSize,
+                                   @Value("${onboarding.hash-parallelism:4}") int hashParallelism,
+                                   @Value("${onboarding.max-attempts:5}") int maxAttempts) {
+        this.onboardingImportRepository = onboardingImportRepository;
+        this.customerRepository = customerRepository;
+        this.subscriptionService = subscriptionService;
+        this.pocketService = pocketService;
+        this.cardService = cardService;
+        this.notificationService = notificationService;
+        this.passwordEncoder = passwordEncoder;
+        this.fxRateService = fxRateService;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+        this.importDir = importDir;
+        this.chunkSize = Math.max (chunkSize, 1);
+        this.hashParallelism = Math.max (hashParallelism, 1);
+        this.maxAttempts = Math.max (maxAttempts, 1);
+    }
+
+
+
+
+    // Stages the upload and runs the import in the background; the caller polls getImport for progress
+    public OnboardingImport startImport(InputStream csv) {
+
+        OnboardingImport onboardingImport = createImport (csv);
+
+        executor.execute (() -> {
+            try {
+                runImport (onboardingImport.getId ());
+            } catch (Exception e) {
+                log.error ("Error while running onboarding import %s: ".formatted (onboardingImport.getId ()), e);
+            }
+        });
+
+        return onboardingImport;
+    }
+
+
+
+    // Copies the upload next to the other staged imports and records it. Nothing is inserted yet.
+    public OnboardingImport createImport(InputStream csv) {
+
+        Path staged;
+        long lines = 0;
+
+        try {
+            Files.createDirectories (importDir);
+            staged = Files.createTempFile (importDir, "upload-", ".csv");
+        } catch (IOException e) {
+            throw new DomainException ("Onboarding file could not be stored", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        try (BufferedReader reader = new BufferedReader (new InputStreamReader (csv, StandardCharsets.UTF_8));
+             BufferedWriter writer = Files.newBufferedWriter (staged, StandardCharsets.UTF_8)) {
+
+            String line;
+            while ((line = reader.readLine ()) != null) {
+                writer.write (line);
+                writer.newLine ();
+                lines++;
+            }
+        } catch (IOException e) {
+            deleteQuietly (staged);
+            throw new DomainException ("Onboarding file could not be stored", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        if (lines == 0) {
+            deleteQuietly (staged);
+            throw new DomainException ("Onboarding file is empty", HttpStatus.BAD_REQUEST);
+        }
+
+        LocalDateTime now = LocalDateTime.now ();
+        OnboardingImport onboardingImport = onboardingImportRepository.save (OnboardingImport.builder ()
+                .status (OnboardingImportStatus.RUNNING)
+                .totalLines (lines - 1)
+                .startedOn (now)
+                .updatedOn (now)
+                .build ());
+
+        try {
+            Files.move (staged, file (onboardingImport.getId ()));
+        } catch (IOException e) {
+            deleteQuietly (staged);
+            onboardingImportRepository.recordError (onboardingImport.getId (), OnboardingImportStatus.FAILED, "Staged file could not be moved", now);
+            throw new DomainException ("Onboarding file could not be stored", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        log.info ("Onboarding import %s staged with %d lines".formatted (onboardingImport.getId (), onboardingImport.getTotalLines ()));
+
+        return onboardingImport;
+    }
+
+
+
+    // Runs the import from its checkpoint to the end of the file
+    public OnboardingImport runImport(UUID importId) {
+
+        if (!running.compareAndSet (false, true)) {
+            log.info ("Onboarding import %s skipped, another import is in progress".formatted (importId));
+            return onboardingImportRepository.findById (importId).orElse (null);
+        }
+
+        try {
+            OnboardingImport onboardingImport = getImport (importId);
+
+            if (onboardingImport.getStatus () != OnboardingImportStatus.RUNNING) {
+                return onboardingImport;
+            }
+
+            return process (onboardingImport);
+
+        } finally {
+            running.set (false);
+        }
+    }
+
+
+
+    // imports left RUNNING by a crash, a redeploy or a failed chunk
+    public List <OnboardingImport> resumeUnfinishedImports() {
+
+        List <OnboardingImport> resumed = new ArrayList <> ();
+
+        for (OnboardingImport onboardingImport : onboardingImportRepository.findAllByStatusOrderByStartedOn (OnboardingImportStatus.RUNNING)) {
+            log.info ("Resuming onboarding import %s after line %d".formatted (onboardingImport.getId (), onboardingImport.getLinesProcessed ()));
+            resumed.add (runImport (onboardingImport.getId ()));
+        }
+
+        return resumed;
+    }
+
+
+
+    public OnboardingImport getImport(UUID importId) {
+
+        return onboardingImportRepository.findById (importId)
+                .orElseThrow (() -> new DomainException ("Onboarding import with id %s not found".formatted (importId), HttpStatus.BAD_REQUEST));
+    }
+
+
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow ();
+    }
+
+
+
+    private OnboardingImport process(OnboardingImport onboardingImport) {
+
+        UUID importId = onboardingImport.getId ();
+        Path file = file (importId);
+        long started = System.nanoTime ();
+
+        if (!Files.exists (file)) {
+            return fail (importId, "Staged file %s is missing".formatted (file));
+        }
+
+        ExecutorService hashers = Executors.newFixedThreadPool (hashParallelism);
+
+        try (BufferedReader reader = Files.newBufferedReader (file, StandardCharsets.UTF_8)) {
+
+            Map <String, Integer> columns = columns (reader.readLine ());
+            if (!columns.keySet ().containsAll (REQUIRED_COLUMNS)) {
+                return fail (importId, "Header must name the columns %s".formatted (String.join (",", REQUIRED_COLUMNS)));
+            }
+
+            // lines before the checkpoint are already in, or were rejected
+            long offset = onboardingImport.getLinesProcessed ();
+            long skipped = 0;
+            while (skipped < offset && reader.readLine () != null) {
+                skipped++;
+            }
+
+            Chunk chunk = readChunk (importId, reader, columns, offset, hashers);
+
+            while (chunk.lines () > 0) {
+
+                // the next chunk's passwords are hashed while this one is inserted
+                Chunk next = readChunk (importId, reader, columns, offset + chunk.lines (), hashers);
+
+                Committed committed = commitChunk (importId, offset, chunk);
+                if (committed == null) {
+                    log.info ("Onboarding import %s moved past line %d elsewhere, stopping here".formatted (importId, offset));
+                    return getImport (importId);
+                }
+
+                offset += chunk.lines ();
+                chunk = next;
+
+                log.info ("Onboarding import %s: %d of %d lines, %d imported, %d rejected".formatted (importId,
+                        committed.linesProcessed (), onboardingImport.getTotalLines (), committed.imported (), committed.rejected ()));
+            }
+
+        } catch (Exception e) {
+            onboardingImportRepository.recordFailedAttempt (importId, truncate (e.toString ()), LocalDateTime.now ());
+
+            // a chunk that keeps failing at the same checkpoint would otherwise be retried by every resume poll
+            OnboardingImport stopped = getImport (importId);
+            if (stopped.getAttempts () >= maxAttempts) {
+                return fail (importId, "Gave up after %d attempts after line %d: %s".formatted (stopped.getAttempts (),
+                        stopped.getLinesProcessed (), e));
+            }
+            throw new IllegalStateException ("Onboarding import %s stopped, it resumes from its checkpoint".formatted (importId), e);
+        } finally {
+            hashers.shutdownNow ();
+        }
+
+        OnboardingImport completed = getImport (importId);
+        completed.setStatus (OnboardingImportStatus.COMPLETED);
+        completed.setCompletedOn (LocalDateTime.now ());
+        completed.setUpdatedOn (completed.getCompletedOn ());
+        completed = onboardingImportRepository.save (completed);
+
+        // the staged file holds plain-text passwords, so it goes as soon as it is no longer needed
+        deleteQuietly (file);
+
+        log.info ("Onboarding import %s finished: %d imported, %d rejected in %d ms".formatted (importId,
+                completed.getImported (), completed.getRejected (), (System.nanoTime () - started) / 1_000_000));
+
+        return completed;
+    }
+
+
+
+    // Reads up to chunkSize lines; every valid row has its hash already on its way
+    private Chunk readChunk(UUID importId, BufferedReader reader, Map <String, Integer> columns,
+                            long offset, ExecutorService hashers) throws IOException {
+
+        FxRateSnapshot rates = fxRateService.current ();
+        List <Candidate> candidates = new ArrayList <> ();
+        int lines = 0;
+        int rejected = 0;
+
+        String line;
+        while (lines < chunkSize && (line = reader.readLine ()) != null) {
+
+            lines++;
+            if (line.isBlank ()) {
+                continue;
+            }
+
+            // line numbers as the partner sees them, header included
+            long lineNumber = offset + lines + 1;
+            List <String> fields = parseLine (line);
+            RegisterRequest request;
+
+            try {
+                request = fields == null ? null : toRequest (fields, columns);
+            } catch (IllegalArgumentException e) {
+                request = null;
+            }
+
+            String problem = request == null ? "malformed line or unknown country, gender or currency" : validate (request, rates);
+            String email = request == null ? null : field (fields, columns, "email");
+
+            if (problem == null && email != null && (email.length () > 255 || !EMAIL.matcher (email).matches ())) {
+                problem = "email is not valid";
+            }
+
+            if (problem != null) {
+                rejected++;
+                log.warn ("Onboarding import %s rejected line %d: %s".formatted (importId, lineNumber, problem));
+                continue;
+            }
+
+            String password = request.getPassword ();
+            candidates.add (new Candidate (lineNumber, request.getUsername (), request.getPhoneNumber (), request.getCountry (),
+                    request.getGender (), request.getCurrency (), email, hashers.submit (() -> passwordEncoder.encode (password))));
+        }
+
+        return new Chunk (lines, candidates, rejected);
+    }
+
+
+
+    // One transaction per chunk, under the import's row lock. A chunk whose offset no longer matches the
+    // checkpoint was committed by another node in the meantime; null tells the caller to stop.
+    private Committed commitChunk(UUID importId, long offset, Chunk chunk) {
+
+        return transactionTemplate.execute (status -> {
+
+            OnboardingImport onboardingImport = onboardingImportRepository.findByIdForUpdate (importId).orElseThrow ();
+            if (onboardingImport.getStatus () != OnboardingImportStatus.RUNNING || onboardingImport.getLinesProcessed () != offset) {
+                return null;
+            }
+
+            // within the chunk usernames compare case-insensitively, as the unique index does under MySQL's
+            // collation; against the table the database's own collation decides, as it does for register
+            Set <String> usernames = new HashSet <> ();
+            Set <String> phoneNumbers = new HashSet <> ();
+            if (!chunk.candidates ().isEmpty ()) {
+                customerRepository.findExistingUsernames (chunk.candidates ().stream ().map (Candidate::username).toList ())
+                        .forEach (username -> usernames.add (username.toLowerCase (Locale.ROOT)));
+                phoneNumbers.addAll (customerRepository.findExistingPhoneNumbers (chunk.candidates ().stream ().map (Candidate::phoneNumber).toList ()));
+            }
+
+            LocalDateTime now = LocalDateTime.now ();
+            List <Customer> customers = new ArrayList <> ();
+            Map <Customer, Currency> currencies = new LinkedHashMap <> ();
+            Map <Customer, String> emails = new HashMap <> ();
+            int rejected = chunk.rejected ();
+
+            for (Candidate candidate : chunk.candidates ()) {
+
+                String username = candidate.username ().toLowerCase (Locale.ROOT);
+                if (usernames.contains (username) || phoneNumbers.contains (candidate.phoneNumber ())) {
+                    rejected++;
+                    log.warn ("Onboarding import %s rejected line %d: username or phone number already taken".formatted (importId, candidate.line ()));
+                    continue;
+                }
+                usernames.add (username);
+                phoneNumbers.add (candidate.phoneNumber ());
+
+                Customer customer = Customer.builder ()
+                        .username (candidate.username ())
+                        .password (hash (candidate))
+                        .phoneNumber (candidate.phoneNumber ())
+                        .email (candidate.email ())
+                        .country (candidate.country ())
+                        .gender (candidate.gender ())
+                        .isActive (true)
+                        .role (UserRole.USER)
+                        .createdOn (now)
+                        .updatedOn (now)
+                        .accountExpireAt (now.plusYears (1))
+                        .credentialsExpireAt (now.plusYears (1))
+                        .build ();
+
+                customers.add (customer);
+                currencies.put (customer, candidate.currency ());
+                emails.put (customer, candidate.email ());
+            }
+
+            if (!customers.isEmpty ()) {
+                customerRepository.saveAll (customers);
+                subscriptionService.createDefaultSubscriptions (customers);
+                pocketService.createWallets (currencies);
+                cardService.createDefaultCards (customers);
+
+                // queued with the chunk, so they are delivered even if this node dies right after the commit
+                notificationService.enqueueNotificationPreferences (customers.stream ()
+                        .map (customer -> UpsertNotificationPreferenceRequest.builder ()
+                                .customerId (customer.getId ())
+                                .contactInfo (emails.get (customer))
+                                .type ("EMAIL")
+                                .notificationEnabled (emails.get (customer) != null)
+                                .build ())
+                        .toList ());
+            }
+
+            onboardingImport.setLinesProcessed (offset + chunk.lines ());
+            onboardingImport.setAttempts (0);
+            onboardingImport.setImported (onboardingImport.getImported () + customers.size ());
+            onboardingImport.setRejected (onboardingImport.getRejected () + rejected);
+            onboardingImport.setUpdatedOn (now);
+
+            return new Committed (onboardingImport.getLinesProcessed (), onboardingImport.getImported (),
+                    onboardingImport.getRejected ());
+        });
+    }
+
+
+
+    private RegisterRequest toRequest(List <String> fields, Map <String, Integer> columns) {
+
+        String country = field (fields, columns, "country");
+        String gender = field (fields, columns, "gender");
+        String currency = field (fields, columns, "currency");
+
+        return RegisterRequest.builder ()
+                .username (field (fields, columns, "username"))
+                .password (field (fields, columns, "password"))
+                .phoneNumber (field (fields, columns, "phone_number"))
+                .country (country == null ? null : Country.valueOf (country.toUpperCase (Locale.ROOT)))
+                .gender (gender == null ? null : Gender.valueOf (gender.toUpperCase (Locale.ROOT)))
+                .currency (currency == null ? null : Currency.getInstance (currency.toUpperCase (Locale.ROOT)))
+                .build ();
+    }
+
+
+
+    // the registration form's rules, plus the currency check createWallet would fail the whole chunk on
+    private String validate(RegisterRequest request, FxRateSnapshot rates) {
+
+        Set <ConstraintViolation <RegisterRequest>> violations = validator.validate (request);
+        if (!violations.isEmpty ()) {
+            return violations.stream ()
+                    .map (violation -> violation.getPropertyPath () + " " + violation.getMessage ())
+                    .sorted ()
+                    .collect (Collectors.joining ("; "));
+        }
+
+        if (request.getCurrency () != null && !rates.supports (request.getCurrency ())) {
+            return "currency %s is not supported".formatted (request.getCurrency ());
+        }
+
+        return null;
+    }
+
+
+
+    private String hash(Candidate candidate) {
+
+        try {
+            return candidate.hash ().get ();
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+            throw new IllegalStateException ("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException ("Password hashing failed", e.getCause ());
+        }
+    }
+
+
+
+    private OnboardingImport fail(UUID importId, String error) {
+
+        onboardingImportRepository.recordError (importId, OnboardingImportStatus.FAILED, truncate (error), LocalDateTime.now ());
+        log.error ("Onboarding import %s failed: %s".formatted (importId, error));
+
+        // a failed import is never resumed, and its staged file still holds plain-text passwords
+        deleteQuietly (file (importId));
+
+        return getImport (importId);
+    }
+
+
+
+    private Path file(UUID importId) {
+        return importDir.resolve (importId + ".csv");
+    }
+
+
+
+    private static Map <String, Integer> columns(String header) {
+
+        Map <String, Integer> columns = new HashMap <> ();
+        List <String> names = header == null ? null : parseLine (header.replace ("\uFEFF", ""));
+
+        if (names != null) {
+            for (int k = 0; k < names.size (); k++) {
+                columns.putIfAbsent (names.get (k).toLowerCase (Locale.ROOT), k);
+            }
+        }
+
+        return columns;
+    }
+
+
+
+    private static String field(List <String> fields, Map <String, Integer> columns, String name) {
+
+        Integer index = columns.get (name);
+        if (index == null || index >= fields.size () || fields.get (index).isEmpty ()) {
+            return null;
+        }
+
+        return fields.get (index);
+    }
+
+
+
+    // One CSV line: quoted fields may hold commas and doubled quotes, not line breaks. Null when a quote is left open.
+    private static List <String> parseLine(String line) {
+
+        List <String> fields = new ArrayList <> ();
+        StringBuilder field = new StringBuilder ();
+        boolean quoted = false;
+
+        for (int k = 0; k < line.length (); k++) {
+
+            char c = line.charAt (k);
+
+            if (quoted) {
+                if (c != '"') {
+                    field.append (c);
+                } else if (k + 1 < line.length () && line.charAt (k + 1) == '"') {
+                    field.append ('"');
+                    k++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add (field.toString ().strip ());
+                field.setLength (0);
+            } else {
+                field.append (c);
+            }
+        }
+
+        if (quoted) {
+            return null;
+        }
+
+        fields.add (field.toString ().strip ());
+        return fields;
+    }
+
+
+
+    private static String truncate(String error) {
+        return error.length () <= 1000 ? error : error.substring (0, 1000);
+    }
+
+
+
+    private static void deleteQuietly(Path file) {
+
+        try {
+            Files.deleteIfExists (file);
+        } catch (IOException e) {
+            log.warn ("Could not delete staged onboarding file %s".formatted (file));
+        }
+    }
+
+
+
+    private record Candidate(long line, String username, String phoneNumber, Country country, Gender gender,
+                             Currency currency, String email, Future <String> hash) {
+    }
+
+    private record Chunk(int lines, List <Candidate> candidates, int rejected) {
+    }
+
+    private record Committed(long linesProcessed, long imported, long rejected) {
+    }
+}
@@ -0,0 +1,108 @@
+package app.pocket.cache;
+
+import app.pocket.model.ReceiverPocket;
+import app.pocket.repository.PocketRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+
+// Username -> the pocket transfers to that customer land on. Usernames without an active pocket are
+// cached as well, so a mistyped receiver does not hit the database on every attempt. Entries are
+// dropped whenever a pocket is created, switched or re-sharded; the write-expiry only bounds what
+// another node's changes can leave behind.
+@Component
+public class ReceiverPocketCache {
+
+    private final Cache <String, Optional <ReceiverPocket>> receivers;
+    private final PocketRepository pocketRepository;
+
+
+    @Autowired
+    public ReceiverPocketCache(PocketRepository pocketRepository,
+                               @Value("${receiver-pocket.cache.max-usernames:100000}") long maxUsernames,
+                               @Value("${receiver-pocket.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                               MeterRegistry meterRegistry) {
+
+        this.pocketRepository = pocketRepository;
+        this.receivers = Caffeine.newBuilder ()
+                .maximumSize (maxUsernames)
+                .expireAfterWrite (expireAfterWrite)
+                .recordStats ()
+                .build ();
+
+        CaffeineCacheMetrics.monitor (meterRegistry, receivers, "receiverPockets");
+    }
+
+
+
+    public Optional <ReceiverPocket> resolve(String username) {
+
+        if (username == null) {
+            return Optional.empty ();
+        }
+
+        return receivers.get (username, this::load);
+    }
+
+
+
+    // Drops the username now, so the rest of this transaction reads fresh, and again after commit,
+    // so a lookup that ran concurrently against the old rows does not stay cached.
+    public void evictAfterCommit(String username) {
+
+        if (username == null) {
+            return;
+        }
+
+        receivers.invalidate (username);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive ()) {
+            TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                @Override
+                public void afterCommit() {
+                    receivers.invalidate (username);
+                }
+            });
+        }
+    }
+
+
+
+    public void evictAllAfterCommit(Collection <String> usernames) {
+
+        if (usernames.isEmpty ()) {
+            return;
+        }
+
+        receivers.invalidateAll (usernames);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive ()) {
+            TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                @Override
+                public void afterCommit() {
+                    receivers.invalidateAll (usernames);
+                }
+            });
+        }
+    }
+
+
+
+    private Optional <ReceiverPocket> load(String username) {
+
+        return pocketRepository.findActiveReceiverByUsername (username, PageRequest.ofSize (1))
+                .stream ()
+                .findFirst ();
+    }
+}
@@ -0,0 +1,125 @@
+package app.pocket.lock;
+
+import app.exception.DomainException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Optional in-JVM striped locks keyed by pocket id. Transfers touching the same pockets queue here
+// instead of on the database row lock, and stripes are always taken in ascending index order so two
+// transfers in opposite directions can never deadlock. Disabled by default: then every call runs directly.
+@Slf4j
+@Component
+public class PocketLockManager {
+
+    private final boolean enabled;
+    private final long waitTimeoutNanos;
+    private final ReentrantLock[] stripes;
+    private final Timer[] waitTimers;
+
+
+    @Autowired
+    public PocketLockManager(@Value("${pocket-lock.striped.enabled:false}") boolean enabled,
+                             @Value("${pocket-lock.stripes:256}") int stripeCount,
+                             @Value("${pocket-lock.wait-timeout:5s}") Duration waitTimeout,
+                             MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+        this.waitTimeoutNanos = waitTimeout.toNanos ();
+
+        int size = enabled ? Math.max (stripeCount, 1) : 0;
+        this.stripes = new ReentrantLock[size];
+        this.waitTimers = new Timer[size];
+
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock ();
+            waitTimers[i] = Timer.builder ("pocket.lock.wait")
+                    .description ("Time spent waiting for a pocket lock stripe")
+                    .tag ("stripe", Integer.toString (i))
+                    .register (meterRegistry);
+        }
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+
+    // Runs the action while holding the stripes of all given pockets. Locks are reentrant, so nested
+    // calls for the same pockets on one thread are fine.
+    public <T> T withLocks(Collection <UUID> pocketIds, Supplier <T> action) {
+
+        if (!enabled) {
+            return action.get ();
+        }
+
+        TreeSet <Integer> order = new TreeSet <> ();
+        for (UUID pocketId : pocketIds) {
+            if (pocketId != null) {
+                order.add (stripeOf (pocketId));
+            }
+        }
+
+        Deque <ReentrantLock> held = new ArrayDeque <> (order.size ());
+
+        try {
+            for (int index : order) {
+                held.push (acquire (index));
+            }
+            return action.get ();
+        } finally {
+            while (!held.isEmpty ()) {
+                held.pop ().unlock ();
+            }
+        }
+    }
+
+
+
+    int stripeOf(UUID pocketId) {
+
+        // spread the hash so ids differing only in high bits still land on different stripes
+        int hash = pocketId.hashCode ();
+        hash ^= (hash >>> 16);
+        return Math.floorMod (hash, stripes.length);
+    }
+
+
+
+    private ReentrantLock acquire(int index) {
+
+        ReentrantLock lock = stripes[index];
+        long started = System.nanoTime ();
+
+        try {
+            boolean acquired = lock.tryLock (waitTimeoutNanos, TimeUnit.NANOSECONDS);
+            waitTimers[index].record (System.nanoTime () - started, TimeUnit.NANOSECONDS);
+
+            if (!acquired) {
+                log.warn ("Timed out waiting for pocket lock stripe %d".formatted (index));
+                throw new DomainException ("Pocket is busy, please try again", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return lock;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+            throw new DomainException ("Interrupted while waiting for pocket lock", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
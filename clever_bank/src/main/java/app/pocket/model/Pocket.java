@@ -3,6 +3,7 @@ package app.pocket.model;
 import app.customer.model.Customer;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -16,6 +17,8 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "pockets")
+// only changed columns are written, so a status switch never puts back a balance read before a debit
+@DynamicUpdate
 public class Pocket {
 
     @Id
@@ -45,6 +48,28 @@ public class Pocket {
     @Column(nullable = false)
     private LocalDateTime updatedOn;
 
+    // number of credit buckets when sharded balance mode is on, null otherwise
+    @Column
+    private Integer balanceShards;
+
+    // billing month (yyyy-MM) of the last monthly fee taken, so a resumed fee run skips the pocket
+    @Column(length = 7)
+    private String lastFeePeriod;
+
+    // credits still sitting in shard buckets; only read for sharded pockets, see PocketService.loadShardCredits
+    @Transient
+    private BigDecimal shardCredits;
+
+
+    public boolean isSharded() {
+        return balanceShards != null && balanceShards > 1;
+    }
+
+    // balance plus the loaded shard credits; the same as balance for an unsharded pocket
+    public BigDecimal getAvailableBalance() {
+        return shardCredits != null ? balance.add (shardCredits) : balance;
+    }
+
 
     @PrePersist
     protected void onCreate() {
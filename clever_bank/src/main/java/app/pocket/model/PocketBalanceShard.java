@@ -0,0 +1,35 @@
+package app.pocket.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One bucket of credits for a sharded pocket. Credits are spread over the buckets so they do not
+// all wait on the pocket row; the folder moves bucket amounts into Pocket.balance.
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(PocketBalanceShardId.class)
+@Table(name = "pocket_balance_shards")
+public class PocketBalanceShard {
+
+    @Id
+    @Column(nullable = false)
+    private UUID pocketId;
+
+    @Id
+    @Column(nullable = false)
+    private int shardNo;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
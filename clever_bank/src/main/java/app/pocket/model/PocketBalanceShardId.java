@@ -0,0 +1,18 @@
+package app.pocket.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PocketBalanceShardId implements Serializable {
+
+    private UUID pocketId;
+
+    private int shardNo;
+}
@@ -0,0 +1,8 @@
+package app.pocket.model;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.UUID;
+
+public record PocketBalanceView(UUID pocketId, BigDecimal availableBalance, Currency currency) {
+}
@@ -0,0 +1,7 @@
+package app.pocket.model;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record PocketShardTotal(UUID pocketId, BigDecimal amount) {
+}
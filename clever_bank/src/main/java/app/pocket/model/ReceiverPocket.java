@@ -0,0 +1,12 @@
+package app.pocket.model;
+
+import java.util.Currency;
+import java.util.UUID;
+
+// Just enough of a receiver pocket to route a transfer, without loading the customer graph
+public record ReceiverPocket(UUID pocketId, UUID customerId, String username, Integer balanceShards, Currency currency) {
+
+    public boolean isSharded() {
+        return balanceShards != null && balanceShards > 1;
+    }
+}
@@ -0,0 +1,50 @@
+package app.pocket.repository;
+
+import app.pocket.model.PocketBalanceShard;
+import app.pocket.model.PocketBalanceShardId;
+import app.pocket.model.PocketShardTotal;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PocketBalanceShardRepository extends JpaRepository <PocketBalanceShard, PocketBalanceShardId> {
+
+
+    // the pocket status is checked in the statement, never on an entity read earlier in the transaction
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE PocketBalanceShard s SET s.amount = s.amount + :amount, s.updatedOn = :now
+        WHERE s.pocketId = :pocketId AND s.shardNo = :shardNo
+          AND EXISTS (SELECT p.id FROM Pocket p WHERE p.id = :pocketId AND p.status = app.pocket.model.PocketStatus.ACTIVE)
+        """)
+    int addToShardIfActive(@Param("pocketId") UUID pocketId, @Param("shardNo") int shardNo,
+                           @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+
+    @Query("SELECT new app.pocket.model.PocketShardTotal(s.pocketId, SUM(s.amount)) FROM PocketBalanceShard s WHERE s.pocketId IN :pocketIds GROUP BY s.pocketId")
+    List <PocketShardTotal> sumByPocketIds(@Param("pocketIds") Collection <UUID> pocketIds);
+
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PocketBalanceShard s WHERE s.pocketId = :pocketId ORDER BY s.shardNo")
+    List <PocketBalanceShard> findAllByPocketIdForUpdate(@Param("pocketId") UUID pocketId);
+
+
+    @Query("SELECT DISTINCT s.pocketId FROM PocketBalanceShard s WHERE s.amount <> 0 ORDER BY s.pocketId")
+    List <UUID> findPocketIdsWithCredits(Pageable pageable);
+
+    @Query("SELECT DISTINCT s.pocketId FROM PocketBalanceShard s WHERE s.amount <> 0 AND s.pocketId > :after ORDER BY s.pocketId")
+    List <UUID> findPocketIdsWithCreditsAfter(@Param("after") UUID after, Pageable pageable);
+}
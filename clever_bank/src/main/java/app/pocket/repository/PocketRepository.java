@@ -1,11 +1,23 @@
 package app.pocket.repository;
 
+import app.configuration.CacheConfiguration;
 import app.pocket.model.Pocket;
+import app.pocket.model.PocketBalanceView;
+import app.pocket.model.PocketType;
+import app.pocket.model.ReceiverPocket;
+import jakarta.persistence.LockModeType;
 import jakarta.validation.constraints.NotNull;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -18,11 +30,115 @@ public interface PocketRepository extends JpaRepository <Pocket, UUID> {
 
     Optional <Pocket> findByIdAndCustomerId(UUID pocketId, UUID customerId);
 
+    // owner of a pocket for read-only ownership checks; it never changes, so it is cached
+    @Cacheable(CacheConfiguration.POCKET_OWNERS)
+    @Query("SELECT p.customer.id FROM Pocket p WHERE p.id = :id")
+    Optional <UUID> findOwnerIdById(@Param("id") UUID id);
+
+    Optional <Pocket> findFirstByCustomerIdOrderByCreatedOn(UUID customerId);
+
+    boolean existsByCustomerIdAndType(UUID customerId, PocketType type);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Pocket p WHERE p.id = :id")
+    Optional <Pocket> findByIdForUpdate(@Param("id") UUID id);
+
+    // the pocket a transfer to this username lands on: the customer's oldest active one
+    @Query("""
+        SELECT new app.pocket.model.ReceiverPocket(p.id, c.id, c.username, p.balanceShards, p.currency)
+        FROM Pocket p JOIN p.customer c
+        WHERE c.username = :username
+          AND p.status = app.pocket.model.PocketStatus.ACTIVE
+        ORDER BY p.createdOn, p.id
+        """)
+    List <ReceiverPocket> findActiveReceiverByUsername(@Param("username") String username, Pageable pageable);
+
+    // receivers of a batch transfer, oldest active pocket first per customer
+    @Query("""
+        SELECT new app.pocket.model.ReceiverPocket(p.id, c.id, c.username, p.balanceShards, p.currency)
+        FROM Pocket p JOIN p.customer c
+        WHERE c.username IN :usernames
+          AND p.status = app.pocket.model.PocketStatus.ACTIVE
+        ORDER BY p.createdOn, p.id
+        """)
+    List <ReceiverPocket> findActiveReceiversByUsernames(@Param("usernames") Collection <String> usernames);
+
+    // locks the rows in id order and returns the ones still active
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT p.id FROM Pocket p
+        WHERE p.id IN :ids
+          AND p.status = app.pocket.model.PocketStatus.ACTIVE
+        ORDER BY p.id
+        """)
+    List <UUID> lockActiveIds(@Param("ids") Collection <UUID> ids);
+
+    // shard buckets are only summed for sharded pockets
+    @Query("""
+        SELECT new app.pocket.model.PocketBalanceView(p.id,
+               CASE WHEN p.balanceShards > 1 THEN p.balance + COALESCE((SELECT SUM(s.amount) FROM PocketBalanceShard s WHERE s.pocketId = p.id), 0) ELSE p.balance END,
+               p.currency)
+        FROM Pocket p WHERE p.id IN :ids
+        """)
+    List <PocketBalanceView> findBalanceViews(@Param("ids") Collection <UUID> ids);
+
 
     @Query("""
         SELECT p FROM Pocket p 
         WHERE p.status = app.pocket.model.PocketStatus.ACTIVE
         """)
     List<Pocket> findAllActivePockets();
-}
 
+
+    // id-ordered keyset walk over all pockets, used by background jobs
+    @Query("SELECT p.id FROM Pocket p ORDER BY p.id")
+    List<UUID> findFirstIds(Pageable pageable);
+
+    @Query("SELECT p.id FROM Pocket p WHERE p.id > :after ORDER BY p.id")
+    List<UUID> findIdsAfter(@Param("after") UUID after, Pageable pageable);
+
+
+    // Balance changes are single conditional statements so concurrent requests on one pocket
+    // serialize on the row lock; the affected-row count tells the caller whether it applied.
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE Pocket p SET p.balance = p.balance - :amount, p.updatedOn = :now
+        WHERE p.id = :id
+          AND p.status = app.pocket.model.PocketStatus.ACTIVE
+          AND p.balance >= :amount
+        """)
+    int debitIfSufficient(@Param("id") UUID id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE Pocket p SET p.balance = p.balance + :amount, p.updatedOn = :now
+        WHERE p.id = :id
+          AND p.status = app.pocket.model.PocketStatus.ACTIVE
+        """)
+    int creditIfActive(@Param("id") UUID id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    // folding shard buckets back moves money that was already credited, so no status check here
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Pocket p SET p.balance = p.balance + :amount, p.updatedOn = :now WHERE p.id = :id")
+    int addToBalance(@Param("id") UUID id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+
+    // pockets of a fee chunk still owing this month's fee, locked until the chunk commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT p.id FROM Pocket p
+        WHERE p.id IN :ids
+          AND p.status = app.pocket.model.PocketStatus.ACTIVE
+          AND (p.lastFeePeriod IS NULL OR p.lastFeePeriod <> :period)
+        ORDER BY p.id
+        """)
+    List <UUID> lockOwingMonthlyFee(@Param("ids") Collection <UUID> ids, @Param("period") String period);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE Pocket p SET p.balance = p.balance - :fee, p.lastFeePeriod = :period, p.updatedOn = :now
+        WHERE p.id IN :ids
+        """)
+    int chargeMonthlyFee(@Param("ids") Collection <UUID> ids, @Param("fee") BigDecimal fee,
+                         @Param("period") String period, @Param("now") LocalDateTime now);
+}
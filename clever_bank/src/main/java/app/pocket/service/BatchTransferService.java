@@ -0,0 +1,382 @@
+package app.pocket.service;
+
+import app.analytics.service.SpendingAnalyticsService;
+import app.customer.model.Customer;
+import app.exception.DomainException;
+import app.fx.model.FxConversion;
+import app.fx.model.FxRateSnapshot;
+import app.fx.service.FxRateService;
+import app.pocket.lock.PocketLockManager;
+import app.pocket.model.Pocket;
+import app.pocket.model.PocketBalanceView;
+import app.pocket.model.ReceiverPocket;
+import app.pocket.repository.PocketRepository;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.service.TransactionService;
+import app.web.dto.BatchTransferLine;
+import app.web.dto.BatchTransferLineResult;
+import app.web.dto.BatchTransferRequest;
+import app.web.dto.BatchTransferResult;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Payroll-style transfers: receivers are resolved and locked in bulk, the sender is debited once for
+// the whole batch, receivers are credited with a few set-based updates, and the journal and outbox
+// rows go out as JDBC batches, all in one transaction. Lines that cannot be paid are reported back
+// instead of failing the batch.
+@Slf4j
+@Service
+public class BatchTransferService {
+
+    // keeps IN lists well inside what MySQL and the driver handle comfortably
+    private static final int IN_CLAUSE_CHUNK = 1000;
+    private static final int CREDIT_CHUNK = 500;
+
+    private final PocketRepository pocketRepository;
+    private final PocketBalanceShardService pocketBalanceShardService;
+    private final TransactionService transactionService;
+    private final SpendingAnalyticsService spendingAnalyticsService;
+    private final PocketLockManager pocketLockManager;
+    private final FxRateService fxRateService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+
+    @Autowired
+    public BatchTransferService(PocketRepository pocketRepository,
+                                PocketBalanceShardService pocketBalanceShardService,
+                                TransactionService transactionService,
+                                SpendingAnalyticsService spendingAnalyticsService,
+                                PocketLockManager pocketLockManager,
+                                FxRateService fxRateService,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager) {
+        this.pocketRepository = pocketRepository;
+        this.pocketBalanceShardService = pocketBalanceShardService;
+        this.transactionService = transactionService;
+        this.spendingAnalyticsService = spendingAnalyticsService;
+        this.pocketLockManager = pocketLockManager;
+        this.fxRateService = fxRateService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+    }
+
+
+
+
+    public BatchTransferResult transfer(BatchTransferRequest request, Customer customer) {
+
+        long started = System.nanoTime ();
+
+        BatchTransferResult result = pocketLockManager.withLocks (List.of (request.getPocketId ()),
+                () -> transactionTemplate.execute (status -> transferInTransaction (request, customer)));
+
+        log.info ("Batch transfer from pocket %s: %d paid, %d failed in %d ms".formatted (request.getPocketId (),
+                result.getSucceeded (), result.getFailed (), (System.nanoTime () - started) / 1_000_000));
+
+        return result;
+    }
+
+
+
+    private BatchTransferResult transferInTransaction(BatchTransferRequest request, Customer customer) {
+
+        UUID senderId = request.getPocketId ();
+        Pocket sender = pocketRepository.findByIdAndCustomerId (senderId, customer.getId ())
+                .orElseThrow (() -> new DomainException ("Pocket with id %s not found and customer id %s not found"
+                        .formatted (senderId, customer.getId ()), HttpStatus.BAD_REQUEST));
+
+        List <BatchTransferLine> lines = request.getLines ();
+        BatchTransferLineResult[] results = new BatchTransferLineResult[lines.size ()];
+        Map <String, ReceiverPocket> receivers = resolveReceivers (lines);
+        FxRateSnapshot rates = fxRateService.current ();
+
+        List <Integer> payable = new ArrayList <> ();
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (int i = 0; i < lines.size (); i++) {
+
+            ReceiverPocket receiver = receivers.get (lines.get (i).getUsername ());
+
+            if (receiver == null) {
+                results[i] = failedLine (i, lines.get (i), "Receiver has no active pocket");
+            } else if (receiver.pocketId ().equals (senderId)) {
+                results[i] = failedLine (i, lines.get (i), "Cannot transfer to the sending pocket");
+            } else if (!rates.supports (receiver.currency ())) {
+                results[i] = failedLine (i, lines.get (i), "No exchange rate for currency " + receiver.currency ());
+            } else if (rates.convert (lines.get (i).getAmount (), sender.getCurrency (), receiver.currency ()).amount ().signum () <= 0) {
+                results[i] = failedLine (i, lines.get (i), "Amount is too small to convert into " + receiver.currency ());
+            } else {
+                payable.add (i);
+                total = total.add (lines.get (i).getAmount ());
+            }
+        }
+
+        if (payable.isEmpty ()) {
+            return summarize (null, TransactionStatus.FAILED, BigDecimal.ZERO, results);
+        }
+
+        String description = "Batch transfer of %d payments from customer %s".formatted (payable.size (), customer.getUsername ());
+
+        // sender row first, then receivers, the same order a single transfer takes its locks in
+        int debited = pocketRepository.debitIfSufficient (senderId, total, LocalDateTime.now ());
+        if (debited == 0 && sender.isSharded () && pocketBalanceShardService.fold (senderId).signum () > 0) {
+            debited = pocketRepository.debitIfSufficient (senderId, total, LocalDateTime.now ());
+        }
+
+        if (debited == 0) {
+
+            entityManager.refresh (sender);
+            pocketBalanceShardService.loadShardCredits (List.of (sender));
+            String reason = sender.getAvailableBalance ().compareTo (total) < 0 ? "Insufficient balance" : "Inactive pocket status";
+
+            Transactions failed = journalDebit (customer, sender, total, description, TransactionStatus.FAILED, reason);
+            payable.forEach (i -> results[i] = failedLine (i, lines.get (i), reason));
+
+            return summarize (failed.getId (), TransactionStatus.FAILED, BigDecimal.ZERO, results);
+        }
+
+        // receivers switched off since they were resolved are refunded to the sender
+        Set <UUID> active = lockActiveReceivers (payable.stream ().map (i -> receivers.get (lines.get (i).getUsername ()).pocketId ()).toList ());
+        Map <UUID, BigDecimal> creditByPocket = new LinkedHashMap <> ();
+        Map <Integer, FxConversion> conversions = new HashMap <> ();
+        List <Integer> credited = new ArrayList <> (payable.size ());
+        BigDecimal refund = BigDecimal.ZERO;
+
+        for (int i : payable) {
+
+            BatchTransferLine line = lines.get (i);
+            ReceiverPocket receiver = receivers.get (line.getUsername ());
+
+            if (!active.contains (receiver.pocketId ())) {
+                results[i] = failedLine (i, line, "Receiver pocket is no longer active");
+                refund = refund.add (line.getAmount ());
+                continue;
+            }
+
+            // receivers in another currency are credited the converted amount
+            FxConversion conversion = rates.convert (line.getAmount (), sender.getCurrency (), receiver.currency ());
+            if (!receiver.currency ().equals (sender.getCurrency ())) {
+                conversions.put (i, conversion);
+            }
+
+            creditByPocket.merge (receiver.pocketId (), conversion.amount (), BigDecimal::add);
+            credited.add (i);
+        }
+
+        creditInBulk (creditByPocket);
+
+        if (refund.signum () > 0) {
+            pocketRepository.addToBalance (senderId, refund, LocalDateTime.now ());
+        }
+
+        BigDecimal paid = total.subtract (refund);
+        entityManager.refresh (sender);
+        pocketBalanceShardService.loadShardCredits (List.of (sender));
+
+        Transactions debit = paid.signum () > 0
+                ? journalDebit (customer, sender, paid, description, TransactionStatus.SUCCEEDED, "Success withdrawal!")
+                : journalDebit (customer, sender, total, description, TransactionStatus.FAILED, "Receiver pocket is no longer active");
+
+        List <Transactions> saved = transactionService.recordAll (creditRows (customer, sender, lines, credited, receivers,
+                conversions, rates, creditByPocket.keySet ()), true);
+
+        for (int k = 0; k < saved.size (); k++) {
+            int i = credited.get (k);
+            results[i] = BatchTransferLineResult.builder ()
+                    .line (i)
+                    .username (lines.get (i).getUsername ())
+                    .amount (lines.get (i).getAmount ())
+                    .status (TransactionStatus.SUCCEEDED)
+                    .transactionId (saved.get (k).getId ())
+                    .build ();
+        }
+
+        spendingAnalyticsService.evictAfterCommit (customer.getId ());
+
+        return summarize (debit.getId (), debit.getStatus (), paid, results);
+    }
+
+
+
+    // username -> the customer's oldest active pocket, one query per chunk of usernames
+    private Map <String, ReceiverPocket> resolveReceivers(List <BatchTransferLine> lines) {
+
+        List <String> usernames = lines.stream ().map (BatchTransferLine::getUsername).distinct ().toList ();
+        Map <String, ReceiverPocket> receivers = new HashMap <> ();
+
+        for (List <String> chunk : chunks (usernames, IN_CLAUSE_CHUNK)) {
+            for (ReceiverPocket receiver : pocketRepository.findActiveReceiversByUsernames (chunk)) {
+                receivers.putIfAbsent (receiver.username (), receiver);
+            }
+        }
+
+        return receivers;
+    }
+
+
+
+    private Set <UUID> lockActiveReceivers(List <UUID> pocketIds) {
+
+        List <UUID> ids = pocketIds.stream ().distinct ().sorted ().toList ();
+        Set <UUID> active = new HashSet <> ();
+
+        for (List <UUID> chunk : chunks (ids, IN_CLAUSE_CHUNK)) {
+            active.addAll (pocketRepository.lockActiveIds (chunk));
+        }
+
+        return active;
+    }
+
+
+
+    // One UPDATE per chunk of receivers: balance = balance + CASE id WHEN ... END. The rows are
+    // already locked, so no status guard is needed here.
+    private void creditInBulk(Map <UUID, BigDecimal> creditByPocket) {
+
+        List <UUID> ids = new ArrayList <> (creditByPocket.keySet ());
+        LocalDateTime now = LocalDateTime.now ();
+
+        for (List <UUID> chunk : chunks (ids, CREDIT_CHUNK)) {
+
+            StringBuilder jpql = new StringBuilder ("UPDATE Pocket p SET p.balance = p.balance + CASE p.id");
+            for (int k = 0; k < chunk.size (); k++) {
+                jpql.append (" WHEN :id").append (k).append (" THEN :amount").append (k);
+            }
+            jpql.append (" ELSE 0 END, p.updatedOn = :now WHERE p.id IN :ids");
+
+            Query update = entityManager.createQuery (jpql.toString ());
+            for (int k = 0; k < chunk.size (); k++) {
+                update.setParameter ("id" + k, chunk.get (k));
+                update.setParameter ("amount" + k, creditByPocket.get (chunk.get (k)));
+            }
+            update.setParameter ("now", now);
+            update.setParameter ("ids", chunk);
+            update.executeUpdate ();
+        }
+    }
+
+
+
+    // Receiver journal rows. Balances are read once after the bulk credit and walked backwards, so
+    // each row carries the balance right after its own line. Converted lines also record the amount
+    // as sent and the rate back into the sender's currency.
+    private List <Transactions> creditRows(Customer customer, Pocket sender, List <BatchTransferLine> lines, List <Integer> credited,
+                                           Map <String, ReceiverPocket> receivers, Map <Integer, FxConversion> conversions,
+                                           FxRateSnapshot rates, Collection <UUID> pocketIds) {
+
+        Map <UUID, PocketBalanceView> views = new HashMap <> ();
+        for (List <UUID> chunk : chunks (new ArrayList <> (pocketIds), IN_CLAUSE_CHUNK)) {
+            pocketRepository.findBalanceViews (chunk).forEach (view -> views.put (view.pocketId (), view));
+        }
+
+        Map <UUID, BigDecimal> balanceAfter = new HashMap <> ();
+        Transactions[] rows = new Transactions[credited.size ()];
+        LocalDateTime now = LocalDateTime.now ();
+
+        for (int k = credited.size () - 1; k >= 0; k--) {
+
+            BatchTransferLine line = lines.get (credited.get (k));
+            ReceiverPocket receiver = receivers.get (line.getUsername ());
+            PocketBalanceView view = views.get (receiver.pocketId ());
+            FxConversion conversion = conversions.get (credited.get (k));
+            BigDecimal amount = conversion == null ? line.getAmount () : conversion.amount ();
+
+            BigDecimal after = balanceAfter.getOrDefault (receiver.pocketId (), view.availableBalance ());
+            balanceAfter.put (receiver.pocketId (), after.subtract (amount));
+
+            rows[k] = Transactions.builder ()
+                    .customer (entityManager.getReference (Customer.class, receiver.customerId ()))
+                    .pocket (entityManager.getReference (Pocket.class, receiver.pocketId ()))
+                    .senderPocketId (sender.getId ())
+                    .sender (sender.getId ().toString ())
+                    .receiver (receiver.customerId ().toString ())
+                    .amount (amount)
+                    .remainingBalance (after)
+                    .currency (view.currency ())
+                    .type (TransactionType.DEPOSIT)
+                    .status (TransactionStatus.SUCCEEDED)
+                    .description ("Received from " + customer.getUsername () + " with amount " + amount)
+                    .reasonFailed ("Incoming transfer!")
+                    .convertedAmount (conversion == null ? null : line.getAmount ())
+                    .convertedCurrency (conversion == null ? null : sender.getCurrency ())
+                    .fxRate (conversion == null ? null : rates.rate (receiver.currency (), sender.getCurrency ()))
+                    .createdOn (now)
+                    .build ();
+        }
+
+        return Arrays.asList (rows);
+    }
+
+
+
+    private Transactions journalDebit(Customer customer, Pocket sender, BigDecimal amount, String description,
+                                      TransactionStatus status, String reason) {
+
+        return transactionService.createNewTransaction (
+                customer,
+                sender,
+                sender.getId ().toString (),
+                "Batch transfer",
+                amount,
+                sender.getAvailableBalance (),
+                sender.getCurrency (),
+                TransactionType.WITHDRAWAL,
+                status,
+                description,
+                reason);
+    }
+
+
+
+    private static BatchTransferLineResult failedLine(int index, BatchTransferLine line, String reason) {
+
+        return BatchTransferLineResult.builder ()
+                .line (index)
+                .username (line.getUsername ())
+                .amount (line.getAmount ())
+                .status (TransactionStatus.FAILED)
+                .reason (reason)
+                .build ();
+    }
+
+
+
+    private static BatchTransferResult summarize(UUID debitId, TransactionStatus status, BigDecimal paid,
+                                                 BatchTransferLineResult[] results) {
+
+        int succeeded = (int) Arrays.stream (results).filter (line -> line.getStatus () == TransactionStatus.SUCCEEDED).count ();
+
+        return BatchTransferResult.builder ()
+                .debitTransactionId (debitId)
+                .status (status)
+                .totalDebited (paid)
+                .succeeded (succeeded)
+                .failed (results.length - succeeded)
+                .lines (List.of (results))
+                .build ();
+    }
+
+
+
+    private static <T> List <List <T>> chunks(List <T> items, int size) {
+
+        List <List <T>> chunks = new ArrayList <> ();
+        for (int from = 0; from < items.size (); from += size) {
+            chunks.add (items.subList (from, Math.min (from + size, items.size ())));
+        }
+        return chunks;
+    }
+}
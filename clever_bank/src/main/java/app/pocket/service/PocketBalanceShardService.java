@@ -0,0 +1,213 @@
+package app.pocket.service;
+
+import app.exception.DomainException;
+import app.pocket.cache.ReceiverPocketCache;
+import app.pocket.model.Pocket;
+import app.pocket.model.PocketBalanceShard;
+import app.pocket.model.ReceiverPocket;
+import app.pocket.repository.PocketBalanceShardRepository;
+import app.pocket.repository.PocketRepository;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Sharded balance mode for hot receiver pockets. Credits go to one of N bucket rows picked by hash,
+// debits fold the buckets into Pocket.balance when the main balance alone is not enough, and the
+// folder compacts buckets in the background. Locks are always taken pocket row first, then buckets.
+@Slf4j
+@Service
+public class PocketBalanceShardService {
+
+    private final PocketRepository pocketRepository;
+    private final PocketBalanceShardRepository shardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReceiverPocketCache receiverPocketCache;
+    private final int maxShards;
+    private final int foldBatchSize;
+
+
+    @Autowired
+    public PocketBalanceShardService(PocketRepository pocketRepository,
+                                     PocketBalanceShardRepository shardRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     ReceiverPocketCache receiverPocketCache,
+                                     @Value("${pocket-balance-shards.max:64}") int maxShards,
+                                     @Value("${pocket-balance-shards.fold-batch-size:200}") int foldBatchSize) {
+        this.pocketRepository = pocketRepository;
+        this.shardRepository = shardRepository;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+        this.receiverPocketCache = receiverPocketCache;
+        this.maxShards = Math.max (maxShards, 2);
+        this.foldBatchSize = Math.max (foldBatchSize, 1);
+    }
+
+
+
+
+    // Turns sharding on with the given bucket count, or off for a count of 0 or 1.
+    // Whatever the old buckets held is folded into the main balance first.
+    @Transactional
+    public Pocket configureShards(UUID pocketId, int shardCount) {
+
+        if (shardCount < 0 || shardCount > maxShards) {
+            throw new DomainException ("Shard count must be between 0 and %d".formatted (maxShards), HttpStatus.BAD_REQUEST);
+        }
+
+        Pocket pocket = pocketRepository.findByIdForUpdate (pocketId)
+                .orElseThrow (() -> new DomainException ("Pocket with id %s not found".formatted (pocketId), HttpStatus.BAD_REQUEST));
+
+        List <PocketBalanceShard> shards = shardRepository.findAllByPocketIdForUpdate (pocketId);
+        moveToBalance (pocketId, shards);
+
+        // cached receivers carry the shard count that picks their bucket
+        receiverPocketCache.evictAfterCommit (pocket.getCustomer ().getUsername ());
+
+        int keep = shardCount <= 1 ? 0 : shardCount;
+        shardRepository.deleteAll (shards.stream ().filter (shard -> shard.getShardNo () >= keep).toList ());
+
+        if (keep == 0) {
+            pocket.setBalanceShards (null);
+            return pocketRepository.save (pocket);
+        }
+
+        LocalDateTime now = LocalDateTime.now ();
+        List <PocketBalanceShard> buckets = new ArrayList <> (shardCount);
+        for (int shardNo = shards.size (); shardNo < shardCount; shardNo++) {
+            buckets.add (PocketBalanceShard.builder ()
+                    .pocketId (pocketId)
+                    .shardNo (shardNo)
+                    .amount (BigDecimal.ZERO)
+                    .updatedOn (now)
+                    .build ());
+        }
+        shardRepository.saveAll (buckets);
+
+        pocket.setBalanceShards (shardCount);
+        log.info ("Pocket %s now takes credits on %d balance shards".formatted (pocketId, shardCount));
+
+        return pocketRepository.save (pocket);
+    }
+
+
+
+
+    // Adds the amount to the bucket the key hashes to; 0 means the pocket is not active
+    public int credit(Pocket pocket, BigDecimal amount, Object shardKey) {
+
+        return shardRepository.addToShardIfActive (pocket.getId (), shardNo (shardKey, pocket.getBalanceShards ()),
+                amount, LocalDateTime.now ());
+    }
+
+
+
+    // Same as above for a receiver known only by id and shard count. A count that went stale because
+    // sharding was switched off finds no bucket and credits nothing.
+    public int credit(ReceiverPocket receiver, BigDecimal amount, Object shardKey) {
+
+        return shardRepository.addToShardIfActive (receiver.pocketId (), shardNo (shardKey, receiver.balanceShards ()),
+                amount, LocalDateTime.now ());
+    }
+
+
+
+    // Fills in the bucket totals of the sharded pockets among these, in one query; unsharded ones cost nothing
+    public void loadShardCredits(Collection <Pocket> pockets) {
+
+        Map <UUID, Pocket> sharded = new HashMap <> ();
+        pockets.stream ().filter (Pocket::isSharded).forEach (pocket -> sharded.put (pocket.getId (), pocket));
+
+        if (sharded.isEmpty ()) {
+            return;
+        }
+
+        sharded.values ().forEach (pocket -> pocket.setShardCredits (BigDecimal.ZERO));
+        shardRepository.sumByPocketIds (sharded.keySet ())
+                .forEach (total -> sharded.get (total.pocketId ()).setShardCredits (total.amount ()));
+    }
+
+
+
+    private static int shardNo(Object shardKey, int shardCount) {
+
+        int hash = shardKey.hashCode ();
+        hash ^= (hash >>> 16);
+        return Math.floorMod (hash, shardCount);
+    }
+
+
+
+
+    // Moves all bucket amounts of one pocket into its main balance and returns the moved total.
+    // Runs in the caller's transaction; the buckets stay locked until it ends.
+    @Transactional
+    public BigDecimal fold(UUID pocketId) {
+
+        if (pocketRepository.findByIdForUpdate (pocketId).isEmpty ()) {
+            return BigDecimal.ZERO;
+        }
+
+        return moveToBalance (pocketId, shardRepository.findAllByPocketIdForUpdate (pocketId));
+    }
+
+
+
+
+    // Background compaction: every pocket with credits in its buckets is folded in its own transaction
+    public int foldAll() {
+
+        int folded = 0;
+        List <UUID> pocketIds = shardRepository.findPocketIdsWithCredits (PageRequest.ofSize (foldBatchSize));
+
+        // keyset walk, so pockets credited again while the pass runs are left for the next one
+        while (!pocketIds.isEmpty ()) {
+
+            for (UUID pocketId : pocketIds) {
+                transactionTemplate.executeWithoutResult (status -> fold (pocketId));
+                folded++;
+            }
+
+            pocketIds = pocketIds.size () < foldBatchSize
+                    ? List.of ()
+                    : shardRepository.findPocketIdsWithCreditsAfter (pocketIds.get (pocketIds.size () - 1), PageRequest.ofSize (foldBatchSize));
+        }
+
+        return folded;
+    }
+
+
+
+    private BigDecimal moveToBalance(UUID pocketId, List <PocketBalanceShard> shards) {
+
+        BigDecimal total = BigDecimal.ZERO;
+        LocalDateTime now = LocalDateTime.now ();
+
+        for (PocketBalanceShard shard : shards) {
+            if (shard.getAmount ().signum () != 0) {
+                total = total.add (shard.getAmount ());
+                shard.setAmount (BigDecimal.ZERO);
+                shard.setUpdatedOn (now);
+            }
+        }
+
+        if (total.signum () != 0) {
+            pocketRepository.addToBalance (pocketId, total, now);
+        }
+
+        return total;
+    }
+}
@@ -1,10 +1,19 @@
 package app.pocket.service;
 
+import app.analytics.service.SpendingAnalyticsService;
 import app.customer.model.Customer;
 import app.exception.DomainException;
+import app.fx.model.FxConversion;
+import app.fx.model.FxRateSnapshot;
+import app.fx.service.FxRateService;
+import app.idempotency.service.IdempotencyService;
+import app.pocket.cache.ReceiverPocketCache;
+import app.pocket.lock.PocketLockManager;
 import app.pocket.model.Pocket;
+import app.pocket.model.PocketBalanceView;
 import app.pocket.model.PocketStatus;
 import app.pocket.model.PocketType;
+import app.pocket.model.ReceiverPocket;
 import app.pocket.repository.PocketRepository;
 import app.transaction.model.TransactionStatus;
 import app.transaction.model.TransactionType;
@@ -13,9 +22,12 @@ import app.transaction.repository.TransactionRepository;
 import app.transaction.service.TransactionService;
 import app.web.dto.DepositRequest;
 import app.web.dto.TransferResultRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
 
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -32,22 +44,47 @@ public class PocketService {
     private static final String POCKET_ID_NOT_FOUND_WITH_CUSTOMER_ID = "Pocket with id %s not found and customer id %s not found";
     private static final String AMOUNT_NOT_VALID = "Amount must be greater than zero";
     private static final String CLEVER_BANK_LTD = "Clever Bank Service Ltd";
+    private static final Currency DEFAULT_CURRENCY = Currency.getInstance ("USD");
+
+    // the welcome balance every new pocket gets, converted into the pocket's own currency
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal ("40.00");
 
 
     private final PocketRepository pocketRepository;
     private final TransactionService transactionService;
     private final TransactionRepository transactionRepository;
+    private final SpendingAnalyticsService spendingAnalyticsService;
+    private final IdempotencyService idempotencyService;
+    private final EntityManager entityManager;
+    private final PocketLockManager pocketLockManager;
+    private final PocketBalanceShardService pocketBalanceShardService;
+    private final ReceiverPocketCache receiverPocketCache;
+    private final FxRateService fxRateService;
 
 
 
     @Autowired
     public PocketService(PocketRepository walletRepository,
                          TransactionService transactionService,
-                         TransactionRepository transactionRepository) {
+                         TransactionRepository transactionRepository,
+                         SpendingAnalyticsService spendingAnalyticsService,
+                         IdempotencyService idempotencyService,
+                         EntityManager entityManager,
+                         PocketLockManager pocketLockManager,
+                         PocketBalanceShardService pocketBalanceShardService,
+                         ReceiverPocketCache receiverPocketCache,
+                         FxRateService fxRateService) {
         this.pocketRepository = walletRepository;
         this.transactionService = transactionService;
 
         this.transactionRepository = transactionRepository;
+        this.spendingAnalyticsService = spendingAnalyticsService;
+        this.idempotencyService = idempotencyService;
+        this.entityManager = entityManager;
+        this.pocketLockManager = pocketLockManager;
+        this.pocketBalanceShardService = pocketBalanceShardService;
+        this.receiverPocketCache = receiverPocketCache;
+        this.fxRateService = fxRateService;
     }
 
 
@@ -55,6 +92,19 @@ public class PocketService {
 
 
     public Pocket createWallet(Customer customer) {
+        return createWallet (customer, DEFAULT_CURRENCY);
+    }
+
+
+
+    public Pocket createWallet(Customer customer, Currency currency) {
+
+        Currency pocketCurrency = currency == null ? DEFAULT_CURRENCY : currency;
+        FxRateSnapshot rates = fxRateService.current ();
+
+        if (!rates.supports (pocketCurrency)) {
+            throw new DomainException ("Currency %s is not supported".formatted (pocketCurrency), HttpStatus.BAD_REQUEST);
+        }
 
         List <Pocket> allByCustomerWallets =
                 pocketRepository.findAllByCustomerUsername (customer.getUsername ());
@@ -64,24 +114,79 @@ public class PocketService {
                     .formatted (customer.getUsername (), customer.getId ()), HttpStatus.BAD_REQUEST);
         }
 
-        Pocket wallet = pocketRepository.save (createNewPocket (customer));
+        BigDecimal openingBalance = rates.convert (OPENING_BALANCE, DEFAULT_CURRENCY, pocketCurrency).amount ();
+        Pocket wallet = pocketRepository.save (createNewPocket (customer, pocketCurrency, openingBalance));
+        receiverPocketCache.evictAfterCommit (customer.getUsername ());
 
-        log.info ("Wallet with username %s with id %s has been successfully created and hava balance %.2f"
-                .formatted (wallet.getCustomer ().getUsername (),wallet.getId (), wallet.getBalance ()));
+        log.info ("Wallet with username %s with id %s has been successfully created and hava balance %.2f %s"
+                .formatted (wallet.getCustomer ().getUsername (),wallet.getId (), wallet.getBalance (), wallet.getCurrency ()));
 
         return wallet;
     }
 
 
 
-    private Pocket createNewPocket(Customer customer) {
+    // Bulk variant for the onboarding import, for customers created in the same transaction: they
+    // cannot have a pocket yet, so the per-customer lookup is skipped. One rate snapshot for the batch.
+    public List <Pocket> createWallets(Map <Customer, Currency> currencies) {
+
+        FxRateSnapshot rates = fxRateService.current ();
+        List <Pocket> wallets = new ArrayList <> (currencies.size ());
+
+        currencies.forEach ((customer, currency) -> {
+
+            Currency pocketCurrency = currency == null ? DEFAULT_CURRENCY : currency;
+            if (!rates.supports (pocketCurrency)) {
+                throw new DomainException ("Currency %s is not supported".formatted (pocketCurrency), HttpStatus.BAD_REQUEST);
+            }
+
+            BigDecimal openingBalance = rates.convert (OPENING_BALANCE, DEFAULT_CURRENCY, pocketCurrency).amount ();
+            wallets.add (createNewPocket (customer, pocketCurrency, openingBalance));
+        });
+
+        List <Pocket> saved = pocketRepository.saveAll (wallets);
+        receiverPocketCache.evictAllAfterCommit (currencies.keySet ().stream ().map (Customer::getUsername).toList ());
+
+        log.info ("%d wallets have been successfully created".formatted (saved.size ()));
+
+        return saved;
+    }
+
+
+
+    // One savings pocket per customer, empty and in the currency of the customer's first pocket.
+    // Transfers by username keep landing on the older pocket; money goes in with a deposit.
+    public Pocket openSavingsPocket(Customer customer) {
+
+        if (pocketRepository.existsByCustomerIdAndType (customer.getId (), PocketType.SAVINGS)) {
+            throw new DomainException ("Customer with username %s already has a savings pocket"
+                    .formatted (customer.getUsername ()), HttpStatus.BAD_REQUEST);
+        }
+
+        Currency currency = pocketRepository.findFirstByCustomerIdOrderByCreatedOn (customer.getId ())
+                .map (Pocket::getCurrency)
+                .orElse (DEFAULT_CURRENCY);
+
+        Pocket savings = createNewPocket (customer, currency, BigDecimal.ZERO.setScale (2));
+        savings.setType (PocketType.SAVINGS);
+        savings = pocketRepository.save (savings);
+        receiverPocketCache.evictAfterCommit (customer.getUsername ());
+
+        log.info ("Savings pocket %s opened for customer %s".formatted (savings.getId (), customer.getUsername ()));
+
+        return savings;
+    }
+
+
+
+    private Pocket createNewPocket(Customer customer, Currency currency, BigDecimal openingBalance) {
 
       return  Pocket.builder ()
               .customer (customer)
               .status (PocketStatus.ACTIVE)
               .type (PocketType.BUSINESS)
-              .balance (new BigDecimal ("40.00"))
-              .currency (Currency.getInstance ("USD"))
+              .balance (openingBalance)
+              .currency (currency)
               .createdOn (LocalDateTime.now ())
               .updatedOn (LocalDateTime.now ())
               .build ();
@@ -90,6 +195,14 @@ public class PocketService {
 
 
 
+    // balances shown or journaled for these pockets include what their shard buckets hold
+    public void loadShardCredits(Collection <Pocket> pockets) {
+        pocketBalanceShardService.loadShardCredits (pockets);
+    }
+
+
+
+
      // get pocket by id
     public Pocket getPocketById(UUID customerId) {
 
@@ -105,14 +218,12 @@ public class PocketService {
 
     public Map <UUID, List <Transactions>> getLastSevenTransactions(List <Pocket> pockets) {
 
-          Map<UUID, List<Transactions>> pocketTransactions = new LinkedHashMap <> ();
-
-          for (Pocket pocket : pockets) {
-
-              List<Transactions> lastSevenTransactionsByPocketId = transactionService.getLastSevenTransactionsByPocketId (pocket);
-              pocketTransactions.put (pocket.getId (), lastSevenTransactionsByPocketId);
+          if (pockets == null || pockets.isEmpty ()) {
+              return new LinkedHashMap <> ();
           }
-          return pocketTransactions;
+
+          UUID customerId = pockets.get (0).getCustomer ().getId ();
+          return transactionService.getRecentTransactionsByPockets (customerId, pockets);
     }
 
 
@@ -137,14 +248,25 @@ public class PocketService {
         }
 
         pocketRepository.save (pocket);
+        receiverPocketCache.evictAfterCommit (pocket.getCustomer ().getUsername ());
     }
 
 
 
 
-    @Transactional
+    // A replayed idempotency key returns the original deposit instead of running it again
     public Transactions deposit(UUID pocketId,  DepositRequest depositRequest, UUID customerId) {
 
+        String fingerprint = "DEPOSIT|%s|%s".formatted (pocketId, amountKey (depositRequest.getAmount ()));
+
+        return idempotencyService.execute (customerId, depositRequest.getIdempotencyKey (), fingerprint,
+                () -> depositOnce (pocketId, depositRequest, customerId));
+    }
+
+
+
+    private Transactions depositOnce(UUID pocketId,  DepositRequest depositRequest, UUID customerId) {
+
         Optional <Pocket> pocketOptional = pocketRepository.findByIdAndCustomerId (pocketId, customerId);
         String descriptionInformation = "Your deposit up to %.2f USD. Congratulations!".formatted (depositRequest.getAmount ());
 
@@ -158,8 +280,11 @@ public class PocketService {
 
 
         Pocket pocket = pocketOptional.get ();
+        int credited = credit (pocket, depositRequest.getAmount (), Thread.currentThread ().getId ());
+        entityManager.refresh (pocket);
+        pocketBalanceShardService.loadShardCredits (List.of (pocket));
 
-        if (pocket.getStatus () == PocketStatus.INACTIVE){
+        if (credited == 0){
 
            return   transactionService.initializeNextPocket(
                     pocket.getCustomer (),
@@ -168,7 +293,7 @@ public class PocketService {
                     pocketId.toString (),
                     pocket,
                     depositRequest.getAmount (),
-                    pocket.getBalance (),
+                    pocket.getAvailableBalance (),
                     pocket.getCurrency (),
                     TransactionType.DEPOSIT,
                     TransactionStatus.FAILED,
@@ -176,12 +301,6 @@ public class PocketService {
                     "Inactive pocket");
         }
 
-        BigDecimal newBalance = pocket.getBalance ().add (depositRequest.getAmount ());
-        pocket.setBalance (newBalance);
-        pocket.setUpdatedOn (LocalDateTime.now ());
-
-        pocketRepository.save (pocket);
-
         return transactionService.initializeNextPocket(
                 pocket.getCustomer (),
                 depositRequest.getIban (),
@@ -189,7 +308,7 @@ public class PocketService {
                 pocketId.toString (),
                 pocket,
                 depositRequest.getAmount (),
-                pocket.getBalance (),
+                pocket.getAvailableBalance (),
                 pocket.getCurrency (),
                 TransactionType.DEPOSIT,
                 TransactionStatus.SUCCEEDED,
@@ -199,27 +318,56 @@ public class PocketService {
 
 
 
-    @Transactional
+    // A replayed idempotency key returns the original transfer instead of running it again.
+    // With striped locking on, the stripes are held around the whole database transaction.
     public Transactions transfer( TransferResultRequest transferResultRequest, Customer customer) {
 
+        String fingerprint = "TRANSFER|%s|%s|%s".formatted (transferResultRequest.getPocketId (),
+                transferResultRequest.getUsername (), amountKey (transferResultRequest.getAmount ()));
+
+        return pocketLockManager.withLocks (transferPocketIds (transferResultRequest),
+                () -> idempotencyService.execute (customer.getId (), transferResultRequest.getIdempotencyKey (), fingerprint,
+                        () -> transferOnce (transferResultRequest, customer)));
+    }
+
+
+
+    private List <UUID> transferPocketIds(TransferResultRequest transferResultRequest) {
+
+        if (!pocketLockManager.isEnabled ()) {
+            return List.of ();
+        }
+
+        // sharded receivers take credits on their bucket rows, so only the pocket row needs the stripe
+        List <UUID> pocketIds = new ArrayList <> ();
+        receiverPocketCache.resolve (transferResultRequest.getUsername ())
+                .filter (receiver -> !receiver.isSharded ())
+                .ifPresent (receiver -> pocketIds.add (receiver.pocketId ()));
+        pocketIds.add (transferResultRequest.getPocketId ());
+        return pocketIds;
+    }
+
+
+
+    private Transactions transferOnce( TransferResultRequest transferResultRequest, Customer customer) {
+
         Pocket pocketSender = getPocketById (transferResultRequest.getPocketId ());
 
-        Optional <Pocket> pocketReceiver = pocketRepository.findAllByCustomerUsername (transferResultRequest.getUsername ())
-                .stream ()
-                .filter (pocket -> pocket.getStatus () == PocketStatus.ACTIVE)
-                .findFirst ();
+        Optional <ReceiverPocket> pocketReceiver = receiverPocketCache.resolve (transferResultRequest.getUsername ());
 
         String descriptionInformation = "Transfer from customer %s to customer %s with amount %s."
                 .formatted (customer.getUsername (), transferResultRequest.getUsername (), transferResultRequest.getAmount ());
 
 
         if (pocketReceiver.isEmpty ()){
+            pocketBalanceShardService.loadShardCredits (List.of (pocketSender));
             return transactionService.createNewTransaction (
                     customer,
+                    pocketSender,
                     pocketSender.getId ().toString (),
                     transferResultRequest.getUsername (),
                     transferResultRequest.getAmount (),
-                    pocketSender.getBalance (),
+                    pocketSender.getAvailableBalance (),
                     pocketSender.getCurrency (),
                     TransactionType.WITHDRAWAL,
                     TransactionStatus.FAILED,
@@ -228,35 +376,58 @@ public class PocketService {
                     );
         }
 
-        Transactions retract = withdraw(customer, pocketSender.getId (), transferResultRequest.getAmount (), descriptionInformation);
+        ReceiverPocket receiverPocket = pocketReceiver.get ();
 
-        if (retract.getStatus () == TransactionStatus.FAILED){
-            return retract;
+        // both legs use one snapshot, so a refresh landing mid-transfer cannot give them different rates
+        FxRateSnapshot rates = fxRateService.current ();
+        boolean crossCurrency = !pocketSender.getCurrency ().equals (receiverPocket.currency ());
+        FxConversion sent = crossCurrency ? rates.convert (transferResultRequest.getAmount (), pocketSender.getCurrency (), receiverPocket.currency ()) : null;
+        BigDecimal creditAmount = crossCurrency ? sent.amount () : transferResultRequest.getAmount ();
+
+        if (creditAmount.signum () <= 0) {
+            throw new DomainException ("Amount %s %s is too small to convert into %s".formatted (transferResultRequest.getAmount (),
+                    pocketSender.getCurrency (), receiverPocket.currency ()), HttpStatus.BAD_REQUEST);
         }
 
+        Transactions retract = debit (customer, pocketSender.getId (), transferResultRequest.getAmount (), descriptionInformation,
+                TransactionType.WITHDRAWAL, sent, receiverPocket.pocketId ());
 
-        Pocket receiverPocket = pocketReceiver.get ();
-        receiverPocket.setBalance (receiverPocket.getBalance ().add (transferResultRequest.getAmount ()));
-        receiverPocket.setUpdatedOn (LocalDateTime.now ());
-        pocketRepository.save (receiverPocket);
+        if (retract.getStatus () == TransactionStatus.FAILED){
+            return retract;
+        }
 
 
+        // the receiver was active when picked; if it was switched off since, undo the debit with the whole transfer
+        if (credit (receiverPocket, creditAmount, pocketSender.getId ()) == 0) {
+            receiverPocketCache.evictAfterCommit (receiverPocket.username ());
+            throw new DomainException ("Receiver pocket %s is no longer active".formatted (receiverPocket.pocketId ()), HttpStatus.BAD_REQUEST);
+        }
 
+        // references are enough for the journal row, the receiver's customer graph is never loaded;
+        // a receiver pocket this transaction already holds is refreshed so it does not keep the old balance
+        Pocket receiverReference = entityManager.getReference (Pocket.class, receiverPocket.pocketId ());
+        if (Hibernate.isInitialized (receiverReference)) {
+            entityManager.refresh (receiverReference);
+        }
 
-        Customer receiverCustomer = receiverPocket.getCustomer ();
-        String descriptionReceiver = "Received from " + customer.getUsername () + " with amount " + transferResultRequest.getAmount ();
+        PocketBalanceView receiverBalance = pocketRepository.findBalanceViews (List.of (receiverPocket.pocketId ())).get (0);
+        String descriptionReceiver = "Received from " + customer.getUsername () + " with amount " + creditAmount;
 
         transactionService.createNewTransaction (
-                receiverCustomer,
+                entityManager.getReference (Customer.class, receiverPocket.customerId ()),
+                receiverReference,
                 pocketSender.getId().toString(),
-                receiverCustomer.getId ().toString (),
-                transferResultRequest.getAmount (),
-                receiverPocket.getBalance (),
-                receiverPocket.getCurrency (),
+                receiverPocket.customerId ().toString (),
+                creditAmount,
+                receiverBalance.availableBalance (),
+                receiverBalance.currency (),
                 TransactionType.DEPOSIT,
                 TransactionStatus.SUCCEEDED,
                 descriptionReceiver,
-                "Incoming transfer!"
+                "Incoming transfer!",
+                crossCurrency ? new FxConversion (transferResultRequest.getAmount (), pocketSender.getCurrency (),
+                        rates.rate (receiverPocket.currency (), pocketSender.getCurrency ())) : null,
+                pocketSender.getId ()
         );
 
         return  retract;
@@ -268,108 +439,109 @@ public class PocketService {
 
     @Transactional
     public Transactions withdraw(Customer customer, UUID pocketId,  BigDecimal amount,  String descriptionInformation) {
+        return withdraw (customer, pocketId, amount, descriptionInformation, TransactionType.WITHDRAWAL);
+    }
 
-        Pocket pocket = getPocketById (pocketId);
 
-        boolean isFaled = false;
-        String reason = "";
 
-        if (pocket.getStatus () == PocketStatus.INACTIVE){
+    // bill payments pass BILL_PAYMENT so the journal and spending analytics can tell them from plain withdrawals
+    @Transactional
+    public Transactions withdraw(Customer customer, UUID pocketId,  BigDecimal amount,  String descriptionInformation,
+                                 TransactionType transactionType) {
+        return debit (customer, pocketId, amount, descriptionInformation, transactionType, null, null);
+    }
 
-            isFaled = true;
-            reason = "Inactive pocket status";
-        }
 
 
-        if (pocket.getBalance ().compareTo (amount) <= 0){
+    // conversion is what the debited amount turns into on the receiving side of a cross-currency transfer;
+    // receiverPocketId is set only when the money goes to another pocket
+    private Transactions debit(Customer customer, UUID pocketId,  BigDecimal amount,  String descriptionInformation,
+                               TransactionType transactionType, FxConversion conversion, UUID receiverPocketId) {
 
-            isFaled = true;
-            reason = "Insufficient balance";
+        Pocket pocket = getPocketById (pocketId);
 
-            return transactionService.createNewTransaction (
-                    customer,
-                    pocket.getId ().toString (),
-                    CLEVER_BANK_LTD,
-                    amount,
-                    pocket.getBalance (),
-                    pocket.getCurrency (),
-                    TransactionType.WITHDRAWAL,
-                    TransactionStatus.FAILED,
-                    descriptionInformation,
-                    reason
-            );
+        // the debit is decided by the database, not by a balance read earlier in this transaction
+        int debited = pocketRepository.debitIfSufficient (pocketId, amount, LocalDateTime.now ());
+
+        // a sharded pocket may hold the missing money in its buckets; fold them in and try once more
+        if (debited == 0 && pocket.isSharded () && pocketBalanceShardService.fold (pocketId).signum () > 0) {
+            debited = pocketRepository.debitIfSufficient (pocketId, amount, LocalDateTime.now ());
         }
 
+        if (debited == 0){
+
+            // a plain read may return this transaction's snapshot, so the reason comes from a locking read
+            entityManager.refresh (pocket, LockModeType.PESSIMISTIC_WRITE);
+            pocketBalanceShardService.loadShardCredits (List.of (pocket));
+
+            String reason = pocket.getStatus () != PocketStatus.ACTIVE
+                    ? "Inactive pocket status"
+                    : "Insufficient balance";
 
-        if (isFaled){
             return transactionService.createNewTransaction (
                     customer,
+                    pocket,
                     pocket.getId ().toString (),
                     CLEVER_BANK_LTD,
                     amount,
-                    pocket.getBalance (),
+                    pocket.getAvailableBalance (),
                     pocket.getCurrency (),
-                    TransactionType.WITHDRAWAL,
+                    transactionType,
                     TransactionStatus.FAILED,
                     descriptionInformation,
-                    reason
+                    reason,
+                    conversion,
+                    receiverPocketId
             );
         }
 
-        BigDecimal newBalancePocket = pocket.getBalance ().subtract (amount);
-        pocket.setBalance (newBalancePocket);
-        pocket.setUpdatedOn (LocalDateTime.now ());
+        entityManager.refresh (pocket);
+        pocketBalanceShardService.loadShardCredits (List.of (pocket));
 
-        pocketRepository.save (pocket);
+        spendingAnalyticsService.evictAfterCommit (customer.getId ());
 
         return transactionService.createNewTransaction (
           customer,
+          pocket,
           pocket.getId ().toString (),
           CLEVER_BANK_LTD,
           amount,
-          pocket.getBalance (),
+          pocket.getAvailableBalance (),
           pocket.getCurrency (),
-          TransactionType.WITHDRAWAL,
+          transactionType,
           TransactionStatus.SUCCEEDED,
           descriptionInformation,
-          "Success withdrawal!"
+          "Success withdrawal!",
+          conversion,
+          receiverPocketId
         );
 
     }
 
 
-   // monthly fee scheduler
-    private static final BigDecimal MONTHLY_FEE = BigDecimal.valueOf(2.00);
+    // Sharded pockets take the credit on a bucket picked by the key, others on the pocket row
+    private int credit(Pocket pocket, BigDecimal amount, Object shardKey) {
 
-    @Transactional
-    public void applyMonthlyFees() {
+        if (pocket.isSharded ()) {
+            return pocketBalanceShardService.credit (pocket, amount, shardKey);
+        }
+
+        return pocketRepository.creditIfActive (pocket.getId (), amount, LocalDateTime.now ());
+    }
 
-        List <Pocket> pockets = pocketRepository.findAllActivePockets();
 
+    private int credit(ReceiverPocket receiver, BigDecimal amount, Object shardKey) {
 
-        for (Pocket pocket : pockets) {
-            pocket.setBalance (pocket.getBalance ().subtract (MONTHLY_FEE));
-            pocket.setUpdatedOn (LocalDateTime.now ());
+        if (receiver.isSharded ()) {
+            return pocketBalanceShardService.credit (receiver, amount, shardKey);
+        }
 
-            pocketRepository.saveAndFlush(pocket);
+        return pocketRepository.creditIfActive (receiver.pocketId (), amount, LocalDateTime.now ());
+    }
 
-            Transactions transactions = Transactions.builder()
-                    .customer(pocket.getCustomer())
-                    .pocket(pocket)
-                    .amount(MONTHLY_FEE)
-                    .remainingBalance(pocket.getBalance())
-                    .currency(pocket.getCurrency())
-                    .type(TransactionType.WITHDRAWAL)
-                    .status(TransactionStatus.SUCCEEDED)
-                    .description("Monthly fee applied")
-                    .receiver("Clever Bank")
-                    .sender("Clever Bank")
-                    .reasonFailed(null)
-                    .createdOn(LocalDateTime.now())
-                    .build();
 
-            transactionRepository.saveAndFlush(transactions);
-        }
 
+    private static String amountKey(BigDecimal amount) {
+        return amount == null ? "null" : amount.stripTrailingZeros ().toPlainString ();
     }
 }
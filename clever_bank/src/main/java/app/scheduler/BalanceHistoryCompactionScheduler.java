@@ -0,0 +1,29 @@
+package app.scheduler;
+
+import app.balance_history.service.PocketBalanceHistoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class BalanceHistoryCompactionScheduler {
+
+    private final PocketBalanceHistoryService pocketBalanceHistoryService;
+
+    @Autowired
+    public BalanceHistoryCompactionScheduler(PocketBalanceHistoryService pocketBalanceHistoryService) {
+        this.pocketBalanceHistoryService = pocketBalanceHistoryService;
+    }
+
+    // day and month charts trail the latest balance changes by at most an interval plus the lag
+    @Scheduled(fixedDelayString = "${balance-history.compaction-interval:PT1M}", initialDelayString = "${balance-history.compaction-interval:PT1M}")
+    public void compact() {
+        try {
+            pocketBalanceHistoryService.compact ();
+        } catch (Exception e) {
+            log.error ("Error while compacting the balance history: ", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package app.scheduler;
+
+import app.fx.service.FxRateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class FxRateRefreshScheduler {
+
+    private final FxRateService fxRateService;
+
+    @Autowired
+    public FxRateRefreshScheduler(FxRateService fxRateService) {
+        this.fxRateService = fxRateService;
+    }
+
+    // rates changed in the table reach transfers on the next refresh
+    @Scheduled(fixedDelayString = "${fx.refresh-interval:PT5M}", initialDelayString = "${fx.refresh-interval:PT5M}")
+    public void refreshRates() {
+        try {
+            fxRateService.refresh ();
+        } catch (Exception e) {
+            log.error ("Error while refreshing FX rates: ", e);
+        }
+    }
+}
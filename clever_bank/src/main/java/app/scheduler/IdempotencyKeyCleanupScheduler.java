@@ -0,0 +1,29 @@
+package app.scheduler;
+
+import app.idempotency.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class IdempotencyKeyCleanupScheduler {
+
+    private final IdempotencyService idempotencyService;
+
+    @Autowired
+    public IdempotencyKeyCleanupScheduler(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+    // Keys older than idempotency.retention can no longer be replayed
+    @Scheduled(cron = "${idempotency.cleanup.cron:0 30 3 * * *}")
+    public void purgeExpiredKeys() {
+        try {
+            log.info("Removed {} expired idempotency keys", idempotencyService.purgeExpired());
+        } catch (Exception e) {
+            log.error("Error during idempotency key cleanup: ", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package app.scheduler;
+
+import app.interest.service.InterestAccrualService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class InterestAccrualScheduler {
+
+    private final InterestAccrualService interestAccrualService;
+
+    @Autowired
+    public InterestAccrualScheduler(InterestAccrualService interestAccrualService) {
+        this.interestAccrualService = interestAccrualService;
+    }
+
+    @Scheduled(cron = "${savings-interest.cron:0 30 1 * * *}")
+    public void accrueInterest() {
+        try {
+            interestAccrualService.accrueInterest ();
+        } catch (Exception e) {
+            log.error ("Error while accruing savings interest: ", e);
+        }
+    }
+
+    // a night's run that stopped half way carries on from its checkpoint
+    @Scheduled(fixedDelayString = "${savings-interest.resume-interval:PT10M}", initialDelayString = "${savings-interest.resume-interval:PT10M}")
+    public void resumeUnfinishedRuns() {
+        try {
+            interestAccrualService.resumeUnfinishedRuns ();
+        } catch (Exception e) {
+            log.error ("Error while resuming interest accrual runs: ", e);
+        }
+    }
+}
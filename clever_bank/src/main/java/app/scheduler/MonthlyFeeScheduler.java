@@ -1,24 +1,40 @@
 package app.scheduler;
 
 
-import app.pocket.service.PocketService;
+import app.fee.service.MonthlyFeeService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 public class MonthlyFeeScheduler {
 
-    private final PocketService pocketService;
+    private final MonthlyFeeService monthlyFeeService;
 
     @Autowired
-    public MonthlyFeeScheduler(PocketService pocketService) {
-        this.pocketService = pocketService;
+    public MonthlyFeeScheduler(MonthlyFeeService monthlyFeeService) {
+        this.monthlyFeeService = monthlyFeeService;
     }
 
 //    @Scheduled(cron = "*/20 * * * * *")
-    @Scheduled(cron = "0 1 0 1 * *")
+    @Scheduled(cron = "${monthly-fee.cron:0 1 0 1 * *}")
     public void chargeMonthlyFees() {
-     pocketService.applyMonthlyFees();
+        try {
+            monthlyFeeService.applyMonthlyFees ();
+        } catch (Exception e) {
+            log.error ("Error while charging monthly fees: ", e);
+        }
+    }
+
+    // picks up a run that stopped half way, from its last checkpoint
+    @Scheduled(fixedDelayString = "${monthly-fee.resume-interval:PT10M}", initialDelayString = "${monthly-fee.resume-interval:PT10M}")
+    public void resumeUnfinishedRuns() {
+        try {
+            monthlyFeeService.resumeUnfinishedRuns ();
+        } catch (Exception e) {
+            log.error ("Error while resuming monthly fee runs: ", e);
+        }
     }
 }
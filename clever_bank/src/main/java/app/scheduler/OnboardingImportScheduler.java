@@ -0,0 +1,30 @@
+package app.scheduler;
+
+
+import app.onboarding.service.OnboardingImportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class OnboardingImportScheduler {
+
+    private final OnboardingImportService onboardingImportService;
+
+    @Autowired
+    public OnboardingImportScheduler(OnboardingImportService onboardingImportService) {
+        this.onboardingImportService = onboardingImportService;
+    }
+
+    // picks up an import that stopped half way, from its last committed chunk
+    @Scheduled(fixedDelayString = "${onboarding.resume-interval:PT10M}", initialDelayString = "${onboarding.resume-interval:PT10M}")
+    public void resumeUnfinishedImports() {
+        try {
+            onboardingImportService.resumeUnfinishedImports ();
+        } catch (Exception e) {
+            log.error ("Error while resuming onboarding imports: ", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package app.scheduler;
+
+import app.pocket.service.PocketBalanceShardService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class PocketBalanceFoldScheduler {
+
+    private final PocketBalanceShardService pocketBalanceShardService;
+
+    @Autowired
+    public PocketBalanceFoldScheduler(PocketBalanceShardService pocketBalanceShardService) {
+        this.pocketBalanceShardService = pocketBalanceShardService;
+    }
+
+    // Keeps shard buckets small so debits rarely have to fold them inline
+    @Scheduled(fixedDelayString = "${pocket-balance-shards.fold-interval:PT30S}")
+    public void foldShardedBalances() {
+        try {
+            int folded = pocketBalanceShardService.foldAll();
+            if (folded > 0) {
+                log.debug("Folded balance shards of {} pockets", folded);
+            }
+        } catch (Exception e) {
+            log.error("Error while folding balance shards: ", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package app.scheduler;
+
+import app.summary.service.PocketSummaryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class PocketSummaryRebuildScheduler {
+
+    private final PocketSummaryService pocketSummaryService;
+
+    @Autowired
+    public PocketSummaryRebuildScheduler(PocketSummaryService pocketSummaryService) {
+        this.pocketSummaryService = pocketSummaryService;
+    }
+
+    // Disabled by default ("-"); enable off-peak to repair drift or seed the table
+    @Scheduled(cron = "${pocket-summary.rebuild.cron:-}")
+    public void rebuildPocketSummaries() {
+        log.info("Starting pocket monthly summary rebuild...");
+        try {
+            pocketSummaryService.rebuildAll();
+        } catch (Exception e) {
+            log.error("Error during pocket summary rebuild: ", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package app.scheduler;
+
+import app.standing_order.service.StandingOrderExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class StandingOrderScheduler {
+
+    private final StandingOrderExecutor standingOrderExecutor;
+    private final boolean enabled;
+
+    @Autowired
+    public StandingOrderScheduler(StandingOrderExecutor standingOrderExecutor,
+                                  @Value("${standing-order.enabled:true}") boolean enabled) {
+        this.standingOrderExecutor = standingOrderExecutor;
+        this.enabled = enabled;
+    }
+
+    // reads the next window of due orders into the timing wheel
+    @Scheduled(fixedDelayString = "${standing-order.load-interval:PT1M}")
+    public void loadDueOrders() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int loaded = standingOrderExecutor.loadDueOrders ();
+            if (loaded > 0) {
+                log.debug ("Loaded {} standing orders into the timing wheel", loaded);
+            }
+        } catch (Exception e) {
+            log.error ("Error while loading due standing orders: ", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${standing-order.tick:PT1S}")
+    public void fireDueOrders() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            standingOrderExecutor.fireDueOrders ();
+        } catch (Exception e) {
+            log.error ("Error while firing standing orders: ", e);
+        }
+    }
+}
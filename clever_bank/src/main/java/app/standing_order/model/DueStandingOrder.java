@@ -0,0 +1,8 @@
+package app.standing_order.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// what the executor keeps per scheduled order; the order itself is read again when it fires
+public record DueStandingOrder(UUID id, LocalDateTime nextRunOn) {
+}
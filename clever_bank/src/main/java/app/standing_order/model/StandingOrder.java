@@ -0,0 +1,87 @@
+package app.standing_order.model;
+
+import app.transaction.model.TransactionStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Recurring transfer from one of the customer's pockets. nextRunOn is the only column the executor
+// reads when it loads work, through the (status, next_run_on) index.
+@Entity
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "standing_orders", indexes = {
+        @Index(name = "idx_standing_orders_status_next_run", columnList = "status, next_run_on"),
+        @Index(name = "idx_standing_orders_customer", columnList = "customer_id")
+})
+public class StandingOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID customerId;
+
+    @Column(nullable = false)
+    private UUID pocketId;
+
+    @Column(nullable = false)
+    private String receiverUsername;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private StandingOrderFrequency frequency;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private StandingOrderStatus status;
+
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    // null once the order is cancelled or has made its last payment
+    private LocalDateTime nextRunOn;
+
+    private LocalDateTime lastRunOn;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionStatus lastRunStatus;
+
+    private UUID lastTransactionId;
+
+    private String lastFailureReason;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+
+
+    @PrePersist
+    protected void onCreate() {
+        LocalDateTime now = LocalDateTime.now();
+        createdOn = now;
+        updatedOn = now;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedOn = LocalDateTime.now();
+    }
+}
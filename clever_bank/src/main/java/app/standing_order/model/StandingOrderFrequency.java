@@ -0,0 +1,23 @@
+package app.standing_order.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+public enum StandingOrderFrequency {
+
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+
+    // First run date after the given one. Months are counted from the start date, so an order
+    // started on the 31st pays on the last day of short months and on the 31st again afterwards.
+    public LocalDate nextAfter(LocalDate startDate, LocalDate current) {
+
+        return switch (this) {
+            case DAILY -> current.plusDays (1);
+            case WEEKLY -> current.plusWeeks (1);
+            case MONTHLY -> startDate.plusMonths (ChronoUnit.MONTHS.between (startDate.withDayOfMonth (1), current.withDayOfMonth (1)) + 1);
+        };
+    }
+}
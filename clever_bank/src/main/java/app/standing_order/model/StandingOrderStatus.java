@@ -0,0 +1,9 @@
+package app.standing_order.model;
+
+public enum StandingOrderStatus {
+
+    ACTIVE,
+    PAUSED,
+    CANCELLED,
+    COMPLETED
+}
@@ -0,0 +1,79 @@
+package app.standing_order.repository;
+
+import app.standing_order.model.DueStandingOrder;
+import app.standing_order.model.StandingOrder;
+import app.standing_order.model.StandingOrderStatus;
+import app.transaction.model.TransactionStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface StandingOrderRepository extends JpaRepository <StandingOrder, UUID> {
+
+
+    List <StandingOrder> findAllByCustomerIdOrderByCreatedOnDesc(UUID customerId);
+
+    Optional <StandingOrder> findByIdAndCustomerId(UUID id, UUID customerId);
+
+
+    // Active orders due in (loadedUntil, horizon], plus overdue ones that never fired (staleBefore).
+    // Both are ranges on the (status, next_run_on) index, walked in (nextRunOn, id) keyset order.
+    @Query("""
+        SELECT new app.standing_order.model.DueStandingOrder(o.id, o.nextRunOn) FROM StandingOrder o
+        WHERE o.status = app.standing_order.model.StandingOrderStatus.ACTIVE
+          AND o.nextRunOn <= :horizon
+          AND (o.nextRunOn > :loadedUntil OR o.nextRunOn <= :staleBefore)
+        ORDER BY o.nextRunOn, o.id
+        """)
+    List <DueStandingOrder> findFirstDue(@Param("loadedUntil") LocalDateTime loadedUntil,
+                                         @Param("staleBefore") LocalDateTime staleBefore,
+                                         @Param("horizon") LocalDateTime horizon,
+                                         Pageable pageable);
+
+    @Query("""
+        SELECT new app.standing_order.model.DueStandingOrder(o.id, o.nextRunOn) FROM StandingOrder o
+        WHERE o.status = app.standing_order.model.StandingOrderStatus.ACTIVE
+          AND o.nextRunOn <= :horizon
+          AND (o.nextRunOn > :loadedUntil OR o.nextRunOn <= :staleBefore)
+          AND (o.nextRunOn > :afterRun OR (o.nextRunOn = :afterRun AND o.id > :afterId))
+        ORDER BY o.nextRunOn, o.id
+        """)
+    List <DueStandingOrder> findDueAfter(@Param("loadedUntil") LocalDateTime loadedUntil,
+                                         @Param("staleBefore") LocalDateTime staleBefore,
+                                         @Param("horizon") LocalDateTime horizon,
+                                         @Param("afterRun") LocalDateTime afterRun,
+                                         @Param("afterId") UUID afterId,
+                                         Pageable pageable);
+
+
+    // Moves the order past the run it just made. A second attempt at the same run, or an order paused
+    // or cancelled while the run was in flight, finds nothing to update.
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE StandingOrder o
+        SET o.nextRunOn = :nextRunOn, o.status = :status, o.lastRunOn = :now, o.lastRunStatus = :runStatus,
+            o.lastTransactionId = :transactionId, o.lastFailureReason = :failureReason, o.updatedOn = :now
+        WHERE o.id = :id
+          AND o.status = app.standing_order.model.StandingOrderStatus.ACTIVE
+          AND o.nextRunOn = :expectedRunOn
+        """)
+    int recordRun(@Param("id") UUID id,
+                  @Param("expectedRunOn") LocalDateTime expectedRunOn,
+                  @Param("nextRunOn") LocalDateTime nextRunOn,
+                  @Param("status") StandingOrderStatus status,
+                  @Param("runStatus") TransactionStatus runStatus,
+                  @Param("transactionId") UUID transactionId,
+                  @Param("failureReason") String failureReason,
+                  @Param("now") LocalDateTime now);
+}
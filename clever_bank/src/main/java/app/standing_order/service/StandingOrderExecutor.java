@@ -0,0 +1,262 @@
+package app.standing_order.service;
+
+import app.customer.model.Customer;
+import app.customer.service.CustomerService;
+import app.exception.DomainException;
+import app.pocket.service.PocketService;
+import app.standing_order.model.DueStandingOrder;
+import app.standing_order.model.StandingOrder;
+import app.standing_order.model.StandingOrderStatus;
+import app.standing_order.repository.StandingOrderRepository;
+import app.standing_order.wheel.HierarchicalTimingWheel;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.Transactions;
+import app.web.dto.TransferResultRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Fires standing orders. Only orders due within the load-ahead window are read, page by page from the
+// (status, next_run_on) index, and parked in a timing wheel; every tick hands the ones that came due
+// to a fixed pool. Each run goes through PocketService.transfer with an idempotency key made of the
+// order id and the run date, and the order only moves to its next run if it is still on this one.
+@Slf4j
+@Component
+public class StandingOrderExecutor {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
+    private static final int LOAD_PAGE_SIZE = 1000;
+    private static final LocalDateTime NOTHING_LOADED = LocalDateTime.of (1970, 1, 1, 0, 0);
+
+    private final StandingOrderRepository standingOrderRepository;
+    private final PocketService pocketService;
+    private final CustomerService customerService;
+    private final Duration loadAhead;
+    private final Duration retryAfter;
+    private final LocalTime executionTime;
+    private final ExecutorService workers;
+    private final HierarchicalTimingWheel <UUID> wheel;
+
+    // orders sitting in the wheel and the run they are waiting for, so reloads don't add them twice
+    private final Map <UUID, LocalDateTime> scheduled = new ConcurrentHashMap <> ();
+
+    // everything due up to here has been read into the wheel at least once
+    private volatile LocalDateTime loadedUntil = NOTHING_LOADED;
+
+
+    @Autowired
+    public StandingOrderExecutor(StandingOrderRepository standingOrderRepository,
+                                 PocketService pocketService,
+                                 CustomerService customerService,
+                                 @Value("${standing-order.tick:PT1S}") Duration tick,
+                                 @Value("${standing-order.load-ahead:PT10M}") Duration loadAhead,
+                                 @Value("${standing-order.retry-after:PT5M}") Duration retryAfter,
+                                 @Value("${standing-order.execution-time:06:00}") LocalTime executionTime,
+                                 @Value("${standing-order.parallelism:8}") int parallelism) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.pocketService = pocketService;
+        this.customerService = customerService;
+        this.loadAhead = loadAhead;
+        this.retryAfter = retryAfter;
+        this.executionTime = executionTime;
+        this.workers = Executors.newFixedThreadPool (Math.max (parallelism, 1));
+        this.wheel = new HierarchicalTimingWheel <> (tick.toMillis (), WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis ());
+
+        if (loadAhead.toMillis () >= wheel.getRangeMillis ()) {
+            throw new IllegalStateException ("standing-order.load-ahead must be shorter than the timing wheel range of %d ms"
+                    .formatted (wheel.getRangeMillis ()));
+        }
+    }
+
+
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow ();
+    }
+
+
+
+    // the moment a run on the given date fires
+    public LocalDateTime runOn(LocalDate date) {
+        return date.atTime (executionTime);
+    }
+
+
+
+    // Reads the next window of due orders into the wheel. Orders that fired but could not be moved
+    // on (a failed run, a crash) are picked up again once they are retry-after overdue.
+    public int loadDueOrders() {
+
+        LocalDateTime now = LocalDateTime.now ();
+        LocalDateTime from = loadedUntil;
+        LocalDateTime horizon = now.plus (loadAhead);
+        LocalDateTime staleBefore = now.minus (retryAfter);
+
+        // moved before the query: an order saved meanwhile is either seen by it or scheduled on commit
+        loadedUntil = horizon;
+
+        int loaded = 0;
+        List <DueStandingOrder> page = standingOrderRepository.findFirstDue (from, staleBefore, horizon, PageRequest.ofSize (LOAD_PAGE_SIZE));
+
+        while (!page.isEmpty ()) {
+
+            for (DueStandingOrder order : page) {
+                loaded += schedule (order.id (), order.nextRunOn ()) ? 1 : 0;
+            }
+
+            DueStandingOrder last = page.get (page.size () - 1);
+            page = page.size () < LOAD_PAGE_SIZE
+                    ? List.of ()
+                    : standingOrderRepository.findDueAfter (from, staleBefore, horizon, last.nextRunOn (), last.id (), PageRequest.ofSize (LOAD_PAGE_SIZE));
+        }
+
+        return loaded;
+    }
+
+
+
+    // Hands the orders that came due to the worker pool
+    public List <CompletableFuture <Void>> fireDueOrders() {
+
+        List <CompletableFuture <Void>> runs = new ArrayList <> ();
+
+        for (UUID orderId : wheel.advance (System.currentTimeMillis ())) {
+            LocalDateTime runOn = scheduled.remove (orderId);
+            if (runOn != null) {
+                runs.add (CompletableFuture.runAsync (() -> fire (orderId, runOn), workers));
+            }
+        }
+
+        return runs;
+    }
+
+
+
+    // New or resumed orders whose run falls inside the loaded window go straight into the wheel
+    public void scheduleAfterCommit(UUID orderId, LocalDateTime nextRunOn) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive ()) {
+            TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                @Override
+                public void afterCommit() {
+                    scheduleIfLoaded (orderId, nextRunOn);
+                }
+            });
+            return;
+        }
+
+        scheduleIfLoaded (orderId, nextRunOn);
+    }
+
+
+
+    private void scheduleIfLoaded(UUID orderId, LocalDateTime nextRunOn) {
+
+        if (nextRunOn != null && !nextRunOn.isAfter (loadedUntil)) {
+            schedule (orderId, nextRunOn);
+        }
+    }
+
+
+
+    private boolean schedule(UUID orderId, LocalDateTime runOn) {
+
+        if (scheduled.putIfAbsent (orderId, runOn) != null) {
+            return false;
+        }
+
+        wheel.add (orderId, runOn.atZone (ZoneId.systemDefault ()).toInstant ().toEpochMilli ());
+        return true;
+    }
+
+
+
+    private void fire(UUID orderId, LocalDateTime runOn) {
+
+        try {
+            StandingOrder order = standingOrderRepository.findById (orderId).orElse (null);
+
+            // paused or cancelled since it was loaded
+            if (order == null || order.getStatus () != StandingOrderStatus.ACTIVE) {
+                return;
+            }
+
+            // already moved on, or resumed onto another date, while this run was waiting
+            if (!runOn.equals (order.getNextRunOn ())) {
+                scheduleIfLoaded (orderId, order.getNextRunOn ());
+                return;
+            }
+
+            run (order);
+
+        } catch (Exception e) {
+            log.error ("Standing order %s run on %s failed, it is retried after %s".formatted (orderId, runOn, retryAfter), e);
+        }
+    }
+
+
+
+    private void run(StandingOrder order) {
+
+        LocalDateTime runOn = order.getNextRunOn ();
+        Transactions transaction = null;
+        String failureReason = null;
+
+        try {
+            Customer customer = customerService.getById (order.getCustomerId ());
+
+            transaction = pocketService.transfer (TransferResultRequest.builder ()
+                    .pocketId (order.getPocketId ())
+                    .username (order.getReceiverUsername ())
+                    .amount (order.getAmount ())
+                    .idempotencyKey ("standing-order:%s:%s".formatted (order.getId (), runOn.toLocalDate ()))
+                    .build (), customer);
+
+            failureReason = transaction.getStatus () == TransactionStatus.FAILED ? transaction.getReasonFailed () : null;
+
+        } catch (DomainException e) {
+            // a run that cannot go through (pocket gone, receiver closed) is recorded and the order moves on;
+            // a busy pocket or anything else that may pass leaves the order on this run for the stale reload
+            if (!e.getStatus ().is4xxClientError ()) {
+                throw e;
+            }
+            failureReason = e.getMessage ();
+        }
+
+        LocalDate next = order.getFrequency ().nextAfter (order.getStartDate (), runOn.toLocalDate ());
+        boolean finished = order.getEndDate () != null && next.isAfter (order.getEndDate ());
+        LocalDateTime nextRunOn = finished ? null : runOn (next);
+
+        int moved = standingOrderRepository.recordRun (order.getId (), runOn, nextRunOn,
+                finished ? StandingOrderStatus.COMPLETED : StandingOrderStatus.ACTIVE,
+                transaction != null ? transaction.getStatus () : TransactionStatus.FAILED,
+                transaction != null ? transaction.getId () : null,
+                failureReason,
+                LocalDateTime.now ());
+
+        if (moved == 1 && nextRunOn != null) {
+            scheduleIfLoaded (order.getId (), nextRunOn);
+        }
+    }
+}
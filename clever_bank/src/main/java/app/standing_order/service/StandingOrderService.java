@@ -0,0 +1,148 @@
+package app.standing_order.service;
+
+import app.customer.model.Customer;
+import app.exception.DomainException;
+import app.pocket.repository.PocketRepository;
+import app.standing_order.model.StandingOrder;
+import app.standing_order.model.StandingOrderStatus;
+import app.standing_order.repository.StandingOrderRepository;
+import app.web.dto.StandingOrderRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class StandingOrderService {
+
+    private final StandingOrderRepository standingOrderRepository;
+    private final PocketRepository pocketRepository;
+    private final StandingOrderExecutor standingOrderExecutor;
+
+
+    @Autowired
+    public StandingOrderService(StandingOrderRepository standingOrderRepository,
+                                PocketRepository pocketRepository,
+                                StandingOrderExecutor standingOrderExecutor) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.pocketRepository = pocketRepository;
+        this.standingOrderExecutor = standingOrderExecutor;
+    }
+
+
+
+
+    public List <StandingOrder> getAllByCustomer(UUID customerId) {
+        return standingOrderRepository.findAllByCustomerIdOrderByCreatedOnDesc (customerId);
+    }
+
+
+
+
+    @Transactional
+    public StandingOrder createStandingOrder(StandingOrderRequest standingOrderRequest, Customer customer) {
+
+        pocketRepository.findByIdAndCustomerId (standingOrderRequest.getPocketId (), customer.getId ())
+                .orElseThrow (() -> new DomainException ("Pocket with id %s not found and customer id %s not found"
+                        .formatted (standingOrderRequest.getPocketId (), customer.getId ()), HttpStatus.BAD_REQUEST));
+
+        if (standingOrderRequest.getEndDate () != null && standingOrderRequest.getEndDate ().isBefore (standingOrderRequest.getStartDate ())) {
+            throw new DomainException ("End date cannot be before the start date", HttpStatus.BAD_REQUEST);
+        }
+
+        StandingOrder standingOrder = standingOrderRepository.save (StandingOrder.builder ()
+                .customerId (customer.getId ())
+                .pocketId (standingOrderRequest.getPocketId ())
+                .receiverUsername (standingOrderRequest.getUsername ())
+                .amount (standingOrderRequest.getAmount ())
+                .frequency (standingOrderRequest.getFrequency ())
+                .status (StandingOrderStatus.ACTIVE)
+                .description (standingOrderRequest.getDescription ())
+                .startDate (standingOrderRequest.getStartDate ())
+                .endDate (standingOrderRequest.getEndDate ())
+                .nextRunOn (standingOrderExecutor.runOn (standingOrderRequest.getStartDate ()))
+                .build ());
+
+        standingOrderExecutor.scheduleAfterCommit (standingOrder.getId (), standingOrder.getNextRunOn ());
+        log.info ("Standing order %s created for customer %s".formatted (standingOrder.getId (), customer.getId ()));
+
+        return standingOrder;
+    }
+
+
+
+
+    @Transactional
+    public StandingOrder pause(UUID standingOrderId, UUID customerId) {
+
+        StandingOrder standingOrder = getOwned (standingOrderId, customerId);
+
+        if (standingOrder.getStatus () != StandingOrderStatus.ACTIVE) {
+            throw new DomainException ("Only an active standing order can be paused", HttpStatus.BAD_REQUEST);
+        }
+
+        standingOrder.setStatus (StandingOrderStatus.PAUSED);
+        return standingOrderRepository.save (standingOrder);
+    }
+
+
+
+
+    // Runs missed while paused are skipped, the order carries on from its next date that is still ahead
+    @Transactional
+    public StandingOrder resume(UUID standingOrderId, UUID customerId) {
+
+        StandingOrder standingOrder = getOwned (standingOrderId, customerId);
+
+        if (standingOrder.getStatus () != StandingOrderStatus.PAUSED) {
+            throw new DomainException ("Only a paused standing order can be resumed", HttpStatus.BAD_REQUEST);
+        }
+
+        LocalDate runDate = standingOrder.getNextRunOn ().toLocalDate ();
+        while (standingOrderExecutor.runOn (runDate).isBefore (LocalDateTime.now ())) {
+            runDate = standingOrder.getFrequency ().nextAfter (standingOrder.getStartDate (), runDate);
+        }
+
+        if (standingOrder.getEndDate () != null && runDate.isAfter (standingOrder.getEndDate ())) {
+            standingOrder.setStatus (StandingOrderStatus.COMPLETED);
+            standingOrder.setNextRunOn (null);
+            return standingOrderRepository.save (standingOrder);
+        }
+
+        standingOrder.setStatus (StandingOrderStatus.ACTIVE);
+        standingOrder.setNextRunOn (standingOrderExecutor.runOn (runDate));
+        standingOrderExecutor.scheduleAfterCommit (standingOrder.getId (), standingOrder.getNextRunOn ());
+
+        return standingOrderRepository.save (standingOrder);
+    }
+
+
+
+
+    @Transactional
+    public StandingOrder cancel(UUID standingOrderId, UUID customerId) {
+
+        StandingOrder standingOrder = getOwned (standingOrderId, customerId);
+
+        standingOrder.setStatus (StandingOrderStatus.CANCELLED);
+        standingOrder.setNextRunOn (null);
+
+        return standingOrderRepository.save (standingOrder);
+    }
+
+
+
+    private StandingOrder getOwned(UUID standingOrderId, UUID customerId) {
+
+        return standingOrderRepository.findByIdAndCustomerId (standingOrderId, customerId)
+                .orElseThrow (() -> new DomainException ("Standing order with id %s not found"
+                        .formatted (standingOrderId), HttpStatus.BAD_REQUEST));
+    }
+}
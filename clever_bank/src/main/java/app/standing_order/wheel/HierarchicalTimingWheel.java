@@ -0,0 +1,137 @@
+package app.standing_order.wheel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hierarchical timing wheel: level 0 has one slot per tick, every level above has slots as wide as
+// the whole level below. Adding is O(1); an entry moves down a level when its slot comes round and
+// fires from level 0 on its tick, so advancing costs only the entries that actually moved.
+public class HierarchicalTimingWheel <T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] slotSpan;
+    private final List <List <Entry <T>>> [] levels;
+    private final List <T> overdue = new ArrayList <> ();
+
+    // last tick that has been processed
+    private long currentTick;
+    private int size;
+
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+
+        if (tickMillis < 1 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException ("Timing wheel needs a tick of at least 1 ms, 2 slots and 1 level");
+        }
+
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.slotSpan = new long[levelCount];
+        this.levels = new List[levelCount];
+        this.currentTick = startMillis / tickMillis;
+
+        long span = 1;
+        for (int level = 0; level < levelCount; level++) {
+            slotSpan[level] = span;
+            levels[level] = new ArrayList <> (wheelSize);
+            for (int slot = 0; slot < wheelSize; slot++) {
+                levels[level].add (new ArrayList <> ());
+            }
+            span = Math.multiplyExact (span, wheelSize);
+        }
+    }
+
+
+
+    // furthest deadline the wheel can hold, measured from its current tick
+    public long getRangeMillis() {
+        return slotSpan[slotSpan.length - 1] * wheelSize * tickMillis;
+    }
+
+
+    public synchronized int size() {
+        return size;
+    }
+
+
+
+    // Entries at or before the current tick come out on the next advance
+    public synchronized void add(T item, long deadlineMillis) {
+
+        long deadlineTick = Math.floorDiv (deadlineMillis, tickMillis);
+
+        if (deadlineTick - currentTick >= slotSpan[slotSpan.length - 1] * wheelSize) {
+            throw new IllegalArgumentException ("Deadline %d ms is beyond the wheel range of %d ms"
+                    .formatted (deadlineMillis - currentTick * tickMillis, getRangeMillis ()));
+        }
+
+        place (new Entry <> (item, deadlineTick));
+        size++;
+    }
+
+
+
+    // Processes every tick up to now and returns the items that came due, earliest first
+    public synchronized List <T> advance(long nowMillis) {
+
+        List <T> due = new ArrayList <> (overdue);
+        overdue.clear ();
+
+        long targetTick = Math.floorDiv (nowMillis, tickMillis);
+
+        while (currentTick < targetTick) {
+
+            currentTick++;
+
+            // higher levels first, so entries cascading down to this very tick still fire on it
+            for (int level = levels.length - 1; level > 0; level--) {
+                if (currentTick % slotSpan[level] == 0) {
+                    List <Entry <T>> slot = slotOf (level, currentTick);
+                    List <Entry <T>> cascading = new ArrayList <> (slot);
+                    slot.clear ();
+                    cascading.forEach (this::place);
+                }
+            }
+
+            List <Entry <T>> slot = slotOf (0, currentTick);
+            slot.forEach (entry -> due.add (entry.item ()));
+            slot.clear ();
+
+            due.addAll (overdue);
+            overdue.clear ();
+        }
+
+        size -= due.size ();
+        return due;
+    }
+
+
+
+    private void place(Entry <T> entry) {
+
+        long delta = entry.deadlineTick () - currentTick;
+
+        if (delta <= 0) {
+            overdue.add (entry.item ());
+            return;
+        }
+
+        int level = 0;
+        while (level < levels.length - 1 && delta >= slotSpan[level] * wheelSize) {
+            level++;
+        }
+
+        slotOf (level, entry.deadlineTick ()).add (entry);
+    }
+
+
+    private List <Entry <T>> slotOf(int level, long tick) {
+        return levels[level].get ((int) ((tick / slotSpan[level]) % wheelSize));
+    }
+
+
+    private record Entry <T>(T item, long deadlineTick) {
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -39,6 +40,17 @@ public class SubscriptionService {
 
 
 
+    // bulk variant for the onboarding import: one JDBC batch, one log line
+    public List <Subscription> createDefaultSubscriptions(List <Customer> customers) {
+
+        List <Subscription> subscriptions = subscriptionRepository.saveAll (customers.stream ().map (this::createNewSubscription).toList ());
+        log.info ("Successfully created %d default subscriptions".formatted (subscriptions.size ()));
+
+        return subscriptions;
+    }
+
+
+
 
     private Subscription createNewSubscription(Customer customer) {
 
@@ -0,0 +1,47 @@
+package app.summary.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Read model: money in/out of a pocket per calendar month, kept up to date as transactions are recorded.
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(PocketMonthlySummaryId.class)
+@Table(name = "pocket_monthly_summary")
+public class PocketMonthlySummary {
+
+    @Id
+    @Column(nullable = false)
+    private UUID pocketId;
+
+    @Id
+    @Column(nullable = false)
+    private int periodYear;
+
+    @Id
+    @Column(nullable = false)
+    private int periodMonth;
+
+    @Column(nullable = false)
+    private BigDecimal totalIn;
+
+    @Column(nullable = false)
+    private BigDecimal totalOut;
+
+    @Column(nullable = false)
+    private long countIn;
+
+    @Column(nullable = false)
+    private long countOut;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
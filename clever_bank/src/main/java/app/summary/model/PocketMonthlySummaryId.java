@@ -0,0 +1,20 @@
+package app.summary.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PocketMonthlySummaryId implements Serializable {
+
+    private UUID pocketId;
+
+    private int periodYear;
+
+    private int periodMonth;
+}
@@ -0,0 +1,92 @@
+package app.summary.repository;
+
+import app.summary.model.PocketMonthlySummary;
+import app.summary.model.PocketMonthlySummaryId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PocketMonthlySummaryRepository extends JpaRepository <PocketMonthlySummary, PocketMonthlySummaryId> {
+
+
+    List <PocketMonthlySummary> findAllByPocketIdOrderByPeriodYearDescPeriodMonthDesc(UUID pocketId, Pageable pageable);
+
+
+    // atomic increment, so concurrent transactions on the same pocket never lose an update
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO pocket_monthly_summary
+            (pocket_id, period_year, period_month, total_in, total_out, count_in, count_out, updated_on)
+        VALUES (:pocketId, :year, :month, :amountIn, :amountOut, :countIn, :countOut, CURRENT_TIMESTAMP)
+        ON DUPLICATE KEY UPDATE
+            total_in = total_in + :amountIn,
+            total_out = total_out + :amountOut,
+            count_in = count_in + :countIn,
+            count_out = count_out + :countOut,
+            updated_on = CURRENT_TIMESTAMP
+        """, nativeQuery = true)
+    int addToPeriod(@Param("pocketId") UUID pocketId,
+                    @Param("year") int year,
+                    @Param("month") int month,
+                    @Param("amountIn") BigDecimal amountIn,
+                    @Param("amountOut") BigDecimal amountOut,
+                    @Param("countIn") long countIn,
+                    @Param("countOut") long countOut);
+
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM pocket_monthly_summary WHERE pocket_id IN (:pocketIds)", nativeQuery = true)
+    int deleteAllByPocketIds(@Param("pocketIds") Collection <UUID> pocketIds);
+
+
+    // recomputes the summaries of the given pockets from the SUCCEEDED journal rows
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO pocket_monthly_summary
+            (pocket_id, period_year, period_month, total_in, total_out, count_in, count_out, updated_on)
+        SELECT t.pocket_id, YEAR(t.created_on), MONTH(t.created_on),
+               SUM(CASE WHEN t.type = 'DEPOSIT' THEN t.amount ELSE 0 END),
+               SUM(CASE WHEN t.type <> 'DEPOSIT' THEN t.amount ELSE 0 END),
+               SUM(CASE WHEN t.type = 'DEPOSIT' THEN 1 ELSE 0 END),
+               SUM(CASE WHEN t.type <> 'DEPOSIT' THEN 1 ELSE 0 END),
+               CURRENT_TIMESTAMP
+        FROM transactions t
+        WHERE t.pocket_id IN (:pocketIds)
+          AND t.status = 'SUCCEEDED'
+        GROUP BY t.pocket_id, YEAR(t.created_on), MONTH(t.created_on)
+        """, nativeQuery = true)
+    int rebuildForPockets(@Param("pocketIds") Collection <UUID> pocketIds);
+
+
+    // the monthly fee run books one outgoing fee per pocket of the chunk
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO pocket_monthly_summary
+            (pocket_id, period_year, period_month, total_in, total_out, count_in, count_out, updated_on)
+        SELECT p.id, :year, :month, 0, :fee, 0, 1, CURRENT_TIMESTAMP
+        FROM pockets p
+        WHERE p.id IN (:pocketIds)
+        ON DUPLICATE KEY UPDATE
+            total_out = total_out + :fee,
+            count_out = count_out + 1,
+            updated_on = CURRENT_TIMESTAMP
+        """, nativeQuery = true)
+    int addFeeToPeriod(@Param("pocketIds") Collection <UUID> pocketIds,
+                       @Param("year") int year,
+                       @Param("month") int month,
+                       @Param("fee") BigDecimal fee);
+}
@@ -0,0 +1,188 @@
+package app.summary.service;
+
+import app.exception.DomainException;
+import app.pocket.repository.PocketRepository;
+import app.summary.model.PocketMonthlySummary;
+import app.summary.model.PocketMonthlySummaryId;
+import app.summary.repository.PocketMonthlySummaryRepository;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+// Maintains the pocket_monthly_summary read model: incremental upserts on every recorded
+// SUCCEEDED transaction, and a chunked parallel rebuild from the transactions journal.
+@Slf4j
+@Service
+public class PocketSummaryService {
+
+    public static final int DEFAULT_MONTHS = 12;
+    public static final int MAX_MONTHS = 120;
+
+    private final PocketMonthlySummaryRepository summaryRepository;
+    private final PocketRepository pocketRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildParallelism;
+    private final int rebuildChunkSize;
+
+
+    @Autowired
+    public PocketSummaryService(PocketMonthlySummaryRepository summaryRepository,
+                                PocketRepository pocketRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${pocket-summary.rebuild.parallelism:4}") int rebuildParallelism,
+                                @Value("${pocket-summary.rebuild.chunk-size:500}") int rebuildChunkSize) {
+        this.summaryRepository = summaryRepository;
+        this.pocketRepository = pocketRepository;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+        this.rebuildParallelism = Math.max (rebuildParallelism, 1);
+        this.rebuildChunkSize = Math.max (rebuildChunkSize, 1);
+    }
+
+
+
+
+    // Newest months first, only for a pocket owned by the customer
+    public List <PocketMonthlySummary> getMonthlySummaries(UUID pocketId, UUID customerId, int months) {
+
+        pocketRepository.findOwnerIdById (pocketId)
+                .filter (customerId::equals)
+                .orElseThrow (() -> new DomainException ("Pocket with id %s not found and customer id %s not found"
+                        .formatted (pocketId, customerId), HttpStatus.BAD_REQUEST));
+
+        int limit = Math.min (Math.max (months, 1), MAX_MONTHS);
+
+        return summaryRepository.findAllByPocketIdOrderByPeriodYearDescPeriodMonthDesc (pocketId, PageRequest.ofSize (limit));
+    }
+
+
+
+
+    public void record(Transactions transaction) {
+        recordAll (List.of (transaction));
+    }
+
+
+
+
+    // Rows of the same pocket and month are folded together so a batch costs one upsert per period
+    public void recordAll(List <Transactions> transactions) {
+
+        Map <PocketMonthlySummaryId, Delta> deltas = new LinkedHashMap <> ();
+
+        for (Transactions transaction : transactions) {
+
+            if (transaction.getStatus () != TransactionStatus.SUCCEEDED || transaction.getPocket () == null) {
+                continue;
+            }
+
+            PocketMonthlySummaryId period = new PocketMonthlySummaryId (transaction.getPocket ().getId (),
+                    transaction.getCreatedOn ().getYear (), transaction.getCreatedOn ().getMonthValue ());
+
+            deltas.computeIfAbsent (period, key -> new Delta ()).add (transaction);
+        }
+
+        deltas.forEach ((period, delta) -> summaryRepository.addToPeriod (period.getPocketId (),
+                period.getPeriodYear (), period.getPeriodMonth (),
+                delta.amountIn, delta.amountOut, delta.countIn, delta.countOut));
+    }
+
+
+
+
+    // Recomputes every pocket's summaries. Pocket ids are walked in keyset order and each chunk is
+    // deleted and re-aggregated in its own transaction on a bounded pool.
+    public int rebuildAll() {
+
+        ExecutorService executor = Executors.newFixedThreadPool (rebuildParallelism);
+        Semaphore inFlight = new Semaphore (rebuildParallelism * 2);
+        List <Future <Integer>> chunks = new ArrayList <> ();
+
+        try {
+            List <UUID> ids = pocketRepository.findFirstIds (PageRequest.ofSize (rebuildChunkSize));
+
+            while (!ids.isEmpty ()) {
+
+                List <UUID> chunk = ids;
+                inFlight.acquire ();
+                chunks.add (executor.submit (() -> {
+                    try {
+                        return rebuildChunk (chunk);
+                    } finally {
+                        inFlight.release ();
+                    }
+                }));
+
+                ids = chunk.size () < rebuildChunkSize
+                        ? List.of ()
+                        : pocketRepository.findIdsAfter (chunk.get (chunk.size () - 1), PageRequest.ofSize (rebuildChunkSize));
+            }
+
+            int rows = 0;
+            for (Future <Integer> future : chunks) {
+                rows += future.get ();
+            }
+
+            log.info ("Pocket summary rebuild finished: %d chunks, %d summary rows".formatted (chunks.size (), rows));
+            return rows;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+            throw new IllegalStateException ("Pocket summary rebuild interrupted", e);
+        } catch (Exception e) {
+            throw new IllegalStateException ("Pocket summary rebuild failed", e);
+        } finally {
+            executor.shutdownNow ();
+        }
+    }
+
+
+
+    private int rebuildChunk(List <UUID> pocketIds) {
+
+        return transactionTemplate.execute (status -> {
+            summaryRepository.deleteAllByPocketIds (pocketIds);
+            return summaryRepository.rebuildForPockets (pocketIds);
+        });
+    }
+
+
+
+
+    private static final class Delta {
+
+        private BigDecimal amountIn = BigDecimal.ZERO;
+        private BigDecimal amountOut = BigDecimal.ZERO;
+        private long countIn;
+        private long countOut;
+
+        private void add(Transactions transaction) {
+            // deposits bring money into the pocket; withdrawals and bill payments take it out
+            if (transaction.getType () == TransactionType.DEPOSIT) {
+                amountIn = amountIn.add (transaction.getAmount ());
+                countIn++;
+            } else {
+                amountOut = amountOut.add (transaction.getAmount ());
+                countOut++;
+            }
+        }
+    }
+}
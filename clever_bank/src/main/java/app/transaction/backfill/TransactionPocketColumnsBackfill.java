@@ -0,0 +1,186 @@
+package app.transaction.backfill;
+
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.summary.service.PocketSummaryService;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// One-off migration for rows written before senderPocketId/receiverPocketId existed. Free-form
+// sender/receiver values are only trusted when they match an existing pocket, and rows without a
+// pocket_id get their own pocket when it belongs to the row's customer. Runs at startup when enabled.
+@Slf4j
+@Component
+public class TransactionPocketColumnsBackfill implements ApplicationRunner {
+
+    private final TransactionRepository transactionRepository;
+    private final PocketRepository pocketRepository;
+    private final PocketSummaryService pocketSummaryService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int chunkSize;
+
+
+    @Autowired
+    public TransactionPocketColumnsBackfill(TransactionRepository transactionRepository,
+                                            PocketRepository pocketRepository,
+                                            PocketSummaryService pocketSummaryService,
+                                            PlatformTransactionManager transactionManager,
+                                            @Value("${transaction-backfill.pocket-columns.enabled:false}") boolean enabled,
+                                            @Value("${transaction-backfill.pocket-columns.chunk-size:500}") int chunkSize) {
+        this.transactionRepository = transactionRepository;
+        this.pocketRepository = pocketRepository;
+        this.pocketSummaryService = pocketSummaryService;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+        this.enabled = enabled;
+        this.chunkSize = Math.max (chunkSize, 1);
+    }
+
+
+
+    @Override
+    public void run(ApplicationArguments args) {
+
+        if (enabled) {
+            backfill ();
+        }
+    }
+
+
+
+    // Returns the number of rows that got at least one typed pocket column
+    public int backfill() {
+
+        int updated = 0;
+        boolean pocketsAssigned = false;
+        UUID after = null;
+
+        while (true) {
+
+            UUID cursor = after;
+            ChunkResult result = transactionTemplate.execute (status -> backfillChunk (cursor));
+
+            updated += result.updated ();
+            pocketsAssigned |= result.pocketsAssigned ();
+
+            if (result.size () < chunkSize) {
+                break;
+            }
+            after = result.lastId ();
+        }
+
+        log.info ("Transaction pocket columns backfill finished: %d rows updated".formatted (updated));
+
+        // rows that just got a pocket_id were invisible to the monthly summaries
+        if (pocketsAssigned) {
+            pocketSummaryService.rebuildAll ();
+        }
+
+        return updated;
+    }
+
+
+
+    private ChunkResult backfillChunk(UUID after) {
+
+        List <Transactions> rows = after == null
+                ? transactionRepository.findFirstWithoutPocketColumns (PageRequest.ofSize (chunkSize))
+                : transactionRepository.findWithoutPocketColumnsAfter (after, PageRequest.ofSize (chunkSize));
+
+        if (rows.isEmpty ()) {
+            return new ChunkResult (0, null, 0, false);
+        }
+
+        Set <UUID> candidates = new HashSet <> ();
+        for (Transactions row : rows) {
+            addIfPresent (candidates, parsePocketId (row.getSender ()));
+            addIfPresent (candidates, parsePocketId (row.getReceiver ()));
+        }
+
+        Map <UUID, Pocket> pockets = pocketRepository.findAllById (candidates).stream ()
+                .collect (Collectors.toMap (Pocket::getId, Function.identity ()));
+
+        int updated = 0;
+        boolean pocketsAssigned = false;
+
+        for (Transactions row : rows) {
+
+            UUID sender = pocketIdIfExists (pockets, row.getSender ());
+            UUID receiver = pocketIdIfExists (pockets, row.getReceiver ());
+
+            if (row.getPocket () != null) {
+                if (row.getType () == TransactionType.DEPOSIT) {
+                    receiver = row.getPocket ().getId ();
+                } else {
+                    sender = row.getPocket ().getId ();
+                }
+            } else {
+                Pocket own = pockets.get (row.getType () == TransactionType.DEPOSIT ? receiver : sender);
+                if (own != null && row.getCustomer () != null
+                        && own.getCustomer ().getId ().equals (row.getCustomer ().getId ())) {
+                    row.setPocket (own);
+                    pocketsAssigned = true;
+                }
+            }
+
+            if (sender != null || receiver != null) {
+                row.setSenderPocketId (sender);
+                row.setReceiverPocketId (receiver);
+                updated++;
+            }
+        }
+
+        // managed rows are flushed as one JDBC update batch on commit
+        return new ChunkResult (rows.size (), rows.get (rows.size () - 1).getId (), updated, pocketsAssigned);
+    }
+
+
+
+    private static UUID pocketIdIfExists(Map <UUID, Pocket> pockets, String value) {
+
+        UUID pocketId = parsePocketId (value);
+        return pocketId != null && pockets.containsKey (pocketId) ? pocketId : null;
+    }
+
+
+    private static UUID parsePocketId(String value) {
+
+        if (value == null || value.length () != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString (value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+
+    private static void addIfPresent(Set <UUID> ids, UUID id) {
+        if (id != null) {
+            ids.add (id);
+        }
+    }
+
+
+    private record ChunkResult(int size, UUID lastId, int updated, boolean pocketsAssigned) {
+    }
+}
@@ -0,0 +1,63 @@
+package app.transaction.cache;
+
+import app.transaction.model.Transactions;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Fixed-size ring of the newest transactions of one pocket. Slots are overwritten oldest first.
+public class PocketRingBuffer {
+
+    @Getter
+    private final UUID ownerId;
+
+    private final Transactions[] slots;
+    private int head;
+    private int size;
+
+
+    public PocketRingBuffer(UUID ownerId, int capacity) {
+        this.ownerId = ownerId;
+        this.slots = new Transactions[capacity];
+    }
+
+
+    // loaded rows come newest first, so they are replayed oldest first
+    public static PocketRingBuffer of(UUID ownerId, int capacity, List <Transactions> newestFirst) {
+
+        PocketRingBuffer buffer = new PocketRingBuffer (ownerId, capacity);
+
+        for (int i = newestFirst.size () - 1; i >= 0; i--) {
+            buffer.append (newestFirst.get (i));
+        }
+        return buffer;
+    }
+
+
+    public synchronized void append(Transactions transaction) {
+
+        for (int i = 0; i < size; i++) {
+            Transactions existing = slots[(head - 1 - i + slots.length) % slots.length];
+            if (existing.getId ().equals (transaction.getId ())) {
+                return;
+            }
+        }
+
+        slots[head] = transaction;
+        head = (head + 1) % slots.length;
+        size = Math.min (size + 1, slots.length);
+    }
+
+
+    public synchronized List <Transactions> newestFirst() {
+
+        List <Transactions> result = new ArrayList <> (size);
+
+        for (int i = 0; i < size; i++) {
+            result.add (slots[(head - 1 - i + slots.length) % slots.length]);
+        }
+        return result;
+    }
+}
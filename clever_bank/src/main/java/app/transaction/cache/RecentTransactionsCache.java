@@ -0,0 +1,197 @@
+package app.transaction.cache;
+
+import app.pocket.model.Pocket;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.Transactions;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+// Per-pocket ring buffers with the newest SUCCEEDED transactions, used by the pockets page.
+@Slf4j
+@Component
+public class RecentTransactionsCache {
+
+    private static final int STRIPES = 64;
+
+    private final Cache <UUID, PocketRingBuffer> buffers;
+    private final int capacityPerPocket;
+
+    // bumped on every write touching a pocket, so a warm-up that raced with a write is not cached
+    private final AtomicLongArray writeVersions = new AtomicLongArray (STRIPES);
+
+
+    @Autowired
+    public RecentTransactionsCache(@Value("${recent-transactions.cache.capacity-per-pocket:7}") int capacityPerPocket,
+                                   @Value("${recent-transactions.cache.max-pockets:100000}") long maxPockets,
+                                   @Value("${recent-transactions.cache.expire-after-access:30m}") Duration expireAfterAccess,
+                                   MeterRegistry meterRegistry) {
+
+        this.capacityPerPocket = capacityPerPocket;
+        this.buffers = Caffeine.newBuilder ()
+                .maximumSize (maxPockets)
+                .expireAfterAccess (expireAfterAccess)
+                .recordStats ()
+                .build ();
+
+        CaffeineCacheMetrics.monitor (meterRegistry, buffers, "recentTransactions");
+    }
+
+
+    public int getCapacityPerPocket() {
+        return capacityPerPocket;
+    }
+
+
+
+    // Serves cached pockets from memory and loads all misses with one call to the loader.
+    public Map <UUID, List <Transactions>> getRecent(UUID customerId, List <Pocket> pockets,
+                                                     Function <List <Pocket>, Map <UUID, List <Transactions>>> loader) {
+
+        Map <UUID, List <Transactions>> result = new LinkedHashMap <> ();
+        List <UUID> pocketIds = pockets.stream ().map (Pocket::getId).toList ();
+
+        Map <UUID, PocketRingBuffer> cached = buffers.getAllPresent (pocketIds);
+        List <Pocket> missing = new ArrayList <> ();
+
+        for (Pocket pocket : pockets) {
+            PocketRingBuffer buffer = cached.get (pocket.getId ());
+            if (buffer == null || !buffer.getOwnerId ().equals (customerId)) {
+                missing.add (pocket);
+            }
+        }
+
+        Map <UUID, List <Transactions>> loaded = Map.of ();
+
+        if (!missing.isEmpty ()) {
+
+            Map <UUID, Long> versions = new HashMap <> ();
+            missing.forEach (pocket -> versions.put (pocket.getId (), writeVersions.get (stripe (pocket.getId ()))));
+
+            loaded = loader.apply (missing);
+
+            for (Pocket pocket : missing) {
+                List <Transactions> rows = loaded.getOrDefault (pocket.getId (), List.of ());
+
+                if (versions.get (pocket.getId ()) == writeVersions.get (stripe (pocket.getId ()))) {
+                    buffers.put (pocket.getId (), PocketRingBuffer.of (customerId, capacityPerPocket, detachAll (rows)));
+                }
+            }
+        }
+
+        for (Pocket pocket : pockets) {
+            result.put (pocket.getId (), missing.contains (pocket)
+                    ? loaded.getOrDefault (pocket.getId (), List.of ())
+                    : cached.get (pocket.getId ()).newestFirst ());
+        }
+
+        return result;
+    }
+
+
+
+    // Appends the row once the surrounding transaction commits, or right away when there is none.
+    public void recordAfterCommit(Transactions transaction) {
+
+        if (transaction.getStatus () != TransactionStatus.SUCCEEDED || transaction.getCustomer () == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive ()) {
+            TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                @Override
+                public void afterCommit() {
+                    record (transaction);
+                }
+            });
+            return;
+        }
+
+        record (transaction);
+    }
+
+
+
+    // Rows written with set-based statements never pass through record(), so their pockets are
+    // dropped instead and reloaded on the next page view.
+    public void evictAfterCommit(Collection <UUID> pocketIds) {
+
+        Runnable eviction = () -> {
+            pocketIds.forEach (pocketId -> writeVersions.incrementAndGet (stripe (pocketId)));
+            buffers.invalidateAll (pocketIds);
+        };
+
+        eviction.run ();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive ()) {
+            TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                @Override
+                public void afterCommit() {
+                    eviction.run ();
+                }
+            });
+        }
+    }
+
+
+
+    // Same ownership rule as the windowed query: the row goes to its own pocket's buffer.
+    private void record(Transactions transaction) {
+
+        if (transaction.getPocket () == null) {
+            return;
+        }
+
+        UUID pocketId = transaction.getPocket ().getId ();
+        writeVersions.incrementAndGet (stripe (pocketId));
+
+        PocketRingBuffer buffer = buffers.asMap ().get (pocketId);
+        if (buffer != null && buffer.getOwnerId ().equals (transaction.getCustomer ().getId ())) {
+            buffer.append (detach (transaction));
+        }
+    }
+
+
+
+    private static int stripe(UUID pocketId) {
+        return (pocketId.hashCode () & 0x7fffffff) % STRIPES;
+    }
+
+
+    private static List <Transactions> detachAll(List <Transactions> rows) {
+        return rows.stream ().map (RecentTransactionsCache::detach).toList ();
+    }
+
+
+    // keep only the columns the page renders, so cached rows don't pin customer and pocket graphs
+    private static Transactions detach(Transactions transaction) {
+
+        return Transactions.builder ()
+                .id (transaction.getId ())
+                .sender (transaction.getSender ())
+                .receiver (transaction.getReceiver ())
+                .senderPocketId (transaction.getSenderPocketId ())
+                .receiverPocketId (transaction.getReceiverPocketId ())
+                .amount (transaction.getAmount ())
+                .remainingBalance (transaction.getRemainingBalance ())
+                .currency (transaction.getCurrency ())
+                .description (transaction.getDescription ())
+                .status (transaction.getStatus ())
+                .type (transaction.getType ())
+                .reasonFailed (transaction.getReasonFailed ())
+                .createdOn (transaction.getCreatedOn ())
+                .build ();
+    }
+}
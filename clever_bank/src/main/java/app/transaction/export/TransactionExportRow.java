@@ -0,0 +1,23 @@
+package app.transaction.export;
+
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.UUID;
+
+// Flat projection of a journal row; selecting it instead of the entity keeps associations out of the export.
+public record TransactionExportRow(UUID id,
+                                   LocalDateTime createdOn,
+                                   TransactionType type,
+                                   TransactionStatus status,
+                                   BigDecimal amount,
+                                   Currency currency,
+                                   BigDecimal remainingBalance,
+                                   String sender,
+                                   String receiver,
+                                   String description,
+                                   String reasonFailed) {
+}
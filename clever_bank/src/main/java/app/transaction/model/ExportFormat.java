@@ -0,0 +1,37 @@
+package app.transaction.model;
+
+import app.exception.DomainException;
+import org.springframework.http.HttpStatus;
+
+public enum ExportFormat {
+
+    CSV ("text/csv", "csv"),
+    NDJSON ("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+
+    public static ExportFormat from(String value) {
+
+        for (ExportFormat format : values ()) {
+            if (format.name ().equalsIgnoreCase (value)) {
+                return format;
+            }
+        }
+        throw new DomainException ("Unsupported export format %s".formatted (value), HttpStatus.BAD_REQUEST);
+    }
+}
@@ -17,7 +17,12 @@ import java.util.UUID;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_customer_created_id", columnList = "customer_id, created_on, id"),
+        @Index(name = "idx_transactions_pocket_status_created", columnList = "pocket_id, status, created_on"),
+        @Index(name = "idx_transactions_sender_pocket_status_created", columnList = "sender_pocket_id, status, created_on"),
+        @Index(name = "idx_transactions_receiver_pocket_status_created", columnList = "receiver_pocket_id, status, created_on")
+})
 public class Transactions {
 
     @Id
@@ -39,6 +44,13 @@ public class Transactions {
     @Column(nullable = false)
     private String receiver;
 
+    // typed, indexed counterparts of sender/receiver; null when that side is not a pocket
+    @Column
+    private UUID senderPocketId;
+
+    @Column
+    private UUID receiverPocketId;
+
     @Column(nullable = false)
     private BigDecimal remainingBalance;
 
@@ -60,6 +72,33 @@ public class Transactions {
 
     private String reasonFailed;
 
+    // set only when the amount crossed currencies: the same money on the other side of the
+    // conversion, and the rate from this row's currency into it
+    @Column
+    private BigDecimal convertedAmount;
+
+    @Column
+    private Currency convertedCurrency;
+
+    @Column(precision = 19, scale = 10)
+    private BigDecimal fxRate;
+
     @Column(nullable = false)
     private LocalDateTime createdOn;
+
+
+    // The row's own pocket goes on the side its type implies (deposits come in, everything else goes out).
+    // The other side is only ever set by the writer that knows it; sender/receiver are free-form and
+    // may hold customer ids, so they are never read as pocket ids here.
+    @PrePersist
+    protected void onCreate() {
+
+        if (pocket != null) {
+            if (type == TransactionType.DEPOSIT) {
+                receiverPocketId = receiverPocketId == null ? pocket.getId () : receiverPocketId;
+            } else {
+                senderPocketId = senderPocketId == null ? pocket.getId () : senderPocketId;
+            }
+        }
+    }
 }
@@ -1,21 +1,126 @@
 package app.transaction.repository;
 
+import app.analytics.model.SpendingRow;
+import app.transaction.export.TransactionExportRow;
 import app.transaction.model.Transactions;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository <Transactions, UUID> {
 
 
-    List <Transactions> findAllBySenderOrReceiverOrderByCreatedOnDesc(String sender, String receiver);
-
     List<Transactions> findAllByCustomerIdOrderByCreatedOnDesc(UUID customerId);
 
 
     List<Transactions> findByPocketId(UUID pocketId);
 
+
+    // first page of the history, newest first - served by idx_transactions_customer_created_id
+    @Query("""
+        SELECT t FROM Transactions t
+        WHERE t.customer.id = :customerId
+        ORDER BY t.createdOn DESC, t.id DESC
+        """)
+    List<Transactions> findLatestByCustomerId(@Param("customerId") UUID customerId, Pageable pageable);
+
+
+    // keyset page: rows strictly older than the (createdOn, id) cursor of the previous page
+    @Query("""
+        SELECT t FROM Transactions t
+        WHERE t.customer.id = :customerId
+          AND (t.createdOn < :createdOn OR (t.createdOn = :createdOn AND t.id < :id))
+        ORDER BY t.createdOn DESC, t.id DESC
+        """)
+    List<Transactions> findOlderByCustomerId(@Param("customerId") UUID customerId,
+                                             @Param("createdOn") LocalDateTime createdOn,
+                                             @Param("id") UUID id,
+                                             Pageable pageable);
+
+
+    // forward-only export cursor; rows are projections, so nothing accumulates in the persistence context
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT new app.transaction.export.TransactionExportRow(
+            t.id, t.createdOn, t.type, t.status, t.amount, t.currency, t.remainingBalance,
+            t.sender, t.receiver, t.description, t.reasonFailed)
+        FROM Transactions t
+        WHERE t.customer.id = :customerId
+          AND t.createdOn >= :from
+          AND t.createdOn < :to
+        ORDER BY t.createdOn, t.id
+        """)
+    Stream<TransactionExportRow> streamForExport(@Param("customerId") UUID customerId,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+
+
+    // top :limit SUCCEEDED rows per pocket for all given pockets in one round trip;
+    // a row belongs to its own pocket, so a transfer between two of the customer's pockets shows once on each side.
+    // A seek on the (pocket_id, status, created_on) index.
+    @Query(value = """
+        SELECT * FROM transactions
+        WHERE id IN (
+            SELECT ranked.id FROM (
+                SELECT t.id,
+                       ROW_NUMBER() OVER (
+                           PARTITION BY t.pocket_id
+                           ORDER BY t.created_on DESC, t.id DESC) AS rn
+                FROM transactions t
+                WHERE t.customer_id = :customerId
+                  AND t.status = 'SUCCEEDED'
+                  AND t.pocket_id IN (:pocketIds)
+            ) ranked
+            WHERE ranked.rn <= :limit
+        )
+        ORDER BY created_on DESC, id DESC
+        """, nativeQuery = true)
+    List<Transactions> findRecentSucceededByPockets(@Param("customerId") UUID customerId,
+                                                    @Param("pocketIds") Collection<UUID> pocketIds,
+                                                    @Param("limit") int limit);
+
+
+    // succeeded withdrawals per month for the spending breakdown; bill payments are typed BILL_PAYMENT and not counted here
+    @Query("""
+        SELECT new app.analytics.model.SpendingRow(
+            'WITHDRAWAL', YEAR(t.createdOn), MONTH(t.createdOn), SUM(t.amount), COUNT(t))
+        FROM Transactions t
+        WHERE t.customer.id = :customerId
+          AND t.type = app.transaction.model.TransactionType.WITHDRAWAL
+          AND t.status = app.transaction.model.TransactionStatus.SUCCEEDED
+        GROUP BY YEAR(t.createdOn), MONTH(t.createdOn)
+        """)
+    List<SpendingRow> sumWithdrawalsByMonth(@Param("customerId") UUID customerId);
+
+
+    // rows written before the typed pocket columns existed, walked in id order for the backfill
+    @Query("""
+        SELECT t FROM Transactions t
+        WHERE t.senderPocketId IS NULL AND t.receiverPocketId IS NULL AND t.id > :after
+        ORDER BY t.id
+        """)
+    List<Transactions> findWithoutPocketColumnsAfter(@Param("after") UUID after, Pageable pageable);
+
+    @Query("""
+        SELECT t FROM Transactions t
+        WHERE t.senderPocketId IS NULL AND t.receiverPocketId IS NULL
+        ORDER BY t.id
+        """)
+    List<Transactions> findFirstWithoutPocketColumns(Pageable pageable);
+
 }
@@ -0,0 +1,114 @@
+package app.transaction.service;
+
+import app.transaction.export.TransactionExportRow;
+import app.transaction.model.ExportFormat;
+import app.transaction.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class TransactionExportService {
+
+    private static final String CSV_HEADER = "id,created_on,type,status,amount,currency,remaining_balance,sender,receiver,description,reason_failed";
+    private static final LocalDateTime EARLIEST = LocalDateTime.of (1970, 1, 1, 0, 0);
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+
+    @Autowired
+    public TransactionExportService(TransactionRepository transactionRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate (transactionManager);
+        this.readOnlyTransaction.setReadOnly (true);
+    }
+
+
+
+    // Streams the customer's journal for [from, to] (inclusive dates) straight to the output, oldest first.
+    public void export(UUID customerId, LocalDate from, LocalDate to, ExportFormat format, OutputStream outputStream) {
+
+        LocalDateTime fromTime = from == null ? EARLIEST : from.atStartOfDay ();
+        LocalDateTime toTime = to == null ? LocalDate.now ().plusDays (1).atStartOfDay () : to.plusDays (1).atStartOfDay ();
+
+        Writer writer = new BufferedWriter (new OutputStreamWriter (outputStream, StandardCharsets.UTF_8));
+
+        readOnlyTransaction.executeWithoutResult (status -> {
+
+            try (Stream <TransactionExportRow> rows = transactionRepository.streamForExport (customerId, fromTime, toTime)) {
+
+                if (format == ExportFormat.CSV) {
+                    writer.write (CSV_HEADER);
+                    writer.write ('\n');
+                }
+
+                int written = 0;
+                for (TransactionExportRow row : (Iterable <TransactionExportRow>) rows::iterator) {
+
+                    writer.write (format == ExportFormat.CSV ? toCsv (row) : objectMapper.writeValueAsString (row));
+                    writer.write ('\n');
+
+                    if (++written % FLUSH_EVERY_ROWS == 0) {
+                        writer.flush ();
+                    }
+                }
+                writer.flush ();
+
+                log.info ("Exported %d transactions for customer %s as %s".formatted (written, customerId, format));
+            } catch (IOException e) {
+                throw new UncheckedIOException (e);
+            }
+        });
+    }
+
+
+
+    private static String toCsv(TransactionExportRow row) {
+
+        return String.join (",",
+                row.id ().toString (),
+                row.createdOn ().toString (),
+                String.valueOf (row.type ()),
+                String.valueOf (row.status ()),
+                row.amount ().toPlainString (),
+                row.currency ().getCurrencyCode (),
+                row.remainingBalance ().toPlainString (),
+                csvField (row.sender ()),
+                csvField (row.receiver ()),
+                csvField (row.description ()),
+                csvField (row.reasonFailed ()));
+    }
+
+
+    private static String csvField(String value) {
+
+        if (value == null) {
+            return "";
+        }
+        // sender, receiver and description partly come from users; a spreadsheet would run them as formulas
+        if (!value.isEmpty () && "=+-@\t\r".indexOf (value.charAt (0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.contains (",") || value.contains ("\"") || value.contains ("\n") || value.contains ("\r")) {
+            return "\"" + value.replace ("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
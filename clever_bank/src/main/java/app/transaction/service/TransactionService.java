@@ -1,14 +1,20 @@
 package app.transaction.service;
 
+import app.balance_history.service.PocketBalanceHistoryService;
 import app.bills_utility.model.Bill;
 import app.customer.model.Customer;
 import app.exception.DomainException;
+import app.fx.model.FxConversion;
+import app.notification.model.NotificationOutbox;
 import app.notification.service.NotificationService;
 import app.pocket.model.Pocket;
+import app.summary.service.PocketSummaryService;
+import app.transaction.cache.RecentTransactionsCache;
 import app.transaction.model.TransactionStatus;
 import app.transaction.model.TransactionType;
 import app.transaction.model.Transactions;
 import app.transaction.repository.TransactionRepository;
+import app.web.dto.TransactionHistoryPage;
 
 
 import jakarta.validation.constraints.NotNull;
@@ -16,15 +22,19 @@ import jakarta.validation.constraints.Positive;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Currency;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 
 
@@ -32,30 +42,63 @@ import java.util.stream.Collectors;
 @Service
 public class TransactionService {
 
+    public static final int HISTORY_PAGE_SIZE = 20;
+    public static final int MAX_HISTORY_PAGE_SIZE = 50;
+    private static final String NOTIFICATION_SUBJECT = "$ Clever-Bank Transaction";
+
     private final TransactionRepository transactionRepository;
     private final NotificationService notificationService;
+    private final RecentTransactionsCache recentTransactionsCache;
+    private final PocketSummaryService pocketSummaryService;
+    private final PocketBalanceHistoryService pocketBalanceHistoryService;
 
 
     @Autowired
     public TransactionService(TransactionRepository transactionRepository,
-                              NotificationService notificationService) {
+                              NotificationService notificationService,
+                              RecentTransactionsCache recentTransactionsCache,
+                              PocketSummaryService pocketSummaryService,
+                              PocketBalanceHistoryService pocketBalanceHistoryService) {
         this.transactionRepository = transactionRepository;
         this.notificationService = notificationService;
+        this.recentTransactionsCache = recentTransactionsCache;
+        this.pocketSummaryService = pocketSummaryService;
+        this.pocketBalanceHistoryService = pocketBalanceHistoryService;
+    }
+
+
+
+
+    // Recent activity per pocket served from the ring buffer cache; misses are loaded with one query
+    public Map <UUID, List <Transactions>> getRecentTransactionsByPockets(UUID customerId, List <Pocket> pockets) {
+
+        return recentTransactionsCache.getRecent (customerId, pockets,
+                missing -> getLastTransactionsByPockets (customerId, missing, recentTransactionsCache.getCapacityPerPocket ()));
     }
 
 
-    // Get last 7 transactions by pocket id
-    public List <Transactions> getLastSevenTransactionsByPocketId(Pocket pocket) {
+    // Last N succeeded transactions for every pocket of one customer, fetched with a single query
+    public Map <UUID, List <Transactions>> getLastTransactionsByPockets(UUID customerId, List <Pocket> pockets, int limit) {
 
-        List <Transactions> lastSevenTransaction = transactionRepository
-                .findAllBySenderOrReceiverOrderByCreatedOnDesc (pocket.getId ().toString (), pocket.getId ().toString ())
-                .stream ()
-                .filter (tr -> tr.getCustomer ().getId () == (pocket.getCustomer ().getId ()))
-                .filter (t -> t.getStatus () == TransactionStatus.SUCCEEDED)
-                .limit (7)
-                .collect (Collectors.toList ());
+        Map <UUID, List <Transactions>> pocketTransactions = new LinkedHashMap <> ();
 
-        return lastSevenTransaction;
+        if (pockets.isEmpty ()) {
+            return pocketTransactions;
+        }
+
+        for (Pocket pocket : pockets) {
+            pocketTransactions.put (pocket.getId (), new ArrayList <> ());
+        }
+
+        List <Transactions> recent = transactionRepository
+                .findRecentSucceededByPockets (customerId, pocketTransactions.keySet (), limit);
+
+        for (Transactions transaction : recent) {
+
+            pocketTransactions.get (transaction.getPocket ().getId ()).add (transaction);
+        }
+
+        return pocketTransactions;
     }
 
 
@@ -81,6 +124,39 @@ public class TransactionService {
 
 
 
+    // Keyset page of the customer history, newest first. Without a cursor the latest page is returned.
+    public TransactionHistoryPage getTransactionHistoryPage(UUID customerId, LocalDateTime before, UUID beforeId, int size) {
+
+        int pageSize = Math.min (Math.max (size, 1), MAX_HISTORY_PAGE_SIZE);
+
+        // one extra row tells us whether an older page exists without a count query
+        Pageable limit = PageRequest.ofSize (pageSize + 1);
+
+        List <Transactions> rows = (before == null || beforeId == null)
+                ? transactionRepository.findLatestByCustomerId (customerId, limit)
+                : transactionRepository.findOlderByCustomerId (customerId, before, beforeId, limit);
+
+        if (rows.size () <= pageSize) {
+            return TransactionHistoryPage.builder ()
+                    .transactions (rows)
+                    .size (pageSize)
+                    .build ();
+        }
+
+        List <Transactions> page = rows.subList (0, pageSize);
+        Transactions last = page.get (pageSize - 1);
+
+        return TransactionHistoryPage.builder ()
+                .transactions (page)
+                .nextBefore (last.getCreatedOn ())
+                .nextBeforeId (last.getId ())
+                .size (pageSize)
+                .build ();
+    }
+
+
+
+
 
     public Transactions initializeNextPocket(Customer customer,String iban, String cleverBankLtd, String string,Pocket pocket,
                                      BigDecimal amount, BigDecimal balanceLeft, Currency currency,
@@ -105,22 +181,78 @@ public class TransactionService {
                 .createdOn (LocalDateTime.now ())
                 .build ();
 
-        return transactionRepository.save (transactions);
+        Transactions saved = transactionRepository.save (transactions);
+        recentTransactionsCache.recordAfterCommit (saved);
+        pocketSummaryService.record (saved);
+        pocketBalanceHistoryService.record (saved);
+
+        return saved;
 
     }
 
 
 
 
-    public Transactions createNewTransaction(Customer customer, String sender,
+    // Journal rows produced by bulk jobs, written as one batch
+    public List <Transactions> recordAll(List <Transactions> transactions) {
+        return recordAll (transactions, false);
+    }
+
+
+
+    public List <Transactions> recordAll(List <Transactions> transactions, boolean notifyCustomers) {
+
+        List <Transactions> saved = transactionRepository.saveAll (transactions);
+        saved.forEach (recentTransactionsCache::recordAfterCommit);
+        pocketSummaryService.recordAll (saved);
+        pocketBalanceHistoryService.recordAll (saved);
+
+        if (notifyCustomers) {
+            notificationService.enqueueNotifications (saved.stream ()
+                    .map (transaction -> NotificationOutbox.builder ()
+                            .customerId (transaction.getCustomer ().getId ())
+                            .subject (NOTIFICATION_SUBJECT)
+                            .body (notificationBody (transaction))
+                            .build ())
+                    .toList ());
+        }
+
+        return saved;
+    }
+
+
+
+
+    public Transactions createNewTransaction(Customer customer, Pocket pocket, String sender,
                                              String receiver,  BigDecimal amount,
                                              BigDecimal balance, Currency currency,
                                              TransactionType transactionType,
                                              TransactionStatus transactionStatus,
                                              String descriptionInformation, String s) {
 
+        return createNewTransaction (customer, pocket, sender, receiver, amount, balance, currency,
+                transactionType, transactionStatus, descriptionInformation, s, null, null);
+    }
+
+
+
+    // conversion is null for rows that did not cross currencies;
+    // counterpartPocketId is the pocket on the other side of a transfer, null when there is none
+    public Transactions createNewTransaction(Customer customer, Pocket pocket, String sender,
+                                             String receiver,  BigDecimal amount,
+                                             BigDecimal balance, Currency currency,
+                                             TransactionType transactionType,
+                                             TransactionStatus transactionStatus,
+                                             String descriptionInformation, String s,
+                                             FxConversion conversion, UUID counterpartPocketId) {
+
+        boolean incoming = transactionType == TransactionType.DEPOSIT;
+
         Transactions transactions = Transactions.builder()
                 .customer (customer)
+                .pocket (pocket)
+                .senderPocketId (incoming ? counterpartPocketId : null)
+                .receiverPocketId (incoming ? null : counterpartPocketId)
                 .iban (null)
                 .sender (sender)
                 .receiver (receiver)
@@ -131,13 +263,28 @@ public class TransactionService {
                 .status (transactionStatus)
                 .description (descriptionInformation)
                 .reasonFailed (s)
+                .convertedAmount (conversion == null ? null : conversion.amount ())
+                .convertedCurrency (conversion == null ? null : conversion.currency ())
+                .fxRate (conversion == null ? null : conversion.rate ())
                 .createdOn (LocalDateTime.now ())
                 .build ();
 
-        String body = "%s transaction was successful processed for you with amount %.2f USD!".formatted (transactions.getType (), transactions.getAmount ());
-        notificationService.sendNotification (transactions.getCustomer().getId(), "$ Clever-Bank Transaction", body);
+        Transactions saved = transactionRepository.save (transactions);
+        recentTransactionsCache.recordAfterCommit (saved);
+        pocketSummaryService.record (saved);
+        pocketBalanceHistoryService.record (saved);
+
+        // goes out through the outbox, so a slow notification-ms never holds this transaction open
+        notificationService.enqueueNotification (saved.getCustomer ().getId (), NOTIFICATION_SUBJECT, notificationBody (saved));
+
+        return saved;
+    }
+
+
 
-        return transactionRepository.save (transactions);
+    private static String notificationBody(Transactions transaction) {
+        return "%s transaction was successful processed for you with amount %.2f %s!".formatted (transaction.getType (), transaction.getAmount (),
+                transaction.getCurrency ().getCurrencyCode ());
     }
 
 }
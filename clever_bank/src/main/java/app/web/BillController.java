@@ -1,9 +1,12 @@
 package app.web;
 
+import app.analytics.model.SpendingBreakdown;
+import app.analytics.service.SpendingAnalyticsService;
 import app.bills_utility.model.Bill;
 import app.bills_utility.repository.BillRepository;
 import app.bills_utility.service.BillService;
 import app.customer.model.Customer;
+import app.customer.model.CustomerHeader;
 import app.customer.service.CustomerService;
 import app.security.AuthenticationMetadataDetails;
 import app.transaction.service.TransactionService;
@@ -31,16 +34,19 @@ public class BillController {
     private final CustomerService customerService;
     private final TransactionService transactionService;
     private final BillRepository billRepository;
+    private final SpendingAnalyticsService spendingAnalyticsService;
 
 
     @Autowired
     public BillController(BillService billService,
                           CustomerService customerService,
-                          TransactionService transactionService, BillRepository billRepository) {
+                          TransactionService transactionService, BillRepository billRepository,
+                          SpendingAnalyticsService spendingAnalyticsService) {
         this.billService = billService;
         this.customerService = customerService;
         this.transactionService = transactionService;
         this.billRepository = billRepository;
+        this.spendingAnalyticsService = spendingAnalyticsService;
     }
 
 
@@ -51,8 +57,8 @@ public class BillController {
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ModelAndView fetchBillPage(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
 
-        Customer customer = customerService.getById(authenticationMetadataDetails.getCustomerId());
-        List<Bill> bills = billService.getAllBillsByCustomer(customer);
+        CustomerHeader customer = customerService.getHeader (authenticationMetadataDetails.getCustomerId ());
+        List<Bill> bills = billService.getAllBillsByCustomerId (customer.getId ());
 
         ModelAndView modelAndView = new ModelAndView ();
         modelAndView.addObject ("customer", customer);
@@ -67,6 +73,18 @@ public class BillController {
 
 
 
+    // spending breakdown for the dashboard, served from cache between payments
+    @GetMapping("/spending")
+    @ResponseBody
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public SpendingBreakdown getSpendingBreakdown(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
+
+        return spendingAnalyticsService.getSpendingBreakdown (authenticationMetadataDetails.getCustomerId ());
+    }
+
+
+
+
     @PostMapping("/add")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ModelAndView createBill(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails,
@@ -103,8 +121,6 @@ public class BillController {
                                 @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails,
                                 RedirectAttributes redirectAttributes) {
 
-        customerService.getById (authenticationMetadataDetails.getCustomerId ());
-
         Bill bill = billService.payBill (billId);
 
         redirectAttributes.addFlashAttribute ("success", "Bill paid successfully" + bill.getBillNumber ());
@@ -124,7 +140,6 @@ public class BillController {
                                    @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails,
                                    RedirectAttributes redirectAttributes) {
 
-        Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
         billService.deleteBill (billId);
             redirectAttributes.addFlashAttribute("successMessage", "Bill deleted successfully!");
 
@@ -1,12 +1,16 @@
 package app.web;
 
 import app.customer.model.Customer;
+import app.customer.model.CustomerDirectoryRow;
+import app.customer.model.CustomerDirectorySort;
 import app.customer.service.CustomerService;
 import app.security.AuthenticationMetadataDetails;
 import app.web.dto.CustomerEditRequest;
 import app.web.mapper.DTOMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
@@ -15,9 +19,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
-import java.util.List;
 import java.util.UUID;
 
 @Controller
@@ -38,13 +42,22 @@ public class CustomerController {
 
     @GetMapping()
     @PreAuthorize("hasRole('ADMIN')")
-    public ModelAndView getAllCustomers(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataPr) {
+    public ModelAndView getAllCustomers(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataPr,
+                                        @RequestParam(value = "q", required = false) String query,
+                                        @RequestParam(value = "sort", defaultValue = "USERNAME") CustomerDirectorySort sort,
+                                        @RequestParam(value = "direction", defaultValue = "ASC") Sort.Direction direction,
+                                        @RequestParam(value = "page", defaultValue = "0") int page,
+                                        @RequestParam(value = "size", defaultValue = "25") int size) {
 
-        List <Customer> customers = customerService.getALLCustomers ();
+        Page <CustomerDirectoryRow> customerPage = customerService.getDirectory (query, sort, direction, page, size);
 
         ModelAndView modelAndView = new ModelAndView();
         modelAndView.setViewName("customers");
-        modelAndView.addObject ("customers", customers);
+        modelAndView.addObject ("customers", customerPage.getContent ());
+        modelAndView.addObject ("customerPage", customerPage);
+        modelAndView.addObject ("query", query == null ? "" : query);
+        modelAndView.addObject ("sort", sort.name ());
+        modelAndView.addObject ("direction", direction.name ());
 
         return modelAndView;
     }
@@ -5,9 +5,12 @@ import app.exception.CustomerAlreadyExistException;
 import app.exception.NotificationServiceFeignCallException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authorization.AuthorizationDeniedException;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestValueException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.ModelAndView;
@@ -15,6 +18,8 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.nio.file.AccessDeniedException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @ControllerAdvice
 public class ExceptionTip {
@@ -73,6 +78,28 @@ public class ExceptionTip {
 
 
 
+    // JSON endpoints (@RequestBody) answer a bad payload with 400 and the offending fields
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler({MethodArgumentNotValidException.class, HttpMessageNotReadableException.class})
+    @ResponseBody
+    public Map <String, String> handleInvalidRequestBody(Exception exception) {
+
+        Map <String, String> errors = new LinkedHashMap <> ();
+
+        if (exception instanceof MethodArgumentNotValidException invalid) {
+            invalid.getBindingResult ().getFieldErrors ()
+                    .forEach (error -> errors.putIfAbsent (error.getField (), error.getDefaultMessage ()));
+        } else {
+            errors.put ("body", "Malformed request body");
+        }
+
+        return errors;
+    }
+
+
+
+
+
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(Exception.class)
     public ModelAndView handleAllException(Exception exception) {
@@ -4,6 +4,7 @@ import app.cards.model.Cards;
 import app.cards.service.CardService;
 import app.customer.model.Customer;
 import app.customer.service.CustomerService;
+import app.fx.service.FxRateService;
 import app.message.service.MessageService;
 import app.security.AuthenticationMetadataDetails;
 import app.web.dto.LoginRequest;
@@ -20,6 +21,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.util.Currency;
 import java.util.List;
 
 @Controller
@@ -28,15 +30,18 @@ public class IndexController {
     private final MessageService messageService;
     private final CustomerService customerService;
     private final CardService cardService;
+    private final FxRateService fxRateService;
 
 
     @Autowired
     public IndexController(MessageService messageService,
                            CustomerService customerService,
-                           CardService cardService) {
+                           CardService cardService,
+                           FxRateService fxRateService) {
         this.messageService = messageService;
         this.customerService = customerService;
         this.cardService = cardService;
+        this.fxRateService = fxRateService;
     }
 
 
@@ -80,11 +85,7 @@ public class IndexController {
     @GetMapping("/register")
     public ModelAndView getRegisterPage() {
 
-        ModelAndView modelAndView = new ModelAndView ();
-        modelAndView.setViewName ("register");
-        modelAndView.addObject ("registerRequest", new RegisterRequest ());
-
-        return modelAndView;
+        return registerPage (RegisterRequest.builder ().currency (fxRateService.current ().getBaseCurrency ()).build ());
     }
 
 
@@ -92,7 +93,7 @@ public class IndexController {
     public  ModelAndView registerCustomer (@Valid RegisterRequest registerRequest, BindingResult bindingResult){
 
         if (bindingResult.hasErrors ()){
-            return  new ModelAndView ("register");
+            return registerPage (registerRequest);
         }
 
          customerService.register (registerRequest);
@@ -102,6 +103,18 @@ public class IndexController {
 
 
 
+    private ModelAndView registerPage(RegisterRequest registerRequest) {
+
+        ModelAndView modelAndView = new ModelAndView ();
+        modelAndView.setViewName ("register");
+        modelAndView.addObject ("registerRequest", registerRequest);
+        modelAndView.addObject ("currencies", fxRateService.current ().currencies ().stream ().map (Currency::getCurrencyCode).toList ());
+
+        return modelAndView;
+    }
+
+
+
 
 
 
@@ -109,7 +122,7 @@ public class IndexController {
     @GetMapping("/home")
     public ModelAndView getHomePage (@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataPr) {
 
-        Customer customer = customerService.getById (authenticationMetadataPr.getCustomerId ());
+        Customer customer = customerService.getByIdWithWallets (authenticationMetadataPr.getCustomerId ());
         List <Cards> cards = cardService.getAllCardsByCustomerId (customer.getId ());
 
         ModelAndView modelAndView = new ModelAndView ();
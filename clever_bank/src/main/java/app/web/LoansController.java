@@ -2,7 +2,7 @@ package app.web;
 
 
 
-import app.customer.model.Customer;
+import app.customer.model.CustomerHeader;
 import app.customer.service.CustomerService;
 import app.loans.client.dto.LoanRequest;
 
@@ -45,7 +45,7 @@ public class LoansController {
     @GetMapping
     public ModelAndView showLoanForm(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
 
-        Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
+        CustomerHeader customer = customerService.getHeader (authenticationMetadataDetails.getCustomerId ());
 
         ModelAndView modelAndView = new ModelAndView("loans");
 
@@ -65,7 +65,7 @@ public class LoansController {
                                    @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails,
                                    RedirectAttributes redirectAttributes){
 
-       Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
+       CustomerHeader customer = customerService.getHeader (authenticationMetadataDetails.getCustomerId ());
        loanRequest.setCustomerId (customer.getId ());
        LoanResponse response = loansService.createLoan(loanRequest);
        redirectAttributes.addFlashAttribute("successMessage", "Loan created successfully! Loan ID: " + response.getLoanId());
@@ -82,7 +82,7 @@ public class LoansController {
    public ModelAndView showEditForm(@PathVariable UUID loanId,
                                     @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails){
 
-        Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
+        CustomerHeader customer = customerService.getHeader (authenticationMetadataDetails.getCustomerId ());
         LoanResponse loan = loansService.getLoan (loanId);
         LoanRequest loanRequest = loansService.builderLoan (loan);
 
@@ -103,7 +103,7 @@ public class LoansController {
                                    @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails,
                                                             RedirectAttributes redirectAttributes){
 
-       Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
+       CustomerHeader customer = customerService.getHeader (authenticationMetadataDetails.getCustomerId ());
        loanRequest.setCustomerId (customer.getId ());
        loansService.updateLoan (loanId, loanRequest);
        redirectAttributes.addFlashAttribute ("successMessage", "Loan update successfully!");
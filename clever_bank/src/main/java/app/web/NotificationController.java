@@ -1,6 +1,6 @@
 package app.web;
 
-import app.customer.model.Customer;
+import app.customer.model.CustomerHeader;
 import app.customer.service.CustomerService;
 import app.notification.client.dto.NotificationPreferenceResponse;
 import app.notification.client.dto.NotificationResponse;
@@ -38,7 +38,7 @@ public class NotificationController {
     @GetMapping
     public ModelAndView fetchNotificationPage(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataPr) {
 
-        Customer customer = customerService.getById (authenticationMetadataPr.getCustomerId ());
+        CustomerHeader customer = customerService.getHeader (authenticationMetadataPr.getCustomerId ());
 
         NotificationPreferenceResponse notificationPreference = notificationService.getNotificationPreference (customer.getId ());
 
@@ -0,0 +1,53 @@
+package app.web;
+
+import app.onboarding.model.OnboardingImport;
+import app.onboarding.service.OnboardingImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+@Controller
+@RequestMapping("/onboarding/imports")
+public class OnboardingImportController {
+
+    private final OnboardingImportService onboardingImportService;
+
+
+    @Autowired
+    public OnboardingImportController(OnboardingImportService onboardingImportService) {
+        this.onboardingImportService = onboardingImportService;
+    }
+
+
+
+
+    // the body is streamed to disk as it arrives; the import itself runs in the background
+    @PostMapping(consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity <OnboardingImport> startImport(InputStream csv) {
+
+        return ResponseEntity.status (HttpStatus.ACCEPTED).body (onboardingImportService.startImport (csv));
+    }
+
+
+
+
+    // progress: lines processed out of the total, imported and rejected so far
+    @GetMapping("/{id}")
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN')")
+    public OnboardingImport getImport(@PathVariable UUID id) {
+
+        return onboardingImportService.getImport (id);
+    }
+}
@@ -1,15 +1,24 @@
 package app.web;
 
+import app.balance_history.model.BalanceResolution;
+import app.balance_history.model.PocketBalancePoint;
+import app.balance_history.service.PocketBalanceHistoryService;
 import app.customer.model.Customer;
+import app.customer.model.CustomerHeader;
 import app.customer.service.CustomerService;
 
+import app.pocket.service.PocketBalanceShardService;
 import app.pocket.service.PocketService;
 import app.security.AuthenticationMetadataDetails;
+import app.summary.model.PocketMonthlySummary;
+import app.summary.service.PocketSummaryService;
 import app.transaction.model.TransactionStatus;
 import app.transaction.model.Transactions;
 import app.web.dto.DepositRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
@@ -18,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -29,13 +39,22 @@ public class PocketController {
 
     private final PocketService pocketService;
     private final CustomerService customerService;
+    private final PocketSummaryService pocketSummaryService;
+    private final PocketBalanceShardService pocketBalanceShardService;
+    private final PocketBalanceHistoryService pocketBalanceHistoryService;
 
 
     @Autowired
     public PocketController(PocketService pocketService,
-                            CustomerService customerService) {
+                            CustomerService customerService,
+                            PocketSummaryService pocketSummaryService,
+                            PocketBalanceShardService pocketBalanceShardService,
+                            PocketBalanceHistoryService pocketBalanceHistoryService) {
         this.pocketService = pocketService;
         this.customerService = customerService;
+        this.pocketSummaryService = pocketSummaryService;
+        this.pocketBalanceShardService = pocketBalanceShardService;
+        this.pocketBalanceHistoryService = pocketBalanceHistoryService;
 
     }
 
@@ -43,7 +62,7 @@ public class PocketController {
     @GetMapping
     public ModelAndView getPocketPage(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
 
-        Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
+        Customer customer = customerService.getByIdWithWallets (authenticationMetadataDetails.getCustomerId ());
         Map <UUID, List <Transactions>> lastSevenTransactions = pocketService.getLastSevenTransactions (customer.getWallets ());
 
         ModelAndView modelAndView = new ModelAndView ();
@@ -57,6 +76,19 @@ public class PocketController {
 
 
 
+    @PostMapping("/savings")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public String openSavingsPocket(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
+
+        Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
+        pocketService.openSavingsPocket (customer);
+
+        return "redirect:/pockets";
+    }
+
+
+
+
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public String switchPocket(@PathVariable UUID id, @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
@@ -68,13 +100,58 @@ public class PocketController {
 
 
 
+    // Monthly in/out totals for statements and charts, newest month first
+    @GetMapping("/{id}/summary")
+    @ResponseBody
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List <PocketMonthlySummary> getMonthlySummary(@PathVariable UUID id,
+                                                        @RequestParam(defaultValue = "12") int months,
+                                                        @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
+
+        return pocketSummaryService.getMonthlySummaries (id, authenticationMetadataDetails.getCustomerId (), months);
+    }
+
+
+
+
+    // Balance-over-time chart, last 30 days unless a range is given
+    @GetMapping("/{id}/balance-history")
+    @ResponseBody
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List <PocketBalancePoint> getBalanceHistory(@PathVariable UUID id,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                       @RequestParam(required = false) BalanceResolution resolution,
+                                                       @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
+
+        LocalDate end = to != null ? to : LocalDate.now ();
+        LocalDate start = from != null ? from : end.minusDays (30);
+
+        return pocketBalanceHistoryService.getBalanceHistory (id, authenticationMetadataDetails.getCustomerId (), start, end, resolution);
+    }
+
+
+
+
+    // Admin switch for sharded balance mode on a hot receiver pocket; shards=0 turns it off
+    @PutMapping("/{id}/shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity <Void> configureShards(@PathVariable UUID id, @RequestParam int shards) {
+
+        pocketBalanceShardService.configureShards (id, shards);
+        return ResponseEntity.noContent ().build ();
+    }
+
+
+
+
     @GetMapping("/{id}/deposit-form")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ModelAndView showDepositForm(@PathVariable UUID id,
                                         @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails,
                                         DepositRequest depositRequest) {
 
-        Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
+        CustomerHeader customer = customerService.getHeader (authenticationMetadataDetails.getCustomerId ());
 
         ModelAndView modelAndView = new ModelAndView ();
         modelAndView.addObject ("customer", customer);
@@ -93,8 +170,13 @@ public class PocketController {
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ModelAndView deposit(@PathVariable UUID pocketId,
                                 @Valid @ModelAttribute DepositRequest depositRequest, BindingResult bindingResult,
+                                @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                 @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails, RedirectAttributes redirectAttributes) {
 
+        if (idempotencyKey != null) {
+            depositRequest.setIdempotencyKey (idempotencyKey);
+        }
+
         if (bindingResult.hasErrors ()) {
 
             ModelAndView modelAndView = new ModelAndView ();
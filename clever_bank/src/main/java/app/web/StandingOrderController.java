@@ -0,0 +1,118 @@
+package app.web;
+
+import app.customer.model.Customer;
+import app.customer.service.CustomerService;
+import app.security.AuthenticationMetadataDetails;
+import app.standing_order.model.StandingOrder;
+import app.standing_order.service.StandingOrderService;
+import app.web.dto.StandingOrderRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Controller
+@RequestMapping("/standing-orders")
+public class StandingOrderController {
+
+    private final StandingOrderService standingOrderService;
+    private final CustomerService customerService;
+
+
+    @Autowired
+    public StandingOrderController(StandingOrderService standingOrderService, CustomerService customerService) {
+        this.standingOrderService = standingOrderService;
+        this.customerService = customerService;
+    }
+
+
+
+
+    @GetMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ModelAndView getStandingOrdersPage(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
+
+        Customer customer = customerService.getByIdWithWallets (authenticationMetadataDetails.getCustomerId ());
+
+        return standingOrdersPage (customer, StandingOrderRequest.builder ().startDate (LocalDate.now ()).build ());
+    }
+
+
+
+
+    @PostMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ModelAndView createStandingOrder(@Valid StandingOrderRequest standingOrderRequest,
+                                            BindingResult bindingResult,
+                                            @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails,
+                                            RedirectAttributes redirectAttributes) {
+
+        Customer customer = customerService.getByIdWithWallets (authenticationMetadataDetails.getCustomerId ());
+
+        if (bindingResult.hasErrors ()) {
+            return standingOrdersPage (customer, standingOrderRequest);
+        }
+
+        standingOrderService.createStandingOrder (standingOrderRequest, customer);
+        redirectAttributes.addFlashAttribute ("success", "Standing order created successfully");
+
+        return new ModelAndView ("redirect:/standing-orders");
+    }
+
+
+
+
+    @PutMapping("/{id}/pause")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public String pauseStandingOrder(@PathVariable UUID id, @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
+
+        standingOrderService.pause (id, authenticationMetadataDetails.getCustomerId ());
+        return "redirect:/standing-orders";
+    }
+
+
+
+
+    @PutMapping("/{id}/resume")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public String resumeStandingOrder(@PathVariable UUID id, @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
+
+        standingOrderService.resume (id, authenticationMetadataDetails.getCustomerId ());
+        return "redirect:/standing-orders";
+    }
+
+
+
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public String cancelStandingOrder(@PathVariable UUID id, @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
+
+        standingOrderService.cancel (id, authenticationMetadataDetails.getCustomerId ());
+        return "redirect:/standing-orders";
+    }
+
+
+
+    private ModelAndView standingOrdersPage(Customer customer, StandingOrderRequest standingOrderRequest) {
+
+        List <StandingOrder> standingOrders = standingOrderService.getAllByCustomer (customer.getId ());
+
+        ModelAndView modelAndView = new ModelAndView ();
+        modelAndView.setViewName ("standing-orders");
+        modelAndView.addObject ("customer", customer);
+        modelAndView.addObject ("standingOrders", standingOrders);
+        modelAndView.addObject ("standingOrderRequest", standingOrderRequest);
+
+        return modelAndView;
+    }
+}
@@ -1,6 +1,6 @@
 package app.web;
 
-import app.customer.model.Customer;
+import app.customer.model.CustomerHeader;
 import app.customer.service.CustomerService;
 import app.security.AuthenticationMetadataDetails;
 import app.subscription.service.SubscriptionService;
@@ -29,7 +29,7 @@ public class SubscriptionController {
     @GetMapping
     public ModelAndView getSubscriptionPage(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
 
-        Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
+        CustomerHeader customer = customerService.getHeader (authenticationMetadataDetails.getCustomerId ());
 
         ModelAndView modelAndView = new ModelAndView ();
 
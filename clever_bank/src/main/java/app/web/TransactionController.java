@@ -1,19 +1,29 @@
 package app.web;
 
-import app.customer.model.Customer;
+import app.customer.model.CustomerHeader;
 import app.customer.service.CustomerService;
 import app.security.AuthenticationMetadataDetails;
+import app.transaction.model.ExportFormat;
 import app.transaction.model.Transactions;
+import app.transaction.service.TransactionExportService;
 import app.transaction.service.TransactionService;
+import app.web.dto.TransactionHistoryPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Controller
@@ -23,27 +33,37 @@ public class TransactionController {
 
     private final TransactionService transactionService;
     private final CustomerService customerService;
+    private final TransactionExportService transactionExportService;
 
 
     @Autowired
     public TransactionController(TransactionService transactionService,
-                                 CustomerService customerService) {
+                                 CustomerService customerService,
+                                 TransactionExportService transactionExportService) {
         this.transactionService = transactionService;
         this.customerService = customerService;
+        this.transactionExportService = transactionExportService;
     }
 
 
 
 
     @GetMapping
-    public ModelAndView getAllTransactionsPage(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
+    public ModelAndView getAllTransactionsPage(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails,
+                                               @RequestParam(value = "before", required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                               @RequestParam(value = "beforeId", required = false) UUID beforeId,
+                                               @RequestParam(value = "size", defaultValue = "20") int size) {
 
-        Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
-        List <Transactions> transactions = transactionService.getAllByCustomerId (authenticationMetadataDetails.getCustomerId ());
+        CustomerHeader customer = customerService.getHeader (authenticationMetadataDetails.getCustomerId ());
+        TransactionHistoryPage transactionPage = transactionService
+                .getTransactionHistoryPage (authenticationMetadataDetails.getCustomerId (), before, beforeId, size);
 
         ModelAndView modelAndView =new ModelAndView ();
 
-        modelAndView.addObject ("transactions", transactions);
+        modelAndView.addObject ("transactions", transactionPage.getTransactions ());
+        modelAndView.addObject ("transactionPage", transactionPage);
+        modelAndView.addObject ("firstPage", before == null);
         modelAndView.addObject ("customer", customer);
         modelAndView.setViewName ("transactions");
 
@@ -53,10 +73,32 @@ public class TransactionController {
 
 
 
+    @GetMapping("/export")
+    public ResponseEntity <StreamingResponseBody> exportTransactions(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails,
+                                                                     @RequestParam(value = "format", defaultValue = "csv") String format,
+                                                                     @RequestParam(value = "from", required = false)
+                                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                     @RequestParam(value = "to", required = false)
+                                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        ExportFormat exportFormat = ExportFormat.from (format);
+        UUID customerId = authenticationMetadataDetails.getCustomerId ();
+
+        StreamingResponseBody body = outputStream ->
+                transactionExportService.export (customerId, from, to, exportFormat, outputStream);
+
+        return ResponseEntity.ok ()
+                .contentType (MediaType.parseMediaType (exportFormat.getContentType ()))
+                .header (HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions.%s\"".formatted (exportFormat.getExtension ()))
+                .body (body);
+    }
+
+
+
     @GetMapping("/{id}")
     public ModelAndView  getByTransactionId (@PathVariable UUID id, @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
 
-        Customer customer = customerService.getById (authenticationMetadataDetails.getCustomerId ());
+        CustomerHeader customer = customerService.getHeader (authenticationMetadataDetails.getCustomerId ());
         Transactions transactions = transactionService.getById (id);
 
         ModelAndView modelAndView = new ModelAndView ();
@@ -2,10 +2,13 @@ package app.web;
 
 import app.customer.model.Customer;
 import app.customer.service.CustomerService;
+import app.pocket.service.BatchTransferService;
 import app.pocket.service.PocketService;
 
 import app.security.AuthenticationMetadataDetails;
 import app.transaction.model.Transactions;
+import app.web.dto.BatchTransferRequest;
+import app.web.dto.BatchTransferResult;
 import app.web.dto.TransferResultRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +17,10 @@ import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
 @Controller
@@ -24,13 +30,16 @@ public class TransferController {
 
     private final PocketService pocketService;
     private final CustomerService customerService;
+    private final BatchTransferService batchTransferService;
 
 
 
     @Autowired
-    public TransferController(PocketService pocketService, CustomerService customerService) {
+    public TransferController(PocketService pocketService, CustomerService customerService,
+                              BatchTransferService batchTransferService) {
         this.pocketService = pocketService;
         this.customerService = customerService;
+        this.batchTransferService = batchTransferService;
     }
 
 
@@ -39,7 +48,7 @@ public class TransferController {
     @GetMapping
     public ModelAndView getTransferPage(@AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
 
-        Customer customer = customerService.getById(authenticationMetadataDetails.getCustomerId());
+        Customer customer = customerService.getByIdWithWallets (authenticationMetadataDetails.getCustomerId ());
 
         ModelAndView modelAndView = new ModelAndView();
         modelAndView.addObject ("customer", customer);
@@ -56,19 +65,25 @@ public class TransferController {
     @PostMapping
     private ModelAndView createTransfer(@Valid TransferResultRequest transferResultRequest,
                                         BindingResult bindingResult,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                         @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails){
 
-         Customer customer = customerService.getById(authenticationMetadataDetails.getCustomerId());
-
+        if (idempotencyKey != null) {
+            transferResultRequest.setIdempotencyKey (idempotencyKey);
+        }
 
+        // only the form needs the pockets; the transfer itself works from the customer row
         if (bindingResult.hasErrors ()){
             ModelAndView modelAndView = new ModelAndView();
             modelAndView.setViewName("transfers");
             modelAndView.addObject ("transferResultRequest", transferResultRequest);
-            modelAndView.addObject ("customer", customer);
+            modelAndView.addObject ("customer", customerService.getByIdWithWallets (authenticationMetadataDetails.getCustomerId ()));
             return modelAndView;
         }
 
+        // the sender pocket is loaded with its customer, so this reference never needs a SELECT of its own
+        Customer customer = customerService.getReference (authenticationMetadataDetails.getCustomerId ());
+
         Transactions transactions = pocketService.transfer(transferResultRequest, customer);
 
 
@@ -76,4 +91,18 @@ public class TransferController {
 
 
     }
+
+
+
+
+    // Payroll runs: one request and one sender debit for the whole list, with a result for every line
+    @PostMapping("/batch")
+    @ResponseBody
+    public BatchTransferResult createBatchTransfer(@Valid @RequestBody BatchTransferRequest batchTransferRequest,
+                                                   @AuthenticationPrincipal AuthenticationMetadataDetails authenticationMetadataDetails) {
+
+        Customer customer = customerService.getReference (authenticationMetadataDetails.getCustomerId ());
+
+        return batchTransferService.transfer (batchTransferRequest, customer);
+    }
 }
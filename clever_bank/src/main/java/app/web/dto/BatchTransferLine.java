@@ -0,0 +1,25 @@
+package app.web.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+
+@Data
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferLine {
+
+    @NotBlank(message = "Username is required")
+    private String username;
+
+    @NotNull
+    @Positive(message = "Amount must be positive")
+    private BigDecimal amount;
+}
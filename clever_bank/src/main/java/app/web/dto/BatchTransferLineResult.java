@@ -0,0 +1,31 @@
+package app.web.dto;
+
+import app.transaction.model.TransactionStatus;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferLineResult {
+
+    // position of the line in the request, starting at 0
+    private int line;
+
+    private String username;
+
+    private BigDecimal amount;
+
+    private TransactionStatus status;
+
+    private String reason;
+
+    // the receiver's journal row, set for succeeded lines
+    private UUID transactionId;
+}
@@ -0,0 +1,30 @@
+package app.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferRequest {
+
+    public static final int MAX_LINES = 10000;
+
+    @NotNull
+    private UUID pocketId;
+
+    @Valid
+    @NotEmpty
+    @Size(max = MAX_LINES, message = "A batch can hold at most 10000 lines")
+    private List <BatchTransferLine> lines;
+}
@@ -0,0 +1,31 @@
+package app.web.dto;
+
+import app.transaction.model.TransactionStatus;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferResult {
+
+    // the single sender debit for the whole batch; null when no line could be paid
+    private UUID debitTransactionId;
+
+    private TransactionStatus status;
+
+    private BigDecimal totalDebited;
+
+    private int succeeded;
+
+    private int failed;
+
+    private List <BatchTransferLineResult> lines;
+}
@@ -33,4 +33,8 @@ public class DepositRequest {
 
     @Positive
     private BigDecimal amount;
+
+    // issued with the form; a double submit or retry replays the first deposit
+    @Size(max = 100)
+    private String idempotencyKey;
 }
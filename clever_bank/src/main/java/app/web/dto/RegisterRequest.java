@@ -8,6 +8,8 @@ import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.*;
 
+import java.util.Currency;
+
 @Data
 @Builder
 @Getter
@@ -37,4 +39,7 @@ public class RegisterRequest {
 
     @NotNull
     private Gender gender;
+
+    // pocket currency; the default one when not chosen
+    private Currency currency;
 }
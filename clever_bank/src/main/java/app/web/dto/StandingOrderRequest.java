@@ -0,0 +1,46 @@
+package app.web.dto;
+
+import app.standing_order.model.StandingOrderFrequency;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StandingOrderRequest {
+
+    @NotNull
+    private UUID pocketId;
+
+    @NotNull(message = "Username is required")
+    private String username;
+
+    @NotNull
+    @Positive(message = "Amount must be positive")
+    private BigDecimal amount;
+
+    @NotNull(message = "Frequency is required")
+    private StandingOrderFrequency frequency;
+
+    @NotNull(message = "Start date is required")
+    @FutureOrPresent(message = "Start date cannot be in the past")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    @Size(max = 100, message = "Description must be at most 100 characters")
+    private String description;
+}
@@ -0,0 +1,33 @@
+package app.web.dto;
+
+import app.transaction.model.Transactions;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+
+@Data
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionHistoryPage {
+
+    private List <Transactions> transactions;
+
+    // cursor of the last row on this page, null when there is nothing older
+    private LocalDateTime nextBefore;
+
+    private UUID nextBeforeId;
+
+    // page size actually served, carried on to the next page
+    private int size;
+
+
+    public boolean hasOlder() {
+        return nextBefore != null && nextBeforeId != null;
+    }
+}
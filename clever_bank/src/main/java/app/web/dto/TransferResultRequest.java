@@ -2,6 +2,7 @@ package app.web.dto;
 
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -24,4 +25,7 @@ public class TransferResultRequest {
     @NotNull
     @Positive(message = "Amount must be positive")
     private BigDecimal amount;
+
+    @Size(max = 100)
+    private String idempotencyKey;
 }
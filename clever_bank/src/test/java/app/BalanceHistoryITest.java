@@ -0,0 +1,183 @@
+package app;
+
+import app.balance_history.model.BalanceResolution;
+import app.balance_history.model.PocketBalancePoint;
+import app.balance_history.repository.PocketBalancePointRepository;
+import app.balance_history.service.PocketBalanceHistoryService;
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.exception.DomainException;
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest(properties = "balance-history.compaction-page-size=2")
+public class BalanceHistoryITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PocketBalanceHistoryService pocketBalanceHistoryService;
+
+    @Autowired
+    private PocketBalancePointRepository pocketBalancePointRepository;
+
+
+    @Test
+    void givenRecordedBalanceChanges_whenCompacted_thenDayAndMonthBucketsServeTheChart() {
+
+        Customer customer = customerRepository.save (aCustomer ("history"));
+        Pocket pocket = pocketRepository.save (aPocket (customer, "100"));
+
+        LocalDateTime january = LocalDateTime.of (2025, 1, 10, 10, 0);
+
+        transactionService.recordAll (List.of (
+                aTransaction (customer, pocket, TransactionStatus.SUCCEEDED, "110", january),
+                aTransaction (customer, pocket, TransactionStatus.SUCCEEDED, "90", january.plusHours (2)),
+                aTransaction (customer, pocket, TransactionStatus.FAILED, "500", january.plusHours (3)),
+                aTransaction (customer, pocket, TransactionStatus.SUCCEEDED, "95", january.plusHours (5)),
+                aTransaction (customer, pocket, TransactionStatus.SUCCEEDED, "100", january.plusDays (1)),
+                aTransaction (customer, pocket, TransactionStatus.SUCCEEDED, "70", LocalDateTime.of (2025, 2, 3, 9, 30))));
+
+        assertEquals (5, pocketBalancePointRepository.count ());
+
+        // five raw points in pages of two
+        assertEquals (5, pocketBalanceHistoryService.compact (LocalDateTime.now ()));
+        // nothing left past the checkpoint
+        assertEquals (0, pocketBalanceHistoryService.compact (LocalDateTime.now ()));
+
+        List <PocketBalancePoint> days = pocketBalanceHistoryService.getBalanceHistory (pocket.getId (), customer.getId (),
+                LocalDate.of (2025, 1, 1), LocalDate.of (2025, 2, 28), null);
+
+        assertEquals (3, days.size ());
+        assertEquals (BalanceResolution.DAY, days.get (0).getResolution ());
+        assertBucket (days.get (0), "110", "95", "90", "110", 3);
+        assertBucket (days.get (1), "100", "100", "100", "100", 1);
+        assertBucket (days.get (2), "70", "70", "70", "70", 1);
+
+        List <PocketBalancePoint> months = pocketBalanceHistoryService.getBalanceHistory (pocket.getId (), customer.getId (),
+                LocalDate.of (2025, 1, 15), LocalDate.of (2026, 6, 30), null);
+
+        assertEquals (2, months.size ());
+        assertEquals (BalanceResolution.MONTH, months.get (0).getResolution ());
+        assertBucket (months.get (0), "110", "100", "90", "110", 4);
+        assertBucket (months.get (1), "70", "70", "70", "70", 1);
+
+        // compacted raw points past retention are gone except the one the checkpoint sits on
+        assertEquals (6, pocketBalancePointRepository.count ());
+    }
+
+
+    @Test
+    void givenPointCommittedBehindTheCheckpoint_whenCompacted_thenItsBucketsAreRebuiltOnce() {
+
+        Customer customer = customerRepository.save (aCustomer ("history"));
+        Pocket pocket = pocketRepository.save (aPocket (customer, "100"));
+
+        LocalDateTime morning = LocalDateTime.of (2025, 3, 4, 9, 0);
+
+        transactionService.recordAll (List.of (
+                aTransaction (customer, pocket, TransactionStatus.SUCCEEDED, "120", morning),
+                aTransaction (customer, pocket, TransactionStatus.SUCCEEDED, "130", morning.plusMinutes (5))));
+        pocketBalanceHistoryService.compact (morning.plusMinutes (6));
+
+        // stamped before the checkpoint, committed after the compactor went past it
+        transactionService.recordAll (List.of (aTransaction (customer, pocket, TransactionStatus.SUCCEEDED, "40", morning.plusMinutes (2))));
+
+        assertEquals (0, pocketBalanceHistoryService.compact (morning.plusMinutes (7)));
+        // re-reading the window again changes nothing
+        pocketBalanceHistoryService.compact (morning.plusMinutes (8));
+
+        List <PocketBalancePoint> days = pocketBalanceHistoryService.getBalanceHistory (pocket.getId (), customer.getId (),
+                LocalDate.of (2025, 3, 1), LocalDate.of (2025, 3, 31), BalanceResolution.DAY);
+        assertBucket (days.get (0), "120", "130", "40", "130", 3);
+
+        List <PocketBalancePoint> months = pocketBalanceHistoryService.getBalanceHistory (pocket.getId (), customer.getId (),
+                LocalDate.of (2025, 3, 1), LocalDate.of (2025, 3, 31), BalanceResolution.MONTH);
+        assertBucket (months.get (0), "120", "130", "40", "130", 3);
+    }
+
+
+    @Test
+    void givenFeeChargedAtTheInstantOfAnotherChange_whenFeePointAdded_thenItClosesThePoint() {
+
+        Customer customer = customerRepository.save (aCustomer ("history"));
+        Pocket pocket = pocketRepository.save (aPocket (customer, "100"));
+        LocalDateTime now = LocalDateTime.of (2025, 3, 4, 9, 0);
+
+        transactionService.recordAll (List.of (aTransaction (customer, pocket, TransactionStatus.SUCCEEDED, "100", now)));
+        pocketBalancePointRepository.addFeePoints (List.of (pocket.getId ()), now, new BigDecimal ("5"));
+
+        PocketBalancePoint point = pocketBalancePointRepository.findSeries (pocket.getId (), BalanceResolution.RAW, now, now.plusSeconds (1),
+                PageRequest.ofSize (1)).get (0);
+        assertBucket (point, "100", "95", "95", "100", 2);
+    }
+
+
+    @Test
+    void givenPocketOfAnotherCustomer_whenBalanceHistoryRequested_thenRejected() {
+
+        Customer customer = customerRepository.save (aCustomer ("history"));
+
+        assertThrows (DomainException.class, () -> pocketBalanceHistoryService.getBalanceHistory (UUID.randomUUID (),
+                customer.getId (), LocalDate.now ().minusDays (7), LocalDate.now (), null));
+    }
+
+
+
+    private static void assertBucket(PocketBalancePoint point, String open, String close, String min, String max, long changes) {
+
+        assertEquals (0, point.getOpenBalance ().compareTo (new BigDecimal (open)));
+        assertEquals (0, point.getCloseBalance ().compareTo (new BigDecimal (close)));
+        assertEquals (0, point.getMinBalance ().compareTo (new BigDecimal (min)));
+        assertEquals (0, point.getMaxBalance ().compareTo (new BigDecimal (max)));
+        assertEquals (changes, point.getChanges ());
+    }
+
+    private static Transactions aTransaction(Customer customer, Pocket pocket, TransactionStatus status,
+                                             String remainingBalance, LocalDateTime createdOn) {
+
+        return Transactions.builder ()
+                .customer (customer)
+                .pocket (pocket)
+                .sender (pocket.getId ().toString ())
+                .receiver ("Clever Bank Service Ltd")
+                .amount (BigDecimal.TEN)
+                .remainingBalance (new BigDecimal (remainingBalance))
+                .currency (Currency.getInstance ("USD"))
+                .type (TransactionType.DEPOSIT)
+                .status (status)
+                .createdOn (createdOn)
+                .build ();
+    }
+}
@@ -0,0 +1,132 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.BatchTransferService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import app.web.dto.BatchTransferLine;
+import app.web.dto.BatchTransferRequest;
+import app.web.dto.BatchTransferResult;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class BatchTransferITest {
+
+    private static final int RECEIVERS = 2000;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+
+    @Test
+    void givenPayrollBatch_whenTransfer_thenSenderDebitedOnceAndEveryLineReported() {
+
+        Customer employer = customerRepository.save (aCustomer ("employer"));
+        Pocket payroll = pocketRepository.save (aPocket (employer, "1000000"));
+
+        List <Customer> employees = new ArrayList <> ();
+        for (int i = 0; i < RECEIVERS; i++) {
+            employees.add (aCustomer ("employee" + i));
+        }
+        employees = customerRepository.saveAll (employees);
+
+        List <Pocket> pockets = new ArrayList <> ();
+        for (Customer employee : employees) {
+            pockets.add (aPocket (employee, "0"));
+        }
+        pocketRepository.saveAll (pockets);
+
+        List <BatchTransferLine> lines = new ArrayList <> ();
+        for (int i = 0; i < RECEIVERS; i++) {
+            lines.add (new BatchTransferLine ("employee" + i, new BigDecimal ("100")));
+        }
+        // the first employee is paid twice, plus one unknown receiver and one payment back to the employer
+        lines.add (new BatchTransferLine ("employee0", new BigDecimal ("25")));
+        lines.add (new BatchTransferLine ("nobody", new BigDecimal ("10")));
+        lines.add (new BatchTransferLine (employer.getUsername (), new BigDecimal ("10")));
+
+        long started = System.nanoTime ();
+        BatchTransferResult result = batchTransferService.transfer (new BatchTransferRequest (payroll.getId (), lines), employer);
+        log.info ("Batch of %d lines took %d ms".formatted (lines.size (), (System.nanoTime () - started) / 1_000_000));
+
+        BigDecimal expectedTotal = new BigDecimal ("100").multiply (BigDecimal.valueOf (RECEIVERS)).add (new BigDecimal ("25"));
+
+        assertEquals (TransactionStatus.SUCCEEDED, result.getStatus ());
+        assertEquals (RECEIVERS + 1, result.getSucceeded ());
+        assertEquals (2, result.getFailed ());
+        assertEquals (0, result.getTotalDebited ().compareTo (expectedTotal));
+        assertEquals ("Receiver has no active pocket", result.getLines ().get (RECEIVERS + 1).getReason ());
+        assertEquals ("Cannot transfer to the sending pocket", result.getLines ().get (RECEIVERS + 2).getReason ());
+
+        Pocket sender = pocketRepository.findById (payroll.getId ()).orElseThrow ();
+        assertEquals (0, sender.getBalance ().compareTo (new BigDecimal ("1000000").subtract (expectedTotal)));
+
+        Pocket twicePaid = pocketRepository.findAllByCustomerUsername ("employee0").get (0);
+        assertEquals (0, twicePaid.getBalance ().compareTo (new BigDecimal ("125")));
+
+        List <Transactions> senderRows = transactionRepository.findByPocketId (payroll.getId ()).stream ()
+                .filter (row -> row.getType () == TransactionType.WITHDRAWAL)
+                .toList ();
+        assertEquals (1, senderRows.size ());
+
+        // the second payment to employee0 is journalled after the first one
+        List <Transactions> receiverRows = transactionRepository.findByPocketId (twicePaid.getId ());
+        assertEquals (2, receiverRows.size ());
+        assertTrue (receiverRows.stream ().anyMatch (row -> row.getRemainingBalance ().compareTo (new BigDecimal ("100")) == 0));
+        assertTrue (receiverRows.stream ().anyMatch (row -> row.getRemainingBalance ().compareTo (new BigDecimal ("125")) == 0));
+    }
+
+
+    @Test
+    void givenBatchAboveSenderBalance_whenTransfer_thenNothingMovesAndEveryLineFails() {
+
+        Customer employer = customerRepository.save (aCustomer ("smallemployer"));
+        Pocket payroll = pocketRepository.save (aPocket (employer, "150"));
+        Customer employee = customerRepository.save (aCustomer ("onlyemployee"));
+        Pocket salary = pocketRepository.save (aPocket (employee, "0"));
+
+        List <BatchTransferLine> lines = List.of (
+                new BatchTransferLine ("onlyemployee", new BigDecimal ("100")),
+                new BatchTransferLine ("onlyemployee", new BigDecimal ("100")));
+
+        BatchTransferResult result = batchTransferService.transfer (new BatchTransferRequest (payroll.getId (), lines), employer);
+
+        assertEquals (TransactionStatus.FAILED, result.getStatus ());
+        assertEquals (0, result.getSucceeded ());
+        assertTrue (result.getLines ().stream ().allMatch (line -> "Insufficient balance".equals (line.getReason ())));
+        assertEquals (0, pocketRepository.findById (payroll.getId ()).orElseThrow ().getBalance ().compareTo (new BigDecimal ("150")));
+        assertEquals (0, pocketRepository.findById (salary.getId ()).orElseThrow ().getBalance ().compareTo (BigDecimal.ZERO));
+        assertTrue (transactionRepository.findByPocketId (salary.getId ()).isEmpty ());
+    }
+}
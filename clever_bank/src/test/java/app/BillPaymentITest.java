@@ -0,0 +1,71 @@
+package app;
+
+import app.bills_utility.model.Bill;
+import app.bills_utility.model.BillCategory;
+import app.bills_utility.model.BillStatus;
+import app.bills_utility.service.BillService;
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.customer.service.CustomerService;
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.PocketService;
+import app.web.dto.BillsRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class BillPaymentITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private PocketService pocketService;
+
+    @Autowired
+    private BillService billService;
+
+
+    @Test
+    void givenSavingsPocketOpenedLater_whenBillPaid_thenTheMainPocketIsCharged() throws Exception {
+
+        Customer customer = customerRepository.save (aCustomer ("biller"));
+        Pocket main = pocketRepository.save (aPocket (customer, "100.00"));
+
+        // savings is newer, so it heads the customer's wallets
+        Thread.sleep (5);
+        Pocket savings = pocketService.openSavingsPocket (customer);
+
+        BillsRequest billsRequest = new BillsRequest ();
+        billsRequest.setBillNumber ("BG1231231239");
+        billsRequest.setAmount (new BigDecimal ("40.00"));
+        billsRequest.setDescription ("Water Bill");
+        billsRequest.setBillCategory (BillCategory.WATER);
+        Bill bill = billService.createBill (billsRequest, customer);
+
+        Bill paid = billService.payBill (bill.getId ());
+
+        assertEquals (BillStatus.PAID, paid.getStatus ());
+        assertEquals (0, new BigDecimal ("60.00").compareTo (pocketRepository.findById (main.getId ()).orElseThrow ().getBalance ()));
+        assertEquals (0, BigDecimal.ZERO.compareTo (pocketRepository.findById (savings.getId ()).orElseThrow ().getBalance ()));
+        assertEquals (main.getId (), customerService.getByIdWithWallets (customer.getId ()).getMainPocket ().getId ());
+    }
+}
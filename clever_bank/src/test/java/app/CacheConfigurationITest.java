@@ -0,0 +1,100 @@
+package app;
+
+import app.configuration.CacheConfiguration;
+import app.customer.model.Customer;
+import app.customer.model.UserRole;
+import app.customer.repository.CustomerRepository;
+import app.customer.service.CustomerService;
+import app.exception.DomainException;
+import app.pocket.model.Pocket;
+import app.pocket.service.PocketService;
+import app.summary.service.PocketSummaryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static app.TestBuilder.aCustomer;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class CacheConfigurationITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private PocketService pocketService;
+
+    @Autowired
+    private PocketSummaryService pocketSummaryService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+
+    @Test
+    void givenCachedHeader_whenRoleSwitched_thenEvictedAndHitsAndMissesPublished() {
+
+        Customer customer = customerRepository.save (aCustomer ("cacheheader"));
+
+        assertEquals (UserRole.USER, customerService.getHeader (customer.getId ()).getRole ());
+        assertEquals (UserRole.USER, customerService.getHeader (customer.getId ()).getRole ());
+
+        assertEquals (1, gets (CacheConfiguration.CUSTOMER_HEADERS, "miss"));
+        assertEquals (1, gets (CacheConfiguration.CUSTOMER_HEADERS, "hit"));
+
+        customerService.switchCustomerRole (customer.getId ());
+
+        assertEquals (UserRole.ADMIN, customerService.getHeader (customer.getId ()).getRole ());
+        assertEquals (2, gets (CacheConfiguration.CUSTOMER_HEADERS, "miss"));
+    }
+
+
+    @Test
+    void givenPocketOwnerCached_whenAnotherCustomerAsks_thenStillRejected() {
+
+        Customer owner = customerRepository.save (aCustomer ("cacheowner"));
+        Customer stranger = customerRepository.save (aCustomer ("cachestranger"));
+        Pocket pocket = pocketService.createWallet (owner);
+
+        assertTrue (pocketSummaryService.getMonthlySummaries (pocket.getId (), owner.getId (), 12).isEmpty ());
+        assertThrows (DomainException.class, () -> pocketSummaryService.getMonthlySummaries (pocket.getId (), stranger.getId (), 12));
+        assertThrows (DomainException.class, () -> pocketSummaryService.getMonthlySummaries (UUID.randomUUID (), owner.getId (), 12));
+
+        assertEquals (1, gets (CacheConfiguration.POCKET_OWNERS, "hit"));
+        assertEquals (2, gets (CacheConfiguration.POCKET_OWNERS, "miss"));
+    }
+
+
+    @Test
+    void givenUndeclaredCacheName_whenRequested_thenNoCacheIsCreated() {
+
+        assertNull (cacheManager.getCache ("customer"));
+        assertNotNull (cacheManager.getCache (CacheConfiguration.CUSTOMER_HEADERS));
+    }
+
+
+
+    private double gets(String cache, String result) {
+
+        return meterRegistry.get ("cache.gets")
+                .tag ("cache", cache)
+                .tag ("result", result)
+                .functionCounter ()
+                .count ();
+    }
+}
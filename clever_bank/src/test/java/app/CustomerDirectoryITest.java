@@ -0,0 +1,93 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.model.CustomerDirectoryRow;
+import app.customer.model.CustomerDirectorySort;
+import app.customer.repository.CustomerRepository;
+import app.customer.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static app.TestBuilder.aCustomer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class CustomerDirectoryITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerService customerService;
+
+    private int created;
+
+
+    @Test
+    void givenCustomers_whenDirectoryPaged_thenPagesDoNotOverlapAndCountCoversAll() {
+
+        customerRepository.saveAll (List.of (
+                listed ("anna", "0891000001", "anna@clever.bg"),
+                listed ("boris", "0891000002", "boris@clever.bg"),
+                listed ("cveta", "0891000003", null),
+                listed ("dimo", "0891000004", "dimo@clever.bg"),
+                listed ("elena", "0891000005", "elena@clever.bg")));
+
+        Page <CustomerDirectoryRow> first = customerService.getDirectory (null, CustomerDirectorySort.USERNAME, Sort.Direction.ASC, 0, 2);
+        Page <CustomerDirectoryRow> last = customerService.getDirectory (null, CustomerDirectorySort.USERNAME, Sort.Direction.ASC, 2, 2);
+
+        assertEquals (5, first.getTotalElements ());
+        assertEquals (3, first.getTotalPages ());
+        assertEquals (List.of ("anna", "boris"), first.getContent ().stream ().map (CustomerDirectoryRow::getUsername).toList ());
+        assertEquals (List.of ("elena"), last.getContent ().stream ().map (CustomerDirectoryRow::getUsername).toList ());
+        assertFalse (last.hasNext ());
+
+        Page <CustomerDirectoryRow> newestFirst = customerService.getDirectory ("", CustomerDirectorySort.CREATED, Sort.Direction.DESC, 0, 25);
+        assertEquals ("elena", newestFirst.getContent ().get (0).getUsername ());
+    }
+
+
+    @Test
+    void givenSearch_whenMatchingUsernamePhoneOrEmailPrefix_thenOnlyThoseRowsReturned() {
+
+        customerRepository.saveAll (List.of (
+                listed ("ivan_1", "0892000001", "ivan@clever.bg"),
+                listed ("ivanka", "0892000002", "ika@clever.bg"),
+                listed ("petar", "0893000003", "ivo@clever.bg"),
+                listed ("maria", "0894000004", "maria@clever.bg")));
+
+        assertEquals (3, customerService.getDirectory ("iv", CustomerDirectorySort.USERNAME, Sort.Direction.ASC, 0, 25).getTotalElements ());
+        assertEquals (2, customerService.getDirectory ("0892", CustomerDirectorySort.USERNAME, Sort.Direction.ASC, 0, 25).getTotalElements ());
+
+        // "_" is matched literally, not as a single-character wildcard
+        Page <CustomerDirectoryRow> literal = customerService.getDirectory ("ivan_", CustomerDirectorySort.USERNAME, Sort.Direction.ASC, 0, 25);
+        assertEquals (1, literal.getTotalElements ());
+        assertEquals ("ivan_1", literal.getContent ().get (0).getUsername ());
+
+        // a prefix, not a substring
+        assertTrue (customerService.getDirectory ("aria", CustomerDirectorySort.USERNAME, Sort.Direction.ASC, 0, 25).isEmpty ());
+    }
+
+
+
+    private Customer listed(String username, String phoneNumber, String email) {
+
+        Customer customer = aCustomer (username);
+        customer.setPhoneNumber (phoneNumber);
+        customer.setEmail (email);
+        customer.setCreatedOn (LocalDateTime.of (2025, 1, 1, 9, 0).plusMinutes (created++));
+        return customer;
+    }
+}
@@ -0,0 +1,156 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.exception.DomainException;
+import app.fx.model.FxRate;
+import app.fx.model.FxRateSnapshot;
+import app.fx.repository.FxRateRepository;
+import app.fx.service.FxRateService;
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.PocketService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import app.web.dto.TransferResultRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+
+import static app.TestBuilder.aCustomer;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class FxTransferITest {
+
+    private static final Currency USD = Currency.getInstance ("USD");
+    private static final Currency EUR = Currency.getInstance ("EUR");
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private FxRateRepository fxRateRepository;
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired
+    private PocketService pocketService;
+
+
+    @Test
+    void givenPocketsInDifferentCurrencies_whenTransfer_thenReceiverCreditedConvertedAmountAndBothRowsRecordTheRate() {
+
+        Customer sender = customerRepository.save (aCustomer ("fxsender"));
+        Customer receiver = customerRepository.save (aCustomer ("fxreceiver"));
+        Pocket senderPocket = pocketService.createWallet (sender, USD);
+        Pocket receiverPocket = pocketService.createWallet (receiver, EUR);
+
+        // the opening balance is converted into the pocket's own currency
+        assertEquals (EUR, receiverPocket.getCurrency ());
+        assertEquals (0, new BigDecimal ("36.80").compareTo (receiverPocket.getBalance ()));
+
+        Transactions debit = pocketService.transfer (aTransfer (senderPocket, "fxreceiver", "10.00"), sender);
+
+        assertEquals (TransactionStatus.SUCCEEDED, debit.getStatus ());
+        assertEquals (0, new BigDecimal ("30.00").compareTo (pocketRepository.findById (senderPocket.getId ()).orElseThrow ().getBalance ()));
+        assertEquals (0, new BigDecimal ("46.00").compareTo (pocketRepository.findById (receiverPocket.getId ()).orElseThrow ().getBalance ()));
+
+        Transactions sent = transactionRepository.findById (debit.getId ()).orElseThrow ();
+        assertEquals (USD, sent.getCurrency ());
+        assertEquals (0, new BigDecimal ("9.20").compareTo (sent.getConvertedAmount ()));
+        assertEquals (EUR, sent.getConvertedCurrency ());
+        assertEquals (0, new BigDecimal ("0.92").compareTo (sent.getFxRate ()));
+        assertEquals (senderPocket.getId (), sent.getSenderPocketId ());
+        assertEquals (receiverPocket.getId (), sent.getReceiverPocketId ());
+
+        Transactions received = transactionRepository.findAll ().stream ()
+                .filter (transaction -> transaction.getType () == TransactionType.DEPOSIT)
+                .findFirst ()
+                .orElseThrow ();
+        assertEquals (EUR, received.getCurrency ());
+        assertEquals (0, new BigDecimal ("9.20").compareTo (received.getAmount ()));
+        assertEquals (0, new BigDecimal ("10.00").compareTo (received.getConvertedAmount ()));
+        assertEquals (USD, received.getConvertedCurrency ());
+        assertEquals (0, new BigDecimal ("1.0869565217").compareTo (received.getFxRate ()));
+
+        // the receiver column holds the receiving customer's id, only the known pockets end up in the typed columns
+        assertEquals (senderPocket.getId (), received.getSenderPocketId ());
+        assertEquals (receiverPocket.getId (), received.getReceiverPocketId ());
+    }
+
+
+    @Test
+    void givenRateChangedInTable_whenRefreshed_thenNewSnapshotIsUsedAndOldOneIsUntouched() {
+
+        Customer sender = customerRepository.save (aCustomer ("fxsender"));
+        Customer receiver = customerRepository.save (aCustomer ("fxreceiver"));
+        Pocket senderPocket = pocketService.createWallet (sender, USD);
+        Pocket receiverPocket = pocketService.createWallet (receiver, EUR);
+
+        FxRateSnapshot before = fxRateService.current ();
+
+        FxRate euro = fxRateRepository.findById ("EUR").orElseThrow ();
+        euro.setUnitsPerBase (new BigDecimal ("0.50"));
+        euro.setUpdatedOn (LocalDateTime.now ());
+        fxRateRepository.save (euro);
+
+        FxRateSnapshot after = fxRateService.refresh ();
+
+        assertNotSame (before, after);
+        assertSame (after, fxRateService.current ());
+        assertEquals (0, new BigDecimal ("0.92").compareTo (before.rate (USD, EUR)));
+
+        pocketService.transfer (aTransfer (senderPocket, "fxreceiver", "10.00"), sender);
+
+        assertEquals (0, new BigDecimal ("41.80").compareTo (pocketRepository.findById (receiverPocket.getId ()).orElseThrow ().getBalance ()));
+        assertThrows (DomainException.class, () -> pocketService.createWallet (customerRepository.save (aCustomer ("fxother")), Currency.getInstance ("AUD")));
+    }
+
+
+
+    private static TransferResultRequest aTransfer(Pocket senderPocket, String username, String amount) {
+
+        return TransferResultRequest.builder ()
+                .pocketId (senderPocket.getId ())
+                .username (username)
+                .amount (new BigDecimal (amount))
+                .build ();
+    }
+
+    @Test
+    void givenAmountThatConvertsToNothing_whenTransfer_thenRejectedAndNothingMoves() {
+
+        Customer sender = customerRepository.save (aCustomer ("fxsender"));
+        Customer receiver = customerRepository.save (aCustomer ("fxreceiver"));
+        Pocket senderPocket = pocketService.createWallet (sender, USD);
+        Pocket receiverPocket = pocketService.createWallet (receiver, EUR);
+
+        // 0.001 USD is 0.00092 EUR, nothing once rounded to cents
+        DomainException exception = assertThrows (DomainException.class,
+                () -> pocketService.transfer (aTransfer (senderPocket, "fxreceiver", "0.001"), sender));
+
+        assertEquals (HttpStatus.BAD_REQUEST, exception.getStatus ());
+        assertEquals (0, new BigDecimal ("40.00").compareTo (pocketRepository.findById (senderPocket.getId ()).orElseThrow ().getBalance ()));
+        assertEquals (0, new BigDecimal ("36.80").compareTo (pocketRepository.findById (receiverPocket.getId ()).orElseThrow ().getBalance ()));
+        assertEquals (0, transactionRepository.count ());
+    }
+}
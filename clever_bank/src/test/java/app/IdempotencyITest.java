@@ -0,0 +1,134 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.exception.DomainException;
+import app.idempotency.repository.IdempotencyKeyRepository;
+import app.idempotency.service.IdempotencyService;
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.PocketService;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import app.web.dto.DepositRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class IdempotencyITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PocketService pocketService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+
+    @Test
+    void givenConcurrentDuplicateDeposits_whenSameIdempotencyKey_thenDepositRunsOnceAndEveryCallGetsTheSameResult() throws Exception {
+
+        Customer customer = customerRepository.save (aCustomer ("idem"));
+        Pocket pocket = pocketRepository.save (aPocket (customer, "100"));
+        DepositRequest depositRequest = aDepositRequest ("25", UUID.randomUUID ().toString ());
+
+        ExecutorService executor = Executors.newFixedThreadPool (8);
+        CountDownLatch start = new CountDownLatch (1);
+        List <Future <Transactions>> results = new ArrayList <> ();
+
+        for (int i = 0; i < 8; i++) {
+            results.add (executor.submit (() -> {
+                start.await ();
+                return pocketService.deposit (pocket.getId (), depositRequest, customer.getId ());
+            }));
+        }
+        start.countDown ();
+
+        UUID firstId = results.get (0).get (30, TimeUnit.SECONDS).getId ();
+        for (Future <Transactions> result : results) {
+            assertEquals (firstId, result.get (30, TimeUnit.SECONDS).getId ());
+        }
+        executor.shutdown ();
+
+        assertEquals (1, transactionRepository.findByPocketId (pocket.getId ()).size ());
+        assertEquals (0, pocketRepository.findById (pocket.getId ()).orElseThrow ().getBalance ().compareTo (new BigDecimal ("125")));
+    }
+
+
+    @Test
+    void givenUsedIdempotencyKey_whenReusedForDifferentAmount_thenRejected() {
+
+        Customer customer = customerRepository.save (aCustomer ("idem"));
+        Pocket pocket = pocketRepository.save (aPocket (customer, "100"));
+        String key = UUID.randomUUID ().toString ();
+
+        Transactions first = pocketService.deposit (pocket.getId (), aDepositRequest ("10", key), customer.getId ());
+        Transactions replay = pocketService.deposit (pocket.getId (), aDepositRequest ("10.00", key), customer.getId ());
+
+        assertEquals (first.getId (), replay.getId ());
+
+        DomainException exception = assertThrows (DomainException.class,
+                () -> pocketService.deposit (pocket.getId (), aDepositRequest ("99", key), customer.getId ()));
+        assertEquals (HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatus ());
+    }
+
+
+
+    @Test
+    void givenOperationHitsAConstraint_whenKeyIsNew_thenItsErrorIsNotTakenForADuplicateKey() {
+
+        UUID customerId = customerRepository.save (aCustomer ("idem")).getId ();
+        String key = UUID.randomUUID ().toString ();
+
+        DataIntegrityViolationException failure = new DataIntegrityViolationException ("pocket constraint");
+
+        DataIntegrityViolationException thrown = assertThrows (DataIntegrityViolationException.class,
+                () -> idempotencyService.execute (customerId, key, "DEPOSIT|1", () -> { throw failure; }));
+
+        assertSame (failure, thrown);
+        // the claim rolled back with the operation, so the key is free for a retry
+        assertTrue (idempotencyKeyRepository.findByCustomerIdAndIdempotencyKey (customerId, key).isEmpty ());
+    }
+
+
+
+    private static DepositRequest aDepositRequest(String amount, String idempotencyKey) {
+
+        return DepositRequest.builder ()
+                .iban ("BG80BNBG96611020345678")
+                .firstName ("Venko")
+                .lastName ("Davidov")
+                .cvv ("123")
+                .amount (new BigDecimal (amount))
+                .idempotencyKey (idempotencyKey)
+                .build ();
+    }
+}
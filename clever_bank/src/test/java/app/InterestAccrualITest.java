@@ -0,0 +1,169 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.interest.model.InterestAccrualRun;
+import app.interest.model.InterestAccrualRunStatus;
+import app.interest.model.SavingsAccrual;
+import app.interest.repository.InterestAccrualRunRepository;
+import app.interest.repository.SavingsAccrualRepository;
+import app.interest.service.InterestAccrualService;
+import app.pocket.model.Pocket;
+import app.pocket.model.PocketStatus;
+import app.pocket.model.PocketType;
+import app.pocket.repository.PocketRepository;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest(properties = {"savings-interest.chunk-size=4", "savings-interest.parallelism=3", "savings-interest.annual-rate=0.025"})
+public class InterestAccrualITest {
+
+    private static final int SAVINGS_POCKETS = 15;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SavingsAccrualRepository accrualRepository;
+
+    @Autowired
+    private InterestAccrualRunRepository runRepository;
+
+    @Autowired
+    private InterestAccrualService interestAccrualService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+
+    @Test
+    void givenSavingsPockets_whenRunDaily_thenOnlyChangedPocketsAreVisitedAndInterestIsPaidMonthly() {
+
+        List <Pocket> savings = createSavingsPockets ();
+        Pocket business = pocketRepository.save (savingsPocket (customerRepository.save (aCustomer ("business")), PocketType.BUSINESS));
+        Pocket topUp = savings.get (3);
+
+        InterestAccrualRun first = interestAccrualService.accrueInterest (LocalDate.of (2026, 1, 10));
+        assertEquals (SAVINGS_POCKETS, first.getPocketsAccrued ());
+        assertTrue (accrualRepository.findById (business.getId ()).isEmpty ());
+
+        transactionTemplate.executeWithoutResult (status ->
+                pocketRepository.creditIfActive (topUp.getId (), new BigDecimal ("1000.00"), LocalDateTime.now ()));
+
+        // only the topped-up pocket moved, the rest keep earning on their stored principal
+        InterestAccrualRun second = interestAccrualService.accrueInterest (LocalDate.of (2026, 1, 11));
+        assertEquals (1, second.getPocketsAccrued ());
+        assertEquals (0, new BigDecimal ("0.068493150685").compareTo (accrualRepository.findById (topUp.getId ()).orElseThrow ().getAccrued ()));
+
+        InterestAccrualRun payout = interestAccrualService.accrueInterest (LocalDate.of (2026, 2, 1));
+        assertEquals (InterestAccrualRunStatus.COMPLETED, payout.getStatus ());
+        assertEquals (SAVINGS_POCKETS, payout.getPocketsPosted ());
+
+        // 22 days on 1000.00 earn 1.506849..., 2.945205... for the topped-up pocket; the fraction of a cent stays
+        for (Pocket pocket : savings) {
+            BigDecimal expected = pocket.getId ().equals (topUp.getId ()) ? new BigDecimal ("2002.94") : new BigDecimal ("1001.50");
+            assertEquals (0, expected.compareTo (pocketRepository.findById (pocket.getId ()).orElseThrow ().getBalance ()));
+        }
+
+        SavingsAccrual carried = accrualRepository.findById (savings.get (0).getId ()).orElseThrow ();
+        assertEquals (0, new BigDecimal ("0.006849315068").compareTo (carried.getAccrued ()));
+        assertEquals ("2026-02", carried.getAccrualPeriod ());
+        assertEquals (0, new BigDecimal ("1001.50").compareTo (carried.getPrincipal ()));
+
+        List <Transactions> rows = transactionRepository.findAll ();
+        assertEquals (SAVINGS_POCKETS, rows.size ());
+        assertTrue (rows.stream ().allMatch (row -> row.getType () == TransactionType.DEPOSIT
+                && row.getDescription ().equals ("Savings interest for 2026-01")));
+
+        // the pockets just paid are up to date, so the next night has nothing to do
+        assertEquals (0, interestAccrualService.accrueInterest (LocalDate.of (2026, 2, 2)).getPocketsAccrued ());
+    }
+
+
+    @Test
+    void givenRunRecordLost_whenSameDayRunAgain_thenNothingIsPaidTwice() {
+
+        List <Pocket> savings = createSavingsPockets ();
+
+        interestAccrualService.accrueInterest (LocalDate.of (2026, 1, 10));
+        interestAccrualService.accrueInterest (LocalDate.of (2026, 2, 1));
+        runRepository.deleteById (LocalDate.of (2026, 2, 1));
+
+        InterestAccrualRun again = interestAccrualService.accrueInterest (LocalDate.of (2026, 2, 1));
+
+        assertEquals (0, again.getPocketsAccrued ());
+        assertEquals (SAVINGS_POCKETS, transactionRepository.count ());
+        assertEquals (0, new BigDecimal ("1001.50").compareTo (pocketRepository.findById (savings.get (0).getId ()).orElseThrow ().getBalance ()));
+    }
+
+
+
+    @Test
+    void givenInactiveAndOverdrawnSavingsPockets_whenRun_thenNeitherEarnsInterest() {
+
+        Pocket inactive = savingsPocket (customerRepository.save (aCustomer ("closed")), PocketType.SAVINGS);
+        inactive.setStatus (PocketStatus.INACTIVE);
+        inactive = pocketRepository.save (inactive);
+
+        Pocket overdrawn = savingsPocket (customerRepository.save (aCustomer ("overdrawn")), PocketType.SAVINGS);
+        overdrawn.setBalance (new BigDecimal ("-50.00"));
+        overdrawn = pocketRepository.save (overdrawn);
+
+        interestAccrualService.accrueInterest (LocalDate.of (2026, 1, 10));
+        InterestAccrualRun payout = interestAccrualService.accrueInterest (LocalDate.of (2026, 2, 1));
+
+        assertEquals (0, payout.getPocketsPosted ());
+        assertTrue (accrualRepository.findById (inactive.getId ()).isEmpty ());
+
+        SavingsAccrual held = accrualRepository.findById (overdrawn.getId ()).orElseThrow ();
+        assertEquals (0, held.getAccrued ().signum ());
+        assertEquals (LocalDate.of (2026, 2, 1), held.getAccruedThrough ());
+        assertEquals (0, new BigDecimal ("-50.00").compareTo (pocketRepository.findById (overdrawn.getId ()).orElseThrow ().getBalance ()));
+        assertEquals (0, transactionRepository.count ());
+    }
+
+
+
+    private List <Pocket> createSavingsPockets() {
+
+        List <Pocket> pockets = new ArrayList <> ();
+        for (int i = 0; i < SAVINGS_POCKETS; i++) {
+            pockets.add (savingsPocket (customerRepository.save (aCustomer ("saver" + i)), PocketType.SAVINGS));
+        }
+        return pocketRepository.saveAll (pockets);
+    }
+
+    private static Pocket savingsPocket(Customer customer, PocketType type) {
+
+        Pocket pocket = aPocket (customer, "1000.00", Currency.getInstance ("EUR"));
+        pocket.setType (type);
+        return pocket;
+    }
+}
@@ -0,0 +1,143 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.fee.model.MonthlyFeeRun;
+import app.fee.model.MonthlyFeeRunStatus;
+import app.fee.repository.MonthlyFeeRunRepository;
+import app.fee.service.MonthlyFeeService;
+import app.pocket.model.Pocket;
+import app.pocket.model.PocketStatus;
+import app.pocket.repository.PocketRepository;
+import app.summary.model.PocketMonthlySummary;
+import app.summary.repository.PocketMonthlySummaryRepository;
+import app.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest(properties = {"monthly-fee.chunk-size=7", "monthly-fee.parallelism=3"})
+public class MonthlyFeeRunITest {
+
+    private static final int POCKETS = 50;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PocketMonthlySummaryRepository summaryRepository;
+
+    @Autowired
+    private MonthlyFeeRunRepository monthlyFeeRunRepository;
+
+    @Autowired
+    private MonthlyFeeService monthlyFeeService;
+
+
+    @Test
+    void givenManyPockets_whenFeeRunInParallelChunks_thenEveryActivePocketChargedOnce() {
+
+        createPockets ();
+        Customer closed = customerRepository.save (aCustomer ("closedowner"));
+        Pocket inactive = pocketRepository.save (feePocket (closed, PocketStatus.INACTIVE));
+
+        MonthlyFeeRun run = monthlyFeeService.applyMonthlyFees (YearMonth.now ());
+
+        assertEquals (MonthlyFeeRunStatus.COMPLETED, run.getStatus ());
+        assertEquals (POCKETS, run.getPocketsCharged ());
+        assertEquals (POCKETS, transactionRepository.count ());
+        assertTrue (pocketRepository.findAll ().stream ()
+                .filter (pocket -> pocket.getStatus () == PocketStatus.ACTIVE)
+                .allMatch (pocket -> pocket.getBalance ().compareTo (new BigDecimal ("98")) == 0));
+        assertEquals (0, pocketRepository.findById (inactive.getId ()).orElseThrow ().getBalance ().compareTo (new BigDecimal ("100")));
+
+        List <PocketMonthlySummary> summaries = summaryRepository.findAll ();
+        assertEquals (POCKETS, summaries.size ());
+        assertTrue (summaries.stream ().allMatch (summary -> summary.getCountOut () == 1
+                && summary.getTotalOut ().compareTo (new BigDecimal ("2")) == 0));
+
+        // a completed month is not charged again
+        monthlyFeeService.applyMonthlyFees (YearMonth.now ());
+        assertEquals (POCKETS, transactionRepository.count ());
+    }
+
+
+    @Test
+    void givenRunStoppedAtCheckpoint_whenResumed_thenOnlyPocketsAfterCheckpointAreCharged() {
+
+        createPockets ();
+        String period = YearMonth.now ().toString ();
+
+        // pretend the first 20 pockets were charged before a crash, and that one chunk past the
+        // checkpoint also committed before the checkpoint could move over it
+        List <UUID> ordered = pocketRepository.findFirstIds (PageRequest.ofSize (POCKETS));
+        List <Pocket> alreadyCharged = pocketRepository.findAllById (ordered.subList (0, 25));
+        alreadyCharged.forEach (pocket -> pocket.setLastFeePeriod (period));
+        pocketRepository.saveAll (alreadyCharged);
+
+        monthlyFeeRunRepository.save (MonthlyFeeRun.builder ()
+                .period (period)
+                .status (MonthlyFeeRunStatus.RUNNING)
+                .lastPocketId (ordered.get (19))
+                .pocketsCharged (20)
+                .startedOn (LocalDateTime.now ())
+                .updatedOn (LocalDateTime.now ())
+                .build ());
+
+        List <MonthlyFeeRun> resumed = monthlyFeeService.resumeUnfinishedRuns ();
+
+        assertEquals (1, resumed.size ());
+        assertEquals (MonthlyFeeRunStatus.COMPLETED, resumed.get (0).getStatus ());
+        assertEquals (POCKETS - 5, resumed.get (0).getPocketsCharged ());
+        assertEquals (POCKETS - 25, transactionRepository.count ());
+        assertEquals (0, pocketRepository.findById (ordered.get (0)).orElseThrow ().getBalance ().compareTo (new BigDecimal ("100")));
+        assertEquals (0, pocketRepository.findById (ordered.get (POCKETS - 1)).orElseThrow ().getBalance ().compareTo (new BigDecimal ("98")));
+    }
+
+
+
+    private void createPockets() {
+
+        List <Customer> customers = new ArrayList <> ();
+        for (int i = 0; i < POCKETS; i++) {
+            customers.add (aCustomer ("feeowner" + i));
+        }
+
+        List <Pocket> pockets = new ArrayList <> ();
+        for (Customer customer : customerRepository.saveAll (customers)) {
+            pockets.add (feePocket (customer, PocketStatus.ACTIVE));
+        }
+        pocketRepository.saveAll (pockets);
+    }
+
+    private static Pocket feePocket(Customer customer, PocketStatus status) {
+
+        Pocket pocket = aPocket (customer, "100", Currency.getInstance ("EUR"));
+        pocket.setStatus (status);
+        return pocket;
+    }
+}
@@ -0,0 +1,109 @@
+package app;
+
+import app.notification.client.NotificationClient;
+import app.notification.model.NotificationOutbox;
+import app.notification.model.OutboxStatus;
+import app.notification.repository.NotificationOutboxRepository;
+import app.notification.service.NotificationOutboxRelay;
+import app.notification.service.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class NotificationOutboxITest {
+
+    @MockitoBean
+    private NotificationClient notificationClient;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationOutboxRelay notificationOutboxRelay;
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+
+    @Test
+    void givenNotificationServiceDown_whenRelayed_thenMessageIsRetriedWithBackoffUntilDelivered() {
+
+        when (notificationClient.sendNotification (any ())).thenThrow (new RuntimeException ("connection refused"));
+
+        new TransactionTemplate (transactionManager).executeWithoutResult (status ->
+                notificationService.enqueueNotification (UUID.randomUUID (), "$ Clever-Bank Transaction", "DEPOSIT"));
+
+        notificationOutboxRelay.relayDue ();
+
+        List <NotificationOutbox> pending = notificationOutboxRepository.findAll ();
+        assertEquals (1, pending.size ());
+        assertEquals (OutboxStatus.PENDING, pending.get (0).getStatus ());
+        assertEquals (1, pending.get (0).getAttempts ());
+        assertTrue (pending.get (0).getNextAttemptOn ().isAfter (LocalDateTime.now ()));
+
+        // service is back and the backoff has elapsed
+        doReturn (ResponseEntity.ok ().build ()).when (notificationClient).sendNotification (any ());
+        NotificationOutbox message = pending.get (0);
+        message.setNextAttemptOn (LocalDateTime.now ().minusSeconds (1));
+        notificationOutboxRepository.save (message);
+
+        assertEquals (1, notificationOutboxRelay.relayDue ());
+        assertEquals (0, notificationOutboxRepository.count ());
+    }
+
+
+    @Test
+    void givenRolledBackTransaction_whenNotificationWasEnqueued_thenNothingIsSent() {
+
+        new TransactionTemplate (transactionManager).executeWithoutResult (status -> {
+            notificationService.enqueueNotification (UUID.randomUUID (), "$ Clever-Bank Transaction", "WITHDRAWAL");
+            status.setRollbackOnly ();
+        });
+
+        assertEquals (0, notificationOutboxRelay.relayDue ());
+        assertEquals (0, notificationOutboxRepository.count ());
+        verify (notificationClient, never ()).sendNotification (any ());
+    }
+
+
+    @Test
+    void givenMessageClaimedByAnotherNode_whenRelayed_thenNotSentTwice() {
+
+        // saved directly, so this node's relay is not woken before the other node gets to it
+        UUID messageId = notificationOutboxRepository.save (NotificationOutbox.builder ()
+                .customerId (UUID.randomUUID ())
+                .subject ("$ Clever-Bank Transaction")
+                .body ("DEPOSIT")
+                .build ()).getId ();
+
+        // the relay on the other node claimed the row between our read and our claim
+        LocalDateTime now = LocalDateTime.now ();
+        new TransactionTemplate (transactionManager).executeWithoutResult (status ->
+                assertEquals (1, notificationOutboxRepository.claim (List.of (messageId), UUID.randomUUID (), now, now.plusMinutes (5))));
+
+        assertEquals (0, notificationOutboxRelay.relayDue ());
+        assertEquals (1, notificationOutboxRepository.count ());
+        verify (notificationClient, never ()).sendNotification (any ());
+    }
+}
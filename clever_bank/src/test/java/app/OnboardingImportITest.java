@@ -0,0 +1,195 @@
+package app;
+
+import app.cards.repository.CardsRepository;
+import app.cards.service.CardService;
+import app.customer.model.Customer;
+import app.customer.model.Gender;
+import app.customer.repository.CustomerRepository;
+import app.notification.client.dto.UpsertNotificationPreferenceRequest;
+import app.notification.client.NotificationClient;
+import app.onboarding.model.OnboardingImport;
+import app.onboarding.model.OnboardingImportStatus;
+import app.onboarding.repository.OnboardingImportRepository;
+import app.onboarding.service.OnboardingImportService;
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.subscription.repository.SubscriptionRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest(properties = {"onboarding.chunk-size=2", "onboarding.hash-parallelism=2", "onboarding.max-attempts=2"})
+public class OnboardingImportITest {
+
+    private static final String HEADER = "username,password,phone_number,country,gender,currency,email\n";
+
+    @Autowired
+    private OnboardingImportService onboardingImportService;
+
+    @Autowired
+    private OnboardingImportRepository onboardingImportRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private CardsRepository cardsRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${onboarding.import-dir:${java.io.tmpdir}/clever-bank-onboarding}")
+    private Path importDir;
+
+    @MockitoBean
+    private NotificationClient notificationClient;
+
+    @MockitoSpyBean
+    private CardService cardService;
+
+
+    @Test
+    void givenFileWithInvalidAndDuplicateRows_whenImported_thenValidRowsGetTheFullAccountAndTheRestAreCounted() {
+
+        OnboardingImport onboardingImport = onboardingImportService.createImport (csv (HEADER
+                + "alice,Password1,0881000001,BULGARIA,FEMALE,EUR,alice@clever.bg\n"
+                + "Alice,Password1,0881000004,BULGARIA,FEMALE,,\n"
+                + "bob,weak,0881000002,BULGARIA,MALE,,\n"
+                + "\"carol\",Password1,0881000003,germany,female,,\n"
+                + "dave,Password1,0881000001,BULGARIA,MALE,,\n"
+                + "\n"
+                + "erin,Password1,0881000005,BULGARIA,FEMALE,SEK,\n"));
+
+        assertEquals (7, onboardingImport.getTotalLines ());
+
+        when (notificationClient.upsertNotificationPreference (any ())).thenReturn (ResponseEntity.ok ().build ());
+
+        OnboardingImport completed = onboardingImportService.runImport (onboardingImport.getId ());
+
+        assertEquals (OnboardingImportStatus.COMPLETED, completed.getStatus ());
+        assertEquals (7, completed.getLinesProcessed ());
+        assertEquals (2, completed.getImported ());
+        assertEquals (4, completed.getRejected ());
+
+        assertEquals (2, customerRepository.count ());
+        assertEquals (2, pocketRepository.count ());
+        assertEquals (2, subscriptionRepository.count ());
+        assertEquals (2, cardsRepository.count ());
+
+        Customer alice = customerRepository.findByUsername ("alice").orElseThrow ();
+        assertTrue (passwordEncoder.matches ("Password1", alice.getPassword ()));
+        assertEquals (Gender.FEMALE, alice.getGender ());
+        assertEquals ("alice@clever.bg", alice.getEmail ());
+
+        List <Pocket> pockets = pocketRepository.findAllByCustomerUsername ("alice");
+        assertEquals (Currency.getInstance ("EUR"), pockets.get (0).getCurrency ());
+
+        // the staged file holds passwords, it is gone once the import is done
+        assertFalse (Files.exists (importDir.resolve (onboardingImport.getId () + ".csv")));
+
+        // the preferences were queued with their chunk and go out through the outbox relay
+        ArgumentCaptor <UpsertNotificationPreferenceRequest> preferences = ArgumentCaptor.captor ();
+        verify (notificationClient, timeout (10000).times (2)).upsertNotificationPreference (preferences.capture ());
+        List <UpsertNotificationPreferenceRequest> sent = preferences.getAllValues ();
+
+        assertEquals (2, sent.size ());
+        assertEquals (1, sent.stream ().filter (UpsertNotificationPreferenceRequest::isNotificationEnabled).count ());
+    }
+
+
+    @Test
+    void givenImportStoppedAfterFirstChunk_whenResumed_thenOnlyLinesAfterCheckpointAreImported() {
+
+        OnboardingImport onboardingImport = onboardingImportService.createImport (csv (HEADER
+                + "first,Password1,0882000001,BULGARIA,MALE,,\n"
+                + "second,Password1,0882000002,BULGARIA,MALE,,\n"
+                + "third,Password1,0882000003,BULGARIA,MALE,,\n"
+                + "fourth,Password1,0882000004,BULGARIA,MALE,USD,\n"));
+
+        // as left behind by a node that died right after committing the first chunk
+        onboardingImport.setLinesProcessed (2);
+        onboardingImport.setImported (2);
+        onboardingImportRepository.save (onboardingImport);
+
+        List <OnboardingImport> resumed = onboardingImportService.resumeUnfinishedImports ();
+
+        assertEquals (1, resumed.size ());
+        assertEquals (OnboardingImportStatus.COMPLETED, resumed.get (0).getStatus ());
+        assertEquals (4, resumed.get (0).getImported ());
+        assertEquals (List.of ("fourth", "third"),
+                customerRepository.findAll ().stream ().map (Customer::getUsername).sorted ().toList ());
+    }
+
+
+    @Test
+    void givenFileWithoutRequiredColumns_whenImported_thenFailedAndNotResumed() {
+
+        OnboardingImport onboardingImport = onboardingImportService.createImport (csv ("username,password\nalice,Password1\n"));
+
+        OnboardingImport failed = onboardingImportService.runImport (onboardingImport.getId ());
+
+        assertEquals (OnboardingImportStatus.FAILED, failed.getStatus ());
+        assertTrue (failed.getLastError ().contains ("phone_number"));
+        assertEquals (0, customerRepository.count ());
+        assertTrue (onboardingImportService.resumeUnfinishedImports ().isEmpty ());
+        assertFalse (Files.exists (importDir.resolve (onboardingImport.getId () + ".csv")));
+    }
+
+
+
+    @Test
+    void givenChunkThatKeepsFailing_whenRetriedMaxAttemptsTimes_thenImportIsFailed() {
+
+        OnboardingImport onboardingImport = onboardingImportService.createImport (csv (HEADER
+                + "first,Password1,0883000001,BULGARIA,MALE,,\n"));
+
+        doThrow (new IllegalStateException ("card issuer down")).when (cardService).createDefaultCards (any ());
+
+        assertThrows (IllegalStateException.class, () -> onboardingImportService.runImport (onboardingImport.getId ()));
+
+        OnboardingImport retried = onboardingImportService.getImport (onboardingImport.getId ());
+        assertEquals (OnboardingImportStatus.RUNNING, retried.getStatus ());
+        assertEquals (1, retried.getAttempts ());
+
+        List <OnboardingImport> resumed = onboardingImportService.resumeUnfinishedImports ();
+
+        assertEquals (OnboardingImportStatus.FAILED, resumed.get (0).getStatus ());
+        assertTrue (resumed.get (0).getLastError ().contains ("card issuer down"));
+        assertEquals (0, customerRepository.count ());
+        assertFalse (Files.exists (importDir.resolve (onboardingImport.getId () + ".csv")));
+        assertTrue (onboardingImportService.resumeUnfinishedImports ().isEmpty ());
+    }
+
+
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream (content.getBytes (StandardCharsets.UTF_8));
+    }
+}
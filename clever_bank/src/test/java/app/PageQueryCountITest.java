@@ -0,0 +1,225 @@
+package app;
+
+import app.bills_utility.model.Bill;
+import app.bills_utility.model.BillCategory;
+import app.bills_utility.service.BillService;
+import app.customer.model.Country;
+import app.customer.model.Customer;
+import app.customer.model.Gender;
+import app.customer.service.CustomerService;
+import app.loans.service.LoansServiceImpl.LoansServiceImpl;
+import app.notification.client.dto.NotificationPreferenceResponse;
+import app.notification.service.NotificationService;
+import app.pocket.service.PocketService;
+import app.security.AuthenticationMetadataDetails;
+import app.web.dto.BillsRequest;
+import app.web.dto.RegisterRequest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// SQL statements per page render, one test per controller. A page that starts loading
+// the customer's collections again, or loading something per row, goes over its budget.
+// The transfer and bill payment posts read the customer row once, with the pocket or bill.
+// Statistics are global, so the background pollers are pushed out of the measured requests.
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "notification-outbox.poll-interval=PT1H",
+        "pocket-balance-shards.fold-interval=PT1H"})
+public class PageQueryCountITest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private PocketService pocketService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @MockitoBean
+    private LoansServiceImpl loansService;
+
+    private Customer customer;
+    private AuthenticationMetadataDetails principal;
+
+
+    @BeforeEach
+    void setUp() {
+
+        customer = register ("queries");
+
+        pocketService.openSavingsPocket (customer);
+
+        principal = new AuthenticationMetadataDetails (customer.getId (), customer.getUsername (), customer.getPassword (),
+                customer.getRole (), true, customer.getAccountExpireAt (), customer.getCredentialsExpireAt ());
+
+        when (notificationService.getNotificationPreference (any ()))
+                .thenReturn (NotificationPreferenceResponse.builder ().type ("EMAIL").enabled (false).build ());
+        when (notificationService.getNotificationHistory (any ())).thenReturn (List.of ());
+        when (loansService.getLoansByCustomerId (any ())).thenReturn (List.of ());
+    }
+
+
+    @Test
+    void homePage() throws Exception {
+        assertStatements ("/home", 2);
+    }
+
+    @Test
+    void pocketsPage() throws Exception {
+        assertStatements ("/pockets", 2);
+    }
+
+    @Test
+    void transfersPage() throws Exception {
+        assertStatements ("/transfers", 1);
+    }
+
+    @Test
+    void standingOrdersPage() throws Exception {
+        assertStatements ("/standing-orders", 2);
+    }
+
+    @Test
+    void billsPage() throws Exception {
+        assertStatements ("/bills", 2);
+    }
+
+    @Test
+    void loansPage() throws Exception {
+        assertStatements ("/loans", 1);
+    }
+
+    @Test
+    void transactionsPage() throws Exception {
+        assertStatements ("/transactions", 2);
+    }
+
+    @Test
+    void notificationsPage() throws Exception {
+        assertStatements ("/notifications", 1);
+    }
+
+    @Test
+    void cardsPage() throws Exception {
+        assertStatements ("/cards", 2);
+    }
+
+    @Test
+    void profilePage() throws Exception {
+        assertStatements ("/customers/" + customer.getId () + "/profile", 1);
+    }
+
+
+
+    @Test
+    void transferPost() throws Exception {
+
+        Customer receiver = register ("receiver");
+        UUID pocketId = customer.getWallets ().get (0).getId ();
+        Statistics statistics = clearedStatistics ();
+
+        mockMvc.perform (post ("/transfers").with (user (principal)).with (csrf ())
+                        .param ("pocketId", pocketId.toString ())
+                        .param ("username", receiver.getUsername ())
+                        .param ("amount", "1"))
+                .andExpect (status ().is3xxRedirection ());
+
+        assertWrite (statistics, "transfer", 12);
+    }
+
+    @Test
+    void payBillPost() throws Exception {
+
+        Bill bill = billService.createBill (BillsRequest.builder ()
+                .billNumber ("BG" + UUID.randomUUID ().toString ().substring (0, 8))
+                .amount (BigDecimal.ONE)
+                .description ("Water")
+                .billCategory (BillCategory.WATER)
+                .build (), customer);
+        Statistics statistics = clearedStatistics ();
+
+        mockMvc.perform (post ("/bills/pay/{id}", bill.getId ()).with (user (principal)).with (csrf ()))
+                .andExpect (status ().is3xxRedirection ());
+
+        assertWrite (statistics, "bill payment", 8);
+    }
+
+
+
+    private Customer register(String prefix) {
+
+        return customerService.register (RegisterRequest.builder ()
+                .username (prefix + UUID.randomUUID ().toString ().substring (0, 8))
+                .password ("Password1")
+                .phoneNumber ("0895" + UUID.randomUUID ().toString ().substring (0, 8))
+                .country (Country.BULGARIA)
+                .gender (Gender.MALE)
+                .currency (Currency.getInstance ("USD"))
+                .build ());
+    }
+
+    private Statistics clearedStatistics() {
+
+        Statistics statistics = entityManagerFactory.unwrap (SessionFactory.class).getStatistics ();
+        statistics.clear ();
+        return statistics;
+    }
+
+    private static void assertWrite(Statistics statistics, String name, long budget) {
+
+        long statements = statistics.getPrepareStatementCount ();
+        assertTrue (statements <= budget, "%s ran %d statements, budget is %d".formatted (name, statements, budget));
+        assertEquals (1, statistics.getEntityStatistics (Customer.class.getName ()).getLoadCount (),
+                "%s read the customer row more than once".formatted (name));
+    }
+
+    private void assertStatements(String path, long budget) throws Exception {
+
+        Statistics statistics = clearedStatistics ();
+
+        mockMvc.perform (get (path).with (user (principal)))
+                .andExpect (status ().isOk ());
+
+        long statements = statistics.getPrepareStatementCount ();
+        assertTrue (statements <= budget, "%s ran %d statements, budget is %d".formatted (path, statements, budget));
+        // pockets come in with the customer row through the entity graph, never as a second select
+        assertEquals (0, statistics.getCollectionFetchCount (), "%s fetched a collection on its own".formatted (path));
+    }
+}
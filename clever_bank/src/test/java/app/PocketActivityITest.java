@@ -0,0 +1,151 @@
+package app;
+
+import app.customer.model.Country;
+import app.customer.model.Customer;
+import app.customer.model.Gender;
+import app.customer.model.UserRole;
+import app.customer.repository.CustomerRepository;
+import app.pocket.model.Pocket;
+import app.pocket.model.PocketStatus;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.PocketService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static app.TestBuilder.aCustomer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@Transactional
+@SpringBootTest
+public class PocketActivityITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PocketService pocketService;
+
+
+    @Test
+    void givenPocketsWithHistory_whenGetLastSevenTransactions_thenReturnNewestSucceededPerPocket() {
+
+        Customer customer = customerRepository.save (Customer.builder ()
+                .username ("activity" + System.currentTimeMillis ())
+                .password ("Password1")
+                .phoneNumber ("0897" + (System.nanoTime () % 100000))
+                .country (Country.BULGARIA)
+                .gender (Gender.MALE)
+                .role (UserRole.USER)
+                .createdOn (LocalDateTime.now ())
+                .updatedOn (LocalDateTime.now ())
+                .build ());
+
+        Pocket first = pocketRepository.save (aPocket (customer));
+        Pocket second = pocketRepository.save (aPocket (customer));
+
+        LocalDateTime base = LocalDateTime.of (2025, 1, 1, 12, 0);
+
+        // first pocket: 10 withdrawals (pocket is the sender) and 2 failed rows that must be skipped
+        for (int i = 0; i < 10; i++) {
+            transactionRepository.save (aTransaction (customer, first, first.getId ().toString (), "Clever Bank Service Ltd",
+                    TransactionType.WITHDRAWAL, TransactionStatus.SUCCEEDED, base.plusMinutes (i)));
+        }
+        for (int i = 0; i < 2; i++) {
+            transactionRepository.save (aTransaction (customer, first, first.getId ().toString (), "Clever Bank Service Ltd",
+                    TransactionType.WITHDRAWAL, TransactionStatus.FAILED, base.plusHours (1)));
+        }
+
+        // second pocket: 3 deposits (pocket is the receiver)
+        for (int i = 0; i < 3; i++) {
+            transactionRepository.save (aTransaction (customer, second, "Clever Bank Service Ltd", second.getId ().toString (),
+                    TransactionType.DEPOSIT, TransactionStatus.SUCCEEDED, base.plusMinutes (i)));
+        }
+
+        Map <UUID, List <Transactions>> result = pocketService.getLastSevenTransactions (List.of (first, second));
+
+        assertEquals (2, result.size ());
+        assertEquals (7, result.get (first.getId ()).size ());
+        assertEquals (3, result.get (second.getId ()).size ());
+        assertEquals (base.plusMinutes (9), result.get (first.getId ()).get (0).getCreatedOn ());
+        assertTrue (result.get (first.getId ()).stream ().allMatch (t -> t.getStatus () == TransactionStatus.SUCCEEDED));
+    }
+
+
+    @Test
+    void givenTransferBetweenOwnPockets_whenGetLastSevenTransactions_thenEachPocketShowsItsOwnRow() {
+
+        Customer customer = customerRepository.save (aCustomer ("ownpockets"));
+        Pocket main = pocketRepository.save (aPocket (customer));
+        Pocket savings = pocketRepository.save (aPocket (customer));
+
+        LocalDateTime now = LocalDateTime.of (2025, 1, 1, 12, 0);
+
+        Transactions outgoing = aTransaction (customer, savings, savings.getId ().toString (), main.getId ().toString (),
+                TransactionType.WITHDRAWAL, TransactionStatus.SUCCEEDED, now);
+        outgoing.setReceiverPocketId (main.getId ());
+        transactionRepository.save (outgoing);
+
+        Transactions incoming = aTransaction (customer, main, savings.getId ().toString (), main.getId ().toString (),
+                TransactionType.DEPOSIT, TransactionStatus.SUCCEEDED, now);
+        incoming.setSenderPocketId (savings.getId ());
+        transactionRepository.save (incoming);
+
+        Map <UUID, List <Transactions>> result = pocketService.getLastSevenTransactions (List.of (main, savings));
+
+        assertEquals (List.of (incoming.getId ()), result.get (main.getId ()).stream ().map (Transactions::getId).toList ());
+        assertEquals (List.of (outgoing.getId ()), result.get (savings.getId ()).stream ().map (Transactions::getId).toList ());
+    }
+
+
+
+    private static Pocket aPocket(Customer customer) {
+
+        return Pocket.builder ()
+                .customer (customer)
+                .balance (new BigDecimal ("100"))
+                .currency (Currency.getInstance ("USD"))
+                .status (PocketStatus.ACTIVE)
+                .build ();
+    }
+
+    private static Transactions aTransaction(Customer customer, Pocket pocket, String sender, String receiver,
+                                             TransactionType type, TransactionStatus status, LocalDateTime createdOn) {
+
+        return Transactions.builder ()
+                .customer (customer)
+                .pocket (pocket)
+                .sender (sender)
+                .receiver (receiver)
+                .amount (BigDecimal.ONE)
+                .remainingBalance (BigDecimal.TEN)
+                .currency (Currency.getInstance ("USD"))
+                .type (type)
+                .status (status)
+                .createdOn (createdOn)
+                .build ();
+    }
+}
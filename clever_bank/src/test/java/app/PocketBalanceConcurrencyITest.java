@@ -0,0 +1,147 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.PocketService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import app.web.dto.DepositRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class PocketBalanceConcurrencyITest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PocketService pocketService;
+
+
+    @Test
+    void givenManyConcurrentWithdrawals_whenTheyExceedTheBalance_thenExactlyTheAffordableOnesSucceedAndNoOverdraft() throws Exception {
+
+        Customer customer = customerRepository.save (aCustomer ("race"));
+        Pocket pocket = pocketRepository.save (aPocket (customer, "100"));
+
+        List <Callable <Transactions>> withdrawals = new ArrayList <> ();
+        for (int i = 0; i < 64; i++) {
+            withdrawals.add (() -> pocketService.withdraw (customer, pocket.getId (), new BigDecimal ("10"), "stress"));
+        }
+
+        List <Transactions> results = runConcurrently (withdrawals);
+
+        long succeeded = results.stream ().filter (tx -> tx.getStatus () == TransactionStatus.SUCCEEDED).count ();
+        long failed = results.stream ().filter (tx -> tx.getStatus () == TransactionStatus.FAILED).count ();
+
+        assertEquals (10, succeeded);
+        assertEquals (54, failed);
+        assertTrue (results.stream ().allMatch (tx -> tx.getRemainingBalance ().signum () >= 0));
+        assertTrue (results.stream ().filter (tx -> tx.getStatus () == TransactionStatus.FAILED)
+                .allMatch (tx -> "Insufficient balance".equals (tx.getReasonFailed ())));
+        assertEquals (0, balanceOf (pocket).compareTo (BigDecimal.ZERO));
+    }
+
+
+    @Test
+    void givenInterleavedDepositsAndWithdrawals_whenRunConcurrently_thenNoUpdateIsLost() throws Exception {
+
+        Customer customer = customerRepository.save (aCustomer ("race"));
+        Pocket pocket = pocketRepository.save (aPocket (customer, "50"));
+
+        List <Callable <Transactions>> operations = new ArrayList <> ();
+        for (int i = 0; i < 40; i++) {
+            operations.add (() -> pocketService.deposit (pocket.getId (), aDepositRequest ("5"), customer.getId ()));
+            operations.add (() -> pocketService.withdraw (customer, pocket.getId (), new BigDecimal ("12"), "stress"));
+        }
+
+        List <Transactions> results = runConcurrently (operations);
+
+        long deposits = results.stream ()
+                .filter (tx -> tx.getType () == TransactionType.DEPOSIT && tx.getStatus () == TransactionStatus.SUCCEEDED)
+                .count ();
+        long withdrawals = results.stream ()
+                .filter (tx -> tx.getType () == TransactionType.WITHDRAWAL && tx.getStatus () == TransactionStatus.SUCCEEDED)
+                .count ();
+
+        BigDecimal expected = new BigDecimal ("50")
+                .add (new BigDecimal ("5").multiply (BigDecimal.valueOf (deposits)))
+                .subtract (new BigDecimal ("12").multiply (BigDecimal.valueOf (withdrawals)));
+
+        assertEquals (40, deposits);
+        assertEquals (0, balanceOf (pocket).compareTo (expected));
+        assertTrue (balanceOf (pocket).signum () >= 0);
+        assertTrue (results.stream ().allMatch (tx -> tx.getRemainingBalance ().signum () >= 0));
+        assertEquals (80, transactionRepository.findByPocketId (pocket.getId ()).size ());
+    }
+
+
+
+    private static List <Transactions> runConcurrently(List <Callable <Transactions>> tasks) throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool (THREADS);
+        CountDownLatch start = new CountDownLatch (1);
+        List <Future <Transactions>> futures = new ArrayList <> ();
+
+        try {
+            for (Callable <Transactions> task : tasks) {
+                futures.add (executor.submit (() -> {
+                    start.await ();
+                    return task.call ();
+                }));
+            }
+            start.countDown ();
+
+            List <Transactions> results = new ArrayList <> ();
+            for (Future <Transactions> future : futures) {
+                results.add (future.get (60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow ();
+        }
+    }
+
+    private BigDecimal balanceOf(Pocket pocket) {
+        return pocketRepository.findById (pocket.getId ()).orElseThrow ().getBalance ();
+    }
+
+    private static DepositRequest aDepositRequest(String amount) {
+
+        return DepositRequest.builder ()
+                .iban ("BG80BNBG96611020345678")
+                .firstName ("Venko")
+                .lastName ("Davidov")
+                .cvv ("123")
+                .amount (new BigDecimal (amount))
+                .build ();
+    }
+}
@@ -0,0 +1,134 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.pocket.model.Pocket;
+import app.pocket.model.PocketBalanceShard;
+import app.pocket.repository.PocketBalanceShardRepository;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.PocketBalanceShardService;
+import app.pocket.service.PocketService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.Transactions;
+import app.web.dto.DepositRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class PocketBalanceShardITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private PocketBalanceShardRepository shardRepository;
+
+    @Autowired
+    private PocketService pocketService;
+
+    @Autowired
+    private PocketBalanceShardService pocketBalanceShardService;
+
+
+    @Test
+    void givenShardedPocket_whenConcurrentDeposits_thenCreditsLandInBucketsAndFoldIntoBalance() throws Exception {
+
+        Customer customer = customerRepository.save (aCustomer ("shard"));
+        Pocket pocket = pocketRepository.save (aPocket (customer, "100"));
+        pocketBalanceShardService.configureShards (pocket.getId (), 4);
+
+        ExecutorService executor = Executors.newFixedThreadPool (8);
+        List <Future <Transactions>> results = new ArrayList <> ();
+        for (int i = 0; i < 40; i++) {
+            results.add (executor.submit (() -> pocketService.deposit (pocket.getId (), aDepositRequest ("5"), customer.getId ())));
+        }
+        for (Future <Transactions> result : results) {
+            assertEquals (TransactionStatus.SUCCEEDED, result.get (60, TimeUnit.SECONDS).getStatus ());
+        }
+        executor.shutdown ();
+
+        Pocket credited = pocketRepository.findById (pocket.getId ()).orElseThrow ();
+        pocketService.loadShardCredits (List.of (credited));
+        assertEquals (0, credited.getBalance ().compareTo (new BigDecimal ("100")));
+        assertEquals (0, credited.getAvailableBalance ().compareTo (new BigDecimal ("300")));
+        assertEquals (4, shardRepository.findAll ().size ());
+
+        assertEquals (1, pocketBalanceShardService.foldAll ());
+
+        Pocket folded = pocketRepository.findById (pocket.getId ()).orElseThrow ();
+        pocketService.loadShardCredits (List.of (folded));
+        assertEquals (0, folded.getBalance ().compareTo (new BigDecimal ("300")));
+        assertEquals (0, folded.getAvailableBalance ().compareTo (new BigDecimal ("300")));
+        assertTrue (shardRepository.findAll ().stream ().allMatch (shard -> shard.getAmount ().signum () == 0));
+    }
+
+
+    @Test
+    void givenCreditsOnlyInBuckets_whenWithdrawMoreThanMainBalance_thenBucketsAreFoldedAndWithdrawSucceeds() {
+
+        Customer customer = customerRepository.save (aCustomer ("shard"));
+        Pocket pocket = pocketRepository.save (aPocket (customer, "10"));
+        pocketBalanceShardService.configureShards (pocket.getId (), 4);
+
+        pocketService.deposit (pocket.getId (), aDepositRequest ("50"), customer.getId ());
+
+        Transactions withdraw = pocketService.withdraw (customer, pocket.getId (), new BigDecimal ("40"), "from buckets");
+
+        assertEquals (TransactionStatus.SUCCEEDED, withdraw.getStatus ());
+        assertEquals (0, withdraw.getRemainingBalance ().compareTo (new BigDecimal ("20")));
+
+        Transactions overdraft = pocketService.withdraw (customer, pocket.getId (), new BigDecimal ("40"), "too much");
+        assertEquals (TransactionStatus.FAILED, overdraft.getStatus ());
+        assertEquals ("Insufficient balance", overdraft.getReasonFailed ());
+    }
+
+
+    @Test
+    void givenShardedPocket_whenShardingTurnedOff_thenBucketsAreFoldedAndRemoved() {
+
+        Customer customer = customerRepository.save (aCustomer ("shard"));
+        Pocket pocket = pocketRepository.save (aPocket (customer, "10"));
+        pocketBalanceShardService.configureShards (pocket.getId (), 8);
+        pocketService.deposit (pocket.getId (), aDepositRequest ("15"), customer.getId ());
+
+        pocketBalanceShardService.configureShards (pocket.getId (), 0);
+
+        Pocket unsharded = pocketRepository.findById (pocket.getId ()).orElseThrow ();
+        List <PocketBalanceShard> shards = shardRepository.findAll ();
+
+        assertEquals (null, unsharded.getBalanceShards ());
+        assertEquals (0, unsharded.getBalance ().compareTo (new BigDecimal ("25")));
+        assertTrue (shards.isEmpty ());
+    }
+
+
+
+    private static DepositRequest aDepositRequest(String amount) {
+
+        return DepositRequest.builder ()
+                .iban ("BG80BNBG96611020345678")
+                .firstName ("Venko")
+                .lastName ("Davidov")
+                .cvv ("123")
+                .amount (new BigDecimal (amount))
+                .build ();
+    }
+}
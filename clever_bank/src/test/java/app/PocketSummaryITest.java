@@ -0,0 +1,128 @@
+package app;
+
+import app.customer.model.Country;
+import app.customer.model.Customer;
+import app.customer.model.Gender;
+import app.customer.model.UserRole;
+import app.customer.repository.CustomerRepository;
+import app.pocket.model.Pocket;
+import app.pocket.model.PocketStatus;
+import app.pocket.repository.PocketRepository;
+import app.summary.model.PocketMonthlySummary;
+import app.summary.repository.PocketMonthlySummaryRepository;
+import app.summary.service.PocketSummaryService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class PocketSummaryITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PocketSummaryService pocketSummaryService;
+
+    @Autowired
+    private PocketMonthlySummaryRepository pocketMonthlySummaryRepository;
+
+
+    @Test
+    void givenRecordedTransactions_whenSummaryIsMaintainedAndRebuilt_thenBothMatchTheJournal() {
+
+        Customer customer = customerRepository.save (Customer.builder ()
+                .username ("summary" + System.currentTimeMillis ())
+                .password ("Password1")
+                .phoneNumber ("0897" + (System.nanoTime () % 100000))
+                .country (Country.BULGARIA)
+                .gender (Gender.MALE)
+                .role (UserRole.USER)
+                .createdOn (LocalDateTime.now ())
+                .updatedOn (LocalDateTime.now ())
+                .build ());
+
+        Pocket pocket = pocketRepository.save (Pocket.builder ()
+                .customer (customer)
+                .balance (new BigDecimal ("100"))
+                .currency (Currency.getInstance ("USD"))
+                .status (PocketStatus.ACTIVE)
+                .build ());
+
+        LocalDateTime january = LocalDateTime.of (2025, 1, 10, 12, 0);
+        LocalDateTime february = LocalDateTime.of (2025, 2, 3, 9, 30);
+
+        transactionService.recordAll (List.of (
+                aTransaction (customer, pocket, TransactionType.DEPOSIT, TransactionStatus.SUCCEEDED, "10", january),
+                aTransaction (customer, pocket, TransactionType.DEPOSIT, TransactionStatus.SUCCEEDED, "15", january.plusDays (1)),
+                aTransaction (customer, pocket, TransactionType.WITHDRAWAL, TransactionStatus.SUCCEEDED, "5", january.plusDays (2)),
+                aTransaction (customer, pocket, TransactionType.WITHDRAWAL, TransactionStatus.FAILED, "500", january.plusDays (3)),
+                aTransaction (customer, pocket, TransactionType.BILL_PAYMENT, TransactionStatus.SUCCEEDED, "7", february)));
+
+        assertSummaries (pocketSummaryService.getMonthlySummaries (pocket.getId (), customer.getId (), 12));
+
+        // drop the read model and recompute it from the journal
+        pocketMonthlySummaryRepository.deleteAll ();
+        pocketSummaryService.rebuildAll ();
+
+        assertSummaries (pocketSummaryService.getMonthlySummaries (pocket.getId (), customer.getId (), 12));
+    }
+
+
+
+    private static void assertSummaries(List <PocketMonthlySummary> summaries) {
+
+        assertEquals (2, summaries.size ());
+
+        PocketMonthlySummary february = summaries.get (0);
+        assertEquals (2, february.getPeriodMonth ());
+        assertEquals (0, february.getTotalIn ().compareTo (BigDecimal.ZERO));
+        assertEquals (0, february.getTotalOut ().compareTo (new BigDecimal ("7")));
+        assertEquals (1, february.getCountOut ());
+
+        PocketMonthlySummary january = summaries.get (1);
+        assertEquals (1, january.getPeriodMonth ());
+        assertEquals (0, january.getTotalIn ().compareTo (new BigDecimal ("25")));
+        assertEquals (0, january.getTotalOut ().compareTo (new BigDecimal ("5")));
+        assertEquals (2, january.getCountIn ());
+        assertEquals (1, january.getCountOut ());
+    }
+
+    private static Transactions aTransaction(Customer customer, Pocket pocket, TransactionType type,
+                                             TransactionStatus status, String amount, LocalDateTime createdOn) {
+
+        return Transactions.builder ()
+                .customer (customer)
+                .pocket (pocket)
+                .sender (pocket.getId ().toString ())
+                .receiver ("Clever Bank Service Ltd")
+                .amount (new BigDecimal (amount))
+                .remainingBalance (BigDecimal.TEN)
+                .currency (Currency.getInstance ("USD"))
+                .type (type)
+                .status (status)
+                .createdOn (createdOn)
+                .build ();
+    }
+}
@@ -0,0 +1,113 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.pocket.cache.ReceiverPocketCache;
+import app.pocket.model.Pocket;
+import app.pocket.model.ReceiverPocket;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.PocketService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import app.web.dto.TransferResultRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static app.TestBuilder.aCustomer;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class ReceiverPocketCacheITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PocketService pocketService;
+
+    @Autowired
+    private ReceiverPocketCache receiverPocketCache;
+
+
+    @Test
+    void givenUsernameWithoutPocket_whenWalletCreated_thenCachedMissIsDroppedAndTransferLands() {
+
+        Customer sender = customerRepository.save (aCustomer ("cachesender"));
+        Customer receiver = customerRepository.save (aCustomer ("cachereceiver"));
+        Pocket senderPocket = pocketService.createWallet (sender);
+
+        // nothing to land on yet, and the miss is remembered
+        assertTrue (receiverPocketCache.resolve ("cachereceiver").isEmpty ());
+
+        Pocket receiverPocket = pocketService.createWallet (receiver);
+
+        Optional <ReceiverPocket> resolved = receiverPocketCache.resolve ("cachereceiver");
+        assertEquals (receiverPocket.getId (), resolved.orElseThrow ().pocketId ());
+        assertEquals (receiver.getId (), resolved.orElseThrow ().customerId ());
+        assertSame (resolved, receiverPocketCache.resolve ("cachereceiver"));
+
+        Transactions transfer = pocketService.transfer (aTransfer (senderPocket, "cachereceiver"), sender);
+
+        assertEquals (TransactionStatus.SUCCEEDED, transfer.getStatus ());
+        assertEquals (0, pocketRepository.findById (receiverPocket.getId ()).orElseThrow ().getBalance ().compareTo (new BigDecimal ("50.00")));
+
+        Transactions incoming = transactionRepository.findAll ().stream ()
+                .filter (transaction -> transaction.getType () == TransactionType.DEPOSIT)
+                .findFirst ()
+                .orElseThrow ();
+        assertEquals (receiver.getId ().toString (), incoming.getReceiver ());
+        assertEquals (0, incoming.getRemainingBalance ().compareTo (new BigDecimal ("50.00")));
+    }
+
+
+    @Test
+    void givenCachedReceiver_whenPocketSwitchedOff_thenTransferIsRejectedUntilSwitchedBackOn() {
+
+        Customer sender = customerRepository.save (aCustomer ("cachesender"));
+        Customer receiver = customerRepository.save (aCustomer ("cachereceiver"));
+        Pocket senderPocket = pocketService.createWallet (sender);
+        Pocket receiverPocket = pocketService.createWallet (receiver);
+
+        assertTrue (receiverPocketCache.resolve ("cachereceiver").isPresent ());
+
+        pocketService.switchStatusWallet (receiverPocket.getId (), receiver.getId ());
+
+        Transactions rejected = pocketService.transfer (aTransfer (senderPocket, "cachereceiver"), sender);
+        assertEquals (TransactionStatus.FAILED, rejected.getStatus ());
+        assertEquals (0, pocketRepository.findById (senderPocket.getId ()).orElseThrow ().getBalance ().compareTo (new BigDecimal ("40.00")));
+
+        pocketService.switchStatusWallet (receiverPocket.getId (), receiver.getId ());
+
+        Transactions accepted = pocketService.transfer (aTransfer (senderPocket, "cachereceiver"), sender);
+        assertEquals (TransactionStatus.SUCCEEDED, accepted.getStatus ());
+        assertEquals (0, pocketRepository.findById (senderPocket.getId ()).orElseThrow ().getBalance ().compareTo (new BigDecimal ("30.00")));
+        assertEquals (0, pocketRepository.findById (receiverPocket.getId ()).orElseThrow ().getBalance ().compareTo (new BigDecimal ("50.00")));
+    }
+
+
+
+    private static TransferResultRequest aTransfer(Pocket senderPocket, String username) {
+
+        return TransferResultRequest.builder ()
+                .pocketId (senderPocket.getId ())
+                .username (username)
+                .amount (new BigDecimal ("10.00"))
+                .build ();
+    }
+}
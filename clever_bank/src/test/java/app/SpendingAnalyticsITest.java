@@ -0,0 +1,153 @@
+package app;
+
+import app.analytics.model.SpendingBreakdown;
+import app.analytics.model.SpendingRow;
+import app.analytics.service.SpendingAnalyticsService;
+import app.bills_utility.model.Bill;
+import app.bills_utility.model.BillCategory;
+import app.bills_utility.model.BillStatus;
+import app.bills_utility.repository.BillRepository;
+import app.customer.model.Country;
+import app.customer.model.Customer;
+import app.customer.model.Gender;
+import app.customer.model.UserRole;
+import app.customer.repository.CustomerRepository;
+import app.pocket.model.Pocket;
+import app.pocket.model.PocketStatus;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.PocketService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@Transactional
+@SpringBootTest
+public class SpendingAnalyticsITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PocketService pocketService;
+
+    @Autowired
+    private SpendingAnalyticsService spendingAnalyticsService;
+
+
+    @Test
+    void givenPaidBillsAndWithdrawals_whenGetSpendingBreakdown_thenGroupedByCategoryAndMonthAndCachedUntilWithdraw() {
+
+        Customer customer = customerRepository.save (Customer.builder ()
+                .username ("spending" + System.currentTimeMillis ())
+                .password ("Password1")
+                .phoneNumber ("0897" + (System.nanoTime () % 100000))
+                .country (Country.BULGARIA)
+                .gender (Gender.MALE)
+                .role (UserRole.USER)
+                .createdOn (LocalDateTime.now ())
+                .updatedOn (LocalDateTime.now ())
+                .build ());
+
+        Pocket pocket = pocketRepository.save (Pocket.builder ()
+                .customer (customer)
+                .balance (new BigDecimal ("1000"))
+                .currency (Currency.getInstance ("USD"))
+                .status (PocketStatus.ACTIVE)
+                .build ());
+
+        LocalDateTime january = LocalDateTime.of (2025, 1, 15, 10, 0);
+        LocalDateTime february = LocalDateTime.of (2025, 2, 15, 10, 0);
+
+        billRepository.save (aBill (customer, "B-1", BillCategory.ELECTRICITY, BillStatus.PAID, "40", january));
+        billRepository.save (aBill (customer, "B-2", BillCategory.ELECTRICITY, BillStatus.PAID, "60", january.plusDays (3)));
+        billRepository.save (aBill (customer, "B-3", BillCategory.INTERNET, BillStatus.PAID, "25", february));
+        billRepository.save (aBill (customer, "B-4", BillCategory.WATER, BillStatus.PENDING, "99", february));
+
+        transactionRepository.save (aTransaction (customer, pocket, TransactionType.WITHDRAWAL, TransactionStatus.SUCCEEDED, "30", february));
+        transactionRepository.save (aTransaction (customer, pocket, TransactionType.WITHDRAWAL, TransactionStatus.FAILED, "500", february));
+        // the bill payment leg is already counted through the bill
+        transactionRepository.save (aTransaction (customer, pocket, TransactionType.BILL_PAYMENT, TransactionStatus.SUCCEEDED, "25", february));
+
+        SpendingBreakdown breakdown = spendingAnalyticsService.getSpendingBreakdown (customer.getId ());
+
+        assertEquals (3, breakdown.months ().size ());
+        SpendingRow newest = breakdown.months ().get (0);
+        assertEquals (2, newest.month ());
+        assertEquals ("INTERNET", newest.category ());
+
+        SpendingRow electricity = breakdown.months ().get (2);
+        assertEquals ("ELECTRICITY", electricity.category ());
+        assertEquals (1, electricity.month ());
+        assertEquals (2, electricity.count ());
+        assertEquals (0, electricity.total ().compareTo (new BigDecimal ("100")));
+
+        assertEquals (0, breakdown.totalsByCategory ().get ("WITHDRAWAL").compareTo (new BigDecimal ("30")));
+        assertFalse (breakdown.totalsByCategory ().containsKey ("WATER"));
+
+        // second read is served from the cache
+        assertSame (breakdown, spendingAnalyticsService.getSpendingBreakdown (customer.getId ()));
+
+        pocketService.withdraw (customer, pocket.getId (), new BigDecimal ("5"), "Cash");
+
+        SpendingBreakdown afterWithdraw = spendingAnalyticsService.getSpendingBreakdown (customer.getId ());
+        assertNotSame (breakdown, afterWithdraw);
+        assertEquals (0, afterWithdraw.totalsByCategory ().get ("WITHDRAWAL").compareTo (new BigDecimal ("35")));
+    }
+
+
+
+    private static Bill aBill(Customer customer, String number, BillCategory category, BillStatus status,
+                              String amount, LocalDateTime paidOn) {
+
+        return Bill.builder ()
+                .customer (customer)
+                .billNumber (number + System.nanoTime ())
+                .category (category)
+                .status (status)
+                .amount (new BigDecimal (amount))
+                .createdOn (paidOn.minusDays (10))
+                .updatedOn (paidOn)
+                .build ();
+    }
+
+    private static Transactions aTransaction(Customer customer, Pocket pocket, TransactionType type,
+                                             TransactionStatus status, String amount, LocalDateTime createdOn) {
+
+        return Transactions.builder ()
+                .customer (customer)
+                .pocket (pocket)
+                .sender (pocket.getId ().toString ())
+                .receiver ("Clever Bank Service Ltd")
+                .amount (new BigDecimal (amount))
+                .remainingBalance (BigDecimal.TEN)
+                .currency (Currency.getInstance ("USD"))
+                .type (type)
+                .status (status)
+                .createdOn (createdOn)
+                .build ();
+    }
+}
@@ -0,0 +1,196 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.exception.DomainException;
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.PocketService;
+import app.standing_order.model.StandingOrder;
+import app.standing_order.model.StandingOrderFrequency;
+import app.standing_order.model.StandingOrderStatus;
+import app.standing_order.repository.StandingOrderRepository;
+import app.standing_order.service.StandingOrderExecutor;
+import app.standing_order.service.StandingOrderService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.repository.TransactionRepository;
+import app.web.dto.StandingOrderRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest(properties = {"standing-order.enabled=false", "standing-order.execution-time=00:00", "standing-order.retry-after=PT0S"})
+public class StandingOrderITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private StandingOrderRepository standingOrderRepository;
+
+    @Autowired
+    private StandingOrderService standingOrderService;
+
+    @Autowired
+    private StandingOrderExecutor standingOrderExecutor;
+
+    @MockitoSpyBean
+    private PocketService pocketService;
+
+
+    @Test
+    void givenOrderDueToday_whenLoadedAndFired_thenTransferMadeAndOrderMovesToNextRun() throws Exception {
+
+        Customer tenant = customerRepository.save (aCustomer ("tenant"));
+        Pocket rentPocket = pocketRepository.save (aPocket (tenant, "1000"));
+        Customer landlord = customerRepository.save (aCustomer ("landlord"));
+        Pocket landlordPocket = pocketRepository.save (aPocket (landlord, "0"));
+
+        StandingOrder order = standingOrderService.createStandingOrder (aRequest (rentPocket, "landlord", LocalDate.now (), null), tenant);
+
+        assertEquals (1, standingOrderExecutor.loadDueOrders ());
+        fireAndWait ();
+
+        StandingOrder afterRun = standingOrderRepository.findById (order.getId ()).orElseThrow ();
+        assertEquals (StandingOrderStatus.ACTIVE, afterRun.getStatus ());
+        assertEquals (TransactionStatus.SUCCEEDED, afterRun.getLastRunStatus ());
+        assertEquals (LocalDate.now ().plusWeeks (1).atStartOfDay (), afterRun.getNextRunOn ());
+        assertEquals (0, pocketRepository.findById (rentPocket.getId ()).orElseThrow ().getBalance ().compareTo (new BigDecimal ("700")));
+        assertEquals (0, pocketRepository.findById (landlordPocket.getId ()).orElseThrow ().getBalance ().compareTo (new BigDecimal ("300")));
+
+        // next week's run is outside the load window, so nothing more is read or fired
+        assertEquals (0, standingOrderExecutor.loadDueOrders ());
+        assertEquals (0, standingOrderExecutor.fireDueOrders ().size ());
+    }
+
+
+    @Test
+    void givenRunWhoseOrderWasNotMovedOn_whenFiredAgain_thenTransferIsNotRepeated() throws Exception {
+
+        Customer tenant = customerRepository.save (aCustomer ("tenant"));
+        Pocket rentPocket = pocketRepository.save (aPocket (tenant, "1000"));
+        Customer landlord = customerRepository.save (aCustomer ("landlord"));
+        Pocket landlordPocket = pocketRepository.save (aPocket (landlord, "0"));
+
+        StandingOrder order = standingOrderService.createStandingOrder (aRequest (rentPocket, "landlord", LocalDate.now (), LocalDate.now ()), tenant);
+
+        standingOrderExecutor.loadDueOrders ();
+        fireAndWait ();
+
+        // the order finished after its only run
+        StandingOrder completed = standingOrderRepository.findById (order.getId ()).orElseThrow ();
+        assertEquals (StandingOrderStatus.COMPLETED, completed.getStatus ());
+        assertNull (completed.getNextRunOn ());
+
+        // as if the node had crashed between the transfer and moving the order on
+        completed.setStatus (StandingOrderStatus.ACTIVE);
+        completed.setNextRunOn (LocalDate.now ().atStartOfDay ());
+        standingOrderRepository.save (completed);
+
+        assertEquals (1, standingOrderExecutor.loadDueOrders ());
+        fireAndWait ();
+
+        assertEquals (1, transactionRepository.findByPocketId (landlordPocket.getId ()).size ());
+        assertEquals (0, pocketRepository.findById (rentPocket.getId ()).orElseThrow ().getBalance ().compareTo (new BigDecimal ("700")));
+        assertEquals (StandingOrderStatus.COMPLETED, standingOrderRepository.findById (order.getId ()).orElseThrow ().getStatus ());
+    }
+
+
+    @Test
+    void givenPocketBusy_whenFired_thenOrderStaysOnItsRunAndIsRetried() throws Exception {
+
+        Customer tenant = customerRepository.save (aCustomer ("tenant"));
+        Pocket rentPocket = pocketRepository.save (aPocket (tenant, "1000"));
+        Customer landlord = customerRepository.save (aCustomer ("landlord"));
+        pocketRepository.save (aPocket (landlord, "0"));
+
+        StandingOrder order = standingOrderService.createStandingOrder (aRequest (rentPocket, "landlord", LocalDate.now (), null), tenant);
+
+        doThrow (new DomainException ("Pocket is busy, please try again", HttpStatus.SERVICE_UNAVAILABLE))
+                .doCallRealMethod ()
+                .when (pocketService).transfer (any (), any ());
+
+        standingOrderExecutor.loadDueOrders ();
+        fireAndWait ();
+
+        StandingOrder afterTimeout = standingOrderRepository.findById (order.getId ()).orElseThrow ();
+        assertEquals (LocalDate.now ().atStartOfDay (), afterTimeout.getNextRunOn ());
+        assertNull (afterTimeout.getLastRunStatus ());
+
+        // picked up again as a stale run
+        assertEquals (1, standingOrderExecutor.loadDueOrders ());
+        fireAndWait ();
+
+        StandingOrder afterRetry = standingOrderRepository.findById (order.getId ()).orElseThrow ();
+        assertEquals (TransactionStatus.SUCCEEDED, afterRetry.getLastRunStatus ());
+        assertEquals (LocalDate.now ().plusWeeks (1).atStartOfDay (), afterRetry.getNextRunOn ());
+    }
+
+
+    @Test
+    void givenPausedOrder_whenResumedAfterMissedRuns_thenMissedRunsAreSkipped() {
+
+        Customer saver = customerRepository.save (aCustomer ("saver"));
+        Pocket pocket = pocketRepository.save (aPocket (saver, "1000"));
+        customerRepository.save (aCustomer ("piggybank"));
+
+        StandingOrder order = standingOrderService.createStandingOrder (aRequest (pocket, "piggybank", LocalDate.now (), null), saver);
+        standingOrderService.pause (order.getId (), saver.getId ());
+
+        // pretend the order has been paused for three weeks
+        StandingOrder paused = standingOrderRepository.findById (order.getId ()).orElseThrow ();
+        paused.setNextRunOn (LocalDate.now ().minusWeeks (3).atStartOfDay ());
+        standingOrderRepository.save (paused);
+
+        StandingOrder resumed = standingOrderService.resume (order.getId (), saver.getId ());
+
+        assertEquals (StandingOrderStatus.ACTIVE, resumed.getStatus ());
+        assertEquals (LocalDate.now ().plusWeeks (1).atStartOfDay (), resumed.getNextRunOn ());
+    }
+
+
+
+    private void fireAndWait() throws Exception {
+
+        for (CompletableFuture <Void> run : standingOrderExecutor.fireDueOrders ()) {
+            run.get (30, TimeUnit.SECONDS);
+        }
+    }
+
+    private static StandingOrderRequest aRequest(Pocket pocket, String receiver, LocalDate startDate, LocalDate endDate) {
+
+        return StandingOrderRequest.builder ()
+                .pocketId (pocket.getId ())
+                .username (receiver)
+                .amount (new BigDecimal ("300"))
+                .frequency (StandingOrderFrequency.WEEKLY)
+                .startDate (startDate)
+                .endDate (endDate)
+                .description ("Rent")
+                .build ();
+    }
+}
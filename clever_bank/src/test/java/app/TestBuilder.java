@@ -96,4 +96,42 @@ public class TestBuilder {
 
         return customer;
     }
+
+
+
+    // Unsaved customer for the integration tests. The username is taken as given, so a test can transfer
+    // to it; the phone number is derived from it to keep both unique indexes satisfied.
+    public static Customer aCustomer(String username) {
+
+        return Customer.builder ()
+                .username (username)
+                .password ("Password1")
+                .phoneNumber ("0898" + username)
+                .country (Country.BULGARIA)
+                .gender (Gender.MALE)
+                .role (UserRole.USER)
+                .isActive (true)
+                .createdOn (LocalDateTime.now ())
+                .updatedOn (LocalDateTime.now ())
+                .build ();
+    }
+
+
+
+    public static Pocket aPocket(Customer customer, String balance) {
+        return aPocket (customer, balance, Currency.getInstance ("USD"));
+    }
+
+
+
+    // Unsaved active pocket; tests that need a type or another status set it on the result
+    public static Pocket aPocket(Customer customer, String balance, Currency currency) {
+
+        return Pocket.builder ()
+                .customer (customer)
+                .balance (new BigDecimal (balance))
+                .currency (currency)
+                .status (PocketStatus.ACTIVE)
+                .build ();
+    }
 }
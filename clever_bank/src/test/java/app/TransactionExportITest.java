@@ -0,0 +1,117 @@
+package app;
+
+import app.customer.model.Country;
+import app.customer.model.Customer;
+import app.customer.model.Gender;
+import app.customer.model.UserRole;
+import app.customer.repository.CustomerRepository;
+import app.transaction.model.ExportFormat;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import app.transaction.service.TransactionExportService;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Currency;
+
+import static app.TestBuilder.aCustomer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@Transactional
+@SpringBootTest
+public class TransactionExportITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+
+    @Test
+    void givenHistory_whenExportCsvForDateRange_thenOnlyRowsInRangeAreWrittenWithEscaping() {
+
+        Customer customer = customerRepository.save (Customer.builder ()
+                .username ("export" + System.currentTimeMillis ())
+                .password ("Password1")
+                .phoneNumber ("0897" + (System.nanoTime () % 100000))
+                .country (Country.BULGARIA)
+                .gender (Gender.MALE)
+                .role (UserRole.USER)
+                .createdOn (LocalDateTime.now ())
+                .updatedOn (LocalDateTime.now ())
+                .build ());
+
+        for (int day = 1; day <= 5; day++) {
+            transactionRepository.save (Transactions.builder ()
+                    .customer (customer)
+                    .sender ("Clever Bank Service Ltd")
+                    .receiver (customer.getId ().toString ())
+                    .amount (BigDecimal.valueOf (day))
+                    .remainingBalance (BigDecimal.TEN)
+                    .currency (Currency.getInstance ("USD"))
+                    .type (TransactionType.DEPOSIT)
+                    .status (TransactionStatus.SUCCEEDED)
+                    .description ("Deposit, day " + day)
+                    .createdOn (LocalDateTime.of (2025, 3, day, 9, 30))
+                    .build ());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream ();
+        transactionExportService.export (customer.getId (), LocalDate.of (2025, 3, 2), LocalDate.of (2025, 3, 4), ExportFormat.CSV, out);
+
+        String[] lines = out.toString (StandardCharsets.UTF_8).split ("\n");
+
+        assertEquals (4, lines.length);
+        assertTrue (lines[0].startsWith ("id,created_on"));
+        assertTrue (lines[1].contains ("2025-03-02T09:30"));
+        assertTrue (lines[1].contains ("\"Deposit, day 2\""));
+        assertTrue (lines[3].contains ("2025-03-04T09:30"));
+    }
+
+
+
+    @Test
+    void givenUserTextStartingLikeAFormula_whenExportCsv_thenItIsWrittenAsText() {
+
+        Customer customer = customerRepository.save (aCustomer ("formula"));
+
+        transactionRepository.save (Transactions.builder ()
+                .customer (customer)
+                .sender ("@SUM(A1:A9)")
+                .receiver ("+359888")
+                .amount (BigDecimal.ONE)
+                .remainingBalance (BigDecimal.TEN)
+                .currency (Currency.getInstance ("USD"))
+                .type (TransactionType.WITHDRAWAL)
+                .status (TransactionStatus.FAILED)
+                .description ("=HYPERLINK(\"http://evil\",\"pay\")")
+                .reasonFailed ("-1 balance")
+                .createdOn (LocalDateTime.of (2025, 3, 1, 9, 30))
+                .build ());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream ();
+        transactionExportService.export (customer.getId (), LocalDate.of (2025, 3, 1), LocalDate.of (2025, 3, 1), ExportFormat.CSV, out);
+
+        String row = out.toString (StandardCharsets.UTF_8).split ("\n")[1];
+
+        assertTrue (row.endsWith (",'@SUM(A1:A9),'+359888,\"'=HYPERLINK(\"\"http://evil\"\",\"\"pay\"\")\",'-1 balance"));
+    }
+}
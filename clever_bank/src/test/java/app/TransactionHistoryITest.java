@@ -0,0 +1,98 @@
+package app;
+
+import app.customer.model.Country;
+import app.customer.model.Customer;
+import app.customer.model.Gender;
+import app.customer.model.UserRole;
+import app.customer.repository.CustomerRepository;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import app.transaction.service.TransactionService;
+import app.web.dto.TransactionHistoryPage;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@Transactional
+@SpringBootTest
+public class TransactionHistoryITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+
+    @Test
+    void givenLongHistory_whenWalkingPagesWithCursor_thenEveryRowIsReturnedOnceNewestFirst() {
+
+        Customer customer = customerRepository.save (Customer.builder ()
+                .username ("history" + System.currentTimeMillis ())
+                .password ("Password1")
+                .phoneNumber ("0897" + (System.nanoTime () % 100000))
+                .country (Country.BULGARIA)
+                .gender (Gender.MALE)
+                .role (UserRole.USER)
+                .createdOn (LocalDateTime.now ())
+                .updatedOn (LocalDateTime.now ())
+                .build ());
+
+        // several rows share the same timestamp so the id tie-breaker is exercised
+        LocalDateTime base = LocalDateTime.of (2025, 1, 1, 12, 0);
+        for (int i = 0; i < 23; i++) {
+            transactionRepository.save (Transactions.builder ()
+                    .customer (customer)
+                    .sender ("Clever Bank Service Ltd")
+                    .receiver (customer.getId ().toString ())
+                    .amount (BigDecimal.ONE)
+                    .remainingBalance (BigDecimal.TEN)
+                    .currency (Currency.getInstance ("USD"))
+                    .type (TransactionType.DEPOSIT)
+                    .status (TransactionStatus.SUCCEEDED)
+                    .createdOn (base.plusMinutes (i / 3))
+                    .build ());
+        }
+
+        List <Transactions> walked = new ArrayList <> ();
+        TransactionHistoryPage page = transactionService.getTransactionHistoryPage (customer.getId (), null, null, 5);
+        walked.addAll (page.getTransactions ());
+
+        while (page.hasOlder ()) {
+            page = transactionService.getTransactionHistoryPage (customer.getId (), page.getNextBefore (), page.getNextBeforeId (), 5);
+            assertTrue (page.getTransactions ().size () <= 5);
+            walked.addAll (page.getTransactions ());
+        }
+
+        assertEquals (23, walked.size ());
+
+        Set <UUID> ids = new HashSet <> ();
+        walked.forEach (t -> ids.add (t.getId ()));
+        assertEquals (23, ids.size ());
+
+        for (int i = 1; i < walked.size (); i++) {
+            assertFalse (walked.get (i).getCreatedOn ().isAfter (walked.get (i - 1).getCreatedOn ()));
+        }
+    }
+}
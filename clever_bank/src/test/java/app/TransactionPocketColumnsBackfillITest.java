@@ -0,0 +1,112 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.summary.model.PocketMonthlySummary;
+import app.summary.service.PocketSummaryService;
+import app.transaction.backfill.TransactionPocketColumnsBackfill;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.List;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class TransactionPocketColumnsBackfillITest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionPocketColumnsBackfill backfill;
+
+    @Autowired
+    private PocketSummaryService pocketSummaryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+
+    @Test
+    void givenLegacyRowsWithoutTypedColumns_whenBackfill_thenOnlyRealPocketsAreLinked() {
+
+        Customer sender = customerRepository.save (aCustomer ("backfillA"));
+        Customer receiver = customerRepository.save (aCustomer ("backfillB"));
+        Pocket senderPocket = pocketRepository.save (aPocket (sender, "100"));
+
+        LocalDateTime createdOn = LocalDateTime.of (2025, 3, 5, 10, 0);
+
+        // outgoing leg of a transfer: sender column holds the pocket id
+        Transactions withdrawal = transactionRepository.save (aTransaction (sender, senderPocket.getId ().toString (),
+                "Clever Bank Service Ltd", TransactionType.WITHDRAWAL, "20", createdOn));
+
+        // incoming leg as the old code wrote it: the receiver column holds a customer id, not a pocket id
+        Transactions incoming = transactionRepository.save (aTransaction (receiver, senderPocket.getId ().toString (),
+                receiver.getId ().toString (), TransactionType.DEPOSIT, "20", createdOn));
+
+        // legacy rows: no typed columns and no pocket link
+        jdbcTemplate.update ("UPDATE transactions SET sender_pocket_id = NULL, receiver_pocket_id = NULL, pocket_id = NULL");
+
+        int updated = backfill.backfill ();
+
+        assertEquals (2, updated);
+
+        Transactions backfilledWithdrawal = transactionRepository.findById (withdrawal.getId ()).orElseThrow ();
+        assertEquals (senderPocket.getId (), backfilledWithdrawal.getSenderPocketId ());
+        assertNull (backfilledWithdrawal.getReceiverPocketId ());
+        assertEquals (senderPocket.getId (), backfilledWithdrawal.getPocket ().getId ());
+
+        Transactions backfilledIncoming = transactionRepository.findById (incoming.getId ()).orElseThrow ();
+        assertEquals (senderPocket.getId (), backfilledIncoming.getSenderPocketId ());
+        assertNull (backfilledIncoming.getReceiverPocketId ());
+        assertNull (backfilledIncoming.getPocket ());
+
+        // the monthly summary now sees the relinked withdrawal
+        List <PocketMonthlySummary> summaries = pocketSummaryService.getMonthlySummaries (senderPocket.getId (), sender.getId (), 12);
+        assertEquals (1, summaries.size ());
+        assertEquals (0, summaries.get (0).getTotalOut ().compareTo (new BigDecimal ("20")));
+    }
+
+
+
+    private static Transactions aTransaction(Customer customer, String senderValue, String receiverValue,
+                                             TransactionType type, String amount, LocalDateTime createdOn) {
+
+        return Transactions.builder ()
+                .customer (customer)
+                .sender (senderValue)
+                .receiver (receiverValue)
+                .amount (new BigDecimal (amount))
+                .remainingBalance (BigDecimal.TEN)
+                .currency (Currency.getInstance ("USD"))
+                .type (type)
+                .status (TransactionStatus.SUCCEEDED)
+                .createdOn (createdOn)
+                .build ();
+    }
+}
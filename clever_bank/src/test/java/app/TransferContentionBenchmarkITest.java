@@ -0,0 +1,205 @@
+package app;
+
+import app.customer.model.Customer;
+import app.customer.repository.CustomerRepository;
+import app.pocket.model.Pocket;
+import app.pocket.repository.PocketRepository;
+import app.pocket.service.PocketBalanceShardService;
+import app.pocket.service.PocketService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import app.transaction.repository.TransactionRepository;
+import app.web.dto.TransferResultRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static app.TestBuilder.aCustomer;
+import static app.TestBuilder.aPocket;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Stress benchmark: a burst of transfers from many senders into one merchant pocket, on plain
+// database row locks, with striped in-JVM locks and with a sharded merchant balance. Every run must
+// end with the same balances and journal rows; the throughput of each is logged for comparison.
+@Slf4j
+public class TransferContentionBenchmarkITest {
+
+    private static final int SENDERS = 12;
+    private static final int TRANSFERS = 120;
+    private static final int THREADS = 16;
+
+
+    @Nested
+    @ActiveProfiles("test")
+    @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+    @SpringBootTest(properties = "pocket-lock.striped.enabled=false")
+    class DatabaseRowLocks {
+
+        @Autowired
+        private CustomerRepository customerRepository;
+
+        @Autowired
+        private PocketRepository pocketRepository;
+
+        @Autowired
+        private PocketService pocketService;
+
+        @Autowired
+        private TransactionRepository transactionRepository;
+
+        @Test
+        void givenTransferBurstToOneMerchant_whenRowLocksOnly_thenBalancesAddUp() throws Exception {
+            runBurst ("database row locks", customerRepository, pocketRepository, transactionRepository, pocketService, null);
+        }
+    }
+
+
+    @Nested
+    @ActiveProfiles("test")
+    @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+    @SpringBootTest(properties = "pocket-lock.striped.enabled=true")
+    class StripedLocks {
+
+        @Autowired
+        private CustomerRepository customerRepository;
+
+        @Autowired
+        private PocketRepository pocketRepository;
+
+        @Autowired
+        private PocketService pocketService;
+
+        @Autowired
+        private TransactionRepository transactionRepository;
+
+        @Test
+        void givenTransferBurstToOneMerchant_whenStripedLocks_thenBalancesAddUp() throws Exception {
+            runBurst ("striped locks", customerRepository, pocketRepository, transactionRepository, pocketService, null);
+        }
+    }
+
+
+
+    @Nested
+    @ActiveProfiles("test")
+    @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+    @SpringBootTest(properties = "pocket-lock.striped.enabled=false")
+    class ShardedMerchantBalance {
+
+        @Autowired
+        private CustomerRepository customerRepository;
+
+        @Autowired
+        private PocketRepository pocketRepository;
+
+        @Autowired
+        private PocketService pocketService;
+
+        @Autowired
+        private TransactionRepository transactionRepository;
+
+        @Autowired
+        private PocketBalanceShardService pocketBalanceShardService;
+
+        @Test
+        void givenTransferBurstToOneMerchant_whenMerchantBalanceIsSharded_thenBalancesAddUp() throws Exception {
+            runBurst ("8 balance shards", customerRepository, pocketRepository, transactionRepository, pocketService, pocketBalanceShardService);
+        }
+    }
+
+
+
+    private static void runBurst(String mode, CustomerRepository customerRepository, PocketRepository pocketRepository,
+                                 TransactionRepository transactionRepository, PocketService pocketService,
+                                 PocketBalanceShardService shardService) throws Exception {
+
+        Customer merchant = customerRepository.save (aCustomer ("merchant"));
+        Pocket merchantPocket = pocketRepository.save (aPocket (merchant, "1000"));
+        if (shardService != null) {
+            shardService.configureShards (merchantPocket.getId (), 8);
+        }
+
+        List <Customer> senders = new ArrayList <> ();
+        List <Pocket> senderPockets = new ArrayList <> ();
+        for (int i = 0; i < SENDERS; i++) {
+            Customer sender = customerRepository.save (aCustomer ("payer" + i));
+            senders.add (sender);
+            senderPockets.add (pocketRepository.save (aPocket (sender, "1000")));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool (THREADS);
+        CountDownLatch start = new CountDownLatch (1);
+        List <Future <Transactions>> futures = new ArrayList <> ();
+
+        for (int i = 0; i < TRANSFERS; i++) {
+            int sender = i % SENDERS;
+            futures.add (executor.submit (() -> {
+                start.await ();
+                return pocketService.transfer (aTransfer (senderPockets.get (sender), merchant), senders.get (sender));
+            }));
+        }
+
+        long started = System.nanoTime ();
+        start.countDown ();
+
+        int succeeded = 0;
+        for (Future <Transactions> future : futures) {
+            if (future.get (120, TimeUnit.SECONDS).getStatus () == TransactionStatus.SUCCEEDED) {
+                succeeded++;
+            }
+        }
+        long elapsedMillis = Math.max (TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - started), 1);
+        executor.shutdown ();
+
+        log.warn ("Transfer burst with %s: %d transfers in %d ms (%.1f transfers/s)"
+                .formatted (mode, TRANSFERS, elapsedMillis, TRANSFERS * 1000.0 / elapsedMillis));
+
+        assertEquals (TRANSFERS, succeeded);
+        assertEquals (0, balanceOf (pocketRepository, merchantPocket).compareTo (new BigDecimal ("1000").add (BigDecimal.valueOf (TRANSFERS))));
+
+        BigDecimal total = balanceOf (pocketRepository, merchantPocket);
+        for (Pocket pocket : senderPockets) {
+            total = total.add (balanceOf (pocketRepository, pocket));
+        }
+        assertEquals (0, total.compareTo (new BigDecimal ("1000").multiply (BigDecimal.valueOf (SENDERS + 1L))));
+
+        // every sender paid its share, and each transfer left exactly one row on either side
+        for (Pocket pocket : senderPockets) {
+            assertEquals (0, balanceOf (pocketRepository, pocket).compareTo (new BigDecimal ("1000").subtract (BigDecimal.valueOf (TRANSFERS / SENDERS))));
+            assertRows (transactionRepository, pocket, TransactionType.WITHDRAWAL, TRANSFERS / SENDERS);
+        }
+        assertRows (transactionRepository, merchantPocket, TransactionType.DEPOSIT, TRANSFERS);
+        assertEquals (2L * TRANSFERS, transactionRepository.count ());
+    }
+
+    private static void assertRows(TransactionRepository transactionRepository, Pocket pocket, TransactionType type, int expected) {
+
+        List <Transactions> rows = transactionRepository.findByPocketId (pocket.getId ());
+        assertEquals (expected, rows.size ());
+        assertTrue (rows.stream ().allMatch (row -> row.getType () == type && row.getStatus () == TransactionStatus.SUCCEEDED));
+    }
+
+    private static BigDecimal balanceOf(PocketRepository pocketRepository, Pocket pocket) {
+        return pocketRepository.findBalanceViews (List.of (pocket.getId ())).get (0).availableBalance ();
+    }
+
+    private static TransferResultRequest aTransfer(Pocket from, Customer to) {
+
+        TransferResultRequest request = new TransferResultRequest ();
+        request.setPocketId (from.getId ());
+        request.setUsername (to.getUsername ());
+        request.setAmount (BigDecimal.ONE);
+        return request;
+    }
+}
@@ -115,8 +115,8 @@ public class TransferITest {
         Pocket updatedSenderPocket = pocketRepository.findById(senderPocket.getId()).get();
         Pocket updatedReceiverPocket = pocketRepository.findById(receiverPocket.getId()).get();
 
-        assertEquals(new BigDecimal("800"), updatedSenderPocket.getBalance());
-        assertEquals(new BigDecimal("700"), updatedReceiverPocket.getBalance());
+        assertEquals(0, new BigDecimal("800").compareTo(updatedSenderPocket.getBalance()));
+        assertEquals(0, new BigDecimal("700").compareTo(updatedReceiverPocket.getBalance()));
 
     }
 
@@ -6,6 +6,7 @@ import app.customer.model.Gender;
 import app.customer.model.UserRole;
 import app.customer.repository.CustomerRepository;
 
+import app.fee.service.MonthlyFeeService;
 import app.pocket.model.Pocket;
 import app.pocket.model.PocketStatus;
 import app.pocket.repository.PocketRepository;
@@ -47,6 +48,9 @@ public class WithdrawITest {
     @Autowired
     private PocketService pocketService;
 
+    @Autowired
+    private MonthlyFeeService monthlyFeeService;
+
 
 
 
@@ -163,7 +167,7 @@ public class WithdrawITest {
         pocket = pocketRepository.save(pocket);
 
 
-        pocketService.applyMonthlyFees();
+        monthlyFeeService.applyMonthlyFees();
 
 
         Pocket updatedPocket = pocketRepository.findById(pocket.getId()).orElseThrow();
@@ -1,5 +1,6 @@
 package app.bill;
 
+import app.analytics.service.SpendingAnalyticsService;
 import app.bills_utility.model.Bill;
 import app.bills_utility.model.BillCategory;
 import app.bills_utility.model.BillStatus;
@@ -13,6 +14,9 @@ import app.customer.repository.CustomerRepository;
 import app.pocket.model.Pocket;
 import app.pocket.model.PocketStatus;
 import app.pocket.service.PocketService;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
 import app.web.dto.BillsRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -46,6 +50,9 @@ public class BillServiceUnitTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private SpendingAnalyticsService spendingAnalyticsService;
+
     @InjectMocks
     private BillService billService;
 
@@ -109,6 +116,8 @@ public class BillServiceUnitTest {
     @Test
     void payBill_shouldMarkBillAsPaid_whenBalanceIsSufficient() {
         when (billRepository.findById (unpaidBill.getId ())).thenReturn (Optional.of (unpaidBill));
+        when (pocketService.withdraw (customer, activePocket.getId (), unpaidBill.getAmount (), unpaidBill.getDescription (), TransactionType.BILL_PAYMENT))
+                .thenReturn (aPayment (TransactionStatus.SUCCEEDED));
 
         Bill result = billService.payBill (unpaidBill.getId ());
 
@@ -116,8 +125,9 @@ public class BillServiceUnitTest {
         assertNotNull (result.getUpdatedOn ());
 
         verify (pocketService, times (1))
-                .withdraw (customer, activePocket.getId (), unpaidBill.getAmount (), unpaidBill.getDescription ());
+                .withdraw (customer, activePocket.getId (), unpaidBill.getAmount (), unpaidBill.getDescription (), TransactionType.BILL_PAYMENT);
         verify (billRepository, times (1)).save (unpaidBill);
+        verify (spendingAnalyticsService, times (1)).evictAfterCommit (customer.getId ());
     }
 
 
@@ -129,7 +139,7 @@ public class BillServiceUnitTest {
 
         assertEquals ("Bill is already paid", exception.getMessage ());
 
-        verify (pocketService, never ()).withdraw (any (), any (), any (), any ());
+        verify (pocketService, never ()).withdraw (any (), any (), any (), any (), any ());
         verify (billRepository, never ()).save (any ());
 
     }
@@ -137,16 +147,19 @@ public class BillServiceUnitTest {
 
     @Test
     void payBill_shouldCancelBill_whenBalanceIsInsufficient() {
-        activePocket.setBalance (new BigDecimal ("50.00"));
+        // the balance read here still covers the bill, only the debit itself knows it did not go through
         when (billRepository.findById (unpaidBill.getId ())).thenReturn (Optional.of (unpaidBill));
+        when (pocketService.withdraw (customer, activePocket.getId (), unpaidBill.getAmount (), unpaidBill.getDescription (), TransactionType.BILL_PAYMENT))
+                .thenReturn (aPayment (TransactionStatus.FAILED));
 
         Bill result = billService.payBill (unpaidBill.getId ());
 
         assertEquals (BillStatus.CANCELED, result.getStatus ());
         assertNotNull (result.getUpdatedOn ());
 
-        verify (pocketService, times (1)).withdraw (customer, activePocket.getId (), unpaidBill.getAmount (), unpaidBill.getDescription ());
+        verify (pocketService, times (1)).withdraw (customer, activePocket.getId (), unpaidBill.getAmount (), unpaidBill.getDescription (), TransactionType.BILL_PAYMENT);
         verify (billRepository, times (1)).save (unpaidBill);
+        verifyNoInteractions (spendingAnalyticsService);
 
     }
 
@@ -185,4 +198,17 @@ public class BillServiceUnitTest {
 
         verify (billRepository, times (1)).save (any (Bill.class));
     }
+
+
+
+    private Transactions aPayment(TransactionStatus status) {
+
+        return Transactions.builder ()
+                .customer (customer)
+                .pocket (activePocket)
+                .amount (unpaidBill.getAmount ())
+                .type (TransactionType.BILL_PAYMENT)
+                .status (status)
+                .build ();
+    }
 }
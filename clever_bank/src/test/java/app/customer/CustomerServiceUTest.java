@@ -4,6 +4,8 @@ import app.cards.model.Cards;
 import app.cards.service.CardService;
 import app.customer.model.Country;
 import app.customer.model.Customer;
+import app.customer.model.CustomerDirectoryRow;
+import app.customer.model.CustomerDirectorySort;
 import app.customer.model.Gender;
 import app.customer.model.UserRole;
 import app.customer.repository.CustomerRepository;
@@ -27,11 +29,16 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
+import java.util.Currency;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -161,22 +168,35 @@ public class CustomerServiceUTest {
 
 
     @Test
-    void givenCustomersExist_WhenGetAllCustomers_thenReturnThemAll() {
+    void givenNoQuery_WhenGetDirectory_thenReturnPageSortedByColumnThenId() {
 
         // given
-        List<Customer> customers = List.of (
-                Customer.builder().build(),
-                Customer.builder().build()
-        );
-
-        when (customerRepository.findAll()).thenReturn (customers);
+        Page <CustomerDirectoryRow> page = new PageImpl <> (List.of ());
+        when (customerRepository.findDirectory (any ())).thenReturn (page);
 
         // when
-        List<Customer> result = customerService.getALLCustomers ();
+        Page <CustomerDirectoryRow> result = customerService.getDirectory ("  ", CustomerDirectorySort.EMAIL, Sort.Direction.DESC, 2, 500);
 
         // then
-        assertEquals (customers, result);
+        assertEquals (page, result);
+        verify (customerRepository, never ()).searchDirectory (any (), any ());
+        verify (customerRepository).findDirectory (PageRequest.of (2, CustomerService.MAX_DIRECTORY_PAGE_SIZE,
+                Sort.by (Sort.Direction.DESC, "email").and (Sort.by (Sort.Direction.DESC, "id"))));
+    }
+
+
+    @Test
+    void givenQueryWithWildcards_WhenGetDirectory_thenSearchByEscapedPrefix() {
 
+        // given
+        when (customerRepository.searchDirectory (any (), any ())).thenReturn (new PageImpl <> (List.of ()));
+
+        // when
+        customerService.getDirectory (" ven_1%! ", CustomerDirectorySort.USERNAME, Sort.Direction.ASC, 0, 25);
+
+        // then
+        verify (customerRepository).searchDirectory (eq ("ven!_1!%!!%"), any ());
+        verify (customerRepository, never ()).findDirectory (any ());
     }
 
 
@@ -198,7 +218,7 @@ public class CustomerServiceUTest {
         assertThrows (CustomerAlreadyExistException.class, ()-> customerService.register (register));
         verify (customerRepository, never ()).save (any ());
         verify (subscriptionService, never ()).createDefaultSubscription (any ());
-        verify (pocketService, never ()).createWallet (any ());
+        verify (pocketService, never ()).createWallet (any (), any ());
         verify (cardsService, never ()).createDefaultCard (any ());
         verify (notificationService, never ()).saveNotificationPreference (any (UUID.class), anyBoolean (), anyString ());
     }
@@ -215,6 +235,7 @@ public class CustomerServiceUTest {
                 .phoneNumber("0895121212")
                 .country(Country.BULGARIA)
                 .gender (Gender.MALE)
+                .currency (Currency.getInstance ("EUR"))
                 .build();
 
         Customer customer = Customer.builder ()
@@ -229,7 +250,7 @@ public class CustomerServiceUTest {
         when (customerRepository.findByUsername (register.getUsername ())).thenReturn (Optional.empty ());
         when (customerRepository.save (any ())).thenReturn (customer);
         when (subscriptionService.createDefaultSubscription (customer)).thenReturn (new Subscription ());
-        when (pocketService.createWallet (customer)).thenReturn (new Pocket ());
+        when (pocketService.createWallet (customer, Currency.getInstance ("EUR"))).thenReturn (new Pocket ());
         when (cardsService.createDefaultCard (customer)).thenReturn (new Cards ());
 
         //when
@@ -0,0 +1,57 @@
+package app.fx;
+
+import app.exception.DomainException;
+import app.fx.model.FxConversion;
+import app.fx.model.FxRateSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FxRateSnapshotUTest {
+
+    private static final Currency USD = Currency.getInstance ("USD");
+    private static final Currency EUR = Currency.getInstance ("EUR");
+    private static final Currency BGN = Currency.getInstance ("BGN");
+    private static final Currency JPY = Currency.getInstance ("JPY");
+
+    private final FxRateSnapshot snapshot = new FxRateSnapshot (USD,
+            Map.of (EUR, new BigDecimal ("0.92"), BGN, new BigDecimal ("1.80"), JPY, new BigDecimal ("151.50")),
+            LocalDateTime.now ());
+
+
+    @Test
+    void givenTwoNonBaseCurrencies_whenConvert_thenCrossRateGoesThroughBase() {
+
+        FxConversion conversion = snapshot.convert (new BigDecimal ("100.00"), EUR, BGN);
+
+        assertEquals (0, new BigDecimal ("1.9565217391").compareTo (conversion.rate ()));
+        assertEquals (new BigDecimal ("195.65"), conversion.amount ());
+        assertEquals (BGN, conversion.currency ());
+    }
+
+
+    @Test
+    void givenCurrencyWithoutMinorUnit_whenConvert_thenRoundedToWholeUnits() {
+
+        FxConversion conversion = snapshot.convert (new BigDecimal ("10.00"), USD, JPY);
+
+        assertEquals (new BigDecimal ("1515"), conversion.amount ());
+        assertEquals (BigDecimal.ONE, snapshot.rate (EUR, EUR));
+    }
+
+
+    @Test
+    void givenUnknownCurrency_whenConvert_thenThrowsAndBaseIsAlwaysSupported() {
+
+        assertThrows (DomainException.class, () -> snapshot.convert (BigDecimal.TEN, USD, Currency.getInstance ("GBP")));
+        assertTrue (snapshot.supports (USD));
+        assertEquals (List.of (BGN, EUR, JPY, USD), snapshot.currencies ());
+        assertThrows (IllegalArgumentException.class, () -> new FxRateSnapshot (USD, Map.of (EUR, BigDecimal.ZERO), LocalDateTime.now ()));
+    }
+}
@@ -0,0 +1,100 @@
+package app.pocket;
+
+import app.exception.DomainException;
+import app.pocket.lock.PocketLockManager;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PocketLockManagerUTest {
+
+
+    @Test
+    void givenDisabledManager_whenWithLocks_thenActionRunsWithoutMeters() {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry ();
+        PocketLockManager manager = new PocketLockManager (false, 16, Duration.ofSeconds (1), registry);
+
+        assertEquals ("done", manager.withLocks (List.of (UUID.randomUUID ()), () -> "done"));
+        assertTrue (registry.getMeters ().isEmpty ());
+    }
+
+
+    @Test
+    void givenTransfersInOppositeDirections_whenRunConcurrently_thenNoDeadlockAndUpdatesAreSerialized() throws Exception {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry ();
+        PocketLockManager manager = new PocketLockManager (true, 8, Duration.ofSeconds (5), registry);
+
+        UUID first = UUID.randomUUID ();
+        UUID second = UUID.randomUUID ();
+        int[] counter = new int[1];
+
+        ExecutorService executor = Executors.newFixedThreadPool (2);
+        CountDownLatch start = new CountDownLatch (1);
+
+        Future <?> forward = executor.submit (() -> repeat (start, manager, List.of (first, second), counter));
+        Future <?> backward = executor.submit (() -> repeat (start, manager, List.of (second, first), counter));
+        start.countDown ();
+
+        forward.get (30, TimeUnit.SECONDS);
+        backward.get (30, TimeUnit.SECONDS);
+        executor.shutdown ();
+
+        assertEquals (20000, counter[0]);
+        long waits = registry.find ("pocket.lock.wait").timers ().stream ().mapToLong (Timer::count).sum ();
+        assertTrue (waits >= 20000);
+    }
+
+
+    @Test
+    void givenStripeHeldByAnotherThread_whenWaitTimesOut_thenServiceUnavailable() throws Exception {
+
+        PocketLockManager manager = new PocketLockManager (true, 4, Duration.ofMillis (50), new SimpleMeterRegistry ());
+        UUID pocketId = UUID.randomUUID ();
+
+        CountDownLatch held = new CountDownLatch (1);
+        CountDownLatch release = new CountDownLatch (1);
+        ExecutorService executor = Executors.newSingleThreadExecutor ();
+
+        executor.submit (() -> manager.withLocks (List.of (pocketId), () -> {
+            held.countDown ();
+            await (release);
+            return null;
+        }));
+        held.await (5, TimeUnit.SECONDS);
+
+        DomainException exception = assertThrows (DomainException.class,
+                () -> manager.withLocks (List.of (pocketId), () -> "never"));
+        assertEquals (HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus ());
+
+        release.countDown ();
+        executor.shutdown ();
+    }
+
+
+
+    private static void repeat(CountDownLatch start, PocketLockManager manager, List <UUID> pocketIds, int[] counter) {
+
+        await (start);
+        for (int i = 0; i < 10000; i++) {
+            manager.withLocks (pocketIds, () -> counter[0]++);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await ();
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+        }
+    }
+}
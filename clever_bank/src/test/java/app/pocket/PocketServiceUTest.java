@@ -1,10 +1,12 @@
 package app.pocket;
 
+import app.analytics.service.SpendingAnalyticsService;
 import app.customer.model.Country;
 import app.customer.model.Customer;
 import app.customer.model.Gender;
 import app.customer.model.UserRole;
 import app.exception.DomainException;
+import app.pocket.cache.ReceiverPocketCache;
 import app.pocket.model.Pocket;
 import app.pocket.model.PocketStatus;
 import app.pocket.model.PocketType;
@@ -38,6 +40,10 @@ public class PocketServiceUTest {
     private  TransactionService transactionService;
     @Mock
     private  TransactionRepository transactionRepository;
+    @Mock
+    private  SpendingAnalyticsService spendingAnalyticsService;
+    @Mock
+    private  ReceiverPocketCache receiverPocketCache;
 
     @InjectMocks
     private PocketService pocketService;
@@ -81,7 +87,8 @@ public class PocketServiceUTest {
        List <Transactions> expectedTransaction = List.of (new Transactions (), new Transactions (), new Transactions ());
 
        //when
-       when( transactionService.getLastSevenTransactionsByPocketId (pocket)).thenReturn (expectedTransaction);
+       when( transactionService.getRecentTransactionsByPockets (customer.getId (), pockets))
+               .thenReturn (Map.of (pocket.getId (), expectedTransaction));
 
        Map <UUID, List <Transactions>> result = pocketService.getLastSevenTransactions (pockets);
 
@@ -89,6 +96,18 @@ public class PocketServiceUTest {
        assertNotNull (result);
        assertEquals (1, result.size ());
        assertEquals (expectedTransaction, result.get (pocket.getId ()));
+       verify (transactionService, times (1)).getRecentTransactionsByPockets (customer.getId (), pockets);
+    }
+
+
+
+    @Test
+    void givenNoPockets_whenInvokeGetLastSevenTransactions_thenReturnEmptyWithoutQuery() {
+
+       Map <UUID, List <Transactions>> result = pocketService.getLastSevenTransactions (List.of ());
+
+       assertEquals (0, result.size ());
+       verifyNoInteractions (transactionService);
     }
 
 
@@ -140,6 +159,7 @@ public class PocketServiceUTest {
         //then
         assertEquals (PocketStatus.INACTIVE, pocket.getStatus());
         verify (pocketRepository, times (1)).save (pocket);
+        verify (receiverPocketCache, times (1)).evictAfterCommit (customer.getUsername ());
     }
 
     @Test
@@ -189,6 +209,7 @@ public class PocketServiceUTest {
         //then
         assertEquals (PocketStatus.ACTIVE, pocket.getStatus());
         verify (pocketRepository, times (1)).save (pocket);
+        verify (receiverPocketCache, times (1)).evictAfterCommit (customer.getUsername ());
     }
 
 
@@ -206,6 +227,7 @@ public class PocketServiceUTest {
        assertThrows (DomainException.class, () -> pocketService.switchStatusWallet(pocketId, customerId));
 
        verify (pocketRepository, never ()).save(any ());
+       verifyNoInteractions (receiverPocketCache);
        verify (pocketRepository, times (1)).findByIdAndCustomerId(pocketId, customerId);
     }
 }
@@ -0,0 +1,65 @@
+package app.standing_order;
+
+import app.standing_order.wheel.HierarchicalTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchicalTimingWheelUTest {
+
+
+    @Test
+    void givenEntriesOnEveryLevel_whenAdvancedTickByTick_thenEachFiresExactlyOnItsTick() {
+
+        // 4 slots x 3 levels: ticks of 10 ms, range 640 ms
+        HierarchicalTimingWheel <Long> wheel = new HierarchicalTimingWheel <> (10, 4, 3, 0);
+
+        Random random = new Random (42);
+        List <Long> deadlines = new ArrayList <> ();
+        for (int i = 0; i < 200; i++) {
+            long deadline = 10 + random.nextInt (630);
+            deadlines.add (deadline);
+            wheel.add (deadline, deadline);
+        }
+
+        assertEquals (200, wheel.size ());
+
+        for (long now = 0; now <= 640; now += 10) {
+            for (long fired : wheel.advance (now)) {
+                assertEquals (fired / 10, now / 10, "entry for %d ms fired at %d ms".formatted (fired, now));
+                deadlines.remove (Long.valueOf (fired));
+            }
+        }
+
+        assertTrue (deadlines.isEmpty ());
+        assertEquals (0, wheel.size ());
+    }
+
+
+    @Test
+    void givenOverdueEntry_whenAdvanced_thenFiresRightAway() {
+
+        HierarchicalTimingWheel <String> wheel = new HierarchicalTimingWheel <> (1000, 64, 4, 10_000);
+
+        wheel.add ("late", 2_000);
+        wheel.add ("later", 15_000);
+
+        assertEquals (List.of ("late"), wheel.advance (10_000));
+        assertEquals (List.of (), wheel.advance (14_000));
+        assertEquals (List.of ("later"), wheel.advance (20_000));
+    }
+
+
+    @Test
+    void givenDeadlineBeyondRange_whenAdd_thenRejected() {
+
+        HierarchicalTimingWheel <String> wheel = new HierarchicalTimingWheel <> (1000, 8, 2, 0);
+
+        assertEquals (64_000, wheel.getRangeMillis ());
+        assertThrows (IllegalArgumentException.class, () -> wheel.add ("too far", 64_000));
+    }
+}
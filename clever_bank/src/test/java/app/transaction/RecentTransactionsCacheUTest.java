@@ -0,0 +1,142 @@
+package app.transaction;
+
+import app.customer.model.Customer;
+import app.pocket.model.Pocket;
+import app.transaction.cache.RecentTransactionsCache;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.model.Transactions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RecentTransactionsCacheUTest {
+
+    private RecentTransactionsCache cache;
+    private Customer customer;
+    private Pocket pocket;
+
+
+    @BeforeEach
+    void setUp() {
+
+        cache = new RecentTransactionsCache (3, 100, Duration.ofMinutes (5), new SimpleMeterRegistry ());
+        customer = Customer.builder ().id (UUID.randomUUID ()).build ();
+        pocket = Pocket.builder ().id (UUID.randomUUID ()).customer (customer).build ();
+    }
+
+
+    @Test
+    void givenWarmPocket_whenGetRecentAgain_thenServeFromMemoryWithoutLoader() {
+
+        AtomicInteger loads = new AtomicInteger ();
+        Transactions first = aWithdrawal (pocket, LocalDateTime.now ());
+
+        cache.getRecent (customer.getId (), List.of (pocket), missing -> {
+            loads.incrementAndGet ();
+            return Map.of (pocket.getId (), List.of (first));
+        });
+
+        Map <UUID, List <Transactions>> result = cache.getRecent (customer.getId (), List.of (pocket), missing -> {
+            loads.incrementAndGet ();
+            return Map.of ();
+        });
+
+        assertEquals (1, loads.get ());
+        assertEquals (first.getId (), result.get (pocket.getId ()).get (0).getId ());
+    }
+
+
+    @Test
+    void givenWarmPocket_whenRecordMoreThanCapacity_thenKeepOnlyNewestFirst() {
+
+        cache.getRecent (customer.getId (), List.of (pocket), missing -> Map.of (pocket.getId (), List.of ()));
+
+        List <Transactions> recorded = new ArrayList <> ();
+        for (int i = 0; i < 5; i++) {
+            Transactions transaction = aWithdrawal (pocket, LocalDateTime.now ().plusSeconds (i));
+            recorded.add (transaction);
+            cache.recordAfterCommit (transaction);
+        }
+
+        List <Transactions> result = cache.getRecent (customer.getId (), List.of (pocket), missing -> Map.of ())
+                .get (pocket.getId ());
+
+        assertEquals (3, result.size ());
+        assertEquals (recorded.get (4).getId (), result.get (0).getId ());
+        assertEquals (recorded.get (2).getId (), result.get (2).getId ());
+    }
+
+
+    @Test
+    void givenWriteDuringWarmUp_whenGetRecent_thenLoadedRowsAreNotCached() {
+
+        AtomicInteger loads = new AtomicInteger ();
+
+        cache.getRecent (customer.getId (), List.of (pocket), missing -> {
+            loads.incrementAndGet ();
+            cache.recordAfterCommit (aWithdrawal (pocket, LocalDateTime.now ()));
+            return Map.of (pocket.getId (), List.of ());
+        });
+
+        cache.getRecent (customer.getId (), List.of (pocket), missing -> {
+            loads.incrementAndGet ();
+            return Map.of (pocket.getId (), List.of ());
+        });
+
+        assertEquals (2, loads.get ());
+    }
+
+
+    @Test
+    void givenTransferBetweenOwnPockets_whenRecorded_thenEachRowGoesToItsOwnPocket() {
+
+        Pocket savings = Pocket.builder ().id (UUID.randomUUID ()).customer (customer).build ();
+        cache.getRecent (customer.getId (), List.of (pocket, savings), missing -> Map.of ());
+
+        Transactions outgoing = aWithdrawal (savings, LocalDateTime.now ());
+        outgoing.setReceiverPocketId (pocket.getId ());
+
+        Transactions incoming = aWithdrawal (pocket, LocalDateTime.now ());
+        incoming.setType (TransactionType.DEPOSIT);
+        incoming.setSenderPocketId (savings.getId ());
+        incoming.setReceiverPocketId (pocket.getId ());
+
+        cache.recordAfterCommit (outgoing);
+        cache.recordAfterCommit (incoming);
+
+        Map <UUID, List <Transactions>> result = cache.getRecent (customer.getId (), List.of (pocket, savings), missing -> Map.of ());
+
+        assertEquals (List.of (incoming.getId ()), result.get (pocket.getId ()).stream ().map (Transactions::getId).toList ());
+        assertEquals (List.of (outgoing.getId ()), result.get (savings.getId ()).stream ().map (Transactions::getId).toList ());
+    }
+
+
+
+    private Transactions aWithdrawal(Pocket pocket, LocalDateTime createdOn) {
+
+        return Transactions.builder ()
+                .id (UUID.randomUUID ())
+                .customer (customer)
+                .pocket (pocket)
+                .sender (pocket.getId ().toString ())
+                .senderPocketId (pocket.getId ())
+                .receiver ("Clever Bank Service Ltd")
+                .amount (BigDecimal.ONE)
+                .type (TransactionType.WITHDRAWAL)
+                .status (TransactionStatus.SUCCEEDED)
+                .createdOn (createdOn)
+                .build ();
+    }
+}
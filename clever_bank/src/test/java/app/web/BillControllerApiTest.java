@@ -1,12 +1,14 @@
 package app.web;
 
 
+import app.analytics.service.SpendingAnalyticsService;
 import app.bills_utility.model.Bill;
 import app.bills_utility.model.BillCategory;
 import app.bills_utility.model.BillStatus;
 import app.bills_utility.repository.BillRepository;
 import app.bills_utility.service.BillService;
 import app.customer.model.Customer;
+import app.customer.model.CustomerHeader;
 import app.customer.model.UserRole;
 import app.customer.service.CustomerService;
 import app.security.AuthenticationMetadataDetails;
@@ -43,6 +45,8 @@ public class BillControllerApiTest {
     private TransactionService transactionService;
     @MockitoBean
     private BillRepository billRepository;
+    @MockitoBean
+    private SpendingAnalyticsService spendingAnalyticsService;
 
     @Autowired
     private MockMvc mockMvc;
@@ -100,8 +104,9 @@ public class BillControllerApiTest {
         billsRequest.setDescription ("Electricity Bill");
 
 
-        when (customerService.getById (authenticationMetadataDetails.getCustomerId ())).thenReturn (customer);
-        when (billService.getAllBillsByCustomer (customer)).thenReturn (List.of (bill));
+        when (customerService.getHeader (authenticationMetadataDetails.getCustomerId ())).thenReturn (new CustomerHeader (
+                customer.getId (), customer.getUsername (), customer.getFirstName (), customer.getLastName (), customer.getRole ()));
+        when (billService.getAllBillsByCustomerId (customer.getId ())).thenReturn (List.of (bill));
 
         //when
         MockHttpServletRequestBuilder request = get ("/bills")
@@ -116,8 +121,8 @@ public class BillControllerApiTest {
                 .andExpect (model().attributeExists ("billsRequest"));
 
 
-        verify(billService, times(1)).getAllBillsByCustomer(customer);
-        verify(customerService, times(1)).getById(authenticationMetadataDetails.getCustomerId ());
+        verify(billService, times(1)).getAllBillsByCustomerId(customer.getId ());
+        verify(customerService, times(1)).getHeader(authenticationMetadataDetails.getCustomerId ());
     }
 
 
@@ -221,7 +226,6 @@ public class BillControllerApiTest {
                 LocalDateTime.now ()
         );
 
-        when (customerService.getById (authenticationMetadataDetails.getCustomerId ())).thenReturn (customer);
         when (billService.payBill (bill.getId ())).thenReturn (bill);
 
         MockHttpServletRequestBuilder request = post("/bills/pay/{id}", bill.getId ())
@@ -234,7 +238,7 @@ public class BillControllerApiTest {
                 .andExpect (flash().attributeExists("success"));
 
         verify (billService, times (1)).payBill (bill.getId ());
-        verify (customerService, times (1)).getById (authenticationMetadataDetails.getCustomerId ());
+        verifyNoInteractions (customerService);
     }
 
 
@@ -252,7 +256,6 @@ public class BillControllerApiTest {
                 LocalDateTime.now ()
         );
 
-        when (customerService.getById (authenticationMetadataDetails.getCustomerId ())).thenReturn (customer);
         doNothing ().when (billService).deleteBill (bill.getId ());
 
         MockHttpServletRequestBuilder request = delete ("/bills/delete/{id}", bill.getId ())
@@ -265,7 +268,7 @@ public class BillControllerApiTest {
                 .andExpect (flash().attributeExists("successMessage"));
 
         verify (billService, times (1)).deleteBill (bill.getId ());
-        verify (customerService, times (1)).getById (authenticationMetadataDetails.getCustomerId ());
+        verifyNoInteractions (customerService);
     }
 
 }
@@ -1,7 +1,10 @@
 package app.web;
 
 
+import app.customer.model.Country;
 import app.customer.model.Customer;
+import app.customer.model.CustomerDirectoryRow;
+import app.customer.model.CustomerDirectorySort;
 import app.customer.model.UserRole;
 import app.customer.service.CustomerService;
 import app.security.AuthenticationMetadataDetails;
@@ -11,11 +14,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Sort;
+
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -226,14 +233,17 @@ public class CustomerControllerApiTest {
                 LocalDateTime.now(), LocalDateTime.now()
         );
 
+        when (customerService.getDirectory (null, CustomerDirectorySort.USERNAME, Sort.Direction.ASC, 0, 25))
+                .thenReturn (new PageImpl <> (List.of (new CustomerDirectoryRow (customerId, "Venko123", null, "0895121212",
+                        UserRole.ADMIN, Country.BULGARIA, true, LocalDateTime.now ()))));
 
         mockMvc.perform(get("/customers").with (user (principal))
                         .with(user("Venko123").roles("ADMIN"))
                         .with(csrf()))
                 .andExpect(status().isOk())
                 .andExpect(view().name("customers"))
-                .andExpect(model().attributeExists("customers"));
+                .andExpect(model().attributeExists("customers", "customerPage"));
 
-        verify(customerService, times(1)).getALLCustomers();
+        verify(customerService, times(1)).getDirectory(null, CustomerDirectorySort.USERNAME, Sort.Direction.ASC, 0, 25);
     }
 }
\ No newline at end of file
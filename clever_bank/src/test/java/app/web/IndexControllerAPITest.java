@@ -5,6 +5,8 @@ import app.customer.model.Customer;
 import app.customer.model.UserRole;
 import app.customer.service.CustomerService;
 import app.exception.CustomerAlreadyExistException;
+import app.fx.model.FxRateSnapshot;
+import app.fx.service.FxRateService;
 import app.message.service.MessageService;
 import app.security.AuthenticationMetadataDetails;
 import org.junit.jupiter.api.Test;
@@ -18,8 +20,11 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Currency;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import static app.TestBuilder.aRandomCustomer;
 import static org.mockito.Mockito.*;
@@ -44,6 +49,8 @@ public class IndexControllerAPITest {
     private MessageService messageService;
     @MockitoBean
     private CardService cardService;
+    @MockitoBean
+    private FxRateService fxRateService;
 
 
 
@@ -74,11 +81,12 @@ public class IndexControllerAPITest {
     @Test
     void givenRequestToRegister_thenReturnRegisterPage() throws Exception {
 
+        when (fxRateService.current ()).thenReturn (aRateSnapshot ());
         MockHttpServletRequestBuilder request = get ("/register");
         mockMvc.perform (request)
                 .andExpect (status ().isOk ())
                 .andExpect (view ().name ("register"))
-                .andExpect (model ().attributeExists ("registerRequest"));
+                .andExpect (model ().attributeExists ("registerRequest", "currencies"));
     }
 
 
@@ -91,12 +99,13 @@ public class IndexControllerAPITest {
                 .param ("phoneNumber", "0895121212")
                 .param ("country", "BULGARIA")
                 .param ("gender", "MALE")
+                .param ("currency", "EUR")
                 .with (csrf ());
 
         mockMvc.perform (request)
                 .andExpect (status ().is3xxRedirection ())
                 .andExpect (redirectedUrl ("/login"));
-        verify (customerService, times (1)).register (any ());
+        verify (customerService, times (1)).register (argThat (register -> Currency.getInstance ("EUR").equals (register.getCurrency ())));
     }
 
 
@@ -124,6 +133,7 @@ public class IndexControllerAPITest {
     @Test
     void givenRequestToRegisterEndpointWhenBindingResultHasErrors_thenRedirectToRegisterWithFlashParameter() throws Exception {
 
+        when (fxRateService.current ()).thenReturn (aRateSnapshot ());
         MockHttpServletRequestBuilder request = post ("/register")
                 .param ("username", "Venko123")
                 .param ("password", "123123")
@@ -180,7 +190,7 @@ public class IndexControllerAPITest {
 
 
         Customer mockCustomer = aRandomCustomer ();
-        when(customerService.getById(customerId)).thenReturn(mockCustomer);
+        when(customerService.getByIdWithWallets(customerId)).thenReturn(mockCustomer);
 
         UsernamePasswordAuthenticationToken authentication =
                 new UsernamePasswordAuthenticationToken (
@@ -198,7 +208,7 @@ public class IndexControllerAPITest {
                 .andExpect(view().name("home"));
 
 
-        verify(customerService, times(1)).getById(customerId);
+        verify(customerService, times(1)).getByIdWithWallets(customerId);
     }
 
 
@@ -266,4 +276,9 @@ public class IndexControllerAPITest {
                 .andExpect(view().name("thank-you"));
     }
 
+
+
+    private static FxRateSnapshot aRateSnapshot() {
+        return new FxRateSnapshot (Currency.getInstance ("USD"), Map.of (Currency.getInstance ("EUR"), new BigDecimal ("0.92")), LocalDateTime.now ());
+    }
 }
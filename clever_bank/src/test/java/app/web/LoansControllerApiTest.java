@@ -1,6 +1,6 @@
 package app.web;
 
-import app.customer.model.Customer;
+import app.customer.model.CustomerHeader;
 import app.customer.model.UserRole;
 import app.customer.service.CustomerService;
 import app.loans.client.dto.LoanRequest;
@@ -56,12 +56,9 @@ public class LoansControllerApiTest {
                 LocalDateTime.now (), LocalDateTime.now ()
         );
 
-        Customer customer = new Customer ();
-        customer.setId (customerId);
-        customer.setFirstName ("Venko");
-        customer.setRole (UserRole.ADMIN);
+        CustomerHeader customer = new CustomerHeader (customerId, "Venko123", "Venko", null, UserRole.ADMIN);
 
-        when (customerService.getById (customerId)).thenReturn (customer);
+        when (customerService.getHeader (customerId)).thenReturn (customer);
         when (loansService.getLoansByCustomerId (customerId)).thenReturn (Collections.emptyList ());
 
 
@@ -89,15 +86,12 @@ public class LoansControllerApiTest {
                 LocalDateTime.now(), LocalDateTime.now()
         );
 
-        Customer customer = new Customer();
-        customer.setId(customerId);
-        customer.setFirstName("Venko");
-        customer.setRole(UserRole.ADMIN);
+        CustomerHeader customer = new CustomerHeader (customerId, "Venko123", "Venko", null, UserRole.ADMIN);
 
         LoanResponse loanResponse = new LoanResponse();
         loanResponse.setLoanId(UUID.randomUUID());
 
-        when(customerService.getById(customerId)).thenReturn(customer);
+        when(customerService.getHeader(customerId)).thenReturn(customer);
         when(loansService.createLoan(any(LoanRequest.class))).thenReturn(loanResponse);
 
         mockMvc.perform(post("/loans")
@@ -125,11 +119,7 @@ public class LoansControllerApiTest {
                 LocalDateTime.now(), LocalDateTime.now()
         );
 
-        Customer customer = new Customer();
-        customer.setId(customerId);
-        customer.setUsername ("Venko123");
-        customer.setFirstName("Venelin");
-        customer.setRole(UserRole.ADMIN);
+        CustomerHeader customer = new CustomerHeader (customerId, "Venko123", "Venelin", null, UserRole.ADMIN);
 
 
         LoanResponse loan = new LoanResponse();
@@ -145,7 +135,7 @@ public class LoansControllerApiTest {
         loanRequest.setAmount(BigDecimal.valueOf(1200));
 
 
-        when(customerService.getById(customerId)).thenReturn(customer);
+        when(customerService.getHeader(customerId)).thenReturn(customer);
         when(loansService.getLoan (loanId)).thenReturn(loan);
         when (loansService.builderLoan (loan)).thenReturn(loanRequest);
 
@@ -176,8 +166,7 @@ public class LoansControllerApiTest {
                 LocalDateTime.now(), LocalDateTime.now()
         );
 
-        Customer customer = new Customer();
-        customer.setId(customerId);
+        CustomerHeader customer = new CustomerHeader (customerId, "Venko123", null, null, UserRole.ADMIN);
 
         LoanResponse loan = new LoanResponse();
         loan.setLoanId(loanId);
@@ -185,7 +174,7 @@ public class LoansControllerApiTest {
         LoanRequest loanRequest = new LoanRequest();
         loanRequest.setCustomerId (customerId);
 
-        when(customerService.getById(customerId)).thenReturn(customer);
+        when(customerService.getHeader(customerId)).thenReturn(customer);
         when(loansService.updateLoan(eq(loanId), any(LoanRequest.class))).thenReturn(loan);
 
         mockMvc.perform(post("/loans/update/{loanId}", loanId)
@@ -1,6 +1,6 @@
 package app.web;
 
-import app.customer.model.Customer;
+import app.customer.model.CustomerHeader;
 import app.customer.model.UserRole;
 import app.customer.service.CustomerService;
 import app.notification.client.dto.NotificationPreferenceResponse;
@@ -52,16 +52,9 @@ public class NotificationControllerApiTest {
                 LocalDateTime.now()
         );
 
-        Customer customer = Customer.builder()
-                .id(customerId)
-                .firstName("Venko")
-                .lastName("Davidov")
-                .email("venko@abv.bg")
-                .phoneNumber("0895121212")
-                .role(UserRole.USER)
-                .build();
+        CustomerHeader customer = new CustomerHeader (customerId, "Venko123", "Venko", "Davidov", UserRole.USER);
 
-        when (customerService.getById (customerId)).thenReturn (customer);
+        when (customerService.getHeader (customerId)).thenReturn (customer);
 
         NotificationPreferenceResponse preference = mock(NotificationPreferenceResponse.class);
         when(notificationService.getNotificationPreference(customerId)).thenReturn(preference);
@@ -93,7 +86,7 @@ public class NotificationControllerApiTest {
                                                                                         .toList ()));
 
 
-        verify (customerService, times (1)).getById (customerId);
+        verify (customerService, times (1)).getHeader (customerId);
         verify (notificationService, times (1)).getNotificationPreference (customerId);
         verify (notificationService, times (1)).getNotificationHistory (customerId);
 
@@ -0,0 +1,86 @@
+package app.web;
+
+
+import app.customer.model.UserRole;
+import app.onboarding.model.OnboardingImport;
+import app.onboarding.model.OnboardingImportStatus;
+import app.onboarding.service.OnboardingImportService;
+import app.security.AuthenticationMetadataDetails;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(OnboardingImportController.class)
+public class OnboardingImportControllerApiTest {
+
+    @MockitoBean
+    private OnboardingImportService onboardingImportService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+
+    @Test
+    void postCsvAsAdmin_thenAcceptedWithImportStatus() throws Exception {
+
+        UUID importId = UUID.randomUUID ();
+        when (onboardingImportService.startImport (any ())).thenReturn (OnboardingImport.builder ()
+                .id (importId)
+                .status (OnboardingImportStatus.RUNNING)
+                .totalLines (1)
+                .startedOn (LocalDateTime.now ())
+                .updatedOn (LocalDateTime.now ())
+                .build ());
+
+        MockHttpServletRequestBuilder request = post ("/onboarding/imports")
+                .contentType ("text/csv")
+                .content ("username,password,phone_number,country,gender\nivan,Password1,0881000001,BULGARIA,MALE\n")
+                .with (user (principal (UserRole.ADMIN)))
+                .with (csrf ());
+
+        mockMvc.perform (request)
+                .andExpect (status ().isAccepted ())
+                .andExpect (jsonPath ("$.id").value (importId.toString ()))
+                .andExpect (jsonPath ("$.status").value ("RUNNING"));
+
+        verify (onboardingImportService, times (1)).startImport (any ());
+    }
+
+
+    @Test
+    void postCsvAsUser_thenReturn404NotFound() throws Exception {
+
+        MockHttpServletRequestBuilder request = post ("/onboarding/imports")
+                .contentType ("text/csv")
+                .content ("username,password\n")
+                .with (user (principal (UserRole.USER)))
+                .with (csrf ());
+
+        mockMvc.perform (request)
+                .andExpect (status ().isNotFound ())
+                .andExpect (view ().name ("not-found"));
+
+        verifyNoInteractions (onboardingImportService);
+    }
+
+
+
+    private static AuthenticationMetadataDetails principal(UserRole role) {
+
+        return new AuthenticationMetadataDetails (UUID.randomUUID (), "Venko123", "Venelin7", role, true,
+                LocalDateTime.now (), LocalDateTime.now ());
+    }
+}
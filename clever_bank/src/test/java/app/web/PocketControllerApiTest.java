@@ -1,11 +1,15 @@
 package app.web;
 
 
+import app.balance_history.service.PocketBalanceHistoryService;
 import app.customer.model.Customer;
+import app.customer.model.CustomerHeader;
 import app.customer.model.UserRole;
 import app.customer.service.CustomerService;
+import app.pocket.service.PocketBalanceShardService;
 import app.pocket.service.PocketService;
 import app.security.AuthenticationMetadataDetails;
+import app.summary.service.PocketSummaryService;
 import app.transaction.model.TransactionStatus;
 import app.transaction.model.Transactions;
 import app.web.dto.DepositRequest;
@@ -18,6 +22,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +43,12 @@ public class PocketControllerApiTest {
     private  PocketService pocketService;
     @MockitoBean
     private  CustomerService customerService;
+    @MockitoBean
+    private  PocketSummaryService pocketSummaryService;
+    @MockitoBean
+    private  PocketBalanceShardService pocketBalanceShardService;
+    @MockitoBean
+    private  PocketBalanceHistoryService pocketBalanceHistoryService;
 
     @Autowired
     private MockMvc mockMvc;
@@ -71,7 +82,7 @@ public class PocketControllerApiTest {
         List <Transactions> expectedTransaction = List.of (new Transactions (), new Transactions (), new Transactions ());
         Map <UUID, List <Transactions>> lastSevenTransactions = Map.of (UUID.randomUUID (), expectedTransaction);
 
-        when(customerService.getById(customerId)).thenReturn(customer);
+        when(customerService.getByIdWithWallets(customerId)).thenReturn(customer);
         when (pocketService.getLastSevenTransactions (customer.getWallets ())).thenReturn (lastSevenTransactions);
 
 
@@ -117,6 +128,68 @@ public class PocketControllerApiTest {
     }
 
 
+    @Test
+    void givenRequestToOpenSavingsPocket_whenPost_thenOpenedAndRedirectToPockets() throws Exception {
+
+        UUID customerId = UUID.randomUUID();
+
+        AuthenticationMetadataDetails authDetails = new AuthenticationMetadataDetails (
+                customerId,
+                "Venko123",
+                "Venelin7",
+                UserRole.USER,
+                true,
+                LocalDateTime.now(),
+                LocalDateTime.now()
+        );
+
+        Customer customer = Customer.builder ().id (customerId).username ("Venko123").build ();
+        when (customerService.getById (customerId)).thenReturn (customer);
+
+        MockHttpServletRequestBuilder request = post ("/pockets/savings")
+                .with (csrf ())
+                .with (user (authDetails));
+
+        mockMvc.perform(request)
+                .andExpect(status().is3xxRedirection ())
+                .andExpect(redirectedUrl("/pockets"));
+        verify (pocketService, times (1)).openSavingsPocket (customer);
+    }
+
+
+
+    @Test
+    void givenRequestToBalanceHistory_whenGetWithRange_thenReturnJsonForCustomerPocket() throws Exception {
+
+        UUID customerId = UUID.randomUUID();
+        UUID pocketId = UUID.randomUUID();
+
+        AuthenticationMetadataDetails authDetails = new AuthenticationMetadataDetails (
+                customerId,
+                "Venko123",
+                "Venelin7",
+                UserRole.USER,
+                true,
+                LocalDateTime.now(),
+                LocalDateTime.now()
+        );
+
+        LocalDate from = LocalDate.of (2025, 1, 1);
+        LocalDate to = LocalDate.of (2025, 3, 31);
+        when (pocketBalanceHistoryService.getBalanceHistory (pocketId, customerId, from, to, null)).thenReturn (List.of ());
+
+        MockHttpServletRequestBuilder request = get ("/pockets/{id}/balance-history", pocketId)
+                .param ("from", "2025-01-01")
+                .param ("to", "2025-03-31")
+                .with (user (authDetails));
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk ())
+                .andExpect(content().json ("[]"));
+        verify (pocketBalanceHistoryService, times (1)).getBalanceHistory (pocketId, customerId, from, to, null);
+    }
+
+
 
     @Test
     void givenRequestToDepositForm_whenGetRequest_thenReturnDepositForm() throws Exception {
@@ -134,18 +207,9 @@ public class PocketControllerApiTest {
                 LocalDateTime.now()
         );
 
-        Customer customer = Customer.builder()
-                .id(customerId)
-                .firstName("Venko")
-                .lastName("Davidov")
-                .email("venko@abv.bg")
-                .phoneNumber("0895121212")
-                .role (UserRole.ADMIN)
-                .profilePicture("https://example.com/profile.jpg")
-                .address("Sofia")
-                .build();
+        CustomerHeader customer = new CustomerHeader (customerId, "Venko123", "Venko", "Davidov", UserRole.ADMIN);
 
-        when (customerService.getById (authDetails.getCustomerId ())).thenReturn (customer);
+        when (customerService.getHeader (authDetails.getCustomerId ())).thenReturn (customer);
 
         MockHttpServletRequestBuilder request = get ("/pockets/{id}/deposit-form", pocketId)
                 .with (user (authDetails))
@@ -0,0 +1,132 @@
+package app.web;
+
+import app.customer.model.Customer;
+import app.customer.model.UserRole;
+import app.customer.service.CustomerService;
+import app.security.AuthenticationMetadataDetails;
+import app.standing_order.service.StandingOrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StandingOrderController.class)
+public class StandingOrderControllerApiTest {
+
+    @MockitoBean
+    private StandingOrderService standingOrderService;
+    @MockitoBean
+    private CustomerService customerService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+
+    @Test
+    void givenRequestToStandingOrdersPage_whenGet_thenReturnPageWithOrders() throws Exception {
+
+        AuthenticationMetadataDetails authDetails = authDetails ();
+        Customer customer = Customer.builder ().id (authDetails.getCustomerId ()).username ("Venko123").role (UserRole.USER).build ();
+
+        when (customerService.getByIdWithWallets (authDetails.getCustomerId ())).thenReturn (customer);
+        when (standingOrderService.getAllByCustomer (customer.getId ())).thenReturn (List.of ());
+
+        MockHttpServletRequestBuilder request = get ("/standing-orders")
+                .with (user (authDetails));
+
+        mockMvc.perform (request)
+                .andExpect (status ().isOk ())
+                .andExpect (view ().name ("standing-orders"))
+                .andExpect (model ().attributeExists ("customer", "standingOrders", "standingOrderRequest"));
+    }
+
+
+    @Test
+    void givenValidStandingOrder_whenPost_thenCreateAndRedirect() throws Exception {
+
+        AuthenticationMetadataDetails authDetails = authDetails ();
+        Customer customer = Customer.builder ().id (authDetails.getCustomerId ()).username ("Venko123").role (UserRole.USER).build ();
+        when (customerService.getByIdWithWallets (authDetails.getCustomerId ())).thenReturn (customer);
+
+        MockHttpServletRequestBuilder request = post ("/standing-orders")
+                .param ("pocketId", UUID.randomUUID ().toString ())
+                .param ("username", "landlord")
+                .param ("amount", "450.00")
+                .param ("frequency", "MONTHLY")
+                .param ("startDate", LocalDate.now ().plusDays (1).toString ())
+                .with (user (authDetails))
+                .with (csrf ());
+
+        mockMvc.perform (request)
+                .andExpect (status ().is3xxRedirection ())
+                .andExpect (redirectedUrl ("/standing-orders"));
+
+        verify (standingOrderService, times (1)).createStandingOrder (any (), eq (customer));
+    }
+
+
+    @Test
+    void givenStartDateInThePast_whenPost_thenFormIsShownAgain() throws Exception {
+
+        AuthenticationMetadataDetails authDetails = authDetails ();
+        Customer customer = Customer.builder ().id (authDetails.getCustomerId ()).username ("Venko123").role (UserRole.USER).build ();
+        when (customerService.getByIdWithWallets (authDetails.getCustomerId ())).thenReturn (customer);
+
+        MockHttpServletRequestBuilder request = post ("/standing-orders")
+                .param ("pocketId", UUID.randomUUID ().toString ())
+                .param ("username", "landlord")
+                .param ("amount", "450.00")
+                .param ("frequency", "MONTHLY")
+                .param ("startDate", LocalDate.now ().minusDays (3).toString ())
+                .with (user (authDetails))
+                .with (csrf ());
+
+        mockMvc.perform (request)
+                .andExpect (status ().isOk ())
+                .andExpect (view ().name ("standing-orders"))
+                .andExpect (model ().attributeHasFieldErrors ("standingOrderRequest", "startDate"));
+
+        verify (standingOrderService, never ()).createStandingOrder (any (), any ());
+    }
+
+
+    @Test
+    void givenActiveStandingOrder_whenCancel_thenRedirect() throws Exception {
+
+        AuthenticationMetadataDetails authDetails = authDetails ();
+        UUID standingOrderId = UUID.randomUUID ();
+
+        MockHttpServletRequestBuilder request = delete ("/standing-orders/" + standingOrderId)
+                .with (user (authDetails))
+                .with (csrf ());
+
+        mockMvc.perform (request)
+                .andExpect (status ().is3xxRedirection ())
+                .andExpect (redirectedUrl ("/standing-orders"));
+
+        verify (standingOrderService, times (1)).cancel (standingOrderId, authDetails.getCustomerId ());
+    }
+
+
+
+    private static AuthenticationMetadataDetails authDetails() {
+
+        return new AuthenticationMetadataDetails (
+                UUID.randomUUID (), "Venko123", "Venelin7", UserRole.USER, true, LocalDateTime.now (), LocalDateTime.now ());
+    }
+}
@@ -0,0 +1,174 @@
+package app.web;
+
+import app.customer.model.CustomerHeader;
+import app.customer.model.UserRole;
+import app.customer.service.CustomerService;
+import app.security.AuthenticationMetadataDetails;
+import app.transaction.model.ExportFormat;
+import app.transaction.service.TransactionExportService;
+import app.transaction.service.TransactionService;
+import app.web.dto.TransactionHistoryPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TransactionController.class)
+public class TransactionControllerApiTest {
+
+    @MockitoBean
+    private TransactionService transactionService;
+    @MockitoBean
+    private CustomerService customerService;
+    @MockitoBean
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+
+    @Test
+    void givenRequestToTransactionsPage_whenNoCursor_thenReturnLatestPage() throws Exception {
+
+        UUID customerId = UUID.randomUUID ();
+
+        AuthenticationMetadataDetails authDetails = new AuthenticationMetadataDetails (
+                customerId,
+                "Venko123",
+                "Venelin7",
+                UserRole.USER,
+                true,
+                LocalDateTime.now (),
+                LocalDateTime.now ()
+        );
+
+        CustomerHeader customer = new CustomerHeader (customerId, "Venko123", null, null, UserRole.USER);
+
+        TransactionHistoryPage page = TransactionHistoryPage.builder ()
+                .transactions (List.of ())
+                .build ();
+
+        when (customerService.getHeader (customerId)).thenReturn (customer);
+        when (transactionService.getTransactionHistoryPage (customerId, null, null, 20)).thenReturn (page);
+
+        MockHttpServletRequestBuilder request = get ("/transactions")
+                .with (user (authDetails))
+                .with (csrf ());
+
+        mockMvc.perform (request)
+                .andExpect (status ().isOk ())
+                .andExpect (view ().name ("transactions"))
+                .andExpect (model ().attributeExists ("customer", "transactions", "transactionPage"))
+                .andExpect (model ().attribute ("firstPage", true));
+
+        verify (transactionService, times (1)).getTransactionHistoryPage (customerId, null, null, 20);
+    }
+
+
+
+    @Test
+    void givenRequestToTransactionsPage_whenCursorPresent_thenReturnOlderPage() throws Exception {
+
+        UUID customerId = UUID.randomUUID ();
+        UUID beforeId = UUID.randomUUID ();
+        LocalDateTime before = LocalDateTime.of (2025, 3, 14, 10, 15, 30, 123456000);
+
+        AuthenticationMetadataDetails authDetails = new AuthenticationMetadataDetails (
+                customerId,
+                "Venko123",
+                "Venelin7",
+                UserRole.USER,
+                true,
+                LocalDateTime.now (),
+                LocalDateTime.now ()
+        );
+
+        CustomerHeader customer = new CustomerHeader (customerId, "Venko123", null, null, UserRole.USER);
+
+        TransactionHistoryPage page = TransactionHistoryPage.builder ()
+                .transactions (List.of ())
+                .nextBefore (before.minusDays (1))
+                .nextBeforeId (UUID.randomUUID ())
+                .size (10)
+                .build ();
+
+        when (customerService.getHeader (customerId)).thenReturn (customer);
+        when (transactionService.getTransactionHistoryPage (customerId, before, beforeId, 10)).thenReturn (page);
+
+        MockHttpServletRequestBuilder request = get ("/transactions")
+                .param ("before", before.toString ())
+                .param ("beforeId", beforeId.toString ())
+                .param ("size", "10")
+                .with (user (authDetails))
+                .with (csrf ());
+
+        mockMvc.perform (request)
+                .andExpect (status ().isOk ())
+                .andExpect (view ().name ("transactions"))
+                .andExpect (model ().attribute ("firstPage", false))
+                .andExpect (content ().string (containsString ("size=10")));
+
+        verify (transactionService, times (1)).getTransactionHistoryPage (customerId, before, beforeId, 10);
+    }
+
+
+
+    @Test
+    void givenRequestToExport_whenNdjsonWithDateRange_thenStreamAttachment() throws Exception {
+
+        UUID customerId = UUID.randomUUID ();
+
+        AuthenticationMetadataDetails authDetails = new AuthenticationMetadataDetails (
+                customerId,
+                "Venko123",
+                "Venelin7",
+                UserRole.USER,
+                true,
+                LocalDateTime.now (),
+                LocalDateTime.now ()
+        );
+
+        LocalDate from = LocalDate.of (2025, 1, 1);
+        LocalDate to = LocalDate.of (2025, 1, 31);
+
+        doAnswer (invocation -> {
+            OutputStream out = invocation.getArgument (4);
+            out.write ("{}\n".getBytes ());
+            return null;
+        }).when (transactionExportService).export (eq (customerId), eq (from), eq (to), eq (ExportFormat.NDJSON), any ());
+
+        MockHttpServletRequestBuilder request = get ("/transactions/export")
+                .param ("format", "ndjson")
+                .param ("from", "2025-01-01")
+                .param ("to", "2025-01-31")
+                .with (user (authDetails));
+
+        var result = mockMvc.perform (request)
+                .andExpect (request ().asyncStarted ())
+                .andReturn ();
+
+        mockMvc.perform (asyncDispatch (result))
+                .andExpect (status ().isOk ())
+                .andExpect (header ().string ("Content-Disposition", "attachment; filename=\"transactions.ndjson\""))
+                .andExpect (content ().contentType ("application/x-ndjson"))
+                .andExpect (content ().string ("{}\n"));
+    }
+}
@@ -3,8 +3,11 @@ package app.web;
 import app.customer.model.Customer;
 import app.customer.model.UserRole;
 import app.customer.service.CustomerService;
+import app.pocket.service.BatchTransferService;
 import app.pocket.service.PocketService;
 import app.security.AuthenticationMetadataDetails;
+import app.transaction.model.TransactionStatus;
+import app.web.dto.BatchTransferResult;
 import app.web.dto.TransferResultRequest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,10 +19,13 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -31,6 +37,8 @@ public class TransferControllerApiTest {
     private  PocketService pocketService;
     @MockitoBean
     private  CustomerService customerService;
+    @MockitoBean
+    private  BatchTransferService batchTransferService;
 
     @Autowired
     private MockMvc mockMvc;
@@ -68,7 +76,7 @@ public class TransferControllerApiTest {
                 .amount (BigDecimal.valueOf (100))
                 .build();
 
-        when(customerService.getById (authDetails.getCustomerId ())).thenReturn (customer);
+        when(customerService.getByIdWithWallets (authDetails.getCustomerId ())).thenReturn (customer);
 
         MockHttpServletRequestBuilder request = get ("/transfers")
                 .with (user(authDetails))
@@ -81,7 +89,64 @@ public class TransferControllerApiTest {
                 .andExpect(model().attributeExists("transferResultRequest"))
                 .andExpect(model().attribute("transferResultRequest", new TransferResultRequest()));
 
-        verify (customerService,times (1)).getById (customer.getId ());
+        verify (customerService,times (1)).getByIdWithWallets (customer.getId ());
+
+    }
+
+
+
+    @Test
+    void givenBatchTransferRequest_whenPostBatch_thenReturnPerLineResults() throws Exception {
+
+        UUID customerId = UUID.randomUUID ();
+        Customer customer = Customer.builder ().id (customerId).username ("Venko123").role (UserRole.USER).build ();
+
+        AuthenticationMetadataDetails authDetails = new AuthenticationMetadataDetails (
+                customerId, "Venko123", "Venelin7", UserRole.USER, true, LocalDateTime.now (), LocalDateTime.now ());
+
+        when (customerService.getReference (customerId)).thenReturn (customer);
+        when (batchTransferService.transfer (any (), eq (customer))).thenReturn (BatchTransferResult.builder ()
+                .status (TransactionStatus.SUCCEEDED)
+                .totalDebited (new BigDecimal ("150"))
+                .succeeded (2)
+                .lines (List.of ())
+                .build ());
+
+        String body = """
+                {"pocketId": "%s", "lines": [{"username": "anna", "amount": 100}, {"username": "ivan", "amount": 50}]}
+                """.formatted (UUID.randomUUID ());
+
+        MockHttpServletRequestBuilder request = post ("/transfers/batch")
+                .contentType ("application/json")
+                .content (body)
+                .with (user (authDetails))
+                .with (csrf ());
+
+        mockMvc.perform (request)
+                .andExpect (status ().isOk ())
+                .andExpect (jsonPath ("$.status").value ("SUCCEEDED"))
+                .andExpect (jsonPath ("$.succeeded").value (2));
+
+        verify (batchTransferService, times (1)).transfer (any (), eq (customer));
+    }
+
+
+    @Test
+    void givenBatchWithoutLines_whenPostBatch_thenBadRequest() throws Exception {
+
+        UUID customerId = UUID.randomUUID ();
+        AuthenticationMetadataDetails authDetails = new AuthenticationMetadataDetails (
+                customerId, "Venko123", "Venelin7", UserRole.USER, true, LocalDateTime.now (), LocalDateTime.now ());
+
+        MockHttpServletRequestBuilder request = post ("/transfers/batch")
+                .contentType ("application/json")
+                .content ("{\"pocketId\": \"%s\", \"lines\": []}".formatted (UUID.randomUUID ()))
+                .with (user (authDetails))
+                .with (csrf ());
+
+        mockMvc.perform (request)
+                .andExpect (status ().isBadRequest ());
 
+        verifyNoInteractions (batchTransferService);
     }
 }